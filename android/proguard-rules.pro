@@ -68,17 +68,6 @@
 -keepnames class org.bouncycastle.** { *; }
 -dontwarn org.bouncycastle.**
 
-# EventBus
--keepclassmembers class * {
-    @org.greenrobot.eventbus.Subscribe <methods>;
-}
--keep enum org.greenrobot.eventbus.ThreadMode { *; }
-
-# Only required if you use AsyncExecutor
--keepclassmembers class * extends org.greenrobot.eventbus.util.ThrowableFailureEvent {
-    <init>(java.lang.Throwable);
-}
-
 # OkHttp3
 -dontwarn okio.**
 -dontwarn okhttp3.**
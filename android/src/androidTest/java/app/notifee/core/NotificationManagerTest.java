@@ -0,0 +1,215 @@
+package app.notifee.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import androidx.core.app.NotificationCompat;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import app.notifee.core.model.NotificationModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationManagerTest {
+  private static final int CONCURRENT_DISPLAYS = 500;
+
+  @Before
+  public void setUp() {
+    ContextHolder.setApplicationContext(
+        InstrumentationRegistry.getInstrumentation().getTargetContext());
+  }
+
+  private static NotificationModel notificationModel(int index, String imageUrl) {
+    Bundle android = new Bundle();
+    android.putString("channelId", "test");
+    android.putString("largeIcon", imageUrl + "/large-icon-" + index + ".png");
+
+    Bundle notification = new Bundle();
+    notification.putString("id", "concurrent-" + index);
+    notification.putString("title", "Notification " + index);
+    notification.putBundle("android", android);
+    return NotificationModel.fromBundle(notification);
+  }
+
+  @Test
+  public void testDisplaysWaitingOnImagesHoldNoDisplayThreads() throws Exception {
+    ThreadPoolExecutor displayExecutor =
+        (ThreadPoolExecutor) NotifeeExecutors.get(NotifeeExecutors.Lane.DISPLAY);
+    ThreadPoolExecutor imageExecutor =
+        (ThreadPoolExecutor) NotifeeExecutors.get(NotifeeExecutors.Lane.IMAGE);
+
+    // a server which accepts connections but never answers, so every image fetch stalls
+    List<Socket> connections = Collections.synchronizedList(new ArrayList<>());
+    ServerSocket server =
+        new ServerSocket(0, CONCURRENT_DISPLAYS, InetAddress.getLoopbackAddress());
+    Thread acceptThread =
+        new Thread(
+            () -> {
+              try {
+                while (!server.isClosed()) {
+                  connections.add(server.accept());
+                }
+              } catch (IOException e) {
+                // closed
+              }
+            });
+    acceptThread.start();
+
+    try {
+      String imageUrl = "https://127.0.0.1:" + server.getLocalPort();
+      List<Task<NotificationCompat.Builder>> builderTasks = new ArrayList<>();
+      for (int i = 0; i < CONCURRENT_DISPLAYS; i++) {
+        NotificationModel notificationModel = notificationModel(i, imageUrl);
+        builderTasks.add(
+            NotificationManager.notificationBundleToBuilder(
+                notificationModel,
+                NotificationManager.fetchNotificationImages(
+                    Collections.singletonList(notificationModel)),
+                displayExecutor));
+      }
+
+      // once the initial builders are created, no display thread is left waiting on the images
+      long deadline = SystemClock.elapsedRealtime() + TimeUnit.SECONDS.toMillis(5);
+      while ((displayExecutor.getActiveCount() > 0 || !displayExecutor.getQueue().isEmpty())
+          && SystemClock.elapsedRealtime() < deadline) {
+        Thread.sleep(10);
+      }
+
+      assertEquals(0, displayExecutor.getActiveCount());
+      assertTrue(displayExecutor.getQueue().isEmpty());
+      for (Task<NotificationCompat.Builder> builderTask : builderTasks) {
+        assertFalse(builderTask.isComplete());
+      }
+
+      // image threads do block on the network, but only up to the size of the image lane, with
+      // the remaining fetches queued behind them
+      assertEquals(imageExecutor.getMaximumPoolSize(), imageExecutor.getActiveCount());
+      assertFalse(imageExecutor.getQueue().isEmpty());
+      assertTrue(countNotifeeThreads() <= getMaxNotifeeThreads());
+
+      // the shared deadline completes every builder, without its image, however many fetches
+      // are still queued
+      Tasks.await(Tasks.whenAllSuccess(builderTasks), 30, TimeUnit.SECONDS);
+
+      assertTrue(displayExecutor.getLargestPoolSize() <= displayExecutor.getMaximumPoolSize());
+      assertTrue(imageExecutor.getLargestPoolSize() <= imageExecutor.getMaximumPoolSize());
+      assertTrue(countNotifeeThreads() <= getMaxNotifeeThreads());
+    } finally {
+      // refuse the fetches still queued, so they fail fast rather than stall later tests
+      server.close();
+      synchronized (connections) {
+        for (Socket connection : connections) {
+          connection.close();
+        }
+      }
+      acceptThread.join();
+    }
+  }
+
+  @Test
+  public void testMalformedNotificationFailsOnlyWhenBuilt() throws Exception {
+    Bundle android = new Bundle();
+    android.putString("channelId", "test");
+    android.putStringArrayList(
+        "vibrationPattern", new ArrayList<>(Collections.singletonList("not a number")));
+
+    Bundle notification = new Bundle();
+    notification.putString("id", "malformed");
+    notification.putBundle("android", android);
+
+    // reading the model is lenient, so stored and delivered notifications can still be read
+    NotificationModel notificationModel = NotificationModel.fromBundle(notification);
+    assertEquals("malformed", notificationModel.getId());
+    assertEquals(0, notificationModel.getAndroid().getVibrationPattern().length);
+
+    Task<NotificationCompat.Builder> builderTask =
+        NotificationManager.notificationBundleToBuilder(
+            notificationModel,
+            Tasks.forResult(Collections.emptyMap()),
+            NotifeeExecutors.get(NotifeeExecutors.Lane.DISPLAY));
+    try {
+      Tasks.await(builderTask, 30, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+  }
+
+  @Test
+  public void testDisplayNotificationsReportsMalformedEntries() throws Exception {
+    Bundle android = new Bundle();
+    android.putString("channelId", "test");
+    android.putStringArrayList(
+        "vibrationPattern", new ArrayList<>(Collections.singletonList("not a number")));
+
+    Bundle malformed = new Bundle();
+    malformed.putString("id", "malformed");
+    malformed.putBundle("android", android);
+
+    List<Bundle> results =
+        Tasks.await(
+            NotificationManager.displayNotifications(Arrays.asList(malformed, null)),
+            30,
+            TimeUnit.SECONDS);
+
+    assertEquals(2, results.size());
+    assertEquals("malformed", results.get(0).getString("id"));
+    assertTrue(results.get(0).containsKey("error"));
+    assertTrue(results.get(1).containsKey("error"));
+  }
+
+  @Test
+  public void testModelIsNotChangedByItsBundle() {
+    Bundle android = new Bundle();
+    android.putString("channelId", "test");
+
+    Bundle notification = new Bundle();
+    notification.putString("id", "copied");
+    notification.putBundle("android", android);
+    NotificationModel notificationModel = NotificationModel.fromBundle(notification);
+
+    notification.putString("id", "changed");
+    android.putString("channelId", "changed");
+
+    assertEquals("copied", notificationModel.toBundle().getString("id"));
+    assertEquals("test", notificationModel.toBundle().getBundle("android").getString("channelId"));
+  }
+
+  private static int getMaxNotifeeThreads() {
+    // the lanes, the timer thread and the event thread
+    int max = 2;
+    for (NotifeeExecutors.Lane lane : NotifeeExecutors.Lane.values()) {
+      max += ((ThreadPoolExecutor) NotifeeExecutors.get(lane)).getMaximumPoolSize();
+    }
+    return max;
+  }
+
+  private static int countNotifeeThreads() {
+    int count = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith("notifee-")) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,115 @@
+package app.notifee.core.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import com.google.android.gms.tasks.Tasks;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(AndroidJUnit4.class)
+public class EventJournalRepositoryTest {
+  private static final byte[] NOTIFICATION = new byte[] {1, 2, 3};
+
+  private NotifeeCoreDatabase mDatabase;
+  private EventJournalRepository mRepository;
+
+  @Before
+  public void before() {
+    mDatabase =
+        Room.inMemoryDatabaseBuilder(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                NotifeeCoreDatabase.class)
+            .build();
+    mRepository = new EventJournalRepository(mDatabase);
+  }
+
+  @After
+  public void after() {
+    mDatabase.close();
+  }
+
+  @Test
+  public void testGetAllReturnsEventsInOrderPosted() throws Exception {
+    Tasks.await(mRepository.append("b", 3, NOTIFICATION, null));
+    Tasks.await(mRepository.append("a", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.append("c", 0, NOTIFICATION, null));
+
+    List<EventJournalEntity> events = Tasks.await(mRepository.getAll());
+    assertEquals(3, events.size());
+    assertEquals("b", events.get(0).getEventId());
+    assertEquals("a", events.get(1).getEventId());
+    assertEquals("c", events.get(2).getEventId());
+  }
+
+  @Test
+  public void testEventsReadButNotAcknowledgedAreKept() throws Exception {
+    Tasks.await(mRepository.append("a", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.append("b", 1, NOTIFICATION, null));
+
+    // a replay which fails before delivering, and so never acknowledges
+    assertEquals(2, Tasks.await(mRepository.getAll()).size());
+
+    List<EventJournalEntity> events = Tasks.await(mRepository.getAll());
+    assertEquals(2, events.size());
+    assertEquals("a", events.get(0).getEventId());
+    assertEquals("b", events.get(1).getEventId());
+  }
+
+  @Test
+  public void testAcknowledgeRemovesOnlyDeliveredEvents() throws Exception {
+    Tasks.await(mRepository.append("a", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.append("b", 1, NOTIFICATION, null));
+    List<EventJournalEntity> read = Tasks.await(mRepository.getAll());
+
+    // posted after the journal was read, so not delivered by that replay
+    Tasks.await(mRepository.append("c", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.acknowledge(read.get(read.size() - 1).getSequence()));
+
+    List<EventJournalEntity> events = Tasks.await(mRepository.getAll());
+    assertEquals(1, events.size());
+    assertEquals("c", events.get(0).getEventId());
+
+    Tasks.await(mRepository.acknowledge(events.get(0).getSequence()));
+    assertTrue(Tasks.await(mRepository.getAll()).isEmpty());
+  }
+
+  @Test
+  public void testIdenticalEventsWithDifferentIdsAreKept() throws Exception {
+    Tasks.await(mRepository.append("press-1", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.append("press-2", 1, NOTIFICATION, null));
+
+    assertEquals(2, Tasks.await(mRepository.getAll()).size());
+  }
+
+  @Test
+  public void testRedeliveredEventIsKeptOnceAtItsPosition() throws Exception {
+    Tasks.await(mRepository.append("a", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.append("b", 1, NOTIFICATION, null));
+    Tasks.await(mRepository.append("a", 1, NOTIFICATION, null));
+
+    List<EventJournalEntity> events = Tasks.await(mRepository.getAll());
+    assertEquals(2, events.size());
+    assertEquals("a", events.get(0).getEventId());
+    assertEquals("b", events.get(1).getEventId());
+  }
+
+  @Test
+  public void testKeepsMostRecentEventsUpToLimit() throws Exception {
+    int count = EventJournalRepository.MAX_EVENTS + 20;
+    for (int i = 0; i < count; i++) {
+      Tasks.await(mRepository.append("event-" + i, 3, NOTIFICATION, null));
+    }
+
+    List<EventJournalEntity> events = Tasks.await(mRepository.getAll());
+    assertEquals(EventJournalRepository.MAX_EVENTS, events.size());
+    assertEquals("event-20", events.get(0).getEventId());
+    assertEquals("event-" + (count - 1), events.get(events.size() - 1).getEventId());
+  }
+}
@@ -1,6 +1,10 @@
 package app.notifee.core.database;
 
 import static app.notifee.core.database.NotifeeCoreDatabase.MIGRATION_1_2;
+import static app.notifee.core.database.NotifeeCoreDatabase.MIGRATION_2_3;
+import static app.notifee.core.database.NotifeeCoreDatabase.MIGRATION_3_4;
+import static app.notifee.core.database.NotifeeCoreDatabase.MIGRATION_4_5;
+import static app.notifee.core.database.NotifeeCoreDatabase.MIGRATION_5_6;
 
 import androidx.room.Room;
 import androidx.room.migration.Migration;
@@ -51,5 +55,8 @@ public class NotifeeCoreDatabaseTest {
   }
 
   // Array of all migrations
-  private static final Migration[] ALL_MIGRATIONS = new Migration[] {MIGRATION_1_2};
+  private static final Migration[] ALL_MIGRATIONS =
+      new Migration[] {
+        MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6
+      };
 }
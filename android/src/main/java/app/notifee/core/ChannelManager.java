@@ -37,118 +37,122 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class ChannelManager {
   private static String TAG = "ChannelManager";
-  private static ExecutorService executorService = Executors.newCachedThreadPool();
+  // bulk creation runs on a lane of its own, so it does not hold up single ones
+  private static ExecutorService bulkExecutorService =
+      NotifeeExecutors.get(NotifeeExecutors.Lane.MAINTENANCE);
 
   static Task<Void> createChannel(ChannelModel channelModel) {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
-          if (Build.VERSION.SDK_INT < 26) {
-            return null;
-          }
-
-          NotificationChannel channel =
-              new NotificationChannel(
-                  channelModel.getId(), channelModel.getName(), channelModel.getImportance());
-
-          channel.setShowBadge(channelModel.getBadge());
-          channel.setBypassDnd(channelModel.getBypassDnd());
-          channel.setDescription(channelModel.getDescription());
-          channel.setGroup(channelModel.getGroupId());
-          channel.enableLights(channelModel.getLights());
-
-          if (channelModel.getLightColor() != null) {
-            channel.setLightColor(channelModel.getLightColor());
-          }
-
-          channel.setLockscreenVisibility(channelModel.getVisibility());
-          channel.enableVibration(channelModel.getVibration());
-
-          long[] vibrationPattern = channelModel.getVibrationPattern();
-          if (vibrationPattern.length > 0) {
-            channel.setVibrationPattern(vibrationPattern);
-          }
-
-          if (channelModel.getSound() != null) {
-            Uri soundUri = ResourceUtils.getSoundUri(channelModel.getSound());
-            if (soundUri != null) {
-              AudioAttributes audioAttributes =
-                  new AudioAttributes.Builder()
-                      .setUsage(AudioAttributes.USAGE_NOTIFICATION)
-                      .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                      .build();
-              channel.setSound(soundUri, audioAttributes);
-            } else {
-              Logger.w(
-                  TAG,
-                  "Unable to retrieve sound for channel, sound was specified as: "
-                      + channel.getSound());
-            }
-          } else {
-            channel.setSound(null, null);
-          }
-
-          NotificationManagerCompat.from(ContextHolder.getApplicationContext())
-              .createNotificationChannel(channel);
-
+          createNotificationChannel(channelModel);
           return null;
         });
   }
 
   static Task<Void> createChannels(List<ChannelModel> channelModels) {
     return Tasks.call(
-        executorService,
+        bulkExecutorService,
         () -> {
+          // created in place, rather than waiting on a task per channel
           for (ChannelModel channelModel : channelModels) {
-            Tasks.await(createChannel(channelModel));
+            createNotificationChannel(channelModel);
           }
 
           return null;
         });
   }
 
-  static Task<Void> createChannelGroup(ChannelGroupModel channelGroupModel) {
-    return Tasks.call(
-        executorService,
-        () -> {
-          if (Build.VERSION.SDK_INT < 26) {
-            return null;
-          }
+  private static void createNotificationChannel(ChannelModel channelModel) {
+    if (Build.VERSION.SDK_INT < 26) {
+      return;
+    }
 
-          NotificationChannelGroup notificationChannelGroup =
-              new NotificationChannelGroup(channelGroupModel.getId(), channelGroupModel.getName());
+    NotificationChannel channel =
+        new NotificationChannel(
+            channelModel.getId(), channelModel.getName(), channelModel.getImportance());
 
-          if (Build.VERSION.SDK_INT >= 28 && channelGroupModel.getDescription() != null) {
-            notificationChannelGroup.setDescription(channelGroupModel.getDescription());
-          }
+    channel.setShowBadge(channelModel.getBadge());
+    channel.setBypassDnd(channelModel.getBypassDnd());
+    channel.setDescription(channelModel.getDescription());
+    channel.setGroup(channelModel.getGroupId());
+    channel.enableLights(channelModel.getLights());
+
+    if (channelModel.getLightColor() != null) {
+      channel.setLightColor(channelModel.getLightColor());
+    }
 
-          NotificationManagerCompat.from(ContextHolder.getApplicationContext())
-              .createNotificationChannelGroup(notificationChannelGroup);
+    channel.setLockscreenVisibility(channelModel.getVisibility());
+    channel.enableVibration(channelModel.getVibration());
 
+    long[] vibrationPattern = channelModel.getVibrationPattern();
+    if (vibrationPattern.length > 0) {
+      channel.setVibrationPattern(vibrationPattern);
+    }
+
+    if (channelModel.getSound() != null) {
+      Uri soundUri = ResourceUtils.getSoundUri(channelModel.getSound());
+      if (soundUri != null) {
+        AudioAttributes audioAttributes =
+            new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_NOTIFICATION)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        channel.setSound(soundUri, audioAttributes);
+      } else {
+        Logger.w(
+            TAG,
+            "Unable to retrieve sound for channel, sound was specified as: "
+                + channel.getSound());
+      }
+    } else {
+      channel.setSound(null, null);
+    }
+
+    NotificationManagerCompat.from(ContextHolder.getApplicationContext())
+        .createNotificationChannel(channel);
+  }
+
+  static Task<Void> createChannelGroup(ChannelGroupModel channelGroupModel) {
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
+        () -> {
+          createNotificationChannelGroup(channelGroupModel);
           return null;
         });
   }
 
   static Task<Void> createChannelGroups(List<ChannelGroupModel> channelGroupModels) {
     return Tasks.call(
-        executorService,
+        bulkExecutorService,
         () -> {
-          if (Build.VERSION.SDK_INT < 26) {
-            return null;
-          }
-
           for (ChannelGroupModel channelGroupModel : channelGroupModels) {
-            Tasks.await(createChannelGroup(channelGroupModel));
+            createNotificationChannelGroup(channelGroupModel);
           }
 
           return null;
         });
   }
 
+  private static void createNotificationChannelGroup(ChannelGroupModel channelGroupModel) {
+    if (Build.VERSION.SDK_INT < 26) {
+      return;
+    }
+
+    NotificationChannelGroup notificationChannelGroup =
+        new NotificationChannelGroup(channelGroupModel.getId(), channelGroupModel.getName());
+
+    if (Build.VERSION.SDK_INT >= 28 && channelGroupModel.getDescription() != null) {
+      notificationChannelGroup.setDescription(channelGroupModel.getDescription());
+    }
+
+    NotificationManagerCompat.from(ContextHolder.getApplicationContext())
+        .createNotificationChannelGroup(notificationChannelGroup);
+  }
+
   static void deleteChannel(@NonNull String channelId) {
     NotificationManagerCompat.from(ContextHolder.getApplicationContext())
         .deleteNotificationChannel(channelId);
@@ -160,8 +164,8 @@ public class ChannelManager {
   }
 
   static Task<List<Bundle>> getChannels() {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
           List<NotificationChannel> channels =
               NotificationManagerCompat.from(ContextHolder.getApplicationContext())
@@ -181,8 +185,8 @@ public class ChannelManager {
   }
 
   static Task<Bundle> getChannel(String channelId) {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
           NotificationChannel channel =
               NotificationManagerCompat.from(ContextHolder.getApplicationContext())
@@ -193,8 +197,8 @@ public class ChannelManager {
   }
 
   static Task<Boolean> isChannelBlocked(String channelId) {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
           if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return false;
 
@@ -211,8 +215,8 @@ public class ChannelManager {
   }
 
   static Task<Boolean> isChannelCreated(String channelId) {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
           if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return false;
 
@@ -225,8 +229,8 @@ public class ChannelManager {
   }
 
   static Task<List<Bundle>> getChannelGroups() {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
           List<NotificationChannelGroup> channelGroups =
               NotificationManagerCompat.from(ContextHolder.getApplicationContext())
@@ -246,8 +250,8 @@ public class ChannelManager {
   }
 
   static Task<Bundle> getChannelGroup(String channelGroupId) {
-    return Tasks.call(
-        executorService,
+    return NotifeeExecutors.call(
+        NotifeeExecutors.Lane.IO,
         () -> {
           NotificationChannelGroup channelGroup =
               NotificationManagerCompat.from(ContextHolder.getApplicationContext())
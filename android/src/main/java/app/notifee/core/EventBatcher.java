@@ -0,0 +1,136 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects events sent to a host into batches, so a burst of events, such as from displaying or
+ * cancelling many notifications at once, crosses to the host in one call rather than one per event.
+ *
+ * <p>A batch is delivered once it reaches the size threshold, or once the window has passed since
+ * its first event. Batches are delivered one at a time and in order, each holding its events in the
+ * order they were added. Batching is off until configured with a window.
+ */
+@KeepForSdk
+public class EventBatcher<T> {
+  public static final int DEFAULT_MAX_SIZE = 100;
+
+  @KeepForSdk
+  public interface BatchListener<T> {
+    /** Called on the thread of the event completing a batch, or on the timer thread */
+    @KeepForSdk
+    void onBatch(@NonNull List<T> events);
+  }
+
+  private final BatchListener<T> mListener;
+  // guards the pending events and the configuration
+  private final Object mLock = new Object();
+  // held while a batch is taken and delivered, so batches never overtake one another
+  private final Object mDeliveryLock = new Object();
+
+  private List<T> mPending = new ArrayList<>();
+  private ScheduledFuture<?> mWindowFuture;
+  private long mWindowMillis;
+  private int mMaxSize = DEFAULT_MAX_SIZE;
+
+  @KeepForSdk
+  public EventBatcher(@NonNull BatchListener<T> listener) {
+    mListener = listener;
+  }
+
+  /**
+   * @param windowMillis how long the first event of a batch may wait for others, or 0 to turn
+   *     batching off, delivering any events waiting
+   * @param maxSize the number of events which completes a batch before its window has passed
+   */
+  @KeepForSdk
+  public void configure(long windowMillis, int maxSize) {
+    synchronized (mLock) {
+      mWindowMillis = Math.max(0, windowMillis);
+      mMaxSize = Math.max(1, maxSize);
+    }
+
+    if (windowMillis <= 0) {
+      flush();
+    }
+  }
+
+  @KeepForSdk
+  public boolean isEnabled() {
+    synchronized (mLock) {
+      return mWindowMillis > 0;
+    }
+  }
+
+  /**
+   * Adds an event to the current batch.
+   *
+   * @return false if batching is off, in which case the event is not kept and should be delivered
+   *     on its own
+   */
+  @KeepForSdk
+  public boolean add(@NonNull T event) {
+    boolean isFull;
+
+    synchronized (mLock) {
+      if (mWindowMillis <= 0) {
+        return false;
+      }
+
+      mPending.add(event);
+      if (mPending.size() == 1) {
+        mWindowFuture =
+            NotifeeExecutors.schedule(this::flush, mWindowMillis, TimeUnit.MILLISECONDS);
+      }
+      isFull = mPending.size() >= mMaxSize;
+    }
+
+    if (isFull) {
+      flush();
+    }
+    return true;
+  }
+
+  /** Delivers the events waiting, if any, without waiting for the window to pass */
+  @KeepForSdk
+  public void flush() {
+    synchronized (mDeliveryLock) {
+      List<T> batch;
+
+      synchronized (mLock) {
+        if (mPending.isEmpty()) {
+          return;
+        }
+
+        batch = mPending;
+        mPending = new ArrayList<>();
+        if (mWindowFuture != null) {
+          mWindowFuture.cancel(false);
+          mWindowFuture = null;
+        }
+      }
+
+      mListener.onBatch(batch);
+    }
+  }
+}
@@ -17,47 +17,386 @@ package app.notifee.core;
  *
  */
 
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.EventSubscriber.ThreadMode;
+import app.notifee.core.event.BlockStateEvent;
+import app.notifee.core.event.ForegroundServiceEvent;
+import app.notifee.core.event.LogEvent;
+import app.notifee.core.event.NotificationEvent;
+import app.notifee.core.interfaces.EventListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Delivers the events posted by the library to the registered {@link EventListener}s, and holds
+ * sticky events, such as the initial notification, until they are read.
+ *
+ * <p>Events are dispatched by their type, without reflection, and only to the listeners subscribed
+ * to that type. The registry is copy-on-write: posting takes no lock, and a listener may register
+ * or unregister at any time, even from within a listener.
+ *
+ * <p>A notification event posted while no listener is ready for it is kept in the {@link
+ * EventJournal}, and delivered to the next listener registering, or becoming ready, for
+ * notification events, ahead of any event posted after that. A listener forwarding events to a
+ * runtime which subscribes later, such as JavaScript or Dart, registers as not ready, and is marked
+ * ready once the runtime has subscribed; until then its notification events are journaled instead
+ * of delivered.
+ */
 public class EventBus {
+  private static final String TAG = "EventBus";
+
+  static final int EVENT_TYPE_NOTIFICATION = 1;
+  static final int EVENT_TYPE_LOG = 1 << 1;
+  static final int EVENT_TYPE_BLOCK_STATE = 1 << 2;
+  static final int EVENT_TYPE_FOREGROUND_SERVICE = 1 << 3;
+  static final int EVENT_TYPES_ALL =
+      EVENT_TYPE_NOTIFICATION
+          | EVENT_TYPE_LOG
+          | EVENT_TYPE_BLOCK_STATE
+          | EVENT_TYPE_FOREGROUND_SERVICE;
+
   private static final EventBus instance = new EventBus();
-  private org.greenrobot.eventbus.EventBus eventBus;
 
-  private EventBus() {
-    eventBus = org.greenrobot.eventbus.EventBus.builder().build();
+  private final CopyOnWriteArrayList<Subscription> mSubscriptions = new CopyOnWriteArrayList<>();
+  private final ConcurrentHashMap<Class<?>, Object> mStickyEvents = new ConcurrentHashMap<>();
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  private final ExecutorService mBackgroundExecutor = NotifeeExecutors.newSerialExecutor("events");
+
+  private EventBus() {}
+
+  private static class Subscription {
+    final EventListener listener;
+    final ThreadMode threadMode;
+    final int eventTypes;
+    // run when a notification event is journaled while the listener is not ready
+    @Nullable final Runnable onEventHeld;
+    // cleared on unregister, so events already queued for the listener are dropped
+    volatile boolean active = true;
+    // whether notification events are delivered to the listener, rather than journaled
+    volatile boolean ready;
+    // events posted while the journal is read, delivered after the journaled events
+    @Nullable List<Object> heldEvents;
+
+    Subscription(
+        EventListener listener,
+        ThreadMode threadMode,
+        int eventTypes,
+        boolean ready,
+        @Nullable Runnable onEventHeld) {
+      this.listener = listener;
+      this.threadMode = threadMode;
+      this.eventTypes = eventTypes;
+      this.ready = ready;
+      this.onEventHeld = onEventHeld;
+    }
+
+    boolean isSubscribedToNotificationEvents() {
+      return (eventTypes & EVENT_TYPE_NOTIFICATION) != 0;
+    }
   }
 
   public static EventBus getInstance() {
     return instance;
   }
 
-  public static void register(Object subscriber) {
-    getInstance().getDefault().register(subscriber);
+  /** Registers a listener, replacing its previous registration if any */
+  static void register(
+      @NonNull EventListener listener, @NonNull ThreadMode threadMode, int eventTypes) {
+    register(listener, threadMode, eventTypes, true, null);
+  }
+
+  /**
+   * Registers a listener, replacing its previous registration if any.
+   *
+   * @param ready whether notification events are delivered to the listener; if not, they are
+   *     journaled until {@link #setReady} is called
+   * @param onEventHeld run when a notification event is journaled while the listener is not ready
+   */
+  static void register(
+      @NonNull EventListener listener,
+      @NonNull ThreadMode threadMode,
+      int eventTypes,
+      boolean ready,
+      @Nullable Runnable onEventHeld) {
+    Subscription subscription =
+        new Subscription(listener, threadMode, eventTypes, ready, onEventHeld);
+    boolean replaysJournal = ready && subscription.isSubscribedToNotificationEvents();
+    if (replaysJournal) {
+      subscription.heldEvents = new ArrayList<>();
+    }
+
+    synchronized (instance.mSubscriptions) {
+      instance.removeSubscription(listener);
+      instance.mSubscriptions.add(subscription);
+    }
+
+    if (replaysJournal) {
+      instance.replayJournal(subscription);
+    }
   }
 
-  public static void unregister(Object subscriber) {
-    getInstance().getDefault().unregister(subscriber);
+  static void unregister(@NonNull EventListener listener) {
+    synchronized (instance.mSubscriptions) {
+      instance.removeSubscription(listener);
+    }
+  }
+
+  /**
+   * Sets whether notification events are delivered to a registered listener. Once ready, the events
+   * journaled meanwhile are delivered to it, ahead of any event posted after.
+   */
+  static void setReady(@NonNull EventListener listener, boolean ready) {
+    for (Subscription subscription : instance.mSubscriptions) {
+      if (subscription.listener == listener) {
+        instance.setReady(subscription, ready);
+      }
+    }
   }
 
   public static <T> T getStickyEvent(Class<T> eventType) {
-    return getInstance().getDefault().getStickyEvent(eventType);
+    return eventType.cast(getInstance().mStickyEvents.get(eventType));
   }
 
   public static <T> T removeStickEvent(Class<T> eventType) {
-    return getInstance().getDefault().removeStickyEvent(eventType);
+    return removeStickyEvent(eventType);
   }
 
   public static void post(Object event) {
-    getInstance().getDefault().post(event);
+    int eventType = getEventType(event);
+    if (eventType == 0) {
+      return;
+    }
+
+    if (eventType == EVENT_TYPE_NOTIFICATION) {
+      getInstance().postNotificationEvent((NotificationEvent) event);
+      return;
+    }
+
+    for (Subscription subscription : getInstance().mSubscriptions) {
+      if ((subscription.eventTypes & eventType) != 0 && !hold(subscription, event)) {
+        getInstance().dispatch(subscription, eventType, event);
+      }
+    }
   }
 
   static void postSticky(Object event) {
-    getInstance().getDefault().postSticky(event);
+    getInstance().mStickyEvents.put(event.getClass(), event);
+    post(event);
   }
 
   static <T> T removeStickyEvent(Class<T> eventType) {
-    return getInstance().getDefault().removeStickyEvent(eventType);
+    return eventType.cast(getInstance().mStickyEvents.remove(eventType));
+  }
+
+  /** The event type flag of an event class, or 0 for a class which is not dispatched */
+  static int getEventType(Class<?> eventClass) {
+    if (eventClass == NotificationEvent.class) {
+      return EVENT_TYPE_NOTIFICATION;
+    } else if (eventClass == LogEvent.class) {
+      return EVENT_TYPE_LOG;
+    } else if (eventClass == BlockStateEvent.class) {
+      return EVENT_TYPE_BLOCK_STATE;
+    } else if (eventClass == ForegroundServiceEvent.class) {
+      return EVENT_TYPE_FOREGROUND_SERVICE;
+    }
+
+    return 0;
   }
 
-  private org.greenrobot.eventbus.EventBus getDefault() {
-    return eventBus;
+  private static int getEventType(Object event) {
+    if (event instanceof NotificationEvent) {
+      return EVENT_TYPE_NOTIFICATION;
+    } else if (event instanceof LogEvent) {
+      return EVENT_TYPE_LOG;
+    } else if (event instanceof BlockStateEvent) {
+      return EVENT_TYPE_BLOCK_STATE;
+    } else if (event instanceof ForegroundServiceEvent) {
+      return EVENT_TYPE_FOREGROUND_SERVICE;
+    }
+
+    return 0;
+  }
+
+  private void postNotificationEvent(NotificationEvent event) {
+    List<Subscription> readySubscriptions = new ArrayList<>();
+    List<Runnable> onEventHeld = new ArrayList<>();
+    // under the registry lock, so a listener registering, or becoming ready, either receives the
+    // event or finds it in the journal
+    synchronized (mSubscriptions) {
+      for (Subscription subscription : mSubscriptions) {
+        if (!subscription.isSubscribedToNotificationEvents()) {
+          continue;
+        }
+
+        if (subscription.ready) {
+          readySubscriptions.add(subscription);
+        } else if (subscription.onEventHeld != null) {
+          onEventHeld.add(subscription.onEventHeld);
+        }
+      }
+
+      if (readySubscriptions.isEmpty()) {
+        EventJournal.append(event);
+      }
+    }
+
+    for (Subscription subscription : readySubscriptions) {
+      if (!hold(subscription, event)) {
+        dispatch(subscription, EVENT_TYPE_NOTIFICATION, event);
+      }
+    }
+
+    if (readySubscriptions.isEmpty()) {
+      for (Runnable runnable : onEventHeld) {
+        runnable.run();
+      }
+    }
+  }
+
+  private void setReady(Subscription subscription, boolean ready) {
+    // under the registry lock, so every event journaled while the listener was not ready is
+    // appended before the journal is read
+    synchronized (mSubscriptions) {
+      if (subscription.ready == ready) {
+        return;
+      }
+
+      subscription.ready = ready;
+      if (!ready || !subscription.isSubscribedToNotificationEvents()) {
+        return;
+      }
+
+      synchronized (subscription) {
+        if (subscription.heldEvents == null) {
+          subscription.heldEvents = new ArrayList<>();
+        }
+      }
+    }
+
+    replayJournal(subscription);
+  }
+
+  private void removeSubscription(EventListener listener) {
+    for (Subscription subscription : mSubscriptions) {
+      if (subscription.listener == listener) {
+        subscription.active = false;
+        mSubscriptions.remove(subscription);
+      }
+    }
+  }
+
+  private static boolean hold(Subscription subscription, Object event) {
+    synchronized (subscription) {
+      if (subscription.heldEvents == null) {
+        return false;
+      }
+
+      subscription.heldEvents.add(event);
+      return true;
+    }
+  }
+
+  private void replayJournal(Subscription subscription) {
+    EventJournal.read()
+        .addOnCompleteListener(
+            mBackgroundExecutor,
+            task -> {
+              List<EventJournal.Entry> entries =
+                  task.isSuccessful() ? task.getResult() : Collections.emptyList();
+
+              synchronized (subscription) {
+                if (!entries.isEmpty()) {
+                  run(subscription, () -> replay(subscription, entries));
+                }
+
+                List<Object> heldEvents = subscription.heldEvents;
+                subscription.heldEvents = null;
+                if (heldEvents != null) {
+                  for (Object heldEvent : heldEvents) {
+                    dispatch(subscription, getEventType(heldEvent), heldEvent);
+                  }
+                }
+              }
+            });
+  }
+
+  /**
+   * Delivers journaled events in order, then removes those delivered from the journal. Events left
+   * undelivered, as the listener unregistered or stopped being ready, or the process died, stay
+   * journaled for the next replay.
+   */
+  private static void replay(Subscription subscription, List<EventJournal.Entry> entries) {
+    EventJournal.Entry delivered = null;
+    for (EventJournal.Entry entry : entries) {
+      if (!subscription.active || !subscription.ready) {
+        break;
+      }
+
+      deliver(subscription, EVENT_TYPE_NOTIFICATION, entry.event);
+      delivered = entry;
+    }
+
+    if (delivered != null) {
+      EventJournal.acknowledge(delivered);
+    }
+  }
+
+  private void dispatch(Subscription subscription, int eventType, Object event) {
+    run(subscription, () -> deliver(subscription, eventType, event));
+  }
+
+  /** Runs a delivery on the thread of the listener's thread mode */
+  private void run(Subscription subscription, Runnable delivery) {
+    switch (subscription.threadMode) {
+      case POSTING:
+        delivery.run();
+        break;
+      case BACKGROUND:
+        mBackgroundExecutor.execute(delivery);
+        break;
+      case MAIN:
+      default:
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+          delivery.run();
+        } else {
+          mMainHandler.post(delivery);
+        }
+        break;
+    }
+  }
+
+  private static void deliver(Subscription subscription, int eventType, Object event) {
+    if (!subscription.active) {
+      return;
+    }
+
+    EventListener listener = subscription.listener;
+    try {
+      switch (eventType) {
+        case EVENT_TYPE_NOTIFICATION:
+          listener.onNotificationEvent((NotificationEvent) event);
+          break;
+        case EVENT_TYPE_LOG:
+          listener.onLogEvent((LogEvent) event);
+          break;
+        case EVENT_TYPE_BLOCK_STATE:
+          listener.onBlockStateEvent((BlockStateEvent) event);
+          break;
+        case EVENT_TYPE_FOREGROUND_SERVICE:
+          listener.onForegroundServiceEvent((ForegroundServiceEvent) event);
+          break;
+      }
+    } catch (RuntimeException e) {
+      // not through Logger, which would post a log event for the failing listener again
+      Log.e(TAG, "Event listener " + listener.getClass().getName() + " failed", e);
+    }
   }
 }
@@ -0,0 +1,146 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.Context;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import app.notifee.core.database.EventJournalEntity;
+import app.notifee.core.database.EventJournalRepository;
+import app.notifee.core.event.NotificationEvent;
+import app.notifee.core.model.NotificationModel;
+import app.notifee.core.utility.ObjectUtils;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Keeps notification events posted while no listener was ready for them, so they reach the first
+ * listener to become ready, see {@link EventJournalRepository}. An event is removed only once it
+ * has been delivered, so it may be delivered again if the process dies during a replay, but it is
+ * not lost; listeners can tell a redelivery by the event id.
+ *
+ * <p>Only notification events are kept: block state and foreground service events are waited on by
+ * the process which posted them, and log events only matter to the process they were logged in.
+ */
+class EventJournal {
+  private static final String TAG = "EventJournal";
+
+  private EventJournal() {}
+
+  static void append(@NonNull NotificationEvent event) {
+    EventJournalRepository repository = getRepository();
+    if (repository == null) {
+      return;
+    }
+
+    try {
+      Bundle extras = event.getExtras();
+      repository
+          .append(
+              event.getId(),
+              event.getType(),
+              ObjectUtils.bundleToBytes(event.getNotification().toBundle()),
+              extras != null ? ObjectUtils.bundleToBytes(extras) : null)
+          .addOnFailureListener(e -> Logger.e(TAG, "Failed to journal event", e));
+    } catch (Exception e) {
+      Logger.e(TAG, "Failed to journal event", e);
+    }
+  }
+
+  /** A journaled event, and the sequence it is acknowledged by */
+  static class Entry {
+    final long sequence;
+    final NotificationEvent event;
+
+    Entry(long sequence, @NonNull NotificationEvent event) {
+      this.sequence = sequence;
+      this.event = event;
+    }
+  }
+
+  /**
+   * The journaled events, in the order they were posted. They stay journaled until {@link
+   * #acknowledge} is called once they have been delivered.
+   */
+  static @NonNull Task<List<Entry>> read() {
+    EventJournalRepository repository = getRepository();
+    if (repository == null) {
+      return Tasks.forResult(Collections.emptyList());
+    }
+
+    return repository
+        .getAll()
+        .continueWith(
+            NotifeeExecutors.get(NotifeeExecutors.Lane.MAINTENANCE),
+            task -> {
+              if (!task.isSuccessful()) {
+                Logger.e(TAG, "Failed to read journaled events", task.getException());
+                return Collections.emptyList();
+              }
+
+              List<EventJournalEntity> entities = task.getResult();
+              List<Entry> entries = new ArrayList<>(entities.size());
+              for (EventJournalEntity entity : entities) {
+                try {
+                  entries.add(new Entry(entity.getSequence(), decode(entity)));
+                } catch (Exception e) {
+                  // removed by the acknowledgement of a later event
+                  Logger.e(TAG, "Failed to decode journaled event " + entity.getEventId(), e);
+                }
+              }
+              return entries;
+            });
+  }
+
+  /** Removes the journaled events up to, and including, a delivered entry */
+  static void acknowledge(@NonNull Entry entry) {
+    EventJournalRepository repository = getRepository();
+    if (repository == null) {
+      return;
+    }
+
+    repository
+        .acknowledge(entry.sequence)
+        .addOnFailureListener(e -> Logger.e(TAG, "Failed to acknowledge journaled events", e));
+  }
+
+  private static NotificationEvent decode(EventJournalEntity entity) {
+    NotificationModel notification =
+        NotificationModel.fromBundle(ObjectUtils.bytesToBundle(entity.getNotification()));
+    byte[] extras = entity.getExtras();
+
+    return new NotificationEvent(
+        entity.getEventId(),
+        entity.getType(),
+        notification,
+        extras != null ? ObjectUtils.bytesToBundle(extras) : null);
+  }
+
+  private static EventJournalRepository getRepository() {
+    Context context = ContextHolder.getApplicationContext();
+    if (context == null) {
+      Logger.w(TAG, "Event journal accessed before the application context is set");
+      return null;
+    }
+
+    return EventJournalRepository.getInstance(context);
+  }
+}
@@ -18,65 +18,99 @@ package app.notifee.core;
  */
 
 import android.content.Context;
-import app.notifee.core.event.BlockStateEvent;
-import app.notifee.core.event.ForegroundServiceEvent;
-import app.notifee.core.event.LogEvent;
-import app.notifee.core.event.NotificationEvent;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import app.notifee.core.interfaces.EventListener;
-import java.util.HashSet;
-import java.util.Set;
-import org.greenrobot.eventbus.Subscribe;
-import org.greenrobot.eventbus.ThreadMode;
 
 @KeepForSdk
 public class EventSubscriber {
-  private static final EventSubscriber mInstance = new EventSubscriber();
-  private final Set<EventListener> mListeners = new HashSet<>();
-
-  private EventSubscriber() {
-    EventBus.register(this);
+  /** The thread a listener's events are delivered on */
+  @KeepForSdk
+  public enum ThreadMode {
+    /** The main thread, directly when posted from the main thread */
+    @KeepForSdk
+    MAIN,
+    /** A single background thread, in the order the events were posted */
+    @KeepForSdk
+    BACKGROUND,
+    /** The thread the event was posted from, before posting returns */
+    @KeepForSdk
+    POSTING
   }
 
+  private EventSubscriber() {}
+
+  /** Registers a listener for every event type, delivered on the main thread */
   @KeepForSdk
   public static void register(EventListener listener) {
-    mInstance.mListeners.add(listener);
+    register(listener, ThreadMode.MAIN);
   }
 
+  /**
+   * Registers a listener, replacing its previous registration if any.
+   *
+   * @param threadMode the thread the listener's events are delivered on
+   * @param eventTypes the event classes delivered to the listener, of NotificationEvent, LogEvent,
+   *     BlockStateEvent and ForegroundServiceEvent; every event type if none are given
+   */
   @KeepForSdk
-  public static void unregister(EventListener listener) {
-    mInstance.mListeners.remove(listener);
+  public static void register(
+      @NonNull EventListener listener,
+      @NonNull ThreadMode threadMode,
+      @NonNull Class<?>... eventTypes) {
+    EventBus.register(listener, threadMode, getEventTypeFlags(eventTypes));
   }
 
+  /**
+   * Registers a listener which forwards events to a runtime subscribing later, such as JavaScript
+   * or Dart, replacing its previous registration if any. Its notification events are journaled,
+   * rather than delivered, until {@link #setReady} marks the runtime as subscribed, and are then
+   * delivered in the order they were posted; other events are delivered as they are posted.
+   *
+   * @param onEventHeld run when a notification event is journaled while the listener is not ready,
+   *     for example to start the runtime; may be null
+   * @param threadMode the thread the listener's events are delivered on
+   * @param eventTypes the event classes delivered to the listener, of NotificationEvent, LogEvent,
+   *     BlockStateEvent and ForegroundServiceEvent; every event type if none are given
+   */
   @KeepForSdk
-  public static Context getContext() {
-    return ContextHolder.getApplicationContext();
+  public static void registerAwaitingReady(
+      @NonNull EventListener listener,
+      @Nullable Runnable onEventHeld,
+      @NonNull ThreadMode threadMode,
+      @NonNull Class<?>... eventTypes) {
+    EventBus.register(listener, threadMode, getEventTypeFlags(eventTypes), false, onEventHeld);
   }
 
-  @Subscribe(threadMode = ThreadMode.MAIN)
-  public void onNotificationEvent(NotificationEvent notificationEvent) {
-    for (EventListener eventListener : mListeners) {
-      eventListener.onNotificationEvent(notificationEvent);
-    }
+  /**
+   * Sets whether the runtime a listener forwards events to has subscribed to them, see {@link
+   * #registerAwaitingReady}. Notification events posted while it is not are journaled.
+   */
+  @KeepForSdk
+  public static void setReady(@NonNull EventListener listener, boolean ready) {
+    EventBus.setReady(listener, ready);
   }
 
-  @Subscribe(threadMode = ThreadMode.MAIN)
-  public void onLogEvent(LogEvent logEvent) {
-    for (EventListener eventListener : mListeners) {
-      eventListener.onLogEvent(logEvent);
-    }
+  @KeepForSdk
+  public static void unregister(EventListener listener) {
+    EventBus.unregister(listener);
   }
 
-  @Subscribe(threadMode = ThreadMode.MAIN)
-  public void onBlockStateEvent(BlockStateEvent blockStateEvent) {
-    for (EventListener eventListener : mListeners) {
-      eventListener.onBlockStateEvent(blockStateEvent);
-    }
+  @KeepForSdk
+  public static Context getContext() {
+    return ContextHolder.getApplicationContext();
   }
 
-  @Subscribe(threadMode = ThreadMode.MAIN)
-  public void onForegroundServiceEvent(ForegroundServiceEvent foregroundServiceEvent) {
-    for (EventListener eventListener : mListeners) {
-      eventListener.onForegroundServiceEvent(foregroundServiceEvent);
+  private static int getEventTypeFlags(Class<?>[] eventTypes) {
+    int eventTypeFlags = 0;
+    for (Class<?> eventType : eventTypes) {
+      int eventTypeFlag = EventBus.getEventType(eventType);
+      if (eventTypeFlag == 0) {
+        throw new IllegalArgumentException("Unknown event type " + eventType.getName());
+      }
+      eventTypeFlags |= eventTypeFlag;
     }
+
+    return eventTypeFlags != 0 ? eventTypeFlags : EventBus.EVENT_TYPES_ALL;
   }
 }
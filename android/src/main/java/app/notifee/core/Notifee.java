@@ -31,11 +31,13 @@ import androidx.core.app.NotificationManagerCompat;
 import app.notifee.core.event.InitialNotificationEvent;
 import app.notifee.core.event.MainComponentEvent;
 import app.notifee.core.interfaces.EventListener;
+import app.notifee.core.interfaces.ImageFetcher;
 import app.notifee.core.interfaces.MethodCallResult;
 import app.notifee.core.model.ChannelGroupModel;
 import app.notifee.core.model.ChannelModel;
 import app.notifee.core.model.NotificationModel;
 import app.notifee.core.utility.AlarmUtils;
+import app.notifee.core.utility.ImageCache;
 import app.notifee.core.utility.PowerManagerUtils;
 import java.util.ArrayList;
 import java.util.List;
@@ -65,6 +67,16 @@ public class Notifee {
 
   @KeepForSdk
   public static void initialize(@Nullable EventListener eventListener) {
+    initialize(eventListener, null);
+  }
+
+  /**
+   * @param executorConfig the thread count, queue size and rejection policy of the background
+   *     executor lanes, see {@link NotifeeExecutors#configure}
+   */
+  @KeepForSdk
+  public static void initialize(
+      @Nullable EventListener eventListener, @Nullable Bundle executorConfig) {
     synchronized (Notifee.class) {
       if (mIsnitialized) {
         return;
@@ -78,10 +90,27 @@ public class Notifee {
         EventSubscriber.register(eventListener);
       }
 
+      NotifeeExecutors.configure(executorConfig);
+
       mIsnitialized = true;
     }
   }
 
+  /**
+   * Sets the fetcher remote notification images are downloaded with, so that they go through the
+   * host's networking, such as its auth headers, certificate pinning or proxies. Set it before any
+   * notification is displayed, e.g. in {@code Application.onCreate}, as triggers may fire in a
+   * process no other app code has run in. Without one, images are downloaded through Fresco's image
+   * pipeline if the host has initialized Fresco, and otherwise by a plain HTTP connection. Either
+   * way, downloaded images are cached by Notifee.
+   *
+   * @param imageFetcher the fetcher, or null for the default download
+   */
+  @KeepForSdk
+  public static void setImageFetcher(@Nullable ImageFetcher imageFetcher) {
+    ImageCache.setImageFetcher(imageFetcher);
+  }
+
   @KeepForSdk
   public @NonNull String getMainComponent(@NonNull String defaultComponent) {
     MainComponentEvent event = EventBus.removeStickEvent(MainComponentEvent.class);
@@ -125,6 +154,29 @@ public class Notifee {
             });
   }
 
+  /**
+   * Cancels notifications matching all of the given filters
+   *
+   * @param filter a bundle of an optional channelId, groupId and tag
+   */
+  @KeepForSdk
+  public void cancelAllNotificationsMatching(
+      int type, Bundle filter, MethodCallResult<Void> result) {
+    NotificationManager.cancelAllNotificationsMatching(
+            type,
+            filter.getString("channelId"),
+            filter.getString("groupId"),
+            filter.getString("tag"))
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                result.onComplete(null, task.getResult());
+              } else {
+                result.onComplete(task.getException(), null);
+              }
+            });
+  }
+
   @KeepForSdk
   public void openAlarmPermissionSettings(Activity activity, MethodCallResult<Void> result) {
     AlarmUtils.openAlarmPermissionSettings(activity);
@@ -222,6 +274,21 @@ public class Notifee {
             });
   }
 
+  @KeepForSdk
+  public void displayNotifications(
+      List<Bundle> notificationsList, MethodCallResult<List<Bundle>> result) {
+    NotificationManager.displayNotifications(notificationsList)
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                result.onComplete(null, task.getResult());
+              } else {
+                Logger.e(TAG, "displayNotifications", task.getException());
+                result.onComplete(task.getException(), null);
+              }
+            });
+  }
+
   @KeepForSdk
   public void createTriggerNotification(
       Bundle notificationMap, Bundle triggerMap, MethodCallResult<Void> result) {
@@ -238,6 +305,49 @@ public class Notifee {
             });
   }
 
+  /**
+   * Creates trigger notifications in bulk, see {@link #createTriggerNotification}. No created event
+   * is sent per notification; the result has a bundle per trigger notification instead.
+   *
+   * @param triggerNotificationsList bundles holding a "notification" and a "trigger" bundle
+   */
+  @KeepForSdk
+  public void createTriggerNotifications(
+      List<Bundle> triggerNotificationsList, MethodCallResult<List<Bundle>> result) {
+    NotificationManager.createTriggerNotifications(triggerNotificationsList)
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                result.onComplete(null, task.getResult());
+              } else {
+                Logger.e(TAG, "createTriggerNotifications", task.getException());
+                result.onComplete(task.getException(), null);
+              }
+            });
+  }
+
+  /**
+   * Makes the scheduled trigger notifications match the given ones, see {@link
+   * NotificationManager#reconcileTriggerNotifications}. Only trigger notifications which are new
+   * or whose trigger changed are scheduled again, and those not given are cancelled.
+   *
+   * @param triggerNotificationsList bundles holding a "notification" and a "trigger" bundle
+   */
+  @KeepForSdk
+  public void reconcileTriggerNotifications(
+      List<Bundle> triggerNotificationsList, MethodCallResult<Bundle> result) {
+    NotificationManager.reconcileTriggerNotifications(triggerNotificationsList)
+        .addOnCompleteListener(
+            task -> {
+              if (task.isSuccessful()) {
+                result.onComplete(null, task.getResult());
+              } else {
+                Logger.e(TAG, "reconcileTriggerNotifications", task.getException());
+                result.onComplete(task.getException(), null);
+              }
+            });
+  }
+
   @KeepForSdk
   public void getTriggerNotificationIds(MethodCallResult<List<String>> result) {
     NotificationManager.getTriggerNotificationIds(result);
@@ -261,6 +371,70 @@ public class Notifee {
     NotificationManager.getTriggerNotifications(result);
   }
 
+  /**
+   * Gets a page of trigger notifications, ordered by id, so large numbers of them do not have to
+   * be held in memory at once. The result holds the page as "triggerNotifications" and, unless it
+   * is the last page, the cursor of the next page as "nextCursor".
+   *
+   * @param cursor the "nextCursor" of the previous page, or null for the first page
+   * @param limit the maximum number of trigger notifications in the page
+   */
+  @KeepForSdk
+  public void getTriggerNotificationsPage(
+      @Nullable String cursor, int limit, MethodCallResult<Bundle> result) {
+    NotificationManager.getTriggerNotificationsPage(cursor, limit, result);
+  }
+
+  @KeepForSdk
+  public void getTriggerNotificationsDueBefore(
+      long timestamp, MethodCallResult<List<Bundle>> result) {
+    NotificationManager.getTriggerNotificationsDueBefore(timestamp, result);
+  }
+
+  @KeepForSdk
+  public void getTriggerNotificationsForChannel(
+      String channelId, MethodCallResult<List<Bundle>> result) {
+    NotificationManager.getTriggerNotificationsForChannel(channelId, result);
+  }
+
+  /**
+   * Sets how long before a timestamp trigger is due its notification is decoded and its images
+   * fetched, so that when it fires the notification only has to be built from warm caches. 0, the
+   * default, turns pre-rendering off. Waking the device ahead of a trigger costs some battery, so a
+   * lead time of a minute or less is recommended.
+   */
+  @KeepForSdk
+  public void setTriggerPreRenderLeadTime(long leadTimeMs, MethodCallResult<Void> result) {
+    long leadTime = Math.max(0, leadTimeMs);
+    Preferences.getSharedInstance()
+        .setLongValue(TriggerAlarmDispatcher.PRE_RENDER_LEAD_TIME_KEY, leadTime);
+    TriggerAlarmDispatcher.getInstance().setPreRenderLeadTime(leadTime);
+    result.onComplete(null, null);
+  }
+
+  /**
+   * Gets the time from triggers firing to their notifications being posted, for the triggers
+   * fired since the process started: "count", "averageMs", "maxMs", the same for pre-rendered
+   * triggers as "preRenderedCount" and "preRenderedAverageMs", and the most "recent" triggers
+   * with their "id", "latencyMs" and "preRendered".
+   */
+  @KeepForSdk
+  public void getTriggerLatencyMetrics(MethodCallResult<Bundle> result) {
+    result.onComplete(null, TriggerLatencyMetrics.toBundle());
+  }
+
+  /** Utilization of the background executor lanes, keyed by lane name */
+  @KeepForSdk
+  public void getExecutorMetrics(MethodCallResult<Bundle> result) {
+    result.onComplete(null, NotifeeExecutors.getMetrics());
+  }
+
+  /** Counts stored trigger notifications, keyed by trigger type */
+  @KeepForSdk
+  public void getTriggerNotificationCounts(MethodCallResult<Bundle> result) {
+    NotificationManager.getTriggerNotificationCounts(result);
+  }
+
   @KeepForSdk
   public void getChannels(MethodCallResult<List<Bundle>> result) {
     ChannelManager.getChannels()
@@ -353,9 +527,12 @@ public class Notifee {
       try {
         // get intent from current activity
         Intent intent = activity.getIntent();
-        if (intent != null && intent.getExtras() != null && intent.hasExtra("notification")) {
-          initialNotificationBundle.putBundle(
-              "notification", intent.getBundleExtra("notification"));
+        Bundle notificationBundle =
+            intent != null
+                ? NotificationPayloadStore.getFromIntentExtras(intent.getExtras())
+                : null;
+        if (notificationBundle != null) {
+          initialNotificationBundle.putBundle("notification", notificationBundle);
           result.onComplete(null, initialNotificationBundle);
           return;
         }
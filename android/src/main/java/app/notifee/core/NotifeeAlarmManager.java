@@ -21,28 +21,51 @@ import static app.notifee.core.ContextHolder.getApplicationContext;
 
 import android.app.AlarmManager;
 import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
 import androidx.core.app.AlarmManagerCompat;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ListenableWorker;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import app.notifee.core.database.TriggerNotification;
 import app.notifee.core.database.WorkDataEntity;
 import app.notifee.core.database.WorkDataRepository;
+import app.notifee.core.database.WorkDataTrigger;
+import app.notifee.core.model.IntervalTriggerModel;
 import app.notifee.core.model.NotificationModel;
 import app.notifee.core.model.TimestampTriggerModel;
 import app.notifee.core.utility.AlarmUtils;
 import app.notifee.core.utility.ObjectUtils;
 import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 class NotifeeAlarmManager {
   private static final String TAG = "NotifeeAlarmManager";
   private static final String NOTIFICATION_ID_INTENT_KEY = "notificationId";
-  private static final ExecutorService alarmManagerExecutor = Executors.newCachedThreadPool();
-
+  private static final ExecutorService alarmManagerExecutor =
+      NotifeeExecutors.get(NotifeeExecutors.Lane.TRIGGER);
+  private static final String RESCHEDULE_AFTER_ID_KEY = "afterId";
+  private static final int RESCHEDULE_PAGE_SIZE = 500;
+  // a receiver holding its pending result is given about 10 seconds to finish
+  private static final long RESCHEDULE_TIME_BUDGET_MS = 8000;
+
+  /* Handles an alarm registered for a single notification, see TriggerAlarmDispatcher */
   static void displayScheduledNotification(Bundle alarmManagerNotification) {
     if (alarmManagerNotification == null) {
       return;
@@ -53,30 +76,29 @@ class NotifeeAlarmManager {
       return;
     }
 
-    WorkDataRepository workDataRepository = new WorkDataRepository(getApplicationContext());
+    displayScheduledNotification(id);
+  }
 
-    Continuation<WorkDataEntity, Task<Void>> workContinuation =
-        task -> {
-          WorkDataEntity workDataEntity = task.getResult();
+  static Task<Void> displayScheduledNotification(String id) {
+    long firedAt = SystemClock.elapsedRealtime();
+    WorkDataRepository workDataRepository = WorkDataRepository.getInstance(getApplicationContext());
 
-          Bundle notificationBundle;
+    Continuation<TriggerNotification, Task<Void>> workContinuation =
+        task -> {
+          TriggerNotification triggerNotification = task.getResult();
 
-          Bundle triggerBundle;
+          NotificationModel notificationModel =
+              triggerNotification != null ? triggerNotification.getNotificationModel() : null;
+          Bundle triggerBundle =
+              triggerNotification != null ? triggerNotification.getTriggerBundle() : null;
 
-          if (workDataEntity == null
-              || workDataEntity.getNotification() == null
-              || workDataEntity.getTrigger() == null) {
+          if (notificationModel == null || triggerBundle == null) {
             // check if notification bundle is stored with Work Manager
             Logger.w(
                 TAG, "Attempted to handle doScheduledWork but no notification data was found.");
-            return null;
-          } else {
-            triggerBundle = ObjectUtils.bytesToBundle(workDataEntity.getTrigger());
-            notificationBundle = ObjectUtils.bytesToBundle(workDataEntity.getNotification());
+            return Tasks.forResult(null);
           }
 
-          NotificationModel notificationModel = NotificationModel.fromBundle(notificationBundle);
-
           return NotificationManager.displayNotification(notificationModel, triggerBundle)
               .addOnCompleteListener(
                   displayNotificationTask -> {
@@ -86,21 +108,31 @@ class NotifeeAlarmManager {
                           "Failed to display notification",
                           displayNotificationTask.getException());
                     } else {
-                      if (triggerBundle.containsKey("repeatFrequency")
-                          && ObjectUtils.getInt(triggerBundle.get("repeatFrequency")) != -1) {
-                        TimestampTriggerModel trigger =
-                            TimestampTriggerModel.fromBundle(triggerBundle);
-                        // Ensure trigger is in the future and the latest timestamp is updated in
-                        // the database
-                        trigger.setNextTimestamp();
+                      TriggerLatencyMetrics.record(
+                          id,
+                          SystemClock.elapsedRealtime() - firedAt,
+                          NotificationManager.consumePreRendered(id));
+
+                      if (ObjectUtils.getInt(triggerBundle.get("type")) == 1) {
+                        IntervalTriggerModel trigger =
+                            IntervalTriggerModel.fromBundle(triggerBundle);
+                        trigger.setNextOccurrence();
+                        scheduleIntervalTriggerNotification(notificationModel, trigger);
+                        return;
+                      }
+
+                      TimestampTriggerModel trigger =
+                          TimestampTriggerModel.fromBundle(triggerBundle);
+                      if (trigger.isRepeating()) {
+                        // Ensure trigger is past the occurrence just displayed and the latest
+                        // timestamp is updated in the database
+                        trigger.setNextOccurrence();
+                      }
+
+                      if (trigger.isRepeating() && !trigger.isFinished()) {
                         scheduleTimestampTriggerNotification(notificationModel, trigger);
                         WorkDataRepository.getInstance(getApplicationContext())
-                            .update(
-                                new WorkDataEntity(
-                                    id,
-                                    workDataEntity.getNotification(),
-                                    ObjectUtils.bundleToBytes(triggerBundle),
-                                    true));
+                            .updateTrigger(id, triggerBundle);
                       } else {
                         // not repeating, delete database entry if work is a one-time request
                         WorkDataRepository.getInstance(getApplicationContext()).deleteById(id);
@@ -109,14 +141,13 @@ class NotifeeAlarmManager {
                   });
         };
 
-    workDataRepository
-        .getWorkDataById(id)
+    return workDataRepository
+        .getTriggerNotificationById(id)
         .continueWithTask(alarmManagerExecutor, workContinuation)
         .addOnCompleteListener(
             task -> {
               if (!task.isSuccessful()) {
                 Logger.e(TAG, "Failed to display notification", task.getException());
-                return;
               }
             });
   }
@@ -139,10 +170,71 @@ class NotifeeAlarmManager {
     return null;
   }
 
+  /* Returns the per notification alarm intent if one was registered, without creating it */
+  static PendingIntent getExistingAlarmManagerIntent(String notificationId) {
+    Context context = getApplicationContext();
+    Intent notificationIntent = new Intent(context, NotificationAlarmReceiver.class);
+    notificationIntent.putExtra(NOTIFICATION_ID_INTENT_KEY, notificationId);
+    return PendingIntent.getBroadcast(
+        context,
+        notificationId.hashCode(),
+        notificationIntent,
+        PendingIntent.FLAG_NO_CREATE | PendingIntent.FLAG_MUTABLE);
+  }
+
   static void scheduleTimestampTriggerNotification(
       NotificationModel notificationModel, TimestampTriggerModel timestampTrigger) {
+    scheduleTimestampTrigger(notificationModel.getId(), timestampTrigger);
+  }
 
-    PendingIntent pendingIntent = getAlarmManagerIntentForNotification(notificationModel.getId());
+  private static void scheduleTimestampTrigger(String id, TimestampTriggerModel timestampTrigger) {
+    // Ensure timestamp is always in the future when scheduling the alarm
+    timestampTrigger.setNextTimestamp();
+    if (timestampTrigger.isFinished()) {
+      return;
+    }
+
+    TimestampTriggerModel.AlarmType alarmType = timestampTrigger.getAlarmType();
+
+    if (TriggerAlarmDispatcher.isDispatched(alarmType)) {
+      TriggerAlarmDispatcher.getInstance().schedule(id, timestampTrigger.getTimestamp(), alarmType);
+      return;
+    }
+
+    if (alarmType == TimestampTriggerModel.AlarmType.SET_ALARM_CLOCK) {
+      // probably a good default behavior for setAlarmClock's
+      setAlarmClock(id, timestampTrigger.getTimestamp());
+    }
+  }
+
+  /**
+   * Schedules the next occurrence of an alarm manager interval trigger and stores it, so the
+   * trigger can be rescheduled from the database after a reboot.
+   */
+  static void scheduleIntervalTriggerNotification(
+      NotificationModel notificationModel, IntervalTriggerModel intervalTrigger) {
+    scheduleIntervalTrigger(notificationModel.getId(), intervalTrigger);
+  }
+
+  private static void scheduleIntervalTrigger(String id, IntervalTriggerModel intervalTrigger) {
+    // a new trigger is first due one interval from now, otherwise keep to its schedule
+    intervalTrigger.setNextTimestamp();
+
+    long timestamp = intervalTrigger.getTimestamp();
+    TimestampTriggerModel.AlarmType alarmType = intervalTrigger.getAlarmType();
+
+    WorkDataRepository.getInstance(getApplicationContext())
+        .updateTrigger(id, intervalTrigger.toBundle());
+
+    if (TriggerAlarmDispatcher.isDispatched(alarmType)) {
+      TriggerAlarmDispatcher.getInstance().schedule(id, timestamp, alarmType);
+    } else {
+      setAlarmClock(id, timestamp);
+    }
+  }
+
+  private static void setAlarmClock(String notificationId, long timestamp) {
+    PendingIntent pendingIntent = getAlarmManagerIntentForNotification(notificationId);
 
     AlarmManager alarmManager = AlarmUtils.getAlarmManager();
 
@@ -156,68 +248,106 @@ class NotifeeAlarmManager {
       }
     }
 
-    // Ensure timestamp is always in the future when scheduling the alarm
-    timestampTrigger.setNextTimestamp();
+    int mutabilityFlag = PendingIntent.FLAG_UPDATE_CURRENT;
+    if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
+      mutabilityFlag = PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT;
+    }
 
-    TimestampTriggerModel.AlarmType alarmType = timestampTrigger.getAlarmType();
+    Context context = getApplicationContext();
+    Intent launchActivityIntent =
+        context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
 
-    switch (alarmType) {
-      case SET:
-        alarmManager.set(AlarmManager.RTC, timestampTrigger.getTimestamp(), pendingIntent);
-        break;
-      case SET_AND_ALLOW_WHILE_IDLE:
-        AlarmManagerCompat.setAndAllowWhileIdle(
-          alarmManager, AlarmManager.RTC_WAKEUP, timestampTrigger.getTimestamp(), pendingIntent);
-        break;
-      case SET_EXACT:
-        AlarmManagerCompat.setExact(
-          alarmManager, AlarmManager.RTC_WAKEUP, timestampTrigger.getTimestamp(), pendingIntent);
-        break;
-      case SET_EXACT_AND_ALLOW_WHILE_IDLE:
-        AlarmManagerCompat.setExactAndAllowWhileIdle(
-          alarmManager, AlarmManager.RTC_WAKEUP, timestampTrigger.getTimestamp(), pendingIntent);
-        break;
-      case SET_ALARM_CLOCK:
-        // probably a good default behavior for setAlarmClock's
+    PendingIntent pendingLaunchIntent =
+        PendingIntent.getActivity(
+            context, notificationId.hashCode(), launchActivityIntent, mutabilityFlag);
+    AlarmManagerCompat.setAlarmClock(alarmManager, timestamp, pendingLaunchIntent, pendingIntent);
+  }
+
+  /* Schedules several triggers, adding those using the shared alarm to the dispatcher at once */
+  static void scheduleTimestampTriggerNotifications(
+      List<NotificationModel> notificationModels, List<TimestampTriggerModel> timestampTriggers) {
+    Map<String, TimestampTriggerModel> dispatchedTriggers = new LinkedHashMap<>();
+
+    for (int i = 0; i < notificationModels.size(); i++) {
+      NotificationModel notificationModel = notificationModels.get(i);
+      TimestampTriggerModel timestampTrigger = timestampTriggers.get(i);
 
-        int mutabilityFlag = PendingIntent.FLAG_UPDATE_CURRENT;
-        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.M) {
-          mutabilityFlag = PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT;
+      if (TriggerAlarmDispatcher.isDispatched(timestampTrigger.getAlarmType())) {
+        timestampTrigger.setNextTimestamp();
+        if (!timestampTrigger.isFinished()) {
+          dispatchedTriggers.put(notificationModel.getId(), timestampTrigger);
         }
+      } else {
+        scheduleTimestampTriggerNotification(notificationModel, timestampTrigger);
+      }
+    }
 
-        Context context = getApplicationContext();
-        Intent launchActivityIntent =
-          context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
-
-        PendingIntent pendingLaunchIntent =
-          PendingIntent.getActivity(
-            context,
-            notificationModel.getId().hashCode(),
-            launchActivityIntent,
-            mutabilityFlag);
-        AlarmManagerCompat.setAlarmClock(
-          alarmManager, timestampTrigger.getTimestamp(), pendingLaunchIntent, pendingIntent);
-        break;
+    if (!dispatchedTriggers.isEmpty()) {
+      TriggerAlarmDispatcher.getInstance().scheduleAll(dispatchedTriggers);
     }
   }
 
-  Task<List<WorkDataEntity>> getScheduledNotifications() {
-    WorkDataRepository workDataRepository = new WorkDataRepository(getApplicationContext());
-    return workDataRepository.getAllWithAlarmManager(true);
+  public static void cancelNotification(String notificationId) {
+    TriggerAlarmDispatcher.getInstance().cancel(notificationId);
+
+    // alarm clock triggers, and triggers scheduled before the dispatcher, have their own alarm
+    cancelAlarm(notificationId);
   }
 
-  public static void cancelNotification(String notificationId) {
-    PendingIntent pendingIntent = getAlarmManagerIntentForNotification(notificationId);
-    AlarmManager alarmManager = AlarmUtils.getAlarmManager();
+  /**
+   * Cancels the alarms of several triggers in one pass over their entries. Dispatched triggers are
+   * removed from the dispatcher at once; only alarm clock triggers have an alarm of their own.
+   */
+  static void cancelNotifications(List<WorkDataEntity> workDataEntities) {
+    List<String> dispatchedIds = new ArrayList<>(workDataEntities.size());
+
+    for (WorkDataEntity workDataEntity : workDataEntities) {
+      if (!Boolean.TRUE.equals(workDataEntity.getWithAlarmManager())) {
+        continue;
+      }
+
+      String id = workDataEntity.getId();
+      byte[] triggerBytes = workDataEntity.getTrigger();
+      Bundle triggerBundle =
+          triggerBytes != null
+              ? ObjectUtils.bytesToBundle(triggerBytes, TimestampTriggerModel.SCHEDULING_KEYS)
+              : null;
+
+      if (triggerBundle != null
+          && !TriggerAlarmDispatcher.isDispatched(getAlarmType(triggerBundle))) {
+        cancelAlarm(id);
+      } else {
+        dispatchedIds.add(id);
+      }
+    }
+
+    if (!dispatchedIds.isEmpty()) {
+      TriggerAlarmDispatcher.getInstance().cancel(dispatchedIds);
+    }
+  }
+
+  private static void cancelAlarm(String notificationId) {
+    PendingIntent pendingIntent = getExistingAlarmManagerIntent(notificationId);
     if (pendingIntent != null) {
-      alarmManager.cancel(pendingIntent);
+      AlarmUtils.getAlarmManager().cancel(pendingIntent);
+      pendingIntent.cancel();
     }
   }
 
+  private static TimestampTriggerModel.AlarmType getAlarmType(Bundle triggerBundle) {
+    if (ObjectUtils.getInt(triggerBundle.get("type")) == 1) {
+      return IntervalTriggerModel.fromBundle(triggerBundle).getAlarmType();
+    }
+
+    return TimestampTriggerModel.fromBundle(triggerBundle).getAlarmType();
+  }
+
   public static Continuation<Object, Task> cancelAllNotifications() {
 
     Continuation continuation =
         task -> {
+          TriggerAlarmDispatcher.getInstance().cancelAll();
+
           WorkDataRepository workDataRepository =
               WorkDataRepository.getInstance(getApplicationContext());
 
@@ -239,17 +369,15 @@ class NotifeeAlarmManager {
   }
 
   /* On reboot, reschedule trigger notifications created via alarm manager  */
-  void rescheduleNotification(WorkDataEntity workDataEntity) {
-    if (workDataEntity.getNotification() == null || workDataEntity.getTrigger() == null) {
+  static void rescheduleNotification(WorkDataTrigger workDataTrigger) {
+    if (workDataTrigger.trigger == null) {
       return;
     }
 
-    byte[] notificationBytes = workDataEntity.getNotification();
-    byte[] triggerBytes = workDataEntity.getTrigger();
-    Bundle triggerBundle = ObjectUtils.bytesToBundle(triggerBytes);
-
-    NotificationModel notificationModel =
-        NotificationModel.fromBundle(ObjectUtils.bytesToBundle(notificationBytes));
+    String id = workDataTrigger.id;
+    // only the trigger is decoded, the notification is not needed to register an alarm
+    Bundle triggerBundle =
+        ObjectUtils.bytesToBundle(workDataTrigger.trigger, TimestampTriggerModel.SCHEDULING_KEYS);
 
     int triggerType = ObjectUtils.getInt(triggerBundle.get("type"));
 
@@ -260,24 +388,115 @@ class NotifeeAlarmManager {
           return;
         }
 
-        scheduleTimestampTriggerNotification(notificationModel, trigger);
+        // the dispatcher rebuilds its queue from the database itself
+        if (TriggerAlarmDispatcher.isDispatched(trigger.getAlarmType())) {
+          return;
+        }
+
+        // an alarm registered in the past fires at once, so a missed one-off trigger is
+        // displayed without registering one
+        if (!trigger.isRepeating() && trigger.getTimestamp() < System.currentTimeMillis()) {
+          displayScheduledNotification(id);
+          return;
+        }
+
+        scheduleTimestampTrigger(id, trigger);
         break;
       case 1:
-        // TODO: support interval triggers with alarm manager
+        IntervalTriggerModel intervalTrigger = IntervalTriggerModel.fromBundle(triggerBundle);
+        if (!intervalTrigger.getWithAlarmManager()
+            || TriggerAlarmDispatcher.isDispatched(intervalTrigger.getAlarmType())) {
+          return;
+        }
+
+        scheduleIntervalTrigger(id, intervalTrigger);
         break;
     }
   }
 
-  void rescheduleNotifications() {
+  /**
+   * Reschedules trigger notifications a page at a time, keeping the receiver alive through its
+   * pending result. Pages left once the time budget is spent are handed to a follow-up job.
+   */
+  void rescheduleNotifications(@Nullable BroadcastReceiver.PendingResult pendingResult) {
     Logger.d(TAG, "Reschedule Notifications on reboot");
-    getScheduledNotifications()
-        .addOnCompleteListener(
-            task -> {
-              List<WorkDataEntity> workDataEntities = task.getResult();
+    long deadline = SystemClock.elapsedRealtime() + RESCHEDULE_TIME_BUDGET_MS;
+
+    alarmManagerExecutor.execute(
+        () -> {
+          try {
+            // the dispatcher rebuilds its queue on its own thread meanwhile
+            Task<Void> reloadTask = TriggerAlarmDispatcher.getInstance().reload();
+            rescheduleNotificationsAfter(null, deadline);
+            Tasks.await(
+                reloadTask,
+                Math.max(0, deadline - SystemClock.elapsedRealtime()),
+                TimeUnit.MILLISECONDS);
+          } catch (Exception e) {
+            Logger.e(TAG, "Failed to reschedule notifications", e);
+          } finally {
+            if (pendingResult != null) {
+              pendingResult.finish();
+            }
+          }
+        });
+  }
 
-              for (WorkDataEntity workDataEntity : workDataEntities) {
-                rescheduleNotification(workDataEntity);
-              }
-            });
+  static void doRescheduleWork(
+      Data data, CallbackToFutureAdapter.Completer<ListenableWorker.Result> completer) {
+    long deadline = SystemClock.elapsedRealtime() + RESCHEDULE_TIME_BUDGET_MS;
+
+    alarmManagerExecutor.execute(
+        () -> {
+          try {
+            rescheduleNotificationsAfter(data.getString(RESCHEDULE_AFTER_ID_KEY), deadline);
+          } catch (Exception e) {
+            Logger.e(TAG, "Failed to reschedule notifications", e);
+          }
+          completer.set(ListenableWorker.Result.success());
+        });
+  }
+
+  /**
+   * Reschedules the triggers ordered after the given id, until all are done or the deadline
+   * passes, in which case a follow-up job continues from the last one rescheduled.
+   */
+  private static void rescheduleNotificationsAfter(@Nullable String afterId, long deadline)
+      throws ExecutionException, InterruptedException {
+    WorkDataRepository workDataRepository = WorkDataRepository.getInstance(getApplicationContext());
+    List<WorkDataTrigger> page;
+
+    do {
+      if (SystemClock.elapsedRealtime() >= deadline) {
+        enqueueRescheduleWork(afterId);
+        return;
+      }
+
+      page =
+          Tasks.await(
+              workDataRepository.getAlarmManagerTriggersPage(afterId, RESCHEDULE_PAGE_SIZE));
+      for (WorkDataTrigger workDataTrigger : page) {
+        rescheduleNotification(workDataTrigger);
+        afterId = workDataTrigger.id;
+      }
+    } while (page.size() == RESCHEDULE_PAGE_SIZE);
+  }
+
+  private static void enqueueRescheduleWork(@Nullable String afterId) {
+    Logger.d(TAG, "Rescheduling remaining notifications in a follow-up job");
+
+    Data workData =
+        new Data.Builder()
+            .putString(Worker.KEY_WORK_TYPE, Worker.WORK_TYPE_ALARM_RESCHEDULE)
+            .putString(RESCHEDULE_AFTER_ID_KEY, afterId)
+            .build();
+
+    OneTimeWorkRequest.Builder workRequestBuilder = new OneTimeWorkRequest.Builder(Worker.class);
+    workRequestBuilder.setInputData(workData);
+    WorkManager.getInstance(getApplicationContext())
+        .enqueueUniqueWork(
+            Worker.WORK_TYPE_ALARM_RESCHEDULE,
+            ExistingWorkPolicy.REPLACE,
+            workRequestBuilder.build());
   }
 }
@@ -0,0 +1,384 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.utility.ObjectUtils;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The thread pools background work runs on, one bounded lane per kind of work.
+ *
+ * <p>Work is chained with task continuations rather than waiting on other tasks, so a thread is
+ * only held while there is work to do, not while waiting on other work. Image fetches are the
+ * exception, blocking image lane threads on the network. Where work does wait, it may only
+ * wait on work in a lane below it: display, trigger and maintenance work on I/O and database reads,
+ * and I/O on image fetches, which never wait on other lanes. As no lane waits on itself, a lane
+ * with all of its threads busy cannot deadlock.
+ *
+ * <p>Each lane has a fixed number of threads, which stop when idle, and a bounded queue. Once the
+ * queue is full, further work either runs on the submitting thread, slowing down the submitter, or
+ * is rejected. Lanes other work waits on reject by default, as running their work on the
+ * submitting thread would have a lane wait on itself; {@link #call} fails the task of rejected
+ * work rather than throwing.
+ *
+ * <p>Work which must run in order, and is never dropped, runs on named serial executors instead,
+ * see {@link #newSerialExecutor}.
+ */
+public final class NotifeeExecutors {
+  private static final String TAG = "NotifeeExecutors";
+  private static final long KEEP_ALIVE_SECONDS = 30;
+
+  public enum Lane {
+    // building and posting notifications being displayed
+    DISPLAY("display", 4, 4096, true),
+    // handling triggers as they fire, and rescheduling them
+    TRIGGER("trigger", 2, 1024, true),
+    // bulk channel and housekeeping work
+    MAINTENANCE("maintenance", 1, 1024, true),
+    // system service calls
+    IO("io", 4, 4096, false),
+    // fetching and decoding images
+    IMAGE("image", 6, 1024, false),
+    // database reads; writes are applied in order by a serial executor
+    DATABASE("database", 2, 4096, false);
+
+    final String name;
+    final int defaultThreads;
+    final int defaultQueueSize;
+    final boolean defaultCallerRuns;
+
+    Lane(String name, int defaultThreads, int defaultQueueSize, boolean defaultCallerRuns) {
+      this.name = name;
+      this.defaultThreads = defaultThreads;
+      this.defaultQueueSize = defaultQueueSize;
+      this.defaultCallerRuns = defaultCallerRuns;
+    }
+  }
+
+  public static final String REJECTION_POLICY_CALLER_RUNS = "callerRuns";
+  public static final String REJECTION_POLICY_ABORT = "abort";
+
+  private static final LaneExecutor[] sExecutors = new LaneExecutor[Lane.values().length];
+  private static final Map<String, ThreadPoolExecutor> sSerialExecutors = new LinkedHashMap<>();
+  private static final Bundle sConfig = new Bundle();
+  private static ScheduledThreadPoolExecutor sTimer;
+
+  private NotifeeExecutors() {}
+
+  private static class LaneExecutor extends ThreadPoolExecutor {
+    final AtomicLong rejectedCount = new AtomicLong();
+    volatile boolean callerRuns;
+
+    LaneExecutor(Lane lane, int threads, int queueSize, boolean callerRuns) {
+      super(
+          threads,
+          threads,
+          KEEP_ALIVE_SECONDS,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(queueSize),
+          new NamedThreadFactory(lane.name));
+      this.callerRuns = callerRuns;
+      allowCoreThreadTimeOut(true);
+      setRejectedExecutionHandler(new LaneRejectionHandler());
+    }
+  }
+
+  private static class LaneRejectionHandler implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+      LaneExecutor laneExecutor = (LaneExecutor) executor;
+      laneExecutor.rejectedCount.incrementAndGet();
+
+      if (laneExecutor.callerRuns && !executor.isShutdown()) {
+        runnable.run();
+        return;
+      }
+
+      throw new RejectedExecutionException("Notifee executor queue is full");
+    }
+  }
+
+  private static class NamedThreadFactory implements ThreadFactory {
+    private final String mPrefix;
+    private final AtomicInteger mCount = new AtomicInteger();
+
+    NamedThreadFactory(String name) {
+      mPrefix = "notifee-" + name + "-";
+    }
+
+    @Override
+    public Thread newThread(@NonNull Runnable runnable) {
+      Thread thread = new Thread(runnable, mPrefix + mCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  /** The executor of a lane, created with its configuration on first use */
+  public static ExecutorService get(@NonNull Lane lane) {
+    synchronized (sExecutors) {
+      LaneExecutor executor = sExecutors[lane.ordinal()];
+      if (executor == null) {
+        Bundle laneConfig = getLaneConfig(lane);
+        executor =
+            new LaneExecutor(
+                lane,
+                getThreads(lane, laneConfig),
+                getQueueSize(lane, laneConfig),
+                isCallerRuns(lane, laneConfig));
+        sExecutors[lane.ordinal()] = executor;
+      }
+      return executor;
+    }
+  }
+
+  /**
+   * Runs work on a lane, like {@link Tasks#call}, except that work rejected by a lane with a full
+   * queue fails the returned task instead of throwing.
+   */
+  public static <T> Task<T> call(@NonNull Lane lane, @NonNull Callable<T> callable) {
+    try {
+      return Tasks.call(get(lane), callable);
+    } catch (RejectedExecutionException e) {
+      return Tasks.forException(e);
+    }
+  }
+
+  /**
+   * Runs a short action after a delay, such as completing a task at a deadline. The action runs on
+   * a single timer thread, so must never block.
+   */
+  public static ScheduledFuture<?> schedule(
+      @NonNull Runnable action, long delay, @NonNull TimeUnit unit) {
+    synchronized (sExecutors) {
+      if (sTimer == null) {
+        sTimer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("timer"));
+        sTimer.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        sTimer.allowCoreThreadTimeOut(true);
+        // deadlines are usually cancelled once met, don't keep them queued until they expire
+        sTimer.setRemoveOnCancelPolicy(true);
+      }
+      return sTimer.schedule(action, delay, unit);
+    }
+  }
+
+  /**
+   * A single named thread running work in the order submitted, outside of the lanes. Its queue is
+   * unbounded, so it is only for short work which must never be dropped, such as delivering events
+   * or writing to the database. Its utilization is reported with the lanes, see {@link
+   * #getMetrics}.
+   */
+  public static ExecutorService newSerialExecutor(@NonNull String name) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new NamedThreadFactory(name));
+    executor.allowCoreThreadTimeOut(true);
+
+    synchronized (sExecutors) {
+      sSerialExecutors.put(name, executor);
+    }
+    return executor;
+  }
+
+  /**
+   * Configures the lanes, see {@link Notifee#initialize}. The thread count and rejection policy of
+   * a lane already in use are changed in place; its queue size only applies to a lane not yet used.
+   *
+   * @param config a bundle per lane name ("display", "trigger", "maintenance", "io", "image" and
+   *     "database"), each with an optional "threads" and "queueSize" int and "rejectionPolicy" of
+   *     "callerRuns" or "abort". The display, trigger and maintenance lanes default to
+   *     "callerRuns", the others to "abort".
+   */
+  static void configure(@Nullable Bundle config) {
+    if (config == null) {
+      return;
+    }
+
+    synchronized (sExecutors) {
+      sConfig.putAll(config);
+
+      for (Lane lane : Lane.values()) {
+        LaneExecutor executor = sExecutors[lane.ordinal()];
+        Bundle laneConfig = getLaneConfig(lane);
+        if (executor == null || laneConfig.isEmpty()) {
+          continue;
+        }
+
+        int threads = getThreads(lane, laneConfig);
+        // the maximum may never be below the core size
+        if (threads > executor.getMaximumPoolSize()) {
+          executor.setMaximumPoolSize(threads);
+          executor.setCorePoolSize(threads);
+        } else {
+          executor.setCorePoolSize(threads);
+          executor.setMaximumPoolSize(threads);
+        }
+        executor.callerRuns = isCallerRuns(lane, laneConfig);
+
+        if (laneConfig.containsKey("queueSize")) {
+          Logger.w(TAG, "Queue size of the " + lane.name + " lane is fixed once it is in use");
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the lane configuration from the application's manifest meta-data, for hosts which
+   * initialize Notifee before any of the app's own code runs, such as React Native. Each lane is
+   * configured by "notifee_executor_{lane}_threads" and "notifee_executor_{lane}_queue_size" ints
+   * and a "notifee_executor_{lane}_rejection_policy" string.
+   *
+   * @return the configuration to pass to {@link Notifee#initialize}, or null if there is none
+   */
+  @KeepForSdk
+  public static @Nullable Bundle getManifestConfig(@NonNull Context context) {
+    Bundle metaData;
+    try {
+      metaData =
+          context
+              .getPackageManager()
+              .getApplicationInfo(context.getPackageName(), PackageManager.GET_META_DATA)
+              .metaData;
+    } catch (PackageManager.NameNotFoundException e) {
+      return null;
+    }
+
+    if (metaData == null) {
+      return null;
+    }
+
+    Bundle config = new Bundle();
+    for (Lane lane : Lane.values()) {
+      String prefix = "notifee_executor_" + lane.name + "_";
+      Bundle laneConfig = new Bundle();
+
+      if (metaData.containsKey(prefix + "threads")) {
+        laneConfig.putInt("threads", metaData.getInt(prefix + "threads"));
+      }
+      if (metaData.containsKey(prefix + "queue_size")) {
+        laneConfig.putInt("queueSize", metaData.getInt(prefix + "queue_size"));
+      }
+      if (metaData.containsKey(prefix + "rejection_policy")) {
+        laneConfig.putString("rejectionPolicy", metaData.getString(prefix + "rejection_policy"));
+      }
+
+      if (!laneConfig.isEmpty()) {
+        config.putBundle(lane.name, laneConfig);
+      }
+    }
+
+    return config.isEmpty() ? null : config;
+  }
+
+  /**
+   * Utilization of the lanes and serial executors in use, a bundle per name with its "threads",
+   * "activeThreads", "largestThreads", "maxThreads", "queued", "queueRemaining", "completed" and
+   * "rejected" counts. A rejected count includes work run by the submitting thread instead; serial
+   * executors never reject work.
+   */
+  static Bundle getMetrics() {
+    Bundle metrics = new Bundle();
+
+    synchronized (sExecutors) {
+      for (Lane lane : Lane.values()) {
+        LaneExecutor executor = sExecutors[lane.ordinal()];
+        if (executor == null) {
+          continue;
+        }
+
+        Bundle laneMetrics = getMetrics(executor);
+        laneMetrics.putLong("rejected", executor.rejectedCount.get());
+        metrics.putBundle(lane.name, laneMetrics);
+      }
+
+      for (Map.Entry<String, ThreadPoolExecutor> executor : sSerialExecutors.entrySet()) {
+        Bundle executorMetrics = getMetrics(executor.getValue());
+        executorMetrics.putLong("rejected", 0);
+        metrics.putBundle(executor.getKey(), executorMetrics);
+      }
+    }
+
+    return metrics;
+  }
+
+  private static Bundle getMetrics(ThreadPoolExecutor executor) {
+    Bundle metrics = new Bundle();
+    metrics.putInt("threads", executor.getPoolSize());
+    metrics.putInt("activeThreads", executor.getActiveCount());
+    metrics.putInt("largestThreads", executor.getLargestPoolSize());
+    metrics.putInt("maxThreads", executor.getMaximumPoolSize());
+    metrics.putInt("queued", executor.getQueue().size());
+    metrics.putInt("queueRemaining", executor.getQueue().remainingCapacity());
+    metrics.putLong("completed", executor.getCompletedTaskCount());
+    return metrics;
+  }
+
+  private static Bundle getLaneConfig(Lane lane) {
+    Bundle laneConfig = sConfig.getBundle(lane.name);
+    return laneConfig != null ? laneConfig : Bundle.EMPTY;
+  }
+
+  private static int getThreads(Lane lane, Bundle laneConfig) {
+    return getInt(laneConfig, "threads", lane.defaultThreads);
+  }
+
+  private static int getQueueSize(Lane lane, Bundle laneConfig) {
+    return getInt(laneConfig, "queueSize", lane.defaultQueueSize);
+  }
+
+  // numbers from React Native arrive as doubles
+  private static int getInt(Bundle laneConfig, String key, int defaultValue) {
+    return laneConfig.containsKey(key)
+        ? Math.max(1, ObjectUtils.getInt(laneConfig.get(key)))
+        : defaultValue;
+  }
+
+  private static boolean isCallerRuns(Lane lane, Bundle laneConfig) {
+    String rejectionPolicy = laneConfig.getString("rejectionPolicy");
+    if (rejectionPolicy == null) {
+      return lane.defaultCallerRuns;
+    }
+
+    return !REJECTION_POLICY_ABORT.equals(rejectionPolicy);
+  }
+}
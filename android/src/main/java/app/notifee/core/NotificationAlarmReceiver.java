@@ -27,6 +27,15 @@ import android.content.Intent;
 public class NotificationAlarmReceiver extends BroadcastReceiver {
   @Override
   public void onReceive(Context context, Intent intent) {
+    if (ContextHolder.getApplicationContext() == null) {
+      ContextHolder.setApplicationContext(context.getApplicationContext());
+    }
+
+    if (TriggerAlarmDispatcher.ACTION_DISPATCH.equals(intent.getAction())) {
+      TriggerAlarmDispatcher.getInstance().onAlarm(goAsync());
+      return;
+    }
+
     new NotifeeAlarmManager().displayScheduledNotification(intent.getExtras());
   }
 }
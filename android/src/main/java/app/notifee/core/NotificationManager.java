@@ -31,8 +31,11 @@ import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.SystemClock;
 import android.service.notification.StatusBarNotification;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.concurrent.futures.CallbackToFutureAdapter;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
@@ -45,6 +48,9 @@ import androidx.work.ListenableWorker;
 import androidx.work.OneTimeWorkRequest;
 import androidx.work.PeriodicWorkRequest;
 import androidx.work.WorkManager;
+import app.notifee.core.database.TriggerNotification;
+import app.notifee.core.database.TriggerReconciliation;
+import app.notifee.core.database.TriggerTypeCount;
 import app.notifee.core.database.WorkDataEntity;
 import app.notifee.core.database.WorkDataRepository;
 import app.notifee.core.event.MainComponentEvent;
@@ -57,6 +63,7 @@ import app.notifee.core.model.NotificationAndroidPressActionModel;
 import app.notifee.core.model.NotificationAndroidStyleModel;
 import app.notifee.core.model.NotificationModel;
 import app.notifee.core.model.TimestampTriggerModel;
+import app.notifee.core.utility.ImageSlot;
 import app.notifee.core.utility.IntentUtils;
 import app.notifee.core.utility.ObjectUtils;
 import app.notifee.core.utility.PowerManagerUtils;
@@ -66,26 +73,85 @@ import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class NotificationManager {
   private static final String TAG = "NotificationManager";
   private static final String EXTRA_NOTIFEE_NOTIFICATION = "notifee.notification";
   private static final String EXTRA_NOTIFEE_TRIGGER = "notifee.trigger";
-  private static final ExecutorService CACHED_THREAD_POOL = Executors.newCachedThreadPool();
+  static final String EXTRA_NOTIFEE_NOTIFICATION_REF = "notifee.notification_ref";
+  private static final ExecutorService DISPLAY_EXECUTOR =
+      NotifeeExecutors.get(NotifeeExecutors.Lane.DISPLAY);
   private static final int NOTIFICATION_TYPE_ALL = 0;
   private static final int NOTIFICATION_TYPE_DISPLAYED = 1;
   private static final int NOTIFICATION_TYPE_TRIGGER = 2;
+  private static final int IMAGE_FETCH_TIMEOUT_SECONDS = 10;
+  private static final int TRIGGER_NOTIFICATIONS_MAX_PAGE_SIZE = 500;
+  // Progressive image updates are posted from a single thread, so they are never reordered
+  private static final ExecutorService PROGRESSIVE_UPDATE_EXECUTOR =
+      NotifeeExecutors.newSerialExecutor("progressive-update");
+  private static final AtomicInteger PROGRESSIVE_GENERATION = new AtomicInteger();
+  // notification id -> generation of the progressive display which may still update it
+  private static final Map<String, Integer> PROGRESSIVE_DISPLAYS = new ConcurrentHashMap<>();
+  // ids of triggers decoded and with their images fetched ahead of being displayed
+  private static final Set<String> PRE_RENDERED_TRIGGERS = ConcurrentHashMap.newKeySet();
+
+  /*
+   * Fetch every image the given notifications reference (large icon, action icons and style
+   * images) at once, with one overall deadline. Image URLs shared between notifications are
+   * only fetched once.
+   */
+  @VisibleForTesting
+  static Task<Map<String, Bitmap>> fetchNotificationImages(
+      List<NotificationModel> notificationModels) {
+    Map<String, ImageSlot> images = new LinkedHashMap<>();
+    for (NotificationModel notificationModel : notificationModels) {
+      for (Map.Entry<String, ImageSlot> entry :
+          notificationModel.getAndroid().getImageSlots().entrySet()) {
+        ImageSlot.add(images, entry.getKey(), entry.getValue());
+      }
+    }
+
+    return ResourceUtils.getImageBitmapsFromUrls(
+        images, IMAGE_FETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
 
   private static Task<NotificationCompat.Builder> notificationBundleToBuilder(
       NotificationModel notificationModel) {
+    // the image fetch runs alongside the initial builder
+    return notificationBundleToBuilder(
+        notificationModel,
+        fetchNotificationImages(Collections.singletonList(notificationModel)),
+        DISPLAY_EXECUTOR);
+  }
+
+  @VisibleForTesting
+  static Task<NotificationCompat.Builder> notificationBundleToBuilder(
+      NotificationModel notificationModel,
+      Task<Map<String, Bitmap>> imagesTask,
+      ExecutorService executor) {
+    try {
+      notificationModel.validate();
+    } catch (IllegalArgumentException e) {
+      return Tasks.forException(e);
+    }
+
     final NotificationAndroidModel androidModel = notificationModel.getAndroid();
+    // A single snapshot of the notification is shared by every intent created for it, rather
+    // than cloning the bundle once per PendingIntent
+    final Bundle notificationBundle = notificationModel.toBundle();
 
     /*
      * Construct the initial NotificationCompat.Builder instance
@@ -99,30 +165,66 @@ class NotificationManager {
           // must always keep at top
           builder.setExtras(notificationModel.getData());
 
-          builder.setDeleteIntent(
-              ReceiverService.createIntent(
-                  ReceiverService.DELETE_INTENT,
-                  new String[] {"notification"},
-                  notificationModel.toBundle()));
+          // Intents reference the stored payload by id when possible, falling back to embedding
+          // the whole notification if it could not be stored
+          String notificationRef = null;
+          if (NotificationPayloadStore.put(notificationModel.getId(), notificationBundle)) {
+            notificationRef = notificationModel.getId();
+            Bundle refExtras = new Bundle();
+            refExtras.putString(EXTRA_NOTIFEE_NOTIFICATION_REF, notificationRef);
+            builder.addExtras(refExtras);
+          }
+
+          if (notificationRef != null) {
+            builder.setDeleteIntent(
+                ReceiverService.createIntent(
+                    ReceiverService.DELETE_INTENT, notificationRef, -1, null));
+          } else {
+            builder.setDeleteIntent(
+                ReceiverService.createIntent(
+                    ReceiverService.DELETE_INTENT,
+                    new String[] {"notification"},
+                    notificationBundle));
+          }
+
           int targetSdkVersion =
               ContextHolder.getApplicationContext().getApplicationInfo().targetSdkVersion;
           if (targetSdkVersion >= Build.VERSION_CODES.S
               && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            builder.setContentIntent(
-                NotificationPendingIntent.createIntent(
-                    notificationModel.getHashCode(),
-                    androidModel.getPressAction(),
-                    TYPE_PRESS,
-                    new String[] {"notification", "pressAction"},
-                    notificationModel.toBundle(),
-                    androidModel.getPressAction()));
+            if (notificationRef != null) {
+              builder.setContentIntent(
+                  NotificationPendingIntent.createIntent(
+                      notificationModel.getHashCode(),
+                      androidModel.getPressAction(),
+                      TYPE_PRESS,
+                      notificationRef,
+                      -1));
+            } else {
+              builder.setContentIntent(
+                  NotificationPendingIntent.createIntent(
+                      notificationModel.getHashCode(),
+                      androidModel.getPressAction(),
+                      TYPE_PRESS,
+                      new String[] {"notification", "pressAction"},
+                      notificationBundle,
+                      androidModel.getPressAction()));
+            }
           } else {
-            builder.setContentIntent(
-                ReceiverService.createIntent(
-                    ReceiverService.PRESS_INTENT,
-                    new String[] {"notification", "pressAction"},
-                    notificationModel.toBundle(),
-                    androidModel.getPressAction()));
+            if (notificationRef != null) {
+              builder.setContentIntent(
+                  ReceiverService.createIntent(
+                      ReceiverService.PRESS_INTENT,
+                      notificationRef,
+                      -1,
+                      androidModel.getPressAction()));
+            } else {
+              builder.setContentIntent(
+                  ReceiverService.createIntent(
+                      ReceiverService.PRESS_INTENT,
+                      new String[] {"notification", "pressAction"},
+                      notificationBundle,
+                      androidModel.getPressAction()));
+            }
           }
 
           if (notificationModel.getTitle() != null) {
@@ -245,32 +347,19 @@ class NotificationManager {
         };
 
     /*
-     * A task continuation that fetches the largeIcon through Fresco, if specified.
+     * A task continuation that sets the largeIcon from the fetched images, if specified.
      */
     Continuation<NotificationCompat.Builder, NotificationCompat.Builder> largeIconContinuation =
         task -> {
           NotificationCompat.Builder builder = task.getResult();
 
           if (androidModel.hasLargeIcon()) {
-            String largeIcon = androidModel.getLargeIcon();
-            Bitmap largeIconBitmap = null;
-
-            try {
-              largeIconBitmap =
-                  Tasks.await(ResourceUtils.getImageBitmapFromUrl(largeIcon), 10, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-              Logger.e(
-                  TAG,
-                  "Timeout occurred whilst trying to retrieve a largeIcon image: " + largeIcon,
-                  e);
-            } catch (Exception e) {
-              Logger.e(
-                  TAG,
-                  "An error occurred whilst trying to retrieve a largeIcon image: " + largeIcon,
-                  e);
-            }
+            Bitmap largeIconBitmap = imagesTask.getResult().get(androidModel.getLargeIcon());
 
             if (largeIconBitmap != null) {
+              // size first, so the circular crop works on the smaller bitmap
+              largeIconBitmap = ResourceUtils.getSizedBitmap(largeIconBitmap, ImageSlot.LARGE_ICON);
+
               if (androidModel.getCircularLargeIcon()) {
                 largeIconBitmap = ResourceUtils.getCircularBitmap(largeIconBitmap);
               }
@@ -311,7 +400,14 @@ class NotificationManager {
 
                 if (fullScreenActionBundle.getMainComponent() != null) {
                   launchIntent.putExtra("mainComponent", fullScreenActionBundle.getMainComponent());
-                  launchIntent.putExtra("notification", notificationModel.toBundle());
+                  String notificationRef =
+                      builder.getExtras().getString(EXTRA_NOTIFEE_NOTIFICATION_REF);
+                  if (notificationRef != null) {
+                    launchIntent.putExtra(
+                        NotificationPayloadStore.NOTIFICATION_REF_INTENT_KEY, notificationRef);
+                  } else {
+                    launchIntent.putExtra("notification", notificationBundle);
+                  }
                   EventBus.postSticky(
                       new MainComponentEvent(fullScreenActionBundle.getMainComponent()));
                 }
@@ -329,62 +425,69 @@ class NotificationManager {
             };
 
     /*
-     * A task continuation that builds all actions, if any. Additionally fetches
-     * icon bitmaps through Fresco.
+     * A task continuation that builds all actions, if any, using the fetched icon
+     * bitmaps.
      */
     Continuation<NotificationCompat.Builder, NotificationCompat.Builder> actionsContinuation =
         task -> {
           NotificationCompat.Builder builder = task.getResult();
-          ArrayList<NotificationAndroidActionModel> actionBundles = androidModel.getActions();
+          List<NotificationAndroidActionModel> actionBundles = androidModel.getActions();
 
           if (actionBundles == null) {
             return builder;
           }
 
-          for (NotificationAndroidActionModel actionBundle : actionBundles) {
+          int targetSdkVersion =
+              ContextHolder.getApplicationContext().getApplicationInfo().targetSdkVersion;
+          String notificationRef = builder.getExtras().getString(EXTRA_NOTIFEE_NOTIFICATION_REF);
+
+          for (int i = 0; i < actionBundles.size(); i++) {
+            NotificationAndroidActionModel actionBundle = actionBundles.get(i);
             PendingIntent pendingIntent = null;
-            int targetSdkVersion =
-                ContextHolder.getApplicationContext().getApplicationInfo().targetSdkVersion;
-            if (targetSdkVersion >= Build.VERSION_CODES.S
+            Bundle pressActionBundle = actionBundle.getPressAction().toBundle();
+            if (notificationRef != null
+                && targetSdkVersion >= Build.VERSION_CODES.S
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+              pendingIntent =
+                  NotificationPendingIntent.createIntent(
+                      notificationModel.getHashCode(),
+                      pressActionBundle,
+                      TYPE_ACTION_PRESS,
+                      notificationRef,
+                      i);
+            } else if (notificationRef != null) {
+              pendingIntent =
+                  ReceiverService.createIntent(
+                      ACTION_PRESS_INTENT, notificationRef, i, pressActionBundle);
+            } else if (targetSdkVersion >= Build.VERSION_CODES.S
                 && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
               pendingIntent =
                   NotificationPendingIntent.createIntent(
                       notificationModel.getHashCode(),
-                      actionBundle.getPressAction().toBundle(),
+                      pressActionBundle,
                       TYPE_ACTION_PRESS,
                       new String[] {"notification", "pressAction"},
-                      notificationModel.toBundle(),
-                      actionBundle.getPressAction().toBundle());
+                      notificationBundle,
+                      pressActionBundle);
             } else {
               pendingIntent =
                   ReceiverService.createIntent(
                       ACTION_PRESS_INTENT,
                       new String[] {"notification", "pressAction"},
-                      notificationModel.toBundle(),
-                      actionBundle.getPressAction().toBundle());
+                      notificationBundle,
+                      pressActionBundle);
             }
 
             String icon = actionBundle.getIcon();
             Bitmap iconBitmap = null;
 
             if (icon != null) {
-              try {
-                iconBitmap =
-                    Tasks.await(
-                        ResourceUtils.getImageBitmapFromUrl(actionBundle.getIcon()),
-                        10,
-                        TimeUnit.SECONDS);
-              } catch (TimeoutException e) {
-                Logger.e(
-                    TAG, "Timeout occurred whilst trying to retrieve an action icon: " + icon, e);
-              } catch (Exception e) {
-                Logger.e(
-                    TAG, "An error occurred whilst trying to retrieve an action icon: " + icon, e);
-              }
+              iconBitmap = imagesTask.getResult().get(icon);
             }
 
             IconCompat iconCompat = null;
             if (iconBitmap != null) {
+              iconBitmap = ResourceUtils.getSizedBitmap(iconBitmap, ImageSlot.ACTION_ICON);
               iconCompat = IconCompat.createWithAdaptiveBitmap(iconBitmap);
             }
 
@@ -404,9 +507,8 @@ class NotificationManager {
         };
 
     /*
-     * A task continuation that builds the notification style, if any. Additionally
-     * fetches any image bitmaps (e.g. Person image, or BigPicture image) through
-     * Fresco.
+     * A task continuation that builds the notification style, if any, using the
+     * fetched images (e.g. Person image, or BigPicture image).
      */
     Continuation<NotificationCompat.Builder, NotificationCompat.Builder> styleContinuation =
         task -> {
@@ -416,13 +518,7 @@ class NotificationManager {
             return builder;
           }
 
-          Task<NotificationCompat.Style> styleTask =
-              androidStyleBundle.getStyleTask(CACHED_THREAD_POOL);
-          if (styleTask == null) {
-            return builder;
-          }
-
-          NotificationCompat.Style style = Tasks.await(styleTask);
+          NotificationCompat.Style style = androidStyleBundle.getStyle(imagesTask.getResult());
           if (style != null) {
             builder.setStyle(style);
           }
@@ -430,15 +526,19 @@ class NotificationManager {
           return builder;
         };
 
-    return Tasks.call(CACHED_THREAD_POOL, builderCallable)
-        // get a large image bitmap if largeIcon is set
-        .continueWith(CACHED_THREAD_POOL, largeIconContinuation)
-        // build notification actions, tasks based to allow image fetching
-        .continueWith(CACHED_THREAD_POOL, actionsContinuation)
-        // build notification style, tasks based to allow image fetching
-        .continueWith(CACHED_THREAD_POOL, styleContinuation)
+    Task<NotificationCompat.Builder> builderTask = Tasks.call(executor, builderCallable);
+
+    // the image continuations only run once the images have been fetched, so never wait on them
+    return Tasks.whenAllComplete(builderTask, imagesTask)
+        .continueWithTask(executor, task -> builderTask)
+        // set the large image bitmap if largeIcon is set
+        .continueWith(executor, largeIconContinuation)
+        // build notification actions with their fetched icons
+        .continueWith(executor, actionsContinuation)
+        // build notification style with its fetched images
+        .continueWith(executor, styleContinuation)
         // set full screen action, if fullScreenAction is set
-        .continueWith(CACHED_THREAD_POOL, fullScreenActionContinuation);
+        .continueWith(executor, fullScreenActionContinuation);
   }
 
   static Task<Void> cancelAllNotifications(@NonNull int notificationType) {
@@ -450,6 +550,8 @@ class NotificationManager {
               if (notificationType == NOTIFICATION_TYPE_DISPLAYED
                   || notificationType == NOTIFICATION_TYPE_ALL) {
                 notificationManagerCompat.cancelAll();
+                NotificationPayloadStore.clear();
+                PROGRESSIVE_DISPLAYS.clear();
               }
 
               if (notificationType == NOTIFICATION_TYPE_TRIGGER
@@ -464,7 +566,7 @@ class NotificationManager {
               return null;
             })
         .continueWith(
-            CACHED_THREAD_POOL,
+            DISPLAY_EXECUTOR,
             task -> {
               if (notificationType == NOTIFICATION_TYPE_TRIGGER
                   || notificationType == NOTIFICATION_TYPE_ALL) {
@@ -487,7 +589,6 @@ class NotificationManager {
       @NonNull int notificationType, @NonNull List<String> ids, String tag) {
     return Tasks.call(
             () -> {
-              WorkManager workManager = WorkManager.getInstance(getApplicationContext());
               NotificationManagerCompat notificationManagerCompat =
                   NotificationManagerCompat.from(getApplicationContext());
 
@@ -516,87 +617,539 @@ class NotificationManager {
 
                   // Cancel a notification created with notifee
                   notificationManagerCompat.cancel(tag, id.hashCode());
+                  NotificationPayloadStore.remove(id);
+                  PROGRESSIVE_DISPLAYS.remove(id);
                 }
+              }
 
-                if (notificationType != NOTIFICATION_TYPE_DISPLAYED) {
-                  Logger.i(TAG, "Removing notification with id " + id);
+              return null;
+            })
+        .continueWithTask(
+            DISPLAY_EXECUTOR,
+            task -> {
+              if (notificationType == NOTIFICATION_TYPE_DISPLAYED) {
+                return Tasks.forResult(null);
+              }
 
-                  workManager.cancelUniqueWork("trigger:" + id);
-                  // Remove all cancelled and finished work from its internal database
-                  // states include SUCCEEDED, FAILED and CANCELLED
-                  workManager.pruneWork();
+              WorkDataRepository workDataRepository =
+                  WorkDataRepository.getInstance(getApplicationContext());
+
+              return workDataRepository
+                  .getByIds(ids)
+                  .continueWith(
+                      DISPLAY_EXECUTOR,
+                      entitiesTask -> {
+                        if (entitiesTask.isSuccessful()) {
+                          cancelTriggerSchedules(ids, entitiesTask.getResult());
+                        } else {
+                          Logger.e(
+                              TAG,
+                              "cancelAllNotificationsWithIds -> Failed to read triggers",
+                              entitiesTask.getException());
+                          for (String id : ids) {
+                            NotifeeAlarmManager.cancelNotification(id);
+                          }
+                          cancelTriggerSchedules(ids, Collections.emptyList());
+                        }
+
+                        // delete all from database
+                        workDataRepository.deleteByIds(ids);
+                        return null;
+                      });
+            });
+  }
 
-                  // And with alarm manager
-                  NotifeeAlarmManager.cancelNotification(id);
+  /**
+   * Cancels displayed and trigger notifications matching all of the given filters, at least one of
+   * which must be set.
+   *
+   * @param channelId the channel of the notifications, or null to match any
+   * @param groupId the group of the notifications, or null to match any
+   * @param tag the tag of the notifications, or null to match any
+   */
+  static Task<Void> cancelAllNotificationsMatching(
+      int notificationType,
+      @Nullable String channelId,
+      @Nullable String groupId,
+      @Nullable String tag) {
+    if (channelId == null && groupId == null && tag == null) {
+      return Tasks.forException(
+          new IllegalArgumentException("At least one of channelId, groupId or tag is required"));
+    }
+
+    return Tasks.call(
+            () -> {
+              if (notificationType == NOTIFICATION_TYPE_TRIGGER
+                  || Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+                return null;
+              }
+
+              android.app.NotificationManager notificationManager =
+                  (android.app.NotificationManager)
+                      getApplicationContext().getSystemService(Context.NOTIFICATION_SERVICE);
+
+              for (StatusBarNotification sbNotification :
+                  notificationManager.getActiveNotifications()) {
+                Notification notification = sbNotification.getNotification();
+
+                if ((channelId != null
+                        && (Build.VERSION.SDK_INT < Build.VERSION_CODES.O
+                            || !channelId.equals(notification.getChannelId())))
+                    || (groupId != null && !groupId.equals(notification.getGroup()))
+                    || (tag != null && !tag.equals(sbNotification.getTag()))) {
+                  continue;
+                }
+
+                notificationManager.cancel(sbNotification.getTag(), sbNotification.getId());
+
+                String notificationRef =
+                    notification.extras.getString(EXTRA_NOTIFEE_NOTIFICATION_REF);
+                if (notificationRef != null) {
+                  NotificationPayloadStore.remove(notificationRef);
+                  PROGRESSIVE_DISPLAYS.remove(notificationRef);
                 }
               }
 
               return null;
             })
-        .continueWith(
+        .continueWithTask(
+            DISPLAY_EXECUTOR,
             task -> {
-              // delete all from database
-              if (notificationType != NOTIFICATION_TYPE_DISPLAYED) {
-                WorkDataRepository.getInstance(getApplicationContext()).deleteByIds(ids);
+              if (notificationType == NOTIFICATION_TYPE_DISPLAYED) {
+                return Tasks.forResult(null);
               }
-              return null;
+
+              WorkDataRepository workDataRepository =
+                  WorkDataRepository.getInstance(getApplicationContext());
+
+              return workDataRepository
+                  .getByChannelAndGroup(channelId, groupId)
+                  .continueWith(
+                      DISPLAY_EXECUTOR,
+                      entitiesTask -> {
+                        List<WorkDataEntity> matching = new ArrayList<>();
+                        List<String> ids = new ArrayList<>();
+
+                        for (WorkDataEntity workDataEntity : entitiesTask.getResult()) {
+                          if (tag == null || tag.equals(getTag(workDataEntity))) {
+                            matching.add(workDataEntity);
+                            ids.add(workDataEntity.getId());
+                          }
+                        }
+
+                        if (!ids.isEmpty()) {
+                          cancelTriggerSchedules(ids, matching);
+                          workDataRepository.deleteByIds(ids);
+                        }
+                        return null;
+                      });
             });
   }
 
+  private static @Nullable String getTag(WorkDataEntity workDataEntity) {
+    if (workDataEntity.getNotification() == null) {
+      return null;
+    }
+
+    // only the android options are decoded
+    Bundle androidBundle =
+        ObjectUtils.bytesToBundle(workDataEntity.getNotification(), "android").getBundle("android");
+    return androidBundle != null ? androidBundle.getString("tag") : null;
+  }
+
+  /**
+   * Cancels the schedules of trigger notifications: alarms in one pass over their entries, and
+   * WorkManager work for the rest, pruning finished work once.
+   *
+   * @param workDataEntities the entries of the ids, as far as they exist
+   */
+  private static void cancelTriggerSchedules(
+      List<String> ids, List<WorkDataEntity> workDataEntities) {
+    Set<String> alarmManagerIds = new HashSet<>();
+    for (WorkDataEntity workDataEntity : workDataEntities) {
+      if (Boolean.TRUE.equals(workDataEntity.getWithAlarmManager())) {
+        alarmManagerIds.add(workDataEntity.getId());
+      }
+    }
+
+    NotifeeAlarmManager.cancelNotifications(workDataEntities);
+
+    WorkManager workManager = WorkManager.getInstance(getApplicationContext());
+    boolean cancelledWork = false;
+    for (String id : ids) {
+      if (!alarmManagerIds.contains(id)) {
+        Logger.i(TAG, "Removing notification with id " + id);
+        workManager.cancelUniqueWork("trigger:" + id);
+        cancelledWork = true;
+      }
+    }
+
+    if (cancelledWork) {
+      // Remove all cancelled and finished work from its internal database
+      // states include SUCCEEDED, FAILED and CANCELLED
+      workManager.pruneWork();
+    }
+  }
+
   static Task<Void> displayNotification(NotificationModel notificationModel, Bundle triggerBundle) {
+    // a newer display of the same id supersedes any pending progressive updates
+    PROGRESSIVE_DISPLAYS.remove(notificationModel.getId());
+
+    if (notificationModel.getAndroid().getProgressiveImages()) {
+      Map<String, ImageSlot> imageSlots = notificationModel.getAndroid().getImageSlots();
+      if (!imageSlots.isEmpty()) {
+        return displayNotificationProgressively(notificationModel, triggerBundle, imageSlots);
+      }
+    }
+
     return notificationBundleToBuilder(notificationModel)
         .continueWith(
-            CACHED_THREAD_POOL,
+            DISPLAY_EXECUTOR,
             (task) -> {
-              NotificationCompat.Builder builder = task.getResult();
+              postNotification(
+                  NotificationManagerCompat.from(getApplicationContext()),
+                  notificationModel,
+                  task.getResult(),
+                  triggerBundle,
+                  false);
 
-              // Add the following extras for `getDisplayedNotifications()`
-              Bundle extrasBundle = new Bundle();
-              extrasBundle.putBundle(EXTRA_NOTIFEE_NOTIFICATION, notificationModel.toBundle());
-              if (triggerBundle != null) {
-                extrasBundle.putBundle(EXTRA_NOTIFEE_TRIGGER, triggerBundle);
+              return null;
+            });
+  }
+
+  /**
+   * Posts the notification without images straight away, then re-posts it as its images load.
+   * Updates only alert once and do not send another DELIVERED event. Images loading after the fetch
+   * deadline, or after the notification was removed or displayed again, are ignored.
+   */
+  private static Task<Void> displayNotificationProgressively(
+      NotificationModel notificationModel,
+      Bundle triggerBundle,
+      Map<String, ImageSlot> imageSlots) {
+    String id = notificationModel.getId();
+    int generation = PROGRESSIVE_GENERATION.incrementAndGet();
+    PROGRESSIVE_DISPLAYS.put(id, generation);
+
+    Task<Map<String, Bitmap>> noImages = Tasks.forResult(Collections.emptyMap());
+
+    return notificationBundleToBuilder(notificationModel, noImages, DISPLAY_EXECUTOR)
+        .continueWith(
+            PROGRESSIVE_UPDATE_EXECUTOR,
+            task -> {
+              postNotification(
+                  NotificationManagerCompat.from(getApplicationContext()),
+                  notificationModel,
+                  task.getResult(),
+                  triggerBundle,
+                  false);
+
+              ProgressiveDisplay display =
+                  new ProgressiveDisplay(
+                      notificationModel, triggerBundle, generation, imageSlots.size());
+
+              for (Map.Entry<String, ImageSlot> imageSlot : imageSlots.entrySet()) {
+                ResourceUtils.getImageBitmapFromUrl(imageSlot.getKey(), imageSlot.getValue())
+                    .addOnCompleteListener(
+                        PROGRESSIVE_UPDATE_EXECUTOR,
+                        imageTask ->
+                            display.onImageLoaded(
+                                imageSlot.getKey(),
+                                imageTask.isSuccessful() ? imageTask.getResult() : null));
               }
-              builder.addExtras(extrasBundle);
 
-              // build notification
-              Notification notification = Objects.requireNonNull(builder).build();
+              return null;
+            });
+  }
 
-              int hashCode = notificationModel.getHashCode();
+  /**
+   * The images loaded so far for a notification being displayed progressively. Images loading
+   * while an update is being built are coalesced into the next update, so there is at most one
+   * update in flight per notification. Only accessed from PROGRESSIVE_UPDATE_EXECUTOR.
+   */
+  private static class ProgressiveDisplay {
+    private final NotificationModel mNotificationModel;
+    private final Bundle mTriggerBundle;
+    private final int mGeneration;
+    private final long mDeadline;
+    private final Map<String, Bitmap> mLoadedImages = new HashMap<>();
+    private int mRemaining;
+    private boolean mUpdating = false;
+    private boolean mChanged = false;
+    private boolean mStopped = false;
+
+    ProgressiveDisplay(
+        NotificationModel notificationModel, Bundle triggerBundle, int generation, int images) {
+      mNotificationModel = notificationModel;
+      mTriggerBundle = triggerBundle;
+      mGeneration = generation;
+      mDeadline =
+          SystemClock.elapsedRealtime() + TimeUnit.SECONDS.toMillis(IMAGE_FETCH_TIMEOUT_SECONDS);
+      mRemaining = images;
+    }
 
-              NotificationAndroidModel androidBundle = notificationModel.getAndroid();
-              if (androidBundle.getLoopSound()) {
-                notification.flags |= Notification.FLAG_INSISTENT;
-              }
+    void onImageLoaded(String url, @Nullable Bitmap bitmap) {
+      mRemaining--;
+      if (mStopped) {
+        return;
+      }
+
+      if (bitmap != null && SystemClock.elapsedRealtime() <= mDeadline) {
+        mLoadedImages.put(url, bitmap);
+        mChanged = true;
+      }
 
-              if (androidBundle.getFlags() != null && androidBundle.getFlags().length > 0) {
-                for (int flag : androidBundle.getFlags()) {
-                  notification.flags |= flag;
+      if (!mUpdating) {
+        update();
+      }
+    }
+
+    private void update() {
+      if (!mChanged) {
+        if (mRemaining == 0) {
+          stop();
+        }
+        return;
+      }
+
+      // one check per update, however many images it adds
+      if (!isProgressiveDisplayCurrent(mNotificationModel, mGeneration)) {
+        stop();
+        return;
+      }
+
+      mUpdating = true;
+      mChanged = false;
+
+      notificationBundleToBuilder(
+              mNotificationModel, Tasks.forResult(new HashMap<>(mLoadedImages)), DISPLAY_EXECUTOR)
+          .continueWith(
+              PROGRESSIVE_UPDATE_EXECUTOR,
+              task -> {
+                mUpdating = false;
+
+                if (!task.isSuccessful()) {
+                  Logger.e(
+                      TAG,
+                      "Failed to update notification with images " + mNotificationModel.getId(),
+                      task.getException());
+                } else if (isGenerationCurrent()) {
+                  NotificationCompat.Builder builder = task.getResult();
+                  builder.setOnlyAlertOnce(true);
+                  postNotification(
+                      NotificationManagerCompat.from(getApplicationContext()),
+                      mNotificationModel,
+                      builder,
+                      mTriggerBundle,
+                      true);
                 }
-              }
 
-              if (androidBundle.getLightUpScreen()) {
-                PowerManagerUtils.lightUpScreenIfNeeded(ContextHolder.getApplicationContext());
-              }
+                // images loaded meanwhile go into the next update
+                update();
+                return null;
+              });
+    }
 
-              if (androidBundle.getAsForegroundService()) {
-                ForegroundService.start(hashCode, notification, notificationModel.toBundle());
-              } else {
-                NotificationManagerCompat.from(getApplicationContext())
-                    .notify(androidBundle.getTag(), hashCode, notification);
-              }
+    private boolean isGenerationCurrent() {
+      Integer current = PROGRESSIVE_DISPLAYS.get(mNotificationModel.getId());
+      return current != null && current == mGeneration;
+    }
 
-              EventBus.post(
-                  new NotificationEvent(NotificationEvent.TYPE_DELIVERED, notificationModel));
+    private void stop() {
+      mStopped = true;
+      PROGRESSIVE_DISPLAYS.remove(mNotificationModel.getId(), mGeneration);
+    }
+  }
 
-              return null;
+  private static boolean isProgressiveDisplayCurrent(
+      NotificationModel notificationModel, int generation) {
+    Integer current = PROGRESSIVE_DISPLAYS.get(notificationModel.getId());
+    if (current == null || current != generation) {
+      return false;
+    }
+
+    // don't bring back a notification the user has dismissed in the meantime
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+      android.app.NotificationManager notificationManager =
+          (android.app.NotificationManager)
+              getApplicationContext().getSystemService(Context.NOTIFICATION_SERVICE);
+      String tag = notificationModel.getAndroid().getTag();
+
+      for (StatusBarNotification sbNotification : notificationManager.getActiveNotifications()) {
+        if (sbNotification.getId() == notificationModel.getHashCode()
+            && Objects.equals(sbNotification.getTag(), tag)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Displays a batch of notifications. Images shared across the batch are fetched once, the
+   * notifications are built with bounded parallelism and then posted in one pass.
+   *
+   * @return a result Bundle per notification containing its "id", and an "error" message if it
+   *     failed to parse or display
+   */
+  static Task<List<Bundle>> displayNotifications(List<Bundle> notificationBundles) {
+    int size = notificationBundles.size();
+    // null where the notification failed to parse, with its error in parseErrors
+    List<NotificationModel> notificationModels = new ArrayList<>(size);
+    List<Exception> parseErrors = new ArrayList<>(size);
+    List<NotificationModel> parsedModels = new ArrayList<>(size);
+    for (Bundle notificationBundle : notificationBundles) {
+      try {
+        NotificationModel notificationModel =
+            NotificationModel.fromBundle(Objects.requireNonNull(notificationBundle));
+        notificationModels.add(notificationModel);
+        parseErrors.add(null);
+        parsedModels.add(notificationModel);
+      } catch (RuntimeException e) {
+        notificationModels.add(null);
+        parseErrors.add(e);
+      }
+    }
+
+    Task<Map<String, Bitmap>> imagesTask = fetchNotificationImages(parsedModels);
+
+    List<Task<NotificationCompat.Builder>> builderTasks = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      NotificationModel notificationModel = notificationModels.get(i);
+      builderTasks.add(
+          notificationModel != null
+              ? notificationBundleToBuilder(notificationModel, imagesTask, DISPLAY_EXECUTOR)
+              : Tasks.forException(parseErrors.get(i)));
+    }
+
+    return Tasks.whenAllComplete(builderTasks)
+        .continueWith(
+            DISPLAY_EXECUTOR,
+            task -> {
+              NotificationManagerCompat notificationManagerCompat =
+                  NotificationManagerCompat.from(getApplicationContext());
+              List<Bundle> results = new ArrayList<>(size);
+
+              for (int i = 0; i < size; i++) {
+                Bundle notificationBundle = notificationBundles.get(i);
+                NotificationModel notificationModel = notificationModels.get(i);
+                Task<NotificationCompat.Builder> builderTask = builderTasks.get(i);
+                Exception exception = builderTask.getException();
+
+                if (exception == null) {
+                  try {
+                    PROGRESSIVE_DISPLAYS.remove(notificationModel.getId());
+                    postNotification(
+                        notificationManagerCompat,
+                        notificationModel,
+                        builderTask.getResult(),
+                        null,
+                        false);
+                  } catch (Exception e) {
+                    exception = e;
+                  }
+                }
+
+                Bundle result = new Bundle();
+                result.putString(
+                    "id", notificationBundle != null ? notificationBundle.getString("id") : null);
+                if (exception != null) {
+                  Logger.e(TAG, "displayNotifications", exception);
+                  result.putString("error", exception.getMessage());
+                }
+                results.add(result);
+              }
+
+              return results;
             });
   }
 
+  /**
+   * Posts a built notification.
+   *
+   * @param isUpdate true when re-posting a notification which is already displayed, in which case
+   *     the screen is not lit up again and no DELIVERED event is sent
+   */
+  private static void postNotification(
+      NotificationManagerCompat notificationManagerCompat,
+      NotificationModel notificationModel,
+      NotificationCompat.Builder builder,
+      Bundle triggerBundle,
+      boolean isUpdate) {
+    // Add the following extras for `getDisplayedNotifications()`
+    Bundle notificationBundle = notificationModel.toBundle();
+    Bundle extrasBundle = new Bundle();
+    // Only embed the notification when its payload could not be stored (see
+    // EXTRA_NOTIFEE_NOTIFICATION_REF), to keep the posted notification small
+    if (!builder.getExtras().containsKey(EXTRA_NOTIFEE_NOTIFICATION_REF)) {
+      extrasBundle.putBundle(EXTRA_NOTIFEE_NOTIFICATION, notificationBundle);
+    }
+    if (triggerBundle != null) {
+      extrasBundle.putBundle(EXTRA_NOTIFEE_TRIGGER, triggerBundle);
+    }
+    builder.addExtras(extrasBundle);
+
+    // build notification
+    Notification notification = Objects.requireNonNull(builder).build();
+
+    int hashCode = notificationModel.getHashCode();
+
+    NotificationAndroidModel androidBundle = notificationModel.getAndroid();
+    if (androidBundle.getLoopSound()) {
+      notification.flags |= Notification.FLAG_INSISTENT;
+    }
+
+    if (androidBundle.getFlags() != null && androidBundle.getFlags().length > 0) {
+      for (int flag : androidBundle.getFlags()) {
+        notification.flags |= flag;
+      }
+    }
+
+    if (!isUpdate && androidBundle.getLightUpScreen()) {
+      PowerManagerUtils.lightUpScreenIfNeeded(ContextHolder.getApplicationContext());
+    }
+
+    if (androidBundle.getAsForegroundService()) {
+      ForegroundService.start(hashCode, notification, notificationBundle);
+    } else {
+      notificationManagerCompat.notify(androidBundle.getTag(), hashCode, notification);
+    }
+
+    if (!isUpdate) {
+      EventBus.post(
+          new NotificationEvent(
+              getDeliveredEventId(notificationModel, triggerBundle),
+              NotificationEvent.TYPE_DELIVERED,
+              notificationModel,
+              null));
+    }
+  }
+
+  /**
+   * A trigger occurrence delivered again, such as when its alarm is redelivered, is the same event;
+   * every other delivery, including the next occurrence of the same trigger, is a new one.
+   */
+  private static String getDeliveredEventId(
+      NotificationModel notificationModel, @Nullable Bundle triggerBundle) {
+    if (triggerBundle != null && triggerBundle.containsKey("timestamp")) {
+      return "delivered:"
+          + notificationModel.getId()
+          + ":"
+          + ObjectUtils.getLong(triggerBundle.get("timestamp"));
+    }
+
+    return NotificationEvent.newId();
+  }
+
   static Task<Void> createTriggerNotification(
       NotificationModel notificationModel, Bundle triggerBundle) {
     return Tasks.call(
-        CACHED_THREAD_POOL,
+        DISPLAY_EXECUTOR,
         () -> {
+          notificationModel.validate();
+
           int triggerType = ObjectUtils.getInt(triggerBundle.get("type"));
           switch (triggerType) {
             case 0:
@@ -615,11 +1168,281 @@ class NotificationManager {
         });
   }
 
+  /**
+   * Creates trigger notifications in bulk. Every trigger notification is stored in one database
+   * transaction before any is scheduled, alarm manager triggers are added to the alarm dispatcher
+   * at once, and a single result is returned instead of a created event per notification.
+   *
+   * @param triggerNotifications bundles holding a "notification" and a "trigger" bundle
+   * @return a bundle per trigger notification, with its id and an error message if it failed
+   */
+  static Task<List<Bundle>> createTriggerNotifications(List<Bundle> triggerNotifications) {
+    int size = triggerNotifications.size();
+    List<Bundle> results = new ArrayList<>(size);
+    List<NotificationModel> notificationModels = new ArrayList<>(size);
+    List<Bundle> triggerBundles = new ArrayList<>(size);
+    List<WorkDataEntity> workDataEntities = new ArrayList<>(size);
+
+    return Tasks.call(
+            DISPLAY_EXECUTOR,
+            () -> {
+              parseTriggerNotifications(
+                  triggerNotifications,
+                  results,
+                  notificationModels,
+                  triggerBundles,
+                  workDataEntities);
+              return null;
+            })
+        // all or nothing, the batch fails as a whole if it cannot be stored
+        .onSuccessTask(
+            DISPLAY_EXECUTOR,
+            aVoid ->
+                WorkDataRepository.getInstance(getApplicationContext())
+                    .insertAll(workDataEntities))
+        .onSuccessTask(
+            DISPLAY_EXECUTOR,
+            aVoid -> {
+              scheduleTriggerNotifications(notificationModels, triggerBundles, results, null);
+              return Tasks.forResult(results);
+            });
+  }
+
+  /**
+   * Makes the scheduled trigger notifications match the given ones. Trigger notifications which
+   * are unchanged are left alone, those whose notification changed are only updated in the
+   * database, and only those which are new or whose trigger changed are scheduled again. Trigger
+   * notifications which are not given are cancelled. Entries which are invalid are reported as
+   * errors, and any stored trigger notification with their id is left as it is.
+   *
+   * @param triggerNotifications bundles holding a "notification" and a "trigger" bundle
+   * @return a bundle with the "created", "updated", "rescheduled" and "cancelled" ids, and an
+   *     "errors" bundle per trigger notification which failed, with its id and error message
+   */
+  static Task<Bundle> reconcileTriggerNotifications(List<Bundle> triggerNotifications) {
+    int size = triggerNotifications.size();
+    List<Bundle> results = new ArrayList<>(size);
+    List<NotificationModel> notificationModels = new ArrayList<>(size);
+    List<Bundle> triggerBundles = new ArrayList<>(size);
+    List<WorkDataEntity> workDataEntities = new ArrayList<>(size);
+
+    return Tasks.call(
+            DISPLAY_EXECUTOR,
+            () -> {
+              parseTriggerNotifications(
+                  triggerNotifications,
+                  results,
+                  notificationModels,
+                  triggerBundles,
+                  workDataEntities);
+
+              Set<String> retainedIds = new HashSet<>();
+              for (int i = 0; i < size; i++) {
+                String id = results.get(i).getString("id");
+                if (notificationModels.get(i) == null && id != null) {
+                  retainedIds.add(id);
+                }
+              }
+
+              return retainedIds;
+            })
+        .onSuccessTask(
+            DISPLAY_EXECUTOR,
+            retainedIds ->
+                WorkDataRepository.getInstance(getApplicationContext())
+                    .reconcile(workDataEntities, retainedIds))
+        .onSuccessTask(
+            DISPLAY_EXECUTOR,
+            reconciliation -> {
+              WorkManager workManager = WorkManager.getInstance(getApplicationContext());
+
+              // the previous schedule of a changed trigger may be of another kind than the new one
+              for (String id : reconciliation.rescheduled) {
+                if (reconciliation.previouslyWithAlarmManager.contains(id)) {
+                  NotifeeAlarmManager.cancelNotification(id);
+                } else {
+                  workManager.cancelUniqueWork("trigger:" + id);
+                }
+              }
+
+              for (String id : reconciliation.removed) {
+                Logger.i(TAG, "Removing notification with id " + id);
+                if (reconciliation.previouslyWithAlarmManager.contains(id)) {
+                  NotifeeAlarmManager.cancelNotification(id);
+                } else {
+                  workManager.cancelUniqueWork("trigger:" + id);
+                }
+              }
+
+              if (!reconciliation.removed.isEmpty() || !reconciliation.rescheduled.isEmpty()) {
+                // Remove all cancelled and finished work from its internal database
+                // states include SUCCEEDED, FAILED and CANCELLED
+                workManager.pruneWork();
+              }
+
+              Set<String> scheduledIds = new HashSet<>(reconciliation.created);
+              scheduledIds.addAll(reconciliation.rescheduled);
+              scheduleTriggerNotifications(
+                  notificationModels, triggerBundles, results, scheduledIds);
+
+              ArrayList<Bundle> errors = new ArrayList<>();
+              for (Bundle result : results) {
+                if (result.containsKey("error")) {
+                  errors.add(result);
+                }
+              }
+
+              Bundle reconcileResult = new Bundle();
+              reconcileResult.putStringArray(
+                  "created", reconciliation.created.toArray(new String[0]));
+              reconcileResult.putStringArray(
+                  "updated", reconciliation.updated.toArray(new String[0]));
+              reconcileResult.putStringArray(
+                  "rescheduled", reconciliation.rescheduled.toArray(new String[0]));
+              reconcileResult.putStringArray(
+                  "cancelled", reconciliation.removed.toArray(new String[0]));
+              reconcileResult.putParcelableArrayList("errors", errors);
+
+              Logger.d(
+                  TAG,
+                  "reconcileTriggerNotifications: "
+                      + reconciliation.created.size()
+                      + " created, "
+                      + reconciliation.updated.size()
+                      + " updated, "
+                      + reconciliation.rescheduled.size()
+                      + " rescheduled, "
+                      + reconciliation.removed.size()
+                      + " cancelled, "
+                      + reconciliation.unchanged
+                      + " unchanged");
+
+              return Tasks.forResult(reconcileResult);
+            });
+  }
+
+  /**
+   * Validates trigger notifications and creates their database entries. The given lists are
+   * filled in step with the trigger notifications; an entry which fails has an error in its
+   * result and null as its notification model and trigger bundle.
+   */
+  private static void parseTriggerNotifications(
+      List<Bundle> triggerNotifications,
+      List<Bundle> results,
+      List<NotificationModel> notificationModels,
+      List<Bundle> triggerBundles,
+      List<WorkDataEntity> workDataEntities) {
+    for (Bundle triggerNotification : triggerNotifications) {
+      Bundle result = new Bundle();
+      results.add(result);
+
+      try {
+        Bundle notificationBundle =
+            Objects.requireNonNull(triggerNotification.getBundle("notification"));
+        Bundle triggerBundle = Objects.requireNonNull(triggerNotification.getBundle("trigger"));
+        NotificationModel notificationModel = NotificationModel.fromBundle(notificationBundle);
+        result.putString("id", notificationModel.getId());
+        notificationModel.validate();
+
+        int triggerType = ObjectUtils.getInt(triggerBundle.get("type"));
+        if (triggerType != 0 && triggerType != 1) {
+          throw new IllegalArgumentException("Unknown trigger type " + triggerType);
+        }
+
+        boolean withAlarmManager =
+            triggerType == 0
+                ? TimestampTriggerModel.fromBundle(triggerBundle).getWithAlarmManager()
+                : IntervalTriggerModel.fromBundle(triggerBundle).getWithAlarmManager();
+
+        workDataEntities.add(
+            WorkDataRepository.createTriggerEntity(
+                notificationModel, triggerBundle, withAlarmManager));
+        notificationModels.add(notificationModel);
+        triggerBundles.add(triggerBundle);
+      } catch (Exception e) {
+        Logger.e(TAG, "parseTriggerNotifications", e);
+        result.putString("error", e.getMessage());
+        // keeps the results in step with the notifications which are scheduled
+        notificationModels.add(null);
+        triggerBundles.add(null);
+      }
+    }
+  }
+
+  /**
+   * Schedules parsed trigger notifications, adding alarm manager triggers to the alarm dispatcher
+   * at once.
+   *
+   * @param ids the ids to schedule, or null to schedule every parsed trigger notification
+   */
+  private static void scheduleTriggerNotifications(
+      List<NotificationModel> notificationModels,
+      List<Bundle> triggerBundles,
+      List<Bundle> results,
+      @Nullable Set<String> ids) {
+    WorkManager workManager = WorkManager.getInstance(getApplicationContext());
+    List<NotificationModel> alarmManagerNotifications = new ArrayList<>();
+    List<TimestampTriggerModel> alarmManagerTriggers = new ArrayList<>();
+
+    for (int i = 0; i < notificationModels.size(); i++) {
+      NotificationModel notificationModel = notificationModels.get(i);
+      if (notificationModel == null || (ids != null && !ids.contains(notificationModel.getId()))) {
+        continue;
+      }
+
+      try {
+        Bundle triggerBundle = triggerBundles.get(i);
+        if (ObjectUtils.getInt(triggerBundle.get("type")) == 1) {
+          IntervalTriggerModel trigger = IntervalTriggerModel.fromBundle(triggerBundle);
+          if (trigger.getWithAlarmManager()) {
+            NotifeeAlarmManager.scheduleIntervalTriggerNotification(notificationModel, trigger);
+          } else {
+            scheduleIntervalTrigger(notificationModel, trigger, workManager);
+          }
+          continue;
+        }
+
+        TimestampTriggerModel trigger = TimestampTriggerModel.fromBundle(triggerBundle);
+        if (trigger.getWithAlarmManager()) {
+          alarmManagerNotifications.add(notificationModel);
+          alarmManagerTriggers.add(trigger);
+        } else {
+          scheduleTimestampTriggerWithWorkManager(notificationModel, trigger, workManager);
+        }
+      } catch (Exception e) {
+        Logger.e(TAG, "scheduleTriggerNotifications", e);
+        results.get(i).putString("error", e.getMessage());
+      }
+    }
+
+    NotifeeAlarmManager.scheduleTimestampTriggerNotifications(
+        alarmManagerNotifications, alarmManagerTriggers);
+  }
+
   static void createIntervalTriggerNotification(
       NotificationModel notificationModel, Bundle triggerBundle) {
     IntervalTriggerModel trigger = IntervalTriggerModel.fromBundle(triggerBundle);
-    String uniqueWorkName = "trigger:" + notificationModel.getId();
+
+    Boolean withAlarmManager = trigger.getWithAlarmManager();
+
+    WorkDataRepository.getInstance(getApplicationContext())
+        .insertTriggerNotification(notificationModel, triggerBundle, withAlarmManager);
+
+    // Schedule notification with alarm manager, which allows intervals below 15 minutes
+    if (withAlarmManager) {
+      NotifeeAlarmManager.scheduleIntervalTriggerNotification(notificationModel, trigger);
+      return;
+    }
+
     WorkManager workManager = WorkManager.getInstance(getApplicationContext());
+    scheduleIntervalTrigger(notificationModel, trigger, workManager);
+  }
+
+  private static void scheduleIntervalTrigger(
+      NotificationModel notificationModel,
+      IntervalTriggerModel trigger,
+      WorkManager workManager) {
+    String uniqueWorkName = "trigger:" + notificationModel.getId();
 
     Data.Builder workDataBuilder =
         new Data.Builder()
@@ -627,9 +1450,6 @@ class NotificationManager {
             .putString(Worker.KEY_WORK_REQUEST, Worker.WORK_REQUEST_PERIODIC)
             .putString("id", notificationModel.getId());
 
-    WorkDataRepository.getInstance(getApplicationContext())
-        .insertTriggerNotification(notificationModel, triggerBundle, false);
-
     long interval = trigger.getInterval();
 
     PeriodicWorkRequest.Builder workRequestBuilder;
@@ -647,19 +1467,9 @@ class NotificationManager {
       NotificationModel notificationModel, Bundle triggerBundle) {
     TimestampTriggerModel trigger = TimestampTriggerModel.fromBundle(triggerBundle);
 
-    String uniqueWorkName = "trigger:" + notificationModel.getId();
-
-    long delay = trigger.getDelay();
-    int interval = trigger.getInterval();
-
-    // Save in DB
-    Data.Builder workDataBuilder =
-        new Data.Builder()
-            .putString(Worker.KEY_WORK_TYPE, Worker.WORK_TYPE_NOTIFICATION_TRIGGER)
-            .putString("id", notificationModel.getId());
-
     Boolean withAlarmManager = trigger.getWithAlarmManager();
 
+    // Save in DB
     WorkDataRepository.getInstance(getApplicationContext())
         .insertTriggerNotification(notificationModel, triggerBundle, withAlarmManager);
 
@@ -670,18 +1480,45 @@ class NotificationManager {
     }
 
     // Continue to schedule trigger notification with WorkManager
-    WorkManager workManager = WorkManager.getInstance(getApplicationContext());
+    scheduleTimestampTriggerWithWorkManager(
+        notificationModel, trigger, WorkManager.getInstance(getApplicationContext()));
+  }
+
+  private static void scheduleTimestampTriggerWithWorkManager(
+      NotificationModel notificationModel,
+      TimestampTriggerModel trigger,
+      WorkManager workManager) {
+    String uniqueWorkName = "trigger:" + notificationModel.getId();
+
+    // work is requested for one occurrence of a recurrence at a time
+    if (trigger.hasRecurrence()) {
+      trigger.setNextTimestamp();
+      if (trigger.isFinished()) {
+        return;
+      }
+    }
+
+    long delay = trigger.getDelay();
+    int interval = trigger.getInterval();
+
+    Data.Builder workDataBuilder =
+        new Data.Builder()
+            .putString(Worker.KEY_WORK_TYPE, Worker.WORK_TYPE_NOTIFICATION_TRIGGER)
+            .putString("id", notificationModel.getId());
 
     // WorkManager - One time trigger
     if (interval == -1) {
       OneTimeWorkRequest.Builder workRequestBuilder = new OneTimeWorkRequest.Builder(Worker.class);
       workRequestBuilder.addTag(Worker.WORK_TYPE_NOTIFICATION_TRIGGER);
       workRequestBuilder.addTag(uniqueWorkName);
-      workDataBuilder.putString(Worker.KEY_WORK_REQUEST, Worker.WORK_REQUEST_ONE_TIME);
+      workDataBuilder.putString(
+          Worker.KEY_WORK_REQUEST,
+          trigger.hasRecurrence() ? Worker.WORK_REQUEST_RECURRENCE : Worker.WORK_REQUEST_ONE_TIME);
       workRequestBuilder.setInputData(workDataBuilder.build());
       workRequestBuilder.setInitialDelay(delay, TimeUnit.SECONDS);
       workManager.enqueueUniqueWork(
           uniqueWorkName, ExistingWorkPolicy.REPLACE, workRequestBuilder.build());
+      schedulePreRenderWork(notificationModel.getId(), delay, workManager);
     } else {
       // WorkManager - repeat trigger
       PeriodicWorkRequest.Builder workRequestBuilder;
@@ -700,6 +1537,82 @@ class NotificationManager {
     }
   }
 
+  /*
+   * Schedules a trigger to be pre-rendered the pre-render lead time before it is due. The work is
+   * tagged as trigger work, so it is cancelled along with all triggers; pre-rendering a trigger
+   * which has since been cancelled does nothing.
+   */
+  private static void schedulePreRenderWork(String id, long delaySeconds, WorkManager workManager) {
+    long leadTimeMs =
+        Preferences.getSharedInstance()
+            .getLongValue(TriggerAlarmDispatcher.PRE_RENDER_LEAD_TIME_KEY, 0);
+    long preRenderDelayMs = TimeUnit.SECONDS.toMillis(delaySeconds) - leadTimeMs;
+    if (leadTimeMs <= 0 || preRenderDelayMs <= 0) {
+      return;
+    }
+
+    Data workData =
+        new Data.Builder()
+            .putString(Worker.KEY_WORK_TYPE, Worker.WORK_TYPE_NOTIFICATION_PRE_RENDER)
+            .putString("id", id)
+            .build();
+
+    OneTimeWorkRequest.Builder workRequestBuilder = new OneTimeWorkRequest.Builder(Worker.class);
+    workRequestBuilder.addTag(Worker.WORK_TYPE_NOTIFICATION_TRIGGER);
+    workRequestBuilder.setInputData(workData);
+    workRequestBuilder.setInitialDelay(preRenderDelayMs, TimeUnit.MILLISECONDS);
+    workManager.enqueueUniqueWork(
+        "prerender:" + id, ExistingWorkPolicy.REPLACE, workRequestBuilder.build());
+  }
+
+  /**
+   * Decodes a trigger notification and fetches its images ahead of it being due, so displaying it
+   * only has to build from warm caches.
+   */
+  static Task<Void> preRenderTriggerNotification(String id) {
+    return WorkDataRepository.getInstance(getApplicationContext())
+        .getTriggerNotificationById(id)
+        .continueWithTask(
+            DISPLAY_EXECUTOR,
+            task -> {
+              TriggerNotification triggerNotification = task.getResult();
+              if (triggerNotification == null
+                  || triggerNotification.getNotificationModel() == null) {
+                return Tasks.forResult(null);
+              }
+
+              return fetchNotificationImages(
+                      Collections.singletonList(triggerNotification.getNotificationModel()))
+                  .continueWith(
+                      DISPLAY_EXECUTOR,
+                      imagesTask -> {
+                        PRE_RENDERED_TRIGGERS.add(id);
+                        return null;
+                      });
+            })
+        .addOnFailureListener(
+            DISPLAY_EXECUTOR, e -> Logger.e(TAG, "Failed to pre-render trigger " + id, e));
+  }
+
+  /* Whether the trigger was pre-rendered since it was last displayed */
+  static boolean consumePreRendered(String id) {
+    return PRE_RENDERED_TRIGGERS.remove(id);
+  }
+
+  /* Execute pre-render work from trigger notifications via WorkManager */
+  static void doPreRenderWork(
+      Data data, CallbackToFutureAdapter.Completer<ListenableWorker.Result> completer) {
+    String id = data.getString("id");
+    if (id == null) {
+      completer.set(ListenableWorker.Result.success());
+      return;
+    }
+
+    preRenderTriggerNotification(id)
+        .addOnCompleteListener(
+            DISPLAY_EXECUTOR, task -> completer.set(ListenableWorker.Result.success()));
+  }
+
   static Task<List<Bundle>> getDisplayedNotifications() {
     return Tasks.call(
         () -> {
@@ -721,12 +1634,17 @@ class NotificationManager {
             Bundle extras = original.extras;
             Bundle displayNotificationBundle = new Bundle();
 
-            Bundle notificationBundle = extras.getBundle(EXTRA_NOTIFEE_NOTIFICATION);
+            String notificationRef = extras.getString(EXTRA_NOTIFEE_NOTIFICATION_REF);
+            Bundle notificationBundle =
+                notificationRef != null
+                    ? NotificationPayloadStore.get(notificationRef)
+                    : extras.getBundle(EXTRA_NOTIFEE_NOTIFICATION);
             Bundle triggerBundle = extras.getBundle(EXTRA_NOTIFEE_TRIGGER);
 
             if (notificationBundle == null) {
+              String id = notificationRef != null ? notificationRef : "" + sbNotification.getId();
               notificationBundle = new Bundle();
-              notificationBundle.putString("id", "" + sbNotification.getId());
+              notificationBundle.putString("id", id);
 
               Object title = extras.get(Notification.EXTRA_TITLE);
 
@@ -755,7 +1673,7 @@ class NotificationManager {
 
               notificationBundle.putBundle("android", androidBundle);
 
-              displayNotificationBundle.putString("id", "" + sbNotification.getId());
+              displayNotificationBundle.putString("id", id);
             } else {
               displayNotificationBundle.putString("id", "" + notificationBundle.get("id"));
             }
@@ -775,78 +1693,181 @@ class NotificationManager {
   }
 
   static void getTriggerNotifications(MethodCallResult<List<Bundle>> result) {
-    WorkDataRepository workDataRepository = new WorkDataRepository(getApplicationContext());
+    completeWithTriggerNotifications(
+        WorkDataRepository.getInstance(getApplicationContext()).getTriggerNotifications(), result);
+  }
 
-    workDataRepository
-        .getAll()
+  static void getTriggerNotificationsDueBefore(
+      long timestamp, MethodCallResult<List<Bundle>> result) {
+    completeWithTriggerNotifications(
+        WorkDataRepository.getInstance(getApplicationContext())
+            .getTriggerNotificationsDueBefore(timestamp),
+        result);
+  }
+
+  static void getTriggerNotificationsForChannel(
+      String channelId, MethodCallResult<List<Bundle>> result) {
+    completeWithTriggerNotifications(
+        WorkDataRepository.getInstance(getApplicationContext())
+            .getTriggerNotificationsByChannel(channelId),
+        result);
+  }
+
+  static void getTriggerNotificationCounts(MethodCallResult<Bundle> result) {
+    WorkDataRepository.getInstance(getApplicationContext())
+        .countByType()
         .addOnCompleteListener(
             task -> {
-              List<Bundle> triggerNotifications = new ArrayList<Bundle>();
+              Bundle counts = new Bundle();
 
               if (task.isSuccessful()) {
-                List<WorkDataEntity> workDataEntities = task.getResult();
-                for (WorkDataEntity workDataEntity : workDataEntities) {
-                  Bundle triggerNotificationBundle = new Bundle();
-
-                  triggerNotificationBundle.putBundle(
-                      "notification", ObjectUtils.bytesToBundle(workDataEntity.getNotification()));
-
-                  triggerNotificationBundle.putBundle(
-                      "trigger", ObjectUtils.bytesToBundle(workDataEntity.getTrigger()));
-                  triggerNotifications.add(triggerNotificationBundle);
+                for (TriggerTypeCount triggerTypeCount : task.getResult()) {
+                  if (triggerTypeCount.triggerType != null) {
+                    counts.putInt(
+                        String.valueOf(triggerTypeCount.triggerType), triggerTypeCount.count);
+                  }
                 }
 
-                result.onComplete(null, triggerNotifications);
+                result.onComplete(null, counts);
               } else {
-                result.onComplete(task.getException(), triggerNotifications);
+                result.onComplete(task.getException(), null);
               }
             });
   }
 
-  static void getTriggerNotificationIds(MethodCallResult<List<String>> result) {
-    WorkDataRepository workDataRepository = new WorkDataRepository(getApplicationContext());
+  private static void completeWithTriggerNotifications(
+      Task<List<TriggerNotification>> triggerNotificationsTask,
+      MethodCallResult<List<Bundle>> result) {
+    triggerNotificationsTask.addOnCompleteListener(
+        task -> {
+          if (task.isSuccessful()) {
+            result.onComplete(null, toTriggerNotificationBundles(task.getResult()));
+          } else {
+            result.onComplete(task.getException(), new ArrayList<Bundle>());
+          }
+        });
+  }
 
-    workDataRepository
-        .getAll()
+  private static ArrayList<Bundle> toTriggerNotificationBundles(
+      List<TriggerNotification> triggerNotifications) {
+    ArrayList<Bundle> triggerNotificationBundles = new ArrayList<>(triggerNotifications.size());
+
+    for (TriggerNotification triggerNotification : triggerNotifications) {
+      Bundle triggerNotificationBundle = new Bundle();
+
+      triggerNotificationBundle.putBundle(
+          "notification", triggerNotification.getNotificationBundle());
+
+      triggerNotificationBundle.putBundle("trigger", triggerNotification.getTriggerBundle());
+      triggerNotificationBundles.add(triggerNotificationBundle);
+    }
+
+    return triggerNotificationBundles;
+  }
+
+  static void getTriggerNotificationIds(MethodCallResult<List<String>> result) {
+    WorkDataRepository.getInstance(getApplicationContext())
+        .getIds()
         .addOnCompleteListener(
             task -> {
-              List<String> triggerNotificationIds = new ArrayList<String>();
-
               if (task.isSuccessful()) {
-                List<WorkDataEntity> workDataEntities = task.getResult();
-                for (WorkDataEntity workDataEntity : workDataEntities) {
-                  triggerNotificationIds.add(workDataEntity.getId());
-                }
-
-                result.onComplete(null, triggerNotificationIds);
+                result.onComplete(null, task.getResult());
               } else {
                 result.onComplete(task.getException(), null);
               }
             });
   }
 
+  /**
+   * Gets a page of trigger notifications, ordered by id. The result holds the page as
+   * "triggerNotifications" and, unless it is the last page, the cursor of the next page as
+   * "nextCursor".
+   *
+   * @param cursor the "nextCursor" of the previous page, or null for the first page
+   * @param limit the maximum number of trigger notifications in the page
+   */
+  static void getTriggerNotificationsPage(
+      @Nullable String cursor, int limit, MethodCallResult<Bundle> result) {
+    int pageSize = Math.max(1, Math.min(limit, TRIGGER_NOTIFICATIONS_MAX_PAGE_SIZE));
+
+    WorkDataRepository.getInstance(getApplicationContext())
+        .getTriggerNotificationsPage(cursor, pageSize)
+        .addOnCompleteListener(
+            task -> {
+              if (!task.isSuccessful()) {
+                result.onComplete(task.getException(), null);
+                return;
+              }
+
+              List<TriggerNotification> triggerNotifications = task.getResult();
+
+              Bundle page = new Bundle();
+              page.putParcelableArrayList(
+                  "triggerNotifications", toTriggerNotificationBundles(triggerNotifications));
+              if (triggerNotifications.size() == pageSize) {
+                page.putString("nextCursor", triggerNotifications.get(pageSize - 1).getId());
+              }
+
+              result.onComplete(null, page);
+            });
+  }
+
+  /* Requests work for the next occurrence of a recurrence, or deletes it if it has ended */
+  private static void scheduleNextRecurrence(String id) {
+    WorkDataRepository workDataRepository = WorkDataRepository.getInstance(getApplicationContext());
+
+    workDataRepository
+        .getTriggerNotificationById(id)
+        .addOnSuccessListener(
+            DISPLAY_EXECUTOR,
+            triggerNotification -> {
+              if (triggerNotification == null
+                  || triggerNotification.getNotificationModel() == null) {
+                return;
+              }
+
+              Bundle triggerBundle = triggerNotification.getTriggerBundle();
+              TimestampTriggerModel trigger = TimestampTriggerModel.fromBundle(triggerBundle);
+              trigger.setNextOccurrence();
+
+              if (trigger.isFinished()) {
+                workDataRepository.deleteById(id);
+                return;
+              }
+
+              workDataRepository.updateTrigger(id, triggerBundle);
+              scheduleTimestampTriggerWithWorkManager(
+                  triggerNotification.getNotificationModel(),
+                  trigger,
+                  WorkManager.getInstance(getApplicationContext()));
+            });
+  }
+
   /* Execute work from trigger notifications via WorkManager*/
   static void doScheduledWork(
       Data data, CallbackToFutureAdapter.Completer<ListenableWorker.Result> completer) {
 
     String id = data.getString("id");
+    long firedAt = SystemClock.elapsedRealtime();
 
-    WorkDataRepository workDataRepository = new WorkDataRepository(getApplicationContext());
+    WorkDataRepository workDataRepository = WorkDataRepository.getInstance(getApplicationContext());
 
-    Continuation<WorkDataEntity, Task<Void>> workContinuation =
+    Continuation<TriggerNotification, Task<Void>> workContinuation =
         task -> {
-          WorkDataEntity workDataEntity = task.getResult();
+          TriggerNotification triggerNotification = task.getResult();
 
-          byte[] notificationBytes;
+          NotificationModel notificationModel;
 
-          if (workDataEntity == null || workDataEntity.getNotification() == null) {
+          if (triggerNotification == null || triggerNotification.getNotificationModel() == null) {
             // check if notification bundle is stored with Work Manager
-            notificationBytes = data.getByteArray("notification");
+            byte[] notificationBytes = data.getByteArray("notification");
             if (notificationBytes != null) {
               Logger.w(
                   TAG,
                   "The trigger notification was created using an older version, please consider"
                       + " recreating the notification.");
+              notificationModel =
+                  NotificationModel.fromBundle(ObjectUtils.bytesToBundle(notificationBytes));
             } else {
               Logger.w(
                   TAG, "Attempted to handle doScheduledWork but no notification data was found.");
@@ -854,25 +1875,18 @@ class NotificationManager {
               return null;
             }
           } else {
-            notificationBytes = workDataEntity.getNotification();
+            notificationModel = triggerNotification.getNotificationModel();
           }
 
-          NotificationModel notificationModel =
-              NotificationModel.fromBundle(ObjectUtils.bytesToBundle(notificationBytes));
-
-          byte[] triggerBytes = workDataEntity.getTrigger();
-          Bundle triggerBundle = null;
-
-          if (workDataEntity.getTrigger() != null) {
-            triggerBundle = ObjectUtils.bytesToBundle(triggerBytes);
-          }
+          Bundle triggerBundle =
+              triggerNotification != null ? triggerNotification.getTriggerBundle() : null;
 
           return NotificationManager.displayNotification(notificationModel, triggerBundle);
         };
 
     workDataRepository
-        .getWorkDataById(id)
-        .continueWithTask(CACHED_THREAD_POOL, workContinuation)
+        .getTriggerNotificationById(id)
+        .continueWithTask(DISPLAY_EXECUTOR, workContinuation)
         .addOnCompleteListener(
             task -> {
               completer.set(ListenableWorker.Result.success());
@@ -880,11 +1894,17 @@ class NotificationManager {
               if (!task.isSuccessful()) {
                 Logger.e(TAG, "Failed to display notification", task.getException());
               } else {
+                TriggerLatencyMetrics.record(
+                    id, SystemClock.elapsedRealtime() - firedAt, consumePreRendered(id));
+
                 String workerRequestType = data.getString(Worker.KEY_WORK_REQUEST);
                 if (workerRequestType != null
                     && workerRequestType.equals(Worker.WORK_REQUEST_ONE_TIME)) {
                   // delete database entry if work is a one-time request
                   WorkDataRepository.getInstance(getApplicationContext()).deleteById(id);
+                } else if (workerRequestType != null
+                    && workerRequestType.equals(Worker.WORK_REQUEST_RECURRENCE)) {
+                  scheduleNextRecurrence(id);
                 }
               }
             });
@@ -0,0 +1,427 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Bundle;
+import android.service.notification.StatusBarNotification;
+import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import app.notifee.core.model.NotificationAndroidActionModel;
+import app.notifee.core.model.NotificationModel;
+import app.notifee.core.utility.ObjectUtils;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * A small keyed file store holding the full payload of displayed notifications.
+ *
+ * <p>PendingIntents and notification extras only carry a reference (the notification id) to an
+ * entry here, which keeps the parcels sent to system_server small no matter how large the
+ * notification `data` is. The payload is loaded back when one of the intents fires. Intents also
+ * carry the press action inline, so a press still reaches its listener if the entry is gone.
+ */
+class NotificationPayloadStore {
+  private static final String TAG = "NotificationPayloadStore";
+  private static final String DIRECTORY = "notifee_notifications";
+  private static final int MAX_ENTRIES = 256;
+  // entries of notifications still displayed are kept, so the store may stay above its limit;
+  // it is only trimmed again once this many more entries have been added
+  private static final int TRIM_INTERVAL = 64;
+  private static final int MEMORY_CACHE_SIZE = 32;
+
+  static final String NOTIFICATION_REF_INTENT_KEY = "notifee_notification_ref";
+  static final String ACTION_INDEX_INTENT_KEY = "notifee_action_index";
+  static final String PRESS_ACTION_INTENT_KEY = "notifee_press_action";
+
+  private static final Object sLock = new Object();
+  private static final LruCache<String, Bundle> sMemoryCache = new LruCache<>(MEMORY_CACHE_SIZE);
+  // the bytes last written per id, so storing an unchanged payload again skips the write
+  private static final LruCache<String, byte[]> sWrittenBytes = new LruCache<>(MEMORY_CACHE_SIZE);
+  // files are written and deleted in order, off the thread displaying the notification
+  private static final ExecutorService sFileExecutor =
+      NotifeeExecutors.newSerialExecutor("payloads");
+  // the file operation submitted last, which a read missing the memory cache waits for
+  private static @Nullable Future<?> sLastFileOperation;
+  private static @Nullable File sDirectory;
+  // -1 until the directory has been counted
+  private static int sEntryCount = -1;
+  private static int sTrimAt = MAX_ENTRIES;
+  private static boolean sTrimScheduled = false;
+
+  /**
+   * Stores the notification payload, replacing any previous entry for the same id. The payload is
+   * cached in memory right away, and written to its file in the background.
+   *
+   * @return true if the payload will be persisted and may be referenced by id
+   */
+  static boolean put(@NonNull String id, @NonNull Bundle notificationBundle) {
+    byte[] bytes = ObjectUtils.bundleToBytes(notificationBundle);
+
+    synchronized (sLock) {
+      File directory = getDirectory();
+      if (directory == null) {
+        return false;
+      }
+
+      sMemoryCache.put(id, notificationBundle);
+
+      // e.g. a notification updated as its images load
+      if (Arrays.equals(bytes, sWrittenBytes.get(id))) {
+        return true;
+      }
+
+      sWrittenBytes.put(id, bytes);
+      submit(() -> write(directory, id, bytes));
+      return true;
+    }
+  }
+
+  /** Returns a copy of the payload stored for the id, or null if there is none. */
+  static @Nullable Bundle get(@NonNull String id) {
+    Future<?> pendingFileOperation;
+    synchronized (sLock) {
+      Bundle cached = sMemoryCache.get(id);
+      if (cached != null) {
+        return (Bundle) cached.clone();
+      }
+
+      pendingFileOperation = sLastFileOperation;
+    }
+
+    // outside of the lock, which the file operations take once done
+    if (pendingFileOperation != null) {
+      try {
+        pendingFileOperation.get();
+      } catch (ExecutionException e) {
+        Logger.e(TAG, "Failed to wait for stored notifications", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        Logger.e(TAG, "Interrupted waiting for stored notifications", e);
+      }
+    }
+
+    synchronized (sLock) {
+      File directory = getDirectory();
+      if (directory == null) {
+        return null;
+      }
+
+      File file = new File(directory, getFileName(id));
+      if (!file.exists()) {
+        return null;
+      }
+
+      try (FileInputStream inputStream = new FileInputStream(file)) {
+        byte[] bytes = new byte[(int) file.length()];
+        int offset = 0;
+        while (offset < bytes.length) {
+          int read = inputStream.read(bytes, offset, bytes.length - offset);
+          if (read < 0) {
+            break;
+          }
+          offset += read;
+        }
+
+        Bundle bundle = ObjectUtils.bytesToBundle(bytes);
+        sMemoryCache.put(id, bundle);
+        return (Bundle) bundle.clone();
+      } catch (Exception e) {
+        Logger.e(TAG, "Failed to read notification " + id, e);
+        return null;
+      }
+    }
+  }
+
+  static void remove(@NonNull String id) {
+    synchronized (sLock) {
+      sMemoryCache.remove(id);
+      sWrittenBytes.remove(id);
+
+      File directory = getDirectory();
+      if (directory != null) {
+        submit(() -> delete(directory, id));
+      }
+    }
+  }
+
+  static void clear() {
+    synchronized (sLock) {
+      sMemoryCache.evictAll();
+      sWrittenBytes.evictAll();
+
+      File directory = getDirectory();
+      if (directory != null) {
+        submit(() -> deleteAll(directory));
+      }
+    }
+  }
+
+  /**
+   * Resolves the notification payload for an intent, which either references a stored entry or,
+   * for intents created before payloads were stored, embeds the bundle directly. If the referenced
+   * entry is gone, a payload holding only the notification id is returned, so the event is still
+   * sent.
+   */
+  static @Nullable Bundle getFromIntentExtras(@Nullable Bundle extras) {
+    if (extras == null) {
+      return null;
+    }
+
+    String ref = extras.getString(NOTIFICATION_REF_INTENT_KEY);
+    if (ref != null) {
+      Bundle notificationBundle = get(ref);
+      if (notificationBundle == null) {
+        Logger.w(TAG, "No stored payload found for notification " + ref + ", sending its id only");
+        notificationBundle = new Bundle();
+        notificationBundle.putString("id", ref);
+      }
+      return notificationBundle;
+    }
+
+    return extras.getBundle("notification");
+  }
+
+  /**
+   * Resolves the press action for an intent: the press action carried inline, the action at the
+   * referenced index, the notification's own press action, or for older intents the embedded press
+   * action bundle.
+   */
+  static @Nullable Bundle getPressActionFromIntentExtras(
+      @Nullable Bundle extras, @NonNull NotificationModel notificationModel) {
+    if (extras == null) {
+      return null;
+    }
+
+    if (!extras.containsKey(NOTIFICATION_REF_INTENT_KEY)) {
+      return extras.getBundle("pressAction");
+    }
+
+    Bundle pressAction = extras.getBundle(PRESS_ACTION_INTENT_KEY);
+    if (pressAction != null) {
+      return pressAction;
+    }
+
+    int actionIndex = extras.getInt(ACTION_INDEX_INTENT_KEY, -1);
+    if (actionIndex == -1) {
+      return notificationModel.getAndroid().getPressAction();
+    }
+
+    List<NotificationAndroidActionModel> actions = notificationModel.getAndroid().getActions();
+    if (actions == null || actionIndex >= actions.size()) {
+      return null;
+    }
+
+    return actions.get(actionIndex).getPressAction().toBundle();
+  }
+
+  // called holding the lock
+  private static void submit(Runnable fileOperation) {
+    sLastFileOperation = sFileExecutor.submit(fileOperation);
+  }
+
+  private static void write(File directory, String id, byte[] bytes) {
+    File file = new File(directory, getFileName(id));
+    File tmpFile = new File(directory, getFileName(id) + ".tmp");
+    boolean isNew = !file.exists();
+
+    boolean isWritten = false;
+    try (FileOutputStream outputStream = new FileOutputStream(tmpFile)) {
+      outputStream.write(bytes);
+      isWritten = true;
+    } catch (IOException e) {
+      Logger.e(TAG, "Failed to store notification " + id, e);
+    }
+
+    if (isWritten && !tmpFile.renameTo(file)) {
+      Logger.e(TAG, "Failed to store notification " + id);
+      isWritten = false;
+    }
+
+    synchronized (sLock) {
+      if (!isWritten) {
+        tmpFile.delete();
+        // so storing the same payload again retries the write
+        if (sWrittenBytes.get(id) == bytes) {
+          sWrittenBytes.remove(id);
+        }
+      } else if (isNew) {
+        onEntryAdded(directory);
+      }
+    }
+  }
+
+  private static void delete(File directory, String id) {
+    if (new File(directory, getFileName(id)).delete()) {
+      synchronized (sLock) {
+        if (sEntryCount > 0) {
+          sEntryCount--;
+        }
+      }
+    }
+  }
+
+  private static void deleteAll(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      file.delete();
+    }
+
+    synchronized (sLock) {
+      sEntryCount = 0;
+      sTrimAt = MAX_ENTRIES;
+    }
+  }
+
+  // a digest of the whole id, as ids differing only in their hash code would share a file
+  private static String getFileName(String id) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(id.getBytes(StandardCharsets.UTF_8));
+      StringBuilder builder = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        builder.append(String.format("%02x", b & 0xFF));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // every device provides SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // called holding the lock
+  private static @Nullable File getDirectory() {
+    if (sDirectory != null) {
+      return sDirectory;
+    }
+
+    Context context = ContextHolder.getApplicationContext();
+    if (context == null) {
+      return null;
+    }
+
+    File directory = new File(ContextCompat.getNoBackupFilesDir(context), DIRECTORY);
+    if (!directory.exists() && !directory.mkdirs()) {
+      Logger.e(TAG, "Failed to create directory " + directory);
+      return null;
+    }
+
+    sDirectory = directory;
+    return directory;
+  }
+
+  // Entries for notifications removed without a delete intent (e.g. auto cancelled on press) are
+  // never cleaned up individually, so the store is trimmed in the background once it has grown
+  private static void onEntryAdded(File directory) {
+    if (sEntryCount == -1) {
+      String[] names = directory.list();
+      sEntryCount = names != null ? names.length : 0;
+    } else {
+      sEntryCount++;
+    }
+
+    if (sEntryCount <= sTrimAt || sTrimScheduled) {
+      return;
+    }
+
+    // behind the pending writes, which it would otherwise race
+    sFileExecutor.execute(() -> trimToSize(directory));
+    sTrimScheduled = true;
+  }
+
+  /**
+   * Drops the oldest entries beyond the limit, keeping those of notifications which are still
+   * displayed, as their intents may yet fire.
+   */
+  private static void trimToSize(File directory) {
+    // read before taking the lock, it is a call to the system
+    Set<String> activeFileNames = getActiveFileNames();
+
+    synchronized (sLock) {
+      sTrimScheduled = false;
+
+      File[] files = directory.listFiles();
+      if (files == null) {
+        return;
+      }
+
+      sEntryCount = files.length;
+      if (files.length > MAX_ENTRIES) {
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        for (int i = 0; i < files.length && sEntryCount > MAX_ENTRIES; i++) {
+          if (activeFileNames.contains(files[i].getName())) {
+            continue;
+          }
+
+          if (files[i].delete()) {
+            sEntryCount--;
+          }
+        }
+        // drop cached payloads of deleted entries
+        sMemoryCache.evictAll();
+        sWrittenBytes.evictAll();
+      }
+
+      sTrimAt = Math.max(MAX_ENTRIES, sEntryCount) + TRIM_INTERVAL;
+    }
+  }
+
+  private static Set<String> getActiveFileNames() {
+    Set<String> fileNames = new HashSet<>();
+    Context context = ContextHolder.getApplicationContext();
+    if (context == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+      return fileNames;
+    }
+
+    try {
+      android.app.NotificationManager notificationManager =
+          (android.app.NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+      for (StatusBarNotification sbNotification : notificationManager.getActiveNotifications()) {
+        Bundle extras = sbNotification.getNotification().extras;
+        String ref = extras.getString(NotificationManager.EXTRA_NOTIFEE_NOTIFICATION_REF);
+        if (ref != null) {
+          fileNames.add(getFileName(ref));
+        }
+      }
+    } catch (Exception e) {
+      Logger.e(TAG, "Failed to read active notifications", e);
+    }
+
+    return fileNames;
+  }
+}
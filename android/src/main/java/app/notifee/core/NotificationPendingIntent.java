@@ -47,6 +47,48 @@ public class NotificationPendingIntent {
       int eventType,
       String[] extraKeys,
       Bundle... extraBundles) {
+    Bundle extras = new Bundle();
+
+    for (int i = 0; i < extraKeys.length; i++) {
+      String key = extraKeys[i];
+
+      if (i <= extraBundles.length - 1) {
+        extras.putBundle(key, extraBundles[i]);
+      } else {
+        extras.putString(key, null);
+      }
+    }
+
+    return createIntent(notificationId, pressActionModelBundle, eventType, extras);
+  }
+
+  /**
+   * Creates a PendingIntent which only references the notification payload held by {@link
+   * NotificationPayloadStore}, rather than carrying it. The press action is carried inline.
+   *
+   * @param notificationId int
+   * @param pressActionModelBundle NotificationAndroidPressActionModel.
+   * @param notificationRef The id of the stored notification
+   * @param actionIndex The index of the pressed action, or -1 for the notification itself
+   */
+  static PendingIntent createIntent(
+      int notificationId,
+      Bundle pressActionModelBundle,
+      int eventType,
+      String notificationRef,
+      int actionIndex) {
+    Bundle extras = new Bundle();
+    extras.putString(NotificationPayloadStore.NOTIFICATION_REF_INTENT_KEY, notificationRef);
+    extras.putInt(NotificationPayloadStore.ACTION_INDEX_INTENT_KEY, actionIndex);
+    if (pressActionModelBundle != null) {
+      extras.putBundle(NotificationPayloadStore.PRESS_ACTION_INTENT_KEY, pressActionModelBundle);
+    }
+
+    return createIntent(notificationId, pressActionModelBundle, eventType, extras);
+  }
+
+  private static PendingIntent createIntent(
+      int notificationId, Bundle pressActionModelBundle, int eventType, Bundle extras) {
     Context context = ContextHolder.getApplicationContext();
 
     // Get launch activity intent
@@ -63,8 +105,8 @@ public class NotificationPendingIntent {
     Intent receiverIntent = new Intent(context, NotificationReceiverActivity.class);
 
     // Set extras for each intent
-    setIntentExtras(launchActivityIntent, eventType, notificationId, extraKeys, extraBundles);
-    setIntentExtras(receiverIntent, eventType, notificationId, extraKeys, extraBundles);
+    setIntentExtras(launchActivityIntent, eventType, notificationId, extras);
+    setIntentExtras(receiverIntent, eventType, notificationId, extras);
 
     // Create pending intent with activities
     int uniqueInt = UUID.randomUUID().hashCode();
@@ -93,29 +135,14 @@ public class NotificationPendingIntent {
         PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
   }
 
-  static void setIntentExtras(
-      Intent intent,
-      int eventType,
-      int notificationId,
-      String[] extraKeys,
-      Bundle... extraBundles) {
+  static void setIntentExtras(Intent intent, int eventType, int notificationId, Bundle extras) {
     if (intent == null) {
       return;
     }
 
     intent.putExtra(EVENT_TYPE_INTENT_KEY, eventType);
     intent.putExtra(NOTIFICATION_ID_INTENT_KEY, notificationId);
-
-    for (int i = 0; i < extraKeys.length; i++) {
-      String key = extraKeys[i];
-
-      if (i <= extraBundles.length - 1) {
-        Bundle bundle = extraBundles[i];
-        intent.putExtra(key, bundle);
-      } else {
-        intent.putExtra(key, (String) null);
-      }
-    }
+    intent.putExtras(extras);
   }
 
   static boolean shouldCreateLaunchActivityIntent(
@@ -40,7 +40,8 @@ public class NotificationReceiverHandler {
   private static final String TAG = "NotificationReceiverHandler";
 
   static void handleNotification(Context context, Intent intent) {
-    if (!intent.hasExtra("notification")) {
+    if (!intent.hasExtra("notification")
+        && !intent.hasExtra(NotificationPayloadStore.NOTIFICATION_REF_INTENT_KEY)) {
       return;
     }
 
@@ -70,14 +71,21 @@ public class NotificationReceiverHandler {
   }
 
   private static void handleNotificationActionIntent(Context context, Intent intent) {
-    Bundle notification = intent.getBundleExtra("notification");
-    Bundle pressAction = intent.getBundleExtra("pressAction");
+    Bundle notification = NotificationPayloadStore.getFromIntentExtras(intent.getExtras());
 
-    if (notification == null || pressAction == null) {
+    if (notification == null) {
       return;
     }
 
     NotificationModel notificationModel = NotificationModel.fromBundle(notification);
+    Bundle pressAction =
+        NotificationPayloadStore.getPressActionFromIntentExtras(
+            intent.getExtras(), notificationModel);
+
+    if (pressAction == null) {
+      return;
+    }
+
     NotificationAndroidPressActionModel pressActionBundle =
         NotificationAndroidPressActionModel.fromBundle(pressAction);
 
@@ -102,11 +110,12 @@ public class NotificationReceiverHandler {
     EventBus.postSticky(initialNotificationEvent);
 
     // Send event
-    EventBus.post(new NotificationEvent(TYPE_ACTION_PRESS, notificationModel, extras));
+    String eventId = NotificationEvent.getIdFromIntent(intent);
+    EventBus.post(new NotificationEvent(eventId, TYPE_ACTION_PRESS, notificationModel, extras));
   }
 
   private static void handleNotificationPressIntent(Context context, Intent intent) {
-    Bundle notification = intent.getBundleExtra("notification");
+    Bundle notification = NotificationPayloadStore.getFromIntentExtras(intent.getExtras());
 
     if (notification == null) {
       return;
@@ -114,7 +123,9 @@ public class NotificationReceiverHandler {
 
     NotificationModel notificationModel = NotificationModel.fromBundle(notification);
 
-    Bundle pressAction = intent.getBundleExtra("pressAction");
+    Bundle pressAction =
+        NotificationPayloadStore.getPressActionFromIntentExtras(
+            intent.getExtras(), notificationModel);
     NotificationAndroidPressActionModel pressActionBundle = null;
 
     Bundle extras = new Bundle();
@@ -124,7 +135,8 @@ public class NotificationReceiverHandler {
       extras.putBundle("pressAction", pressActionBundle.toBundle());
     }
 
-    EventBus.post(new NotificationEvent(TYPE_PRESS, notificationModel, extras));
+    String eventId = NotificationEvent.getIdFromIntent(intent);
+    EventBus.post(new NotificationEvent(eventId, TYPE_PRESS, notificationModel, extras));
 
     if (pressActionBundle == null) {
       return;
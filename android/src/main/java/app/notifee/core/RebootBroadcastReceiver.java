@@ -33,6 +33,7 @@ public class RebootBroadcastReceiver extends BroadcastReceiver {
     if (ContextHolder.getApplicationContext() == null) {
       ContextHolder.setApplicationContext(context.getApplicationContext());
     }
-    new NotifeeAlarmManager().rescheduleNotifications();
+    // rescheduling continues after onReceive returns, so keep the process alive until it is done
+    new NotifeeAlarmManager().rescheduleNotifications(goAsync());
   }
 }
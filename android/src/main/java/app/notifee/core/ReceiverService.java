@@ -80,6 +80,31 @@ public class ReceiverService extends Service {
         context, uniqueInt, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
   }
 
+  /**
+   * Creates a PendingIntent which only references the notification payload held by {@link
+   * NotificationPayloadStore}, rather than carrying it. The press action is carried inline.
+   *
+   * @param action An Action - matches up with the JS EventType Enum.
+   * @param notificationRef The id of the stored notification
+   * @param actionIndex The index of the pressed action, or -1 for the notification itself
+   * @param pressAction The press action of the notification or pressed action, if any
+   */
+  static PendingIntent createIntent(
+      String action, String notificationRef, int actionIndex, @Nullable Bundle pressAction) {
+    Context context = ContextHolder.getApplicationContext();
+    Intent intent = new Intent(context, ReceiverService.class);
+    intent.setAction(action);
+    intent.putExtra(NotificationPayloadStore.NOTIFICATION_REF_INTENT_KEY, notificationRef);
+    intent.putExtra(NotificationPayloadStore.ACTION_INDEX_INTENT_KEY, actionIndex);
+    if (pressAction != null) {
+      intent.putExtra(NotificationPayloadStore.PRESS_ACTION_INTENT_KEY, pressAction);
+    }
+
+    int uniqueInt = uniqueIds.getAndIncrement();
+    return PendingIntent.getService(
+        context, uniqueInt, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+  }
+
   @Nullable
   @Override
   public IBinder onBind(Intent intent) {
@@ -111,19 +136,21 @@ public class ReceiverService extends Service {
 
   /** Handle users delete/dismiss intents */
   private void onDeleteIntent(Intent intent) {
-    Bundle notification = intent.getBundleExtra("notification");
+    Bundle notification = NotificationPayloadStore.getFromIntentExtras(intent.getExtras());
 
     if (notification == null) {
       return;
     }
 
     NotificationModel notificationModel = NotificationModel.fromBundle(notification);
-    EventBus.post(new NotificationEvent(TYPE_DISMISSED, notificationModel));
+    NotificationPayloadStore.remove(notificationModel.getId());
+    String eventId = NotificationEvent.getIdFromIntent(intent);
+    EventBus.post(new NotificationEvent(eventId, TYPE_DISMISSED, notificationModel, null));
   }
 
   /** Handle user notification press */
   private void onPressIntent(Intent intent) {
-    Bundle notification = intent.getBundleExtra("notification");
+    Bundle notification = NotificationPayloadStore.getFromIntentExtras(intent.getExtras());
 
     if (notification == null) {
       return;
@@ -131,7 +158,9 @@ public class ReceiverService extends Service {
 
     NotificationModel notificationModel = NotificationModel.fromBundle(notification);
 
-    Bundle pressAction = intent.getBundleExtra("pressAction");
+    Bundle pressAction =
+        NotificationPayloadStore.getPressActionFromIntentExtras(
+            intent.getExtras(), notificationModel);
     NotificationAndroidPressActionModel pressActionBundle = null;
 
     Bundle extras = new Bundle();
@@ -141,7 +170,8 @@ public class ReceiverService extends Service {
       extras.putBundle("pressAction", pressActionBundle.toBundle());
     }
 
-    EventBus.post(new NotificationEvent(TYPE_PRESS, notificationModel, extras));
+    String eventId = NotificationEvent.getIdFromIntent(intent);
+    EventBus.post(new NotificationEvent(eventId, TYPE_PRESS, notificationModel, extras));
 
     if (pressActionBundle == null) {
       return;
@@ -163,14 +193,21 @@ public class ReceiverService extends Service {
 
   /** Handle action intents */
   private void onActionPressIntent(Intent intent) {
-    Bundle notification = intent.getBundleExtra("notification");
-    Bundle pressAction = intent.getBundleExtra("pressAction");
+    Bundle notification = NotificationPayloadStore.getFromIntentExtras(intent.getExtras());
 
-    if (notification == null || pressAction == null) {
+    if (notification == null) {
       return;
     }
 
     NotificationModel notificationModel = NotificationModel.fromBundle(notification);
+    Bundle pressAction =
+        NotificationPayloadStore.getPressActionFromIntentExtras(
+            intent.getExtras(), notificationModel);
+
+    if (pressAction == null) {
+      return;
+    }
+
     NotificationAndroidModel notificationAndroidModel = notificationModel.getAndroid();
     NotificationAndroidPressActionModel pressActionBundle =
         NotificationAndroidPressActionModel.fromBundle(pressAction);
@@ -186,7 +223,8 @@ public class ReceiverService extends Service {
       }
     }
 
-    EventBus.post(new NotificationEvent(TYPE_ACTION_PRESS, notificationModel, extras));
+    String eventId = NotificationEvent.getIdFromIntent(intent);
+    EventBus.post(new NotificationEvent(eventId, TYPE_ACTION_PRESS, notificationModel, extras));
 
     if (notificationModel.getAndroid().getAutoCancel()) {
       NotificationManagerCompat notificationManagerCompat =
@@ -0,0 +1,464 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import static app.notifee.core.ContextHolder.getApplicationContext;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.app.AlarmManagerCompat;
+import app.notifee.core.database.WorkDataRepository;
+import app.notifee.core.database.WorkDataTrigger;
+import app.notifee.core.model.IntervalTriggerModel;
+import app.notifee.core.model.TimestampTriggerModel;
+import app.notifee.core.model.TimestampTriggerModel.AlarmType;
+import app.notifee.core.utility.AlarmUtils;
+import app.notifee.core.utility.ObjectUtils;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Dispatches AlarmManager timestamp triggers using a single alarm.
+ *
+ * <p>Triggers are kept in a time-ordered index, rebuilt from the work_data table whenever the
+ * process starts. One alarm is registered for the earliest trigger, with the alarm type the
+ * triggers due at that time need. When a later trigger needs more than that alarm gives, such as an
+ * exact trigger due after an inexact one the system may defer, a second alarm is registered for
+ * it, so it never waits behind the first. When either fires, every trigger due within {@link
+ * #DISPATCH_WINDOW_MS} is displayed and the alarms are armed for the next ones. Scheduling and
+ * cancelling a trigger is O(log n).
+ *
+ * <p>With a pre-render lead time set, the alarm also fires that long before a trigger is due, to
+ * decode it and fetch its images ahead of time; see {@link
+ * NotificationManager#preRenderTriggerNotification}.
+ *
+ * <p>Triggers using {@link AlarmType#SET_ALARM_CLOCK} are not dispatched here, as the system shows
+ * their time to the user as the next alarm clock; they keep an alarm of their own.
+ *
+ * <p>All state is confined to a single thread, so callers never block on it.
+ */
+class TriggerAlarmDispatcher {
+  private static final String TAG = "TriggerAlarmDispatcher";
+  static final String ACTION_DISPATCH = "app.notifee.core.TriggerAlarmDispatcher.DISPATCH";
+  private static final int DISPATCH_REQUEST_CODE = 0x6e6f7469;
+  private static final int SECOND_DISPATCH_REQUEST_CODE = DISPATCH_REQUEST_CODE + 1;
+  private static final long DISPATCH_WINDOW_MS = 1000;
+  private static final long DISPATCH_TIMEOUT_SECONDS = 8;
+  private static final int LOAD_PAGE_SIZE = 500;
+  private static final String LEGACY_ALARMS_MIGRATED_KEY = "trigger_dispatcher_migrated";
+  static final String PRE_RENDER_LEAD_TIME_KEY = "trigger_pre_render_lead_time_ms";
+
+  private static final TriggerAlarmDispatcher sInstance = new TriggerAlarmDispatcher();
+
+  private final ExecutorService mExecutor =
+      NotifeeExecutors.newSerialExecutor("trigger-dispatcher");
+  private final TriggerAlarmQueue mQueue = new TriggerAlarmQueue();
+  private boolean mLoaded = false;
+  // the alarm for the earliest trigger, and the one for a later trigger it does not cover
+  private final ArmedAlarm mAlarm = new ArmedAlarm(DISPATCH_REQUEST_CODE);
+  private final ArmedAlarm mSecondAlarm = new ArmedAlarm(SECOND_DISPATCH_REQUEST_CODE);
+  private long mPreRenderLeadTimeMs = -1;
+
+  private static class ArmedAlarm {
+    final int requestCode;
+    long timestamp = -1;
+    @Nullable AlarmType alarmType = null;
+
+    ArmedAlarm(int requestCode) {
+      this.requestCode = requestCode;
+    }
+
+    void reset() {
+      timestamp = -1;
+      alarmType = null;
+    }
+  }
+
+  static TriggerAlarmDispatcher getInstance() {
+    return sInstance;
+  }
+
+  /** Whether triggers with the given alarm type are dispatched by the shared alarm */
+  static boolean isDispatched(AlarmType alarmType) {
+    return alarmType != AlarmType.SET_ALARM_CLOCK;
+  }
+
+  /** Adds or moves a trigger in the index */
+  void schedule(@NonNull String id, long timestamp, @NonNull AlarmType alarmType) {
+    mExecutor.execute(
+        () -> {
+          ensureLoaded();
+          mQueue.put(id, timestamp, alarmType);
+          arm();
+        });
+  }
+
+  /** Adds or moves several triggers, arming the alarm once */
+  void scheduleAll(@NonNull Map<String, TimestampTriggerModel> triggers) {
+    mExecutor.execute(
+        () -> {
+          ensureLoaded();
+          for (Map.Entry<String, TimestampTriggerModel> trigger : triggers.entrySet()) {
+            mQueue.put(
+                trigger.getKey(),
+                trigger.getValue().getTimestamp(),
+                trigger.getValue().getAlarmType());
+          }
+          arm();
+        });
+  }
+
+  /** Sets how long before a trigger is due it is pre-rendered, 0 to not pre-render */
+  void setPreRenderLeadTime(long leadTimeMs) {
+    mExecutor.execute(
+        () -> {
+          mPreRenderLeadTimeMs = Math.max(0, leadTimeMs);
+          arm();
+        });
+  }
+
+  void cancel(@NonNull String id) {
+    mExecutor.execute(
+        () -> {
+          ensureLoaded();
+          if (mQueue.remove(id)) {
+            arm();
+          }
+        });
+  }
+
+  /** Removes several triggers, arming the alarm once */
+  void cancel(@NonNull Collection<String> ids) {
+    mExecutor.execute(
+        () -> {
+          ensureLoaded();
+          boolean removed = false;
+          for (String id : ids) {
+            removed |= mQueue.remove(id);
+          }
+          if (removed) {
+            arm();
+          }
+        });
+  }
+
+  void cancelAll() {
+    mExecutor.execute(
+        () -> {
+          mQueue.clear();
+          // nothing left to load; triggers added later are scheduled individually
+          mLoaded = true;
+          arm();
+        });
+  }
+
+  /** Rebuilds the index from the database, e.g. after a reboot when all alarms were cleared */
+  Task<Void> reload() {
+    return Tasks.call(
+        mExecutor,
+        () -> {
+          mLoaded = false;
+          mAlarm.reset();
+          mSecondAlarm.reset();
+          ensureLoaded();
+          arm();
+          return null;
+        });
+  }
+
+  /**
+   * Handles the shared alarm firing. The receiver is kept alive until the due notifications are
+   * posted, or the dispatch timeout passes, without holding the dispatcher's thread meanwhile.
+   */
+  void onAlarm(@Nullable BroadcastReceiver.PendingResult pendingResult) {
+    AtomicBoolean finished = new AtomicBoolean(false);
+    Runnable finish =
+        () -> {
+          if (pendingResult != null && finished.compareAndSet(false, true)) {
+            pendingResult.finish();
+          }
+        };
+    ScheduledFuture<?> timeout =
+        NotifeeExecutors.schedule(finish, DISPATCH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+    mExecutor.execute(
+        () -> {
+          List<Task<Void>> tasks = new ArrayList<>();
+          try {
+            ensureLoaded();
+            // either alarm may have fired, so both are armed again
+            mAlarm.reset();
+            mSecondAlarm.reset();
+
+            long now = System.currentTimeMillis();
+            for (String id : mQueue.pollDue(now + DISPATCH_WINDOW_MS)) {
+              tasks.add(NotifeeAlarmManager.displayScheduledNotification(id));
+            }
+
+            long preRenderBefore = now + getPreRenderLeadTime();
+            for (TriggerAlarmQueue.Entry entry : mQueue.entries()) {
+              if (entry.timestamp > preRenderBefore) {
+                break;
+              }
+              if (!entry.preRendered) {
+                entry.preRendered = true;
+                tasks.add(NotificationManager.preRenderTriggerNotification(entry.id));
+              }
+            }
+
+            arm();
+          } catch (Exception e) {
+            Logger.e(TAG, "Failed to dispatch trigger notifications", e);
+          }
+
+          Tasks.whenAllComplete(tasks)
+              .addOnCompleteListener(
+                  mExecutor,
+                  task -> {
+                    timeout.cancel(false);
+                    finish.run();
+                  });
+        });
+  }
+
+  private void ensureLoaded() {
+    if (mLoaded) {
+      return;
+    }
+
+    try {
+      // timestamp and interval triggers, as both may be scheduled with alarm manager; read in
+      // pages so only one page of trigger bytes is held at a time
+      WorkDataRepository workDataRepository =
+          WorkDataRepository.getInstance(getApplicationContext());
+      String afterId = null;
+      List<WorkDataTrigger> page;
+      do {
+        page = Tasks.await(workDataRepository.getAlarmManagerTriggersPage(afterId, LOAD_PAGE_SIZE));
+        for (WorkDataTrigger workDataTrigger : page) {
+          loadEntry(workDataTrigger);
+          afterId = workDataTrigger.id;
+        }
+      } while (page.size() == LOAD_PAGE_SIZE);
+
+      migrateLegacyAlarms();
+      mLoaded = true;
+    } catch (Exception e) {
+      Logger.e(TAG, "Failed to load trigger notifications", e);
+    }
+  }
+
+  private void loadEntry(WorkDataTrigger workDataTrigger) {
+    if (workDataTrigger.trigger == null) {
+      return;
+    }
+
+    Bundle triggerBundle =
+        ObjectUtils.bytesToBundle(workDataTrigger.trigger, TimestampTriggerModel.SCHEDULING_KEYS);
+    Long timestamp = workDataTrigger.nextFireTimestamp;
+    AlarmType alarmType;
+
+    if (ObjectUtils.getInt(triggerBundle.get("type")) == 1) {
+      IntervalTriggerModel trigger = IntervalTriggerModel.fromBundle(triggerBundle);
+      alarmType = trigger.getAlarmType();
+      if (!isDispatched(alarmType)) {
+        return;
+      }
+
+      // occurrences missed while the device was off are skipped, keeping the schedule
+      if (timestamp == null || timestamp < System.currentTimeMillis()) {
+        trigger.setNextTimestamp();
+        timestamp = trigger.getTimestamp();
+      }
+    } else {
+      TimestampTriggerModel trigger = TimestampTriggerModel.fromBundle(triggerBundle);
+      alarmType = trigger.getAlarmType();
+      if (!isDispatched(alarmType)) {
+        return;
+      }
+
+      // a repeating trigger may have missed occurrences while the device was off
+      if (timestamp == null || (timestamp < System.currentTimeMillis() && trigger.isRepeating())) {
+        trigger.setNextTimestamp();
+        timestamp = trigger.getTimestamp();
+      }
+
+      // a recurrence which ended while the device was off is not shown again
+      if (trigger.isFinished()) {
+        WorkDataRepository.getInstance(getApplicationContext()).deleteById(workDataTrigger.id);
+        return;
+      }
+    }
+
+    mQueue.put(workDataTrigger.id, timestamp, alarmType);
+  }
+
+  /**
+   * Triggers used to register an alarm per notification. Once the index has been built from the
+   * database those alarms would fire a second time, so they are cancelled, once.
+   */
+  private void migrateLegacyAlarms() {
+    Preferences preferences = Preferences.getSharedInstance();
+    if (preferences.getBooleanValue(LEGACY_ALARMS_MIGRATED_KEY, false)) {
+      return;
+    }
+
+    AlarmManager alarmManager = AlarmUtils.getAlarmManager();
+    for (String id : mQueue.ids()) {
+      PendingIntent pendingIntent = NotifeeAlarmManager.getExistingAlarmManagerIntent(id);
+      if (pendingIntent != null) {
+        alarmManager.cancel(pendingIntent);
+        pendingIntent.cancel();
+      }
+    }
+
+    preferences.setBooleanValue(LEGACY_ALARMS_MIGRATED_KEY, true);
+  }
+
+  /**
+   * Registers the shared alarm for the earliest trigger, and the second alarm for the earliest
+   * trigger the first does not cover, if they changed
+   */
+  private void arm() {
+    if (mQueue.isEmpty()) {
+      disarm(mAlarm);
+      disarm(mSecondAlarm);
+      return;
+    }
+
+    // Without the SCHEDULE_EXACT_ALARM permission setExact APIs crash, so the alarms fall back to
+    // inexact ones rather than not firing at all
+    boolean exactAllowed = AlarmUtils.canScheduleExactAlarms();
+
+    long timestamp = getNextAlarmTimestamp();
+    AlarmType alarmType = mQueue.getAlarmType(timestamp, DISPATCH_WINDOW_MS);
+    if (!exactAllowed && TriggerAlarmQueue.isExact(alarmType)) {
+      alarmType = TriggerAlarmQueue.toInexact(alarmType);
+      if (timestamp != mAlarm.timestamp || alarmType != mAlarm.alarmType) {
+        Logger.w(
+            TAG,
+            "Missing SCHEDULE_EXACT_ALARM permission. Trigger scheduled as an inexact alarm. See:"
+                + " https://notifee.app/react-native/docs/triggers#android-12-limitations");
+      }
+    }
+    arm(mAlarm, timestamp, alarmType);
+
+    TriggerAlarmQueue.Entry uncovered = mQueue.firstNotCoveredBy(alarmType, exactAllowed);
+    if (uncovered == null) {
+      disarm(mSecondAlarm);
+      return;
+    }
+
+    AlarmType secondAlarmType = mQueue.getAlarmType(uncovered.timestamp, DISPATCH_WINDOW_MS);
+    if (!exactAllowed) {
+      secondAlarmType = TriggerAlarmQueue.toInexact(secondAlarmType);
+    }
+    arm(mSecondAlarm, uncovered.timestamp, secondAlarmType);
+  }
+
+  private void arm(ArmedAlarm armedAlarm, long timestamp, AlarmType alarmType) {
+    if (timestamp == armedAlarm.timestamp && alarmType == armedAlarm.alarmType) {
+      return;
+    }
+
+    AlarmManager alarmManager = AlarmUtils.getAlarmManager();
+    PendingIntent pendingIntent = getDispatchIntent(armedAlarm.requestCode);
+
+    switch (alarmType) {
+      case SET:
+        alarmManager.set(AlarmManager.RTC, timestamp, pendingIntent);
+        break;
+      case SET_AND_ALLOW_WHILE_IDLE:
+        AlarmManagerCompat.setAndAllowWhileIdle(
+            alarmManager, AlarmManager.RTC_WAKEUP, timestamp, pendingIntent);
+        break;
+      case SET_EXACT:
+        AlarmManagerCompat.setExact(
+            alarmManager, AlarmManager.RTC_WAKEUP, timestamp, pendingIntent);
+        break;
+      case SET_EXACT_AND_ALLOW_WHILE_IDLE:
+      default:
+        AlarmManagerCompat.setExactAndAllowWhileIdle(
+            alarmManager, AlarmManager.RTC_WAKEUP, timestamp, pendingIntent);
+        break;
+    }
+
+    armedAlarm.timestamp = timestamp;
+    armedAlarm.alarmType = alarmType;
+  }
+
+  private void disarm(ArmedAlarm armedAlarm) {
+    if (armedAlarm.timestamp != -1) {
+      AlarmUtils.getAlarmManager().cancel(getDispatchIntent(armedAlarm.requestCode));
+      armedAlarm.reset();
+    }
+  }
+
+  /* The earliest of the next trigger being due, and the next trigger to pre-render */
+  private long getNextAlarmTimestamp() {
+    long timestamp = mQueue.first().timestamp;
+
+    long leadTimeMs = getPreRenderLeadTime();
+    if (leadTimeMs > 0) {
+      // only triggers within the lead time are pre-rendered, so this stops after the first few
+      for (TriggerAlarmQueue.Entry entry : mQueue.entries()) {
+        if (!entry.preRendered) {
+          long preRenderAt = Math.max(entry.timestamp - leadTimeMs, System.currentTimeMillis());
+          timestamp = Math.min(timestamp, preRenderAt);
+          break;
+        }
+      }
+    }
+
+    return timestamp;
+  }
+
+  private long getPreRenderLeadTime() {
+    if (mPreRenderLeadTimeMs == -1) {
+      mPreRenderLeadTimeMs =
+          Preferences.getSharedInstance().getLongValue(PRE_RENDER_LEAD_TIME_KEY, 0);
+    }
+
+    return mPreRenderLeadTimeMs;
+  }
+
+  private static PendingIntent getDispatchIntent(int requestCode) {
+    Context context = getApplicationContext();
+    Intent intent = new Intent(context, NotificationAlarmReceiver.class);
+    intent.setAction(ACTION_DISPATCH);
+    return PendingIntent.getBroadcast(
+        context,
+        requestCode,
+        intent,
+        PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE);
+  }
+}
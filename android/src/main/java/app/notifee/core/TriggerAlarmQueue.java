@@ -0,0 +1,217 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.model.TimestampTriggerModel.AlarmType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The time-ordered index of triggers dispatched by {@link TriggerAlarmDispatcher}. Adding and
+ * removing a trigger is O(log n).
+ *
+ * <p>Not thread safe; the dispatcher confines it to its own thread.
+ */
+class TriggerAlarmQueue {
+  private final TreeSet<Entry> mQueue = new TreeSet<>();
+  // the exact and the idle-allowed triggers, so the earliest of each is found in O(log n)
+  private final TreeSet<Entry> mExact = new TreeSet<>();
+  private final TreeSet<Entry> mAllowedWhileIdle = new TreeSet<>();
+  private final Map<String, Entry> mEntries = new HashMap<>();
+
+  static class Entry implements Comparable<Entry> {
+    final String id;
+    final long timestamp;
+    final AlarmType alarmType;
+    boolean preRendered = false;
+
+    Entry(String id, long timestamp, AlarmType alarmType) {
+      this.id = id;
+      this.timestamp = timestamp;
+      this.alarmType = alarmType;
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+      int result = Long.compare(timestamp, other.timestamp);
+      return result != 0 ? result : id.compareTo(other.id);
+    }
+  }
+
+  boolean isEmpty() {
+    return mQueue.isEmpty();
+  }
+
+  int size() {
+    return mQueue.size();
+  }
+
+  /** The earliest trigger, or null if the queue is empty */
+  @Nullable
+  Entry first() {
+    return mQueue.isEmpty() ? null : mQueue.first();
+  }
+
+  /** The triggers in the order they are due */
+  Iterable<Entry> entries() {
+    return Collections.unmodifiableSet(mQueue);
+  }
+
+  Set<String> ids() {
+    return Collections.unmodifiableSet(mEntries.keySet());
+  }
+
+  /** Adds a trigger, or moves it if already queued */
+  void put(@NonNull String id, long timestamp, @NonNull AlarmType alarmType) {
+    remove(id);
+    Entry entry = new Entry(id, timestamp, alarmType);
+    mQueue.add(entry);
+    if (isExact(alarmType)) {
+      mExact.add(entry);
+    }
+    if (isAllowedWhileIdle(alarmType)) {
+      mAllowedWhileIdle.add(entry);
+    }
+    mEntries.put(id, entry);
+  }
+
+  boolean remove(@NonNull String id) {
+    Entry entry = mEntries.remove(id);
+    if (entry == null) {
+      return false;
+    }
+
+    mQueue.remove(entry);
+    mExact.remove(entry);
+    mAllowedWhileIdle.remove(entry);
+    return true;
+  }
+
+  void clear() {
+    mQueue.clear();
+    mExact.clear();
+    mAllowedWhileIdle.clear();
+    mEntries.clear();
+  }
+
+  /** Removes and returns the ids of the triggers due at or before the given time, earliest first */
+  List<String> pollDue(long dueBefore) {
+    List<String> dueIds = new ArrayList<>();
+    Iterator<Entry> iterator = mQueue.iterator();
+    while (iterator.hasNext()) {
+      Entry entry = iterator.next();
+      if (entry.timestamp > dueBefore) {
+        break;
+      }
+
+      iterator.remove();
+      mExact.remove(entry);
+      mAllowedWhileIdle.remove(entry);
+      mEntries.remove(entry.id);
+      dueIds.add(entry.id);
+    }
+
+    return dueIds;
+  }
+
+  /**
+   * The alarm type for an alarm armed at the given time, from the triggers it will dispatch: those
+   * due within the window of it, or of the earliest trigger when the alarm is armed early to
+   * pre-render. Triggers further out don't affect it; they set the type once they are next.
+   *
+   * <p>Being exact and being allowed while idle are combined separately, so an exact trigger and
+   * an idle-allowed trigger due together give an exact, idle-allowed alarm.
+   */
+  @Nullable
+  AlarmType getAlarmType(long alarmTimestamp, long windowMs) {
+    if (mQueue.isEmpty()) {
+      return null;
+    }
+
+    long dueBefore = Math.max(alarmTimestamp, mQueue.first().timestamp) + windowMs;
+    boolean exact = false;
+    boolean allowWhileIdle = false;
+    for (Entry entry : mQueue) {
+      if (entry.timestamp > dueBefore) {
+        break;
+      }
+
+      exact |= isExact(entry.alarmType);
+      allowWhileIdle |= isAllowedWhileIdle(entry.alarmType);
+    }
+
+    return getAlarmType(exact, allowWhileIdle);
+  }
+
+  /**
+   * The earliest trigger needing more than an alarm of the given type gives: being exact, or being
+   * allowed while idle. Such a trigger would wait behind an alarm the system may defer, so it
+   * needs an alarm of its own.
+   *
+   * @param exactAllowed whether exact alarms may be scheduled; if not, no trigger needs one
+   */
+  @Nullable
+  Entry firstNotCoveredBy(@NonNull AlarmType alarmType, boolean exactAllowed) {
+    Entry entry = null;
+    if (exactAllowed && !isExact(alarmType) && !mExact.isEmpty()) {
+      entry = mExact.first();
+    }
+
+    if (!isAllowedWhileIdle(alarmType) && !mAllowedWhileIdle.isEmpty()) {
+      Entry idleEntry = mAllowedWhileIdle.first();
+      if (entry == null || idleEntry.compareTo(entry) < 0) {
+        entry = idleEntry;
+      }
+    }
+
+    return entry;
+  }
+
+  static boolean isExact(@NonNull AlarmType alarmType) {
+    return alarmType == AlarmType.SET_EXACT
+        || alarmType == AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE
+        || alarmType == AlarmType.SET_ALARM_CLOCK;
+  }
+
+  static boolean isAllowedWhileIdle(@NonNull AlarmType alarmType) {
+    return alarmType == AlarmType.SET_AND_ALLOW_WHILE_IDLE
+        || alarmType == AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE
+        || alarmType == AlarmType.SET_ALARM_CLOCK;
+  }
+
+  static AlarmType getAlarmType(boolean exact, boolean allowWhileIdle) {
+    if (exact) {
+      return allowWhileIdle ? AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE : AlarmType.SET_EXACT;
+    }
+
+    return allowWhileIdle ? AlarmType.SET_AND_ALLOW_WHILE_IDLE : AlarmType.SET;
+  }
+
+  /** The same alarm type without being exact, for when exact alarms are not allowed */
+  static AlarmType toInexact(@NonNull AlarmType alarmType) {
+    return getAlarmType(false, isAllowedWhileIdle(alarmType));
+  }
+}
@@ -0,0 +1,82 @@
+package app.notifee.core;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.os.Bundle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+/**
+ * Time from a trigger firing to its notification being posted, for the triggers fired since the
+ * process started. Triggers which were pre-rendered are counted separately, so the effect of the
+ * pre-render lead time can be compared.
+ */
+final class TriggerLatencyMetrics {
+  private static final String TAG = "TriggerLatencyMetrics";
+  private static final int MAX_RECENT = 50;
+
+  private static final ArrayDeque<Bundle> sRecent = new ArrayDeque<>();
+  private static long sCount = 0;
+  private static long sTotalMs = 0;
+  private static long sMaxMs = 0;
+  private static long sPreRenderedCount = 0;
+  private static long sPreRenderedTotalMs = 0;
+
+  private TriggerLatencyMetrics() {}
+
+  static synchronized void record(String id, long latencyMs, boolean preRendered) {
+    Logger.d(
+        TAG,
+        "Trigger notification "
+            + id
+            + " posted "
+            + latencyMs
+            + "ms after firing"
+            + (preRendered ? " (pre-rendered)" : ""));
+
+    sCount++;
+    sTotalMs += latencyMs;
+    sMaxMs = Math.max(sMaxMs, latencyMs);
+    if (preRendered) {
+      sPreRenderedCount++;
+      sPreRenderedTotalMs += latencyMs;
+    }
+
+    Bundle entry = new Bundle();
+    entry.putString("id", id);
+    entry.putLong("latencyMs", latencyMs);
+    entry.putBoolean("preRendered", preRendered);
+    sRecent.addLast(entry);
+    if (sRecent.size() > MAX_RECENT) {
+      sRecent.removeFirst();
+    }
+  }
+
+  static synchronized Bundle toBundle() {
+    Bundle bundle = new Bundle();
+    bundle.putLong("count", sCount);
+    bundle.putLong("averageMs", sCount > 0 ? sTotalMs / sCount : 0);
+    bundle.putLong("maxMs", sMaxMs);
+    bundle.putLong("preRenderedCount", sPreRenderedCount);
+    bundle.putLong(
+        "preRenderedAverageMs",
+        sPreRenderedCount > 0 ? sPreRenderedTotalMs / sPreRenderedCount : 0);
+    bundle.putParcelableArrayList("recent", new ArrayList<>(sRecent));
+    return bundle;
+  }
+}
@@ -32,8 +32,14 @@ public class Worker extends ListenableWorker {
       "app.notifee.core.BlockStateBroadcastReceiver.WORKER";
   static final String WORK_TYPE_NOTIFICATION_TRIGGER =
       "app.notifee.core.NotificationManager.TRIGGER";
+  static final String WORK_TYPE_NOTIFICATION_PRE_RENDER =
+      "app.notifee.core.NotificationManager.PRE_RENDER";
+  static final String WORK_TYPE_ALARM_RESCHEDULE =
+      "app.notifee.core.NotifeeAlarmManager.RESCHEDULE";
   static final String WORK_REQUEST_ONE_TIME = "OneTime";
   static final String WORK_REQUEST_PERIODIC = "Periodic";
+  // a one time request for each occurrence of a calendar recurrence
+  static final String WORK_REQUEST_RECURRENCE = "Recurrence";
   static final String KEY_WORK_REQUEST = "workRequestType";
   private static final String TAG = "Worker";
 
@@ -75,6 +81,12 @@ public class Worker extends ListenableWorker {
             case WORK_TYPE_NOTIFICATION_TRIGGER:
               NotificationManager.doScheduledWork(getInputData(), completer);
               break;
+            case WORK_TYPE_NOTIFICATION_PRE_RENDER:
+              NotificationManager.doPreRenderWork(getInputData(), completer);
+              break;
+            case WORK_TYPE_ALARM_RESCHEDULE:
+              NotifeeAlarmManager.doRescheduleWork(getInputData(), completer);
+              break;
             default:
               Logger.d(TAG, "unknown work type received: " + workType);
               completer.set(Result.success());
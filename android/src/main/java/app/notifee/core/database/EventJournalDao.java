@@ -0,0 +1,43 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+import java.util.List;
+
+@Dao
+public interface EventJournalDao {
+  // an event redelivered with the id it was posted with is kept once, at its original position
+  @Insert(onConflict = OnConflictStrategy.IGNORE)
+  void insert(EventJournalEntity eventJournalEntity);
+
+  // the offset is past the end while there are no more than maxSize entries, deleting nothing
+  @Query(
+      "DELETE FROM event_journal WHERE sequence <= (SELECT sequence FROM event_journal"
+          + " ORDER BY sequence DESC LIMIT 1 OFFSET :maxSize)")
+  void trim(int maxSize);
+
+  @Query("SELECT * FROM event_journal ORDER BY sequence")
+  List<EventJournalEntity> getAll();
+
+  @Query("DELETE FROM event_journal WHERE sequence <= :sequence")
+  void deleteUpTo(long sequence);
+}
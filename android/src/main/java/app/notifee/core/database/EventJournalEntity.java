@@ -0,0 +1,93 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/** A notification event posted while no listener was ready for it, see {@link EventJournalDao} */
+@Entity(tableName = "event_journal", indices = {@Index(value = "event_id", unique = true)})
+public class EventJournalEntity {
+
+  // the order the events were posted in
+  @PrimaryKey(autoGenerate = true)
+  @ColumnInfo(name = "sequence")
+  private long sequence;
+
+  // assigned when the event is posted, identifies it when redelivered, such as from an intent
+  @ColumnInfo(name = "event_id")
+  @NonNull
+  private String eventId;
+
+  @ColumnInfo(name = "type")
+  private int type;
+
+  @ColumnInfo(name = "notification", typeAffinity = ColumnInfo.BLOB)
+  @NonNull
+  private byte[] notification;
+
+  @ColumnInfo(name = "extras", typeAffinity = ColumnInfo.BLOB)
+  @Nullable
+  private byte[] extras;
+
+  @ColumnInfo(name = "created_at")
+  private long createdAt;
+
+  public EventJournalEntity(
+      long sequence,
+      @NonNull String eventId,
+      int type,
+      @NonNull byte[] notification,
+      @Nullable byte[] extras,
+      long createdAt) {
+    this.sequence = sequence;
+    this.eventId = eventId;
+    this.type = type;
+    this.notification = notification;
+    this.extras = extras;
+    this.createdAt = createdAt;
+  }
+
+  public long getSequence() {
+    return this.sequence;
+  }
+
+  public @NonNull String getEventId() {
+    return this.eventId;
+  }
+
+  public int getType() {
+    return this.type;
+  }
+
+  public @NonNull byte[] getNotification() {
+    return this.notification;
+  }
+
+  public @Nullable byte[] getExtras() {
+    return this.extras;
+  }
+
+  public long getCreatedAt() {
+    return this.createdAt;
+  }
+}
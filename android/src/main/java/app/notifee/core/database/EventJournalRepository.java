@@ -0,0 +1,104 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import java.util.List;
+
+/**
+ * A bounded journal of notification events posted while no listener was ready for them, such as a
+ * press handled, or a trigger delivered, in a process the host has not started in. Events are read
+ * back, in the order they were posted, once a listener is ready, and removed once it has
+ * acknowledged them.
+ */
+public class EventJournalRepository {
+  // only the most recent events are kept
+  static final int MAX_EVENTS = 100;
+
+  private final NotifeeCoreDatabase mDatabase;
+  private final EventJournalDao mEventJournalDao;
+  private static EventJournalRepository mInstance;
+
+  public static @NonNull EventJournalRepository getInstance(@NonNull Context context) {
+    synchronized (EventJournalRepository.class) {
+      if (mInstance == null) {
+        mInstance = new EventJournalRepository(context);
+      }
+
+      return mInstance;
+    }
+  }
+
+  private EventJournalRepository(Context context) {
+    this(NotifeeCoreDatabase.getDatabase(context));
+  }
+
+  @VisibleForTesting
+  EventJournalRepository(NotifeeCoreDatabase database) {
+    mDatabase = database;
+    mEventJournalDao = mDatabase.eventJournalDao();
+  }
+
+  /**
+   * Appends an event, unless an event with the same id is already in the journal, dropping the
+   * oldest events beyond the limit.
+   *
+   * @param eventId the id the event was posted with; only a redelivery of the same event has the
+   *     same id, so separate but identical events are all kept
+   */
+  public Task<Void> append(
+      @NonNull String eventId, int type, @NonNull byte[] notification, @Nullable byte[] extras) {
+    EventJournalEntity entity =
+        new EventJournalEntity(0, eventId, type, notification, extras, System.currentTimeMillis());
+
+    return Tasks.call(
+        NotifeeCoreDatabase.databaseWriteExecutor,
+        () -> {
+          mDatabase.runInTransaction(
+              () -> {
+                mEventJournalDao.insert(entity);
+                mEventJournalDao.trim(MAX_EVENTS);
+              });
+          return null;
+        });
+  }
+
+  /**
+   * Every event in the journal, in the order they were posted. The events stay in the journal
+   * until they are acknowledged, so an event which is read but never delivered is read again.
+   */
+  public Task<List<EventJournalEntity>> getAll() {
+    // on the write executor, so an event appended before is always read
+    return Tasks.call(NotifeeCoreDatabase.databaseWriteExecutor, mEventJournalDao::getAll);
+  }
+
+  /** Removes the events up to, and including, the given sequence once they have been delivered */
+  public Task<Void> acknowledge(long sequence) {
+    return Tasks.call(
+        NotifeeCoreDatabase.databaseWriteExecutor,
+        () -> {
+          mEventJournalDao.deleteUpTo(sequence);
+          return null;
+        });
+  }
+}
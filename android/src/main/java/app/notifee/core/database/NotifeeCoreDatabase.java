@@ -17,27 +17,47 @@ package app.notifee.core.database;
  *
  */
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import app.notifee.core.Logger;
+import app.notifee.core.NotifeeExecutors;
+import app.notifee.core.utility.ObjectUtils;
+import app.notifee.core.utility.PayloadCodec;
+import com.google.android.gms.tasks.Task;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 @Database(
-    entities = {WorkDataEntity.class},
-    version = 2,
+    entities = {WorkDataEntity.class, EventJournalEntity.class},
+    version = 6,
     exportSchema = true)
 public abstract class NotifeeCoreDatabase extends RoomDatabase {
+  private static final String TAG = "NotifeeCoreDatabase";
 
   public abstract WorkDataDao workDao();
 
+  public abstract EventJournalDao eventJournalDao();
+
   private static volatile NotifeeCoreDatabase INSTANCE;
 
-  static final ExecutorService databaseWriteExecutor = Executors.newCachedThreadPool();
+  // writes are applied in order by a single thread, see WorkDataWriter
+  static final ExecutorService databaseWriteExecutor =
+      NotifeeExecutors.newSerialExecutor("database-write");
+
+  /** Runs a read on the database lane, a read rejected by a full lane failing its task */
+  static <T> Task<T> read(@NonNull Callable<T> callable) {
+    return NotifeeExecutors.call(NotifeeExecutors.Lane.DATABASE, callable);
+  }
 
   /**
    * Migrate from: version 1 to version 2 - where the {@link WorkDataEntity} has an extra field:
@@ -54,6 +74,157 @@ public abstract class NotifeeCoreDatabase extends RoomDatabase {
         }
       };
 
+  /**
+   * Migrate from: version 2 to version 3 - where the {@link WorkDataEntity} has indexed columns
+   * describing the trigger, backfilled from the stored notification and trigger
+   */
+  @VisibleForTesting
+  static final Migration MIGRATION_2_3 =
+      new Migration(2, 3) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+          database.execSQL("ALTER TABLE work_data ADD COLUMN next_fire_timestamp INTEGER");
+          database.execSQL("ALTER TABLE work_data ADD COLUMN trigger_type INTEGER");
+          database.execSQL("ALTER TABLE work_data ADD COLUMN repeat_frequency INTEGER");
+          database.execSQL("ALTER TABLE work_data ADD COLUMN channel_id TEXT");
+          database.execSQL("ALTER TABLE work_data ADD COLUMN group_id TEXT");
+          database.execSQL(
+              "ALTER TABLE work_data ADD COLUMN created_at INTEGER NOT NULL DEFAULT 0");
+
+          for (String column :
+              new String[] {
+                "next_fire_timestamp", "trigger_type", "channel_id", "group_id", "created_at"
+              }) {
+            database.execSQL(
+                "CREATE INDEX IF NOT EXISTS `index_work_data_"
+                    + column
+                    + "` ON `work_data` (`"
+                    + column
+                    + "`)");
+          }
+
+          // the original creation time is unknown, so existing entries are ordered as created now
+          long createdAt = System.currentTimeMillis();
+
+          try (Cursor cursor = database.query("SELECT id, notification, trigger FROM work_data")) {
+            while (cursor.moveToNext()) {
+              String id = cursor.getString(0);
+              ContentValues values = new ContentValues();
+              values.put("created_at", createdAt);
+
+              try {
+                if (!cursor.isNull(1)) {
+                  Bundle notificationBundle = ObjectUtils.bytesToBundle(cursor.getBlob(1));
+                  values.put("channel_id", WorkDataColumns.getChannelId(notificationBundle));
+                  values.put("group_id", WorkDataColumns.getGroupId(notificationBundle));
+                }
+
+                if (!cursor.isNull(2)) {
+                  Bundle triggerBundle = ObjectUtils.bytesToBundle(cursor.getBlob(2));
+                  values.put(
+                      "next_fire_timestamp", WorkDataColumns.getNextFireTimestamp(triggerBundle));
+                  values.put("trigger_type", WorkDataColumns.getTriggerType(triggerBundle));
+                  values.put("repeat_frequency", WorkDataColumns.getRepeatFrequency(triggerBundle));
+                }
+              } catch (Exception e) {
+                Logger.e(TAG, "Failed to backfill trigger notification " + id, e);
+              }
+
+              database.update(
+                  "work_data", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", new Object[] {id});
+            }
+          }
+        }
+      };
+
+  /**
+   * Migrate from: version 3 to version 4 - where the notification and trigger of a {@link
+   * WorkDataEntity} are stored with {@link PayloadCodec} instead of Parcel.marshall
+   */
+  @VisibleForTesting
+  static final Migration MIGRATION_3_4 =
+      new Migration(3, 4) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+          try (Cursor cursor = database.query("SELECT id, notification, trigger FROM work_data")) {
+            while (cursor.moveToNext()) {
+              String id = cursor.getString(0);
+              ContentValues values = new ContentValues();
+
+              try {
+                for (int column = 1; column <= 2; column++) {
+                  byte[] bytes = cursor.isNull(column) ? null : cursor.getBlob(column);
+                  if (bytes != null && !PayloadCodec.isEncoded(bytes)) {
+                    values.put(
+                        cursor.getColumnName(column),
+                        ObjectUtils.bundleToBytes(ObjectUtils.bytesToBundle(bytes)));
+                  }
+                }
+              } catch (Exception e) {
+                // left as is, Parcel encoded entries can still be read
+                Logger.e(TAG, "Failed to re-encode trigger notification " + id, e);
+                continue;
+              }
+
+              if (values.size() > 0) {
+                database.update(
+                    "work_data", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", new Object[] {id});
+              }
+            }
+          }
+        }
+      };
+
+  /**
+   * Migrate from: version 4 to version 5 - where the {@link WorkDataEntity} has hashes of its
+   * notification and trigger, used to reconcile trigger notifications. A repeating trigger has
+   * already been advanced, so its first reconciliation reschedules it once.
+   */
+  @VisibleForTesting
+  static final Migration MIGRATION_4_5 =
+      new Migration(4, 5) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+          database.execSQL("ALTER TABLE work_data ADD COLUMN notification_hash TEXT");
+          database.execSQL("ALTER TABLE work_data ADD COLUMN trigger_hash TEXT");
+
+          try (Cursor cursor = database.query("SELECT id, notification, trigger FROM work_data")) {
+            while (cursor.moveToNext()) {
+              String id = cursor.getString(0);
+              ContentValues values = new ContentValues();
+              values.put(
+                  "notification_hash",
+                  WorkDataColumns.getContentHash(cursor.isNull(1) ? null : cursor.getBlob(1)));
+              values.put(
+                  "trigger_hash",
+                  WorkDataColumns.getContentHash(cursor.isNull(2) ? null : cursor.getBlob(2)));
+
+              database.update(
+                  "work_data", SQLiteDatabase.CONFLICT_NONE, values, "id = ?", new Object[] {id});
+            }
+          }
+        }
+      };
+
+  /**
+   * Migrate from: version 5 to version 6 - where the {@link EventJournalEntity} journal of events
+   * posted while no listener was registered is added
+   */
+  @VisibleForTesting
+  static final Migration MIGRATION_5_6 =
+      new Migration(5, 6) {
+        @Override
+        public void migrate(SupportSQLiteDatabase database) {
+          database.execSQL(
+              "CREATE TABLE IF NOT EXISTS `event_journal` (`sequence` INTEGER PRIMARY KEY"
+                  + " AUTOINCREMENT NOT NULL, `event_id` TEXT NOT NULL, `type` INTEGER NOT NULL,"
+                  + " `notification` BLOB NOT NULL, `extras` BLOB, `created_at` INTEGER NOT NULL)");
+          database.execSQL(
+              "CREATE UNIQUE INDEX IF NOT EXISTS `index_event_journal_event_id`"
+                  + " ON `event_journal` (`event_id`)");
+        }
+      };
+
   static NotifeeCoreDatabase getDatabase(final Context context) {
     if (INSTANCE == null) {
       synchronized (NotifeeCoreDatabase.class) {
@@ -63,7 +234,8 @@ public abstract class NotifeeCoreDatabase extends RoomDatabase {
                       context.getApplicationContext(),
                       NotifeeCoreDatabase.class,
                       "notifee_core_database")
-                  .addMigrations(MIGRATION_1_2)
+                  .addMigrations(
+                      MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6)
                   .build();
         }
       }
@@ -0,0 +1,67 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.model.NotificationModel;
+
+/** A stored trigger notification, decoded. */
+public final class TriggerNotification {
+  private final String mId;
+  private final @Nullable NotificationModel mNotificationModel;
+  private final @Nullable Bundle mTriggerBundle;
+  private final boolean mWithAlarmManager;
+
+  TriggerNotification(
+      @NonNull String id,
+      @Nullable NotificationModel notificationModel,
+      @Nullable Bundle triggerBundle,
+      boolean withAlarmManager) {
+    mId = id;
+    mNotificationModel = notificationModel;
+    mTriggerBundle = triggerBundle;
+    mWithAlarmManager = withAlarmManager;
+  }
+
+  public @NonNull String getId() {
+    return mId;
+  }
+
+  public @Nullable NotificationModel getNotificationModel() {
+    return mNotificationModel;
+  }
+
+  public @Nullable Bundle getNotificationBundle() {
+    return mNotificationModel != null ? mNotificationModel.toBundle() : null;
+  }
+
+  /* A copy, so advancing a repeating trigger does not change the cached one */
+  public @Nullable Bundle getTriggerBundle() {
+    return mTriggerBundle != null ? new Bundle(mTriggerBundle) : null;
+  }
+
+  public boolean getWithAlarmManager() {
+    return mWithAlarmManager;
+  }
+
+  TriggerNotification withTrigger(@NonNull Bundle triggerBundle) {
+    return new TriggerNotification(
+        mId, mNotificationModel, new Bundle(triggerBundle), mWithAlarmManager);
+  }
+}
@@ -0,0 +1,46 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * What {@link WorkDataRepository#reconcile(List)} changed to bring the stored trigger notifications
+ * in line with the requested ones.
+ */
+public class TriggerReconciliation {
+  /* Ids which were not stored before */
+  public final List<String> created = new ArrayList<>();
+
+  /* Ids whose notification changed but whose trigger did not, so they need no rescheduling */
+  public final List<String> updated = new ArrayList<>();
+
+  /* Ids whose trigger changed */
+  public final List<String> rescheduled = new ArrayList<>();
+
+  /* Ids which were stored but not requested, and have been removed */
+  public final List<String> removed = new ArrayList<>();
+
+  /* Ids, of those rescheduled or removed, which were previously scheduled with alarm manager */
+  public final Set<String> previouslyWithAlarmManager = new HashSet<>();
+
+  public int unchanged = 0;
+}
@@ -0,0 +1,89 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+import android.os.Bundle;
+import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * Decoded trigger notifications, so repeating triggers and listings do not decode the same stored
+ * entries again. Entries are dropped when a write to their id is queued.
+ *
+ * <p>A read which raced a write could otherwise put the entry it read before the write was
+ * applied back in the cache. Reads note the write epoch before querying, and only put what they
+ * read if no write was queued or applied since, and none is still pending.
+ */
+final class WorkDataCache {
+  private static final int MAX_ENTRIES = 256;
+
+  private final LruCache<String, TriggerNotification> mEntries = new LruCache<>(MAX_ENTRIES);
+  private long mEpoch = 0;
+  private int mPendingWrites = 0;
+
+  synchronized @Nullable TriggerNotification get(@NonNull String id) {
+    return mEntries.get(id);
+  }
+
+  synchronized long getEpoch() {
+    return mEpoch;
+  }
+
+  synchronized void put(long epoch, @NonNull TriggerNotification triggerNotification) {
+    if (epoch == mEpoch && mPendingWrites == 0) {
+      mEntries.put(triggerNotification.getId(), triggerNotification);
+    }
+  }
+
+  /**
+   * Called before a write is queued.
+   *
+   * @param ids the ids written, or null if any entry may be written
+   */
+  synchronized void beginWrite(@Nullable Collection<String> ids) {
+    mEpoch++;
+    mPendingWrites++;
+
+    if (ids == null) {
+      mEntries.evictAll();
+      return;
+    }
+
+    for (String id : ids) {
+      mEntries.remove(id);
+    }
+  }
+
+  /* Called before a trigger update is queued, the cached entry is kept with the new trigger */
+  synchronized void beginTriggerWrite(@NonNull String id, @NonNull Bundle triggerBundle) {
+    mEpoch++;
+    mPendingWrites++;
+
+    TriggerNotification triggerNotification = mEntries.get(id);
+    if (triggerNotification != null) {
+      mEntries.put(id, triggerNotification.withTrigger(triggerBundle));
+    }
+  }
+
+  /* Called once a write has been applied, or has failed */
+  synchronized void endWrite() {
+    mEpoch++;
+    mPendingWrites--;
+  }
+}
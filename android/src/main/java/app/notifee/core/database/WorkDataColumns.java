@@ -0,0 +1,143 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.os.Bundle;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.model.TimestampTriggerModel;
+import app.notifee.core.utility.ObjectUtils;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Derives the queryable work_data columns from a trigger notification, so that lookups by fire
+ * time, trigger type or channel do not need to decode every stored BLOB.
+ */
+final class WorkDataColumns {
+  static final int TRIGGER_TYPE_TIMESTAMP = 0;
+  static final int TRIGGER_TYPE_INTERVAL = 1;
+
+  private WorkDataColumns() {}
+
+  static WorkDataEntity createEntity(
+      @NonNull String id,
+      @NonNull Bundle notificationBundle,
+      @NonNull Bundle triggerBundle,
+      @NonNull Boolean withAlarmManager,
+      long createdAt) {
+    byte[] notification = ObjectUtils.bundleToBytes(notificationBundle);
+    byte[] trigger = ObjectUtils.bundleToBytes(triggerBundle);
+
+    return new WorkDataEntity(
+        id,
+        notification,
+        trigger,
+        withAlarmManager,
+        getNextFireTimestamp(triggerBundle),
+        getTriggerType(triggerBundle),
+        getRepeatFrequency(triggerBundle),
+        getChannelId(notificationBundle),
+        getGroupId(notificationBundle),
+        createdAt,
+        getContentHash(notification),
+        getContentHash(trigger));
+  }
+
+  /* A copy of the entity which keeps the creation time of the entry it replaces */
+  static WorkDataEntity withCreatedAt(@NonNull WorkDataEntity entity, long createdAt) {
+    return new WorkDataEntity(
+        entity.getId(),
+        entity.getNotification(),
+        entity.getTrigger(),
+        entity.getWithAlarmManager(),
+        entity.getNextFireTimestamp(),
+        entity.getTriggerType(),
+        entity.getRepeatFrequency(),
+        entity.getChannelId(),
+        entity.getGroupId(),
+        createdAt,
+        entity.getNotificationHash(),
+        entity.getTriggerHash());
+  }
+
+  static @Nullable String getContentHash(@Nullable byte[] bytes) {
+    if (bytes == null) {
+      return null;
+    }
+
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      byte[] hash = digest.digest(bytes);
+      StringBuilder builder = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        builder.append(String.format("%02x", b & 0xFF));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  static @Nullable Integer getTriggerType(@NonNull Bundle triggerBundle) {
+    if (!triggerBundle.containsKey("type")) {
+      return null;
+    }
+
+    return ObjectUtils.getInt(triggerBundle.get("type"));
+  }
+
+  static @Nullable Long getNextFireTimestamp(@NonNull Bundle triggerBundle) {
+    Integer triggerType = getTriggerType(triggerBundle);
+    if (triggerType == null || !triggerBundle.containsKey("timestamp")) {
+      return null;
+    }
+
+    // alarm manager interval triggers store their next fire time once scheduled
+    if (triggerType == TRIGGER_TYPE_INTERVAL) {
+      return ObjectUtils.getLong(triggerBundle.get("timestamp"));
+    }
+
+    if (triggerType != TRIGGER_TYPE_TIMESTAMP) {
+      return null;
+    }
+
+    // setNextTimestamp writes back to the bundle it was given
+    TimestampTriggerModel trigger = TimestampTriggerModel.fromBundle(new Bundle(triggerBundle));
+    trigger.setNextTimestamp();
+    return trigger.isFinished() ? null : trigger.getTimestamp();
+  }
+
+  static @Nullable Integer getRepeatFrequency(@NonNull Bundle triggerBundle) {
+    if (!triggerBundle.containsKey("repeatFrequency")) {
+      return null;
+    }
+
+    return ObjectUtils.getInt(triggerBundle.get("repeatFrequency"));
+  }
+
+  static @Nullable String getChannelId(@NonNull Bundle notificationBundle) {
+    Bundle androidBundle = notificationBundle.getBundle("android");
+    return androidBundle != null ? androidBundle.getString("channelId") : null;
+  }
+
+  static @Nullable String getGroupId(@NonNull Bundle notificationBundle) {
+    Bundle androidBundle = notificationBundle.getBundle("android");
+    return androidBundle != null ? androidBundle.getString("groupId") : null;
+  }
+}
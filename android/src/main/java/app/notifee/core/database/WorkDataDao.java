@@ -29,6 +29,10 @@ public interface WorkDataDao {
   @Insert(onConflict = OnConflictStrategy.REPLACE)
   void insert(WorkDataEntity workDataEntity);
 
+  // Room runs a list insert in a single transaction
+  @Insert(onConflict = OnConflictStrategy.REPLACE)
+  void insertAll(List<WorkDataEntity> workDataEntities);
+
   @Update(onConflict = OnConflictStrategy.REPLACE)
   void update(WorkDataEntity workDataEntity);
 
@@ -44,9 +48,55 @@ public interface WorkDataDao {
   @Query("SELECT * from work_data WHERE id = :id")
   WorkDataEntity getWorkDataById(String id);
 
+  @Query("SELECT * FROM work_data WHERE id in (:ids)")
+  List<WorkDataEntity> getByIds(List<String> ids);
+
+  // a null argument matches every entry
+  @Query(
+      "SELECT * FROM work_data WHERE (:channelId IS NULL OR channel_id = :channelId)"
+          + " AND (:groupId IS NULL OR group_id = :groupId)")
+  List<WorkDataEntity> getByChannelAndGroup(String channelId, String groupId);
+
   @Query("SELECT * FROM work_data WHERE with_alarm_manager = :withAlarmManager")
   List<WorkDataEntity> getAllWithAlarmManager(Boolean withAlarmManager);
 
   @Query("SELECT * FROM work_data")
   List<WorkDataEntity> getAll();
+
+  @Query("SELECT id FROM work_data")
+  List<String> getIds();
+
+  // keyset paging on the primary key, so every page is an index range scan
+  @Query("SELECT * FROM work_data WHERE id > :afterId ORDER BY id LIMIT :limit")
+  List<WorkDataEntity> getPageAfter(String afterId, int limit);
+
+  @Query(
+      "SELECT id, trigger, next_fire_timestamp FROM work_data"
+          + " WHERE with_alarm_manager = 1 AND id > :afterId ORDER BY id LIMIT :limit")
+  List<WorkDataTrigger> getAlarmManagerTriggersAfter(String afterId, int limit);
+
+  @Query(
+      "UPDATE work_data SET trigger = :trigger, next_fire_timestamp = :nextFireTimestamp"
+          + " WHERE id = :id")
+  void updateTrigger(String id, byte[] trigger, Long nextFireTimestamp);
+
+  @Query(
+      "SELECT * FROM work_data WHERE next_fire_timestamp <= :timestamp"
+          + " ORDER BY next_fire_timestamp")
+  List<WorkDataEntity> getDueBefore(long timestamp);
+
+  @Query("SELECT * FROM work_data WHERE channel_id = :channelId ORDER BY next_fire_timestamp")
+  List<WorkDataEntity> getByChannel(String channelId);
+
+  @Query(
+      "SELECT id, notification_hash, trigger_hash, with_alarm_manager, created_at FROM work_data")
+  List<WorkDataSummary> getSummaries();
+
+  @Query("SELECT trigger_type, COUNT(*) AS count FROM work_data GROUP BY trigger_type")
+  List<TriggerTypeCount> countByType();
+
+  @Query(
+      "SELECT * FROM work_data WHERE with_alarm_manager = 1 AND trigger_type = :triggerType"
+          + " ORDER BY next_fire_timestamp")
+  List<WorkDataEntity> getWithAlarmManagerByType(int triggerType);
 }
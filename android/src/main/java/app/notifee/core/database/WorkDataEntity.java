@@ -18,11 +18,21 @@ package app.notifee.core.database;
  */
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity(tableName = "work_data")
+@Entity(
+    tableName = "work_data",
+    indices = {
+      @Index("next_fire_timestamp"),
+      @Index("trigger_type"),
+      @Index("channel_id"),
+      @Index("group_id"),
+      @Index("created_at")
+    })
 public class WorkDataEntity {
 
   @PrimaryKey(autoGenerate = false)
@@ -39,11 +49,64 @@ public class WorkDataEntity {
   @NonNull
   private Boolean withAlarmManager;
 
-  public WorkDataEntity(String id, byte[] notification, byte[] trigger, Boolean withAlarmManager) {
+  // only known ahead of time for timestamp triggers
+  @ColumnInfo(name = "next_fire_timestamp")
+  @Nullable
+  private Long nextFireTimestamp;
+
+  @ColumnInfo(name = "trigger_type")
+  @Nullable
+  private Integer triggerType;
+
+  @ColumnInfo(name = "repeat_frequency")
+  @Nullable
+  private Integer repeatFrequency;
+
+  @ColumnInfo(name = "channel_id")
+  @Nullable
+  private String channelId;
+
+  @ColumnInfo(name = "group_id")
+  @Nullable
+  private String groupId;
+
+  @ColumnInfo(name = "created_at", defaultValue = "0")
+  private long createdAt;
+
+  // hashes of the notification and trigger as they were requested, before any repeat advanced them
+  @ColumnInfo(name = "notification_hash")
+  @Nullable
+  private String notificationHash;
+
+  @ColumnInfo(name = "trigger_hash")
+  @Nullable
+  private String triggerHash;
+
+  public WorkDataEntity(
+      @NonNull String id,
+      byte[] notification,
+      byte[] trigger,
+      @NonNull Boolean withAlarmManager,
+      @Nullable Long nextFireTimestamp,
+      @Nullable Integer triggerType,
+      @Nullable Integer repeatFrequency,
+      @Nullable String channelId,
+      @Nullable String groupId,
+      long createdAt,
+      @Nullable String notificationHash,
+      @Nullable String triggerHash) {
     this.id = id;
     this.notification = notification;
     this.trigger = trigger;
     this.withAlarmManager = withAlarmManager;
+    this.nextFireTimestamp = nextFireTimestamp;
+    this.triggerType = triggerType;
+    this.repeatFrequency = repeatFrequency;
+    this.channelId = channelId;
+    this.groupId = groupId;
+    this.createdAt = createdAt;
+    this.notificationHash = notificationHash;
+    this.triggerHash = triggerHash;
   }
 
   public String getId() {
@@ -62,6 +125,38 @@ public class WorkDataEntity {
     return this.withAlarmManager;
   }
 
+  public @Nullable Long getNextFireTimestamp() {
+    return this.nextFireTimestamp;
+  }
+
+  public @Nullable Integer getTriggerType() {
+    return this.triggerType;
+  }
+
+  public @Nullable Integer getRepeatFrequency() {
+    return this.repeatFrequency;
+  }
+
+  public @Nullable String getChannelId() {
+    return this.channelId;
+  }
+
+  public @Nullable String getGroupId() {
+    return this.groupId;
+  }
+
+  public long getCreatedAt() {
+    return this.createdAt;
+  }
+
+  public @Nullable String getNotificationHash() {
+    return this.notificationHash;
+  }
+
+  public @Nullable String getTriggerHash() {
+    return this.triggerHash;
+  }
+
   public void setTrigger(byte[] trigger) {
     this.trigger = trigger;
   }
@@ -20,14 +20,32 @@ package app.notifee.core.database;
 import android.content.Context;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
+import app.notifee.core.ContextHolder;
+import app.notifee.core.Logger;
 import app.notifee.core.model.NotificationModel;
 import app.notifee.core.utility.ObjectUtils;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 public class WorkDataRepository {
+  private static final String TAG = "WorkDataRepository";
+
+  // SQLite limits the number of bound variables in a statement, which `IN (:ids)` expands to
+  private static final int MAX_IDS_PER_STATEMENT = 500;
+
   private WorkDataDao mWorkDataDao;
+  private WorkDataWriter mWriter;
+  private final WorkDataCache mCache = new WorkDataCache();
   private static WorkDataRepository mInstance;
 
   public static @NonNull WorkDataRepository getInstance(@NonNull Context context) {
@@ -40,70 +58,364 @@ public class WorkDataRepository {
     }
   }
 
-  public WorkDataRepository(Context context) {
+  private WorkDataRepository(Context context) {
     NotifeeCoreDatabase db = NotifeeCoreDatabase.getDatabase(context);
     mWorkDataDao = db.workDao();
+    mWriter = new WorkDataWriter(db, mWorkDataDao, NotifeeCoreDatabase.databaseWriteExecutor);
+  }
+
+  /** Number of writes queued and not yet applied */
+  public int getPendingWriteCount() {
+    return mWriter.getQueueDepth();
+  }
+
+  /** Number of transactions writes were applied in */
+  public long getWriteBatchCount() {
+    return mWriter.getBatchCount();
+  }
+
+  /** Number of writes applied */
+  public long getWriteCount() {
+    return mWriter.getOperationCount();
+  }
+
+  /** Number of writes in the largest transaction */
+  public int getLargestWriteBatchSize() {
+    return mWriter.getLargestBatchSize();
   }
 
   public void insert(WorkDataEntity workData) {
-    NotifeeCoreDatabase.databaseWriteExecutor.execute(
+    mCache.beginWrite(Collections.singletonList(workData.getId()));
+    write(
+        dao -> {
+          dao.insert(workData);
+          return null;
+        });
+  }
+
+  /**
+   * Gets a decoded trigger notification, from the cache if it was decoded before.
+   *
+   * @return the trigger notification, or null if there is none with the id
+   */
+  public Task<TriggerNotification> getTriggerNotificationById(String id) {
+    TriggerNotification triggerNotification = mCache.get(id);
+    if (triggerNotification != null) {
+      return Tasks.forResult(triggerNotification);
+    }
+
+    return NotifeeCoreDatabase.read(
         () -> {
-          mWorkDataDao.insert(workData);
+          long epoch = mCache.getEpoch();
+          WorkDataEntity workDataEntity = mWorkDataDao.getWorkDataById(id);
+          return workDataEntity != null ? decode(epoch, workDataEntity) : null;
         });
   }
 
+  public Task<List<TriggerNotification>> getTriggerNotifications() {
+    return readTriggerNotifications(() -> mWorkDataDao.getAll());
+  }
+
+  public Task<List<TriggerNotification>> getTriggerNotificationsDueBefore(long timestamp) {
+    return readTriggerNotifications(() -> mWorkDataDao.getDueBefore(timestamp));
+  }
+
+  public Task<List<TriggerNotification>> getTriggerNotificationsByChannel(String channelId) {
+    return readTriggerNotifications(() -> mWorkDataDao.getByChannel(channelId));
+  }
+
+  private Task<List<TriggerNotification>> readTriggerNotifications(
+      Callable<List<WorkDataEntity>> query) {
+    return NotifeeCoreDatabase.read(
+        () -> {
+          long epoch = mCache.getEpoch();
+          List<WorkDataEntity> workDataEntities = query.call();
+          List<TriggerNotification> triggerNotifications = new ArrayList<>(workDataEntities.size());
+
+          for (WorkDataEntity workDataEntity : workDataEntities) {
+            TriggerNotification triggerNotification = mCache.get(workDataEntity.getId());
+            triggerNotifications.add(
+                triggerNotification != null
+                    ? triggerNotification
+                    : decode(epoch, workDataEntity));
+          }
+
+          return triggerNotifications;
+        });
+  }
+
+  /**
+   * Gets a page of trigger notifications, ordered by id.
+   *
+   * @param afterId the id of the last trigger notification of the previous page, or null for the
+   *     first page
+   */
+  public Task<List<TriggerNotification>> getTriggerNotificationsPage(
+      @Nullable String afterId, int limit) {
+    return readTriggerNotifications(
+        () -> mWorkDataDao.getPageAfter(afterId != null ? afterId : "", limit));
+  }
+
+  /**
+   * Gets a page of the triggers scheduled with alarm manager, ordered by id, without reading their
+   * notifications.
+   *
+   * @param afterId the id of the last trigger of the previous page, or null for the first page
+   */
+  public Task<List<WorkDataTrigger>> getAlarmManagerTriggersPage(
+      @Nullable String afterId, int limit) {
+    return NotifeeCoreDatabase.read(
+        () -> mWorkDataDao.getAlarmManagerTriggersAfter(afterId != null ? afterId : "", limit));
+  }
+
+  public Task<List<String>> getIds() {
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getIds());
+  }
+
+  private TriggerNotification decode(long epoch, WorkDataEntity workDataEntity) {
+    byte[] notification = workDataEntity.getNotification();
+    byte[] trigger = workDataEntity.getTrigger();
+
+    TriggerNotification triggerNotification =
+        new TriggerNotification(
+            workDataEntity.getId(),
+            notification != null
+                ? NotificationModel.fromBundle(ObjectUtils.bytesToBundle(notification))
+                : null,
+            trigger != null ? ObjectUtils.bytesToBundle(trigger) : null,
+            workDataEntity.getWithAlarmManager());
+
+    mCache.put(epoch, triggerNotification);
+    return triggerNotification;
+  }
+
   public Task<WorkDataEntity> getWorkDataById(String id) {
-    return Tasks.call(
-        NotifeeCoreDatabase.databaseWriteExecutor, () -> mWorkDataDao.getWorkDataById(id));
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getWorkDataById(id));
+  }
+
+  public Task<List<WorkDataEntity>> getByIds(List<String> ids) {
+    return NotifeeCoreDatabase.read(
+        () -> {
+          List<WorkDataEntity> workDataEntities = new ArrayList<>(ids.size());
+          for (int i = 0; i < ids.size(); i += MAX_IDS_PER_STATEMENT) {
+            workDataEntities.addAll(
+                mWorkDataDao.getByIds(
+                    ids.subList(i, Math.min(i + MAX_IDS_PER_STATEMENT, ids.size()))));
+          }
+          return workDataEntities;
+        });
+  }
+
+  /* Entries in a channel and group, either of which may be null to match any */
+  public Task<List<WorkDataEntity>> getByChannelAndGroup(
+      @Nullable String channelId, @Nullable String groupId) {
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getByChannelAndGroup(channelId, groupId));
   }
 
   public Task<List<WorkDataEntity>> getAllWithAlarmManager(Boolean withAlarmManager) {
-    return Tasks.call(
-        NotifeeCoreDatabase.databaseWriteExecutor,
-        () -> mWorkDataDao.getAllWithAlarmManager(withAlarmManager));
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getAllWithAlarmManager(withAlarmManager));
   }
 
   public Task<List<WorkDataEntity>> getAll() {
-    return Tasks.call(NotifeeCoreDatabase.databaseWriteExecutor, () -> mWorkDataDao.getAll());
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getAll());
+  }
+
+  public Task<List<WorkDataEntity>> getDueBefore(long timestamp) {
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getDueBefore(timestamp));
+  }
+
+  public Task<List<WorkDataEntity>> getByChannel(String channelId) {
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.getByChannel(channelId));
+  }
+
+  public Task<List<TriggerTypeCount>> countByType() {
+    return NotifeeCoreDatabase.read(() -> mWorkDataDao.countByType());
+  }
+
+  /* Timestamp triggers scheduled with alarm manager, earliest first */
+  public Task<List<WorkDataEntity>> getTimestampTriggersWithAlarmManager() {
+    return NotifeeCoreDatabase.read(
+        () -> mWorkDataDao.getWithAlarmManagerByType(WorkDataColumns.TRIGGER_TYPE_TIMESTAMP));
   }
 
   public void deleteById(String id) {
-    NotifeeCoreDatabase.databaseWriteExecutor.execute(
-        () -> {
-          mWorkDataDao.deleteById(id);
+    mCache.beginWrite(Collections.singletonList(id));
+    write(
+        dao -> {
+          dao.deleteById(id);
+          return null;
         });
   }
 
   public void deleteByIds(List<String> ids) {
-    NotifeeCoreDatabase.databaseWriteExecutor.execute(
-        () -> {
-          mWorkDataDao.deleteByIds(ids);
+    mCache.beginWrite(ids);
+    write(
+        dao -> {
+          deleteByIds(dao, ids);
+          return null;
         });
   }
 
+  private static void deleteByIds(WorkDataDao dao, List<String> ids) {
+    for (int i = 0; i < ids.size(); i += MAX_IDS_PER_STATEMENT) {
+      dao.deleteByIds(ids.subList(i, Math.min(i + MAX_IDS_PER_STATEMENT, ids.size())));
+    }
+  }
+
   public void deleteAll() {
-    NotifeeCoreDatabase.databaseWriteExecutor.execute(
-        () -> {
-          mWorkDataDao.deleteAll();
+    mCache.beginWrite(null);
+    write(
+        dao -> {
+          dao.deleteAll();
+          return null;
         });
   }
 
+  public Task<Void> insertAll(List<WorkDataEntity> workDataEntities) {
+    List<String> ids = new ArrayList<>(workDataEntities.size());
+    for (WorkDataEntity workDataEntity : workDataEntities) {
+      ids.add(workDataEntity.getId());
+    }
+
+    mCache.beginWrite(ids);
+    return write(
+        dao -> {
+          dao.insertAll(workDataEntities);
+          return null;
+        });
+  }
+
+  /**
+   * Makes the stored trigger notifications match the requested ones, in one transaction. Entries
+   * are compared by id and by the hashes of their notification and trigger; only entries which
+   * differ are written, and entries which were not requested are removed.
+   *
+   * @param retainedIds ids which are kept as they are, even though they were not requested
+   */
+  public Task<TriggerReconciliation> reconcile(
+      List<WorkDataEntity> workDataEntities, Set<String> retainedIds) {
+    // which entries change is only known once the stored ones are read
+    mCache.beginWrite(null);
+    return write(
+        dao -> {
+          TriggerReconciliation reconciliation = new TriggerReconciliation();
+
+          Map<String, WorkDataSummary> summaries = new HashMap<>();
+          for (WorkDataSummary summary : dao.getSummaries()) {
+            summaries.put(summary.id, summary);
+          }
+
+          // the last entry wins if an id is requested more than once
+          Map<String, WorkDataEntity> requested = new LinkedHashMap<>();
+          for (WorkDataEntity workDataEntity : workDataEntities) {
+            requested.put(workDataEntity.getId(), workDataEntity);
+          }
+
+          List<WorkDataEntity> writes = new ArrayList<>();
+          for (WorkDataEntity workDataEntity : requested.values()) {
+            String id = workDataEntity.getId();
+            WorkDataSummary summary = summaries.remove(id);
+
+            if (summary == null) {
+              writes.add(workDataEntity);
+              reconciliation.created.add(id);
+              continue;
+            }
+
+            boolean triggerChanged =
+                !ObjectsCompat.equals(summary.triggerHash, workDataEntity.getTriggerHash())
+                    || summary.withAlarmManager != workDataEntity.getWithAlarmManager();
+            boolean notificationChanged =
+                !ObjectsCompat.equals(
+                    summary.notificationHash, workDataEntity.getNotificationHash());
+
+            if (!triggerChanged && !notificationChanged) {
+              reconciliation.unchanged++;
+              continue;
+            }
+
+            writes.add(WorkDataColumns.withCreatedAt(workDataEntity, summary.createdAt));
+
+            if (triggerChanged) {
+              reconciliation.rescheduled.add(id);
+              if (summary.withAlarmManager) {
+                reconciliation.previouslyWithAlarmManager.add(id);
+              }
+            } else {
+              reconciliation.updated.add(id);
+            }
+          }
+
+          // whatever is left was not requested
+          for (WorkDataSummary summary : summaries.values()) {
+            if (retainedIds.contains(summary.id)) {
+              continue;
+            }
+            reconciliation.removed.add(summary.id);
+            if (summary.withAlarmManager) {
+              reconciliation.previouslyWithAlarmManager.add(summary.id);
+            }
+          }
+
+          if (!writes.isEmpty()) {
+            dao.insertAll(writes);
+          }
+
+          deleteByIds(dao, reconciliation.removed);
+
+          return reconciliation;
+        });
+  }
+
+  public static WorkDataEntity createTriggerEntity(
+      NotificationModel notificationModel, Bundle triggerBundle, Boolean withAlarmManager) {
+    return WorkDataColumns.createEntity(
+        notificationModel.getId(),
+        notificationModel.toBundle(),
+        triggerBundle,
+        withAlarmManager,
+        System.currentTimeMillis());
+  }
+
   public static void insertTriggerNotification(
       NotificationModel notificationModel, Bundle triggerBundle, Boolean withAlarmManager) {
-    WorkDataEntity workData =
-        new WorkDataEntity(
-            notificationModel.getId(),
-            ObjectUtils.bundleToBytes(notificationModel.toBundle()),
-            ObjectUtils.bundleToBytes(triggerBundle),
-            withAlarmManager);
+    getInstance(ContextHolder.getApplicationContext())
+        .insert(createTriggerEntity(notificationModel, triggerBundle, withAlarmManager));
+  }
 
-    mInstance.insert(workData);
+  /* Queues a write, the cache must have been told which entries it writes */
+  private <T> Task<T> write(WorkDataWriter.Operation<T> operation) {
+    return mWriter
+        .submit(operation)
+        .addOnCompleteListener(
+            Runnable::run,
+            task -> {
+              mCache.endWrite();
+              if (!task.isSuccessful()) {
+                Logger.e(TAG, "Failed to write trigger notification data", task.getException());
+              }
+            });
   }
 
   public void update(WorkDataEntity workData) {
-    NotifeeCoreDatabase.databaseWriteExecutor.execute(
-        () -> {
-          mWorkDataDao.update(workData);
+    mCache.beginWrite(Collections.singletonList(workData.getId()));
+    write(
+        dao -> {
+          dao.update(workData);
+          return null;
+        });
+  }
+
+  /* Stores the trigger of an existing entry, e.g. once a repeating trigger has advanced */
+  public void updateTrigger(String id, Bundle triggerBundle) {
+    byte[] trigger = ObjectUtils.bundleToBytes(triggerBundle);
+    Long nextFireTimestamp = WorkDataColumns.getNextFireTimestamp(triggerBundle);
+
+    mCache.beginTriggerWrite(id, triggerBundle);
+    write(
+        dao -> {
+          dao.updateTrigger(id, trigger, nextFireTimestamp);
+          return null;
         });
   }
 }
@@ -0,0 +1,43 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
+
+/** The columns of a work_data entry needed to tell whether it differs from a requested one. */
+public class WorkDataSummary {
+  @ColumnInfo(name = "id")
+  @NonNull
+  public String id = "";
+
+  @ColumnInfo(name = "notification_hash")
+  @Nullable
+  public String notificationHash;
+
+  @ColumnInfo(name = "trigger_hash")
+  @Nullable
+  public String triggerHash;
+
+  @ColumnInfo(name = "with_alarm_manager")
+  public boolean withAlarmManager;
+
+  @ColumnInfo(name = "created_at")
+  public long createdAt;
+}
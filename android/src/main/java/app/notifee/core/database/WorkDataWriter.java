@@ -0,0 +1,215 @@
+package app.notifee.core.database;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import androidx.room.RoomDatabase;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The single writer of work_data. Writes are queued and applied in the order they were made, so a
+ * delete never overtakes the insert of the same id, and whatever is queued is applied in one
+ * transaction instead of each write contending for the database lock on a thread of its own.
+ */
+final class WorkDataWriter {
+  // a batch holds at most this many writes, and waits at most this long for more to be queued
+  private static final int MAX_BATCH_SIZE = 64;
+  private static final long MAX_BATCH_DELAY_MS = 4;
+
+  interface Operation<T> {
+    T apply(WorkDataDao dao) throws Exception;
+  }
+
+  private static final class PendingWrite<T> {
+    private final Operation<T> mOperation;
+    private final TaskCompletionSource<T> mCompletionSource;
+    private T mResult;
+
+    PendingWrite(Operation<T> operation, TaskCompletionSource<T> completionSource) {
+      mOperation = operation;
+      mCompletionSource = completionSource;
+    }
+
+    void apply(WorkDataDao dao) throws Exception {
+      mResult = mOperation.apply(dao);
+    }
+
+    void complete() {
+      mCompletionSource.setResult(mResult);
+    }
+
+    void fail(Exception e) {
+      mCompletionSource.setException(e);
+    }
+  }
+
+  private final RoomDatabase mDatabase;
+  private final WorkDataDao mWorkDataDao;
+  private final Executor mExecutor;
+
+  private final LinkedBlockingQueue<PendingWrite<?>> mQueue = new LinkedBlockingQueue<>();
+  private final AtomicBoolean mDraining = new AtomicBoolean();
+
+  private final AtomicLong mBatchCount = new AtomicLong();
+  private final AtomicLong mOperationCount = new AtomicLong();
+  private final AtomicInteger mLargestBatchSize = new AtomicInteger();
+
+  WorkDataWriter(
+      @NonNull RoomDatabase database,
+      @NonNull WorkDataDao workDataDao,
+      @NonNull Executor executor) {
+    mDatabase = database;
+    mWorkDataDao = workDataDao;
+    mExecutor = executor;
+  }
+
+  /* Queues a write, the task completes once its batch has been committed */
+  <T> Task<T> submit(@NonNull Operation<T> operation) {
+    TaskCompletionSource<T> completionSource = new TaskCompletionSource<>();
+    enqueue(new PendingWrite<>(operation, completionSource));
+    return completionSource.getTask();
+  }
+
+  /** Number of writes queued and not yet applied */
+  int getQueueDepth() {
+    return mQueue.size();
+  }
+
+  /** Number of transactions the queued writes were applied in */
+  long getBatchCount() {
+    return mBatchCount.get();
+  }
+
+  /** Number of writes applied */
+  long getOperationCount() {
+    return mOperationCount.get();
+  }
+
+  /** Number of writes in the largest transaction */
+  int getLargestBatchSize() {
+    return mLargestBatchSize.get();
+  }
+
+  private void enqueue(PendingWrite<?> pendingWrite) {
+    mQueue.add(pendingWrite);
+    if (mDraining.compareAndSet(false, true)) {
+      mExecutor.execute(this::drain);
+    }
+  }
+
+  private void drain() {
+    do {
+      List<PendingWrite<?>> batch;
+      while (!(batch = nextBatch()).isEmpty()) {
+        write(batch);
+      }
+      mDraining.set(false);
+      // a write queued after the last poll, but before draining was reset, is picked up here
+    } while (!mQueue.isEmpty() && mDraining.compareAndSet(false, true));
+  }
+
+  private List<PendingWrite<?>> nextBatch() {
+    List<PendingWrite<?>> batch = new ArrayList<>();
+    mQueue.drainTo(batch, MAX_BATCH_SIZE);
+    if (batch.isEmpty()) {
+      return batch;
+    }
+
+    // writes tend to come in bursts, so wait briefly for the rest of the burst
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_BATCH_DELAY_MS);
+    while (batch.size() < MAX_BATCH_SIZE) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        break;
+      }
+
+      try {
+        PendingWrite<?> pendingWrite = mQueue.poll(remaining, TimeUnit.NANOSECONDS);
+        if (pendingWrite == null) {
+          break;
+        }
+        batch.add(pendingWrite);
+        mQueue.drainTo(batch, MAX_BATCH_SIZE - batch.size());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    return batch;
+  }
+
+  private void write(List<PendingWrite<?>> batch) {
+    mBatchCount.incrementAndGet();
+    mOperationCount.addAndGet(batch.size());
+    int largestBatchSize;
+    do {
+      largestBatchSize = mLargestBatchSize.get();
+    } while (batch.size() > largestBatchSize
+        && !mLargestBatchSize.compareAndSet(largestBatchSize, batch.size()));
+
+    try {
+      mDatabase.runInTransaction(
+          () -> {
+            for (PendingWrite<?> pendingWrite : batch) {
+              pendingWrite.apply(mWorkDataDao);
+            }
+            return null;
+          });
+    } catch (Exception e) {
+      if (batch.size() == 1) {
+        batch.get(0).fail(e);
+        return;
+      }
+
+      // the failed write rolled back the whole batch, so each write is applied on its own
+      for (PendingWrite<?> pendingWrite : batch) {
+        write(pendingWrite);
+      }
+      return;
+    }
+
+    for (PendingWrite<?> pendingWrite : batch) {
+      pendingWrite.complete();
+    }
+  }
+
+  private void write(PendingWrite<?> pendingWrite) {
+    try {
+      mDatabase.runInTransaction(
+          () -> {
+            pendingWrite.apply(mWorkDataDao);
+            return null;
+          });
+    } catch (Exception e) {
+      pendingWrite.fail(e);
+      return;
+    }
+
+    pendingWrite.complete();
+  }
+}
@@ -17,13 +17,16 @@ package app.notifee.core.event;
  *
  */
 
+import android.content.Intent;
 import android.os.Bundle;
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import app.notifee.core.KeepForSdk;
 import app.notifee.core.model.NotificationModel;
 import app.notifee.core.utility.ObjectUtils;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 @KeepForSdk
 public class NotificationEvent {
@@ -39,22 +42,58 @@ public class NotificationEvent {
 
   @KeepForSdk public static final int TYPE_FG_ALREADY_EXIST = 8;
 
+  // the key an intent carries the id of the event it was handled as under
+  private static final String EVENT_ID_INTENT_KEY = "notifee_event_id";
+
+  private final String id;
   private final int type;
   private final Bundle extras;
   private final NotificationModel notification;
 
   public NotificationEvent(int type, NotificationModel bundle) {
-    this.type = type;
-    this.notification = bundle;
-    this.extras = null;
+    this(newId(), type, bundle, null);
   }
 
   public NotificationEvent(int type, NotificationModel bundle, Bundle extras) {
+    this(newId(), type, bundle, extras);
+  }
+
+  /**
+   * @param id identifies this event, the same when an event is posted again for the same cause,
+   *     such as a redelivered intent, and different for every other event
+   */
+  public NotificationEvent(
+      @NonNull String id, int type, NotificationModel bundle, @Nullable Bundle extras) {
+    this.id = id;
     this.type = type;
     this.notification = bundle;
     this.extras = extras;
   }
 
+  public static @NonNull String newId() {
+    return UUID.randomUUID().toString();
+  }
+
+  /**
+   * The id of the event an intent is handled as. The id is stored in the intent the first time, so
+   * the same intent delivered again gives the same id, while every other intent, including another
+   * press of the same notification, gives a new one.
+   */
+  public static @NonNull String getIdFromIntent(@NonNull Intent intent) {
+    String id = intent.getStringExtra(EVENT_ID_INTENT_KEY);
+    if (id == null) {
+      id = newId();
+      intent.putExtra(EVENT_ID_INTENT_KEY, id);
+    }
+
+    return id;
+  }
+
+  @KeepForSdk
+  public @NonNull String getId() {
+    return id;
+  }
+
   @KeepForSdk
   public int getType() {
     return type;
@@ -0,0 +1,40 @@
+package app.notifee.core.interfaces;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.KeepForSdk;
+
+/**
+ * Downloads remote notification images in place of the built in download, so that they go through
+ * the host's own networking, such as its auth headers, certificate pinning or proxies. Fetched
+ * images are still cached by Notifee. See {@link app.notifee.core.Notifee#setImageFetcher}.
+ */
+@KeepForSdk
+public interface ImageFetcher {
+  /**
+   * Called on a background thread, which the fetch may block until the image has loaded.
+   *
+   * @param imageUrl the http or https URL of the image
+   * @return the encoded image bytes, or null if the image could not be loaded
+   */
+  @KeepForSdk
+  @Nullable
+  byte[] fetch(@NonNull String imageUrl) throws Exception;
+}
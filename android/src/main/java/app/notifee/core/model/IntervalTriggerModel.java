@@ -19,16 +19,32 @@ package app.notifee.core.model;
 
 import android.os.Bundle;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import app.notifee.core.Logger;
+import app.notifee.core.model.TimestampTriggerModel.AlarmType;
 import app.notifee.core.utility.ObjectUtils;
 import java.util.concurrent.TimeUnit;
 
 public class IntervalTriggerModel {
   private Bundle mIntervalTriggerBundle;
+  private Boolean mWithAlarmManager = false;
+  private AlarmType mAlarmType = AlarmType.SET_EXACT;
   private static final String TAG = "IntervalTriggerModel";
 
+  /*
+   * The shortest interval the alarm manager is used for. Shorter intervals are rounded up, as the
+   * platform throttles more frequent alarms anyway (and idle ones to roughly every 9 minutes).
+   */
+  public static final long MIN_ALARM_MANAGER_INTERVAL_MS = 60 * 1000;
+
   private IntervalTriggerModel(Bundle bundle) {
     mIntervalTriggerBundle = bundle;
+
+    if (mIntervalTriggerBundle.containsKey("alarmManager")) {
+      mWithAlarmManager = true;
+      mAlarmType =
+          TimestampTriggerModel.getAlarmType(mIntervalTriggerBundle.getBundle("alarmManager"));
+    }
   }
 
   public static IntervalTriggerModel fromBundle(@NonNull Bundle bundle) {
@@ -60,4 +76,72 @@ public class IntervalTriggerModel {
 
     return -1;
   }
+
+  /** The interval in milliseconds, rounded up to the alarm manager minimum when used with it */
+  public long getIntervalMs() {
+    long interval = getTimeUnit().toMillis(getInterval());
+    if (mWithAlarmManager && interval < MIN_ALARM_MANAGER_INTERVAL_MS) {
+      return MIN_ALARM_MANAGER_INTERVAL_MS;
+    }
+
+    return interval;
+  }
+
+  public Boolean getWithAlarmManager() {
+    return mWithAlarmManager;
+  }
+
+  public AlarmType getAlarmType() {
+    return mAlarmType;
+  }
+
+  /** The next fire time of an alarm manager interval trigger, or null if not yet scheduled */
+  @Nullable
+  public Long getTimestamp() {
+    if (mIntervalTriggerBundle.containsKey("timestamp")) {
+      return ObjectUtils.getLong(mIntervalTriggerBundle.get("timestamp"));
+    }
+
+    return null;
+  }
+
+  /**
+   * Sets the next fire time to the first occurrence not in the past: one interval from now for a
+   * new trigger, or the next point on the original schedule for one which has missed fires (for
+   * example whilst the device was off).
+   */
+  public void setNextTimestamp() {
+    long now = System.currentTimeMillis();
+    Long timestamp = getTimestamp();
+
+    if (timestamp == null) {
+      setTimestamp(now + getIntervalMs());
+    } else {
+      setTimestamp(TimestampTriggerModel.getNextOccurrence(timestamp, getIntervalMs(), now - 1));
+    }
+  }
+
+  /**
+   * Advances past the occurrence that has just been displayed. Each occurrence is a whole number
+   * of intervals from the first, so the delivery latency of one never shifts the ones after it.
+   */
+  public void setNextOccurrence() {
+    Long timestamp = getTimestamp();
+    if (timestamp == null) {
+      setNextTimestamp();
+      return;
+    }
+
+    long after = Math.max(System.currentTimeMillis(), timestamp);
+    setTimestamp(TimestampTriggerModel.getNextOccurrence(timestamp, getIntervalMs(), after));
+  }
+
+  private void setTimestamp(long timestamp) {
+    // kept in the bundle, so the next occurrence is what gets persisted
+    mIntervalTriggerBundle.putLong("timestamp", timestamp);
+  }
+
+  public Bundle toBundle() {
+    return (Bundle) mIntervalTriggerBundle.clone();
+  }
 }
@@ -31,10 +31,18 @@ import java.util.Objects;
 @Keep
 public class NotificationAndroidActionModel {
 
-  private Bundle mNotificationAndroidActionBundle;
+  private final Bundle mNotificationAndroidActionBundle;
+  private final @Nullable String mTitle;
+  private final @Nullable String mIcon;
+  private final NotificationAndroidPressActionModel mPressAction;
 
   private NotificationAndroidActionModel(Bundle actionBundle) {
-    mNotificationAndroidActionBundle = actionBundle;
+    mNotificationAndroidActionBundle = actionBundle != null ? actionBundle : new Bundle();
+    mTitle = mNotificationAndroidActionBundle.getString("title");
+    mIcon = mNotificationAndroidActionBundle.getString("icon");
+    mPressAction =
+        NotificationAndroidPressActionModel.fromBundle(
+            mNotificationAndroidActionBundle.getBundle("pressAction"));
   }
 
   public static NotificationAndroidActionModel fromBundle(Bundle actionBundle) {
@@ -51,12 +59,12 @@ public class NotificationAndroidActionModel {
    * @return String
    */
   public @NonNull String getTitle() {
-    return Objects.requireNonNull(mNotificationAndroidActionBundle.getString("title"));
+    return Objects.requireNonNull(mTitle);
   }
 
   /** Gets the icon of the action */
   public @Nullable String getIcon() {
-    return mNotificationAndroidActionBundle.getString("icon");
+    return mIcon;
   }
 
   /**
@@ -65,8 +73,7 @@ public class NotificationAndroidActionModel {
    * @return NotificationAndroidPressActionModel
    */
   public @NonNull NotificationAndroidPressActionModel getPressAction() {
-    Bundle pressActionBundle = mNotificationAndroidActionBundle.getBundle("pressAction");
-    return NotificationAndroidPressActionModel.fromBundle(pressActionBundle);
+    return mPressAction;
   }
 
   /**
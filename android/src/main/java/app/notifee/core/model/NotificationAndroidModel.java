@@ -26,38 +26,236 @@ import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 import app.notifee.core.Logger;
+import app.notifee.core.utility.ImageSlot;
 import app.notifee.core.utility.ObjectUtils;
 import app.notifee.core.utility.ResourceUtils;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Keep
 public class NotificationAndroidModel {
   private static final String TAG = "NotificationAndroidModel";
-  private Bundle mNotificationAndroidBundle;
+  private final Bundle mNotificationAndroidBundle;
+
+  // Values read from the bundle once at construction; the notification builder reads most of
+  // them on every display, so parsing them per getter call adds up quickly
+  private final @Nullable List<NotificationAndroidActionModel> mActions;
+  private final @Nullable Integer mColor;
+  private final int mBaseDefaults;
+  private final @Nullable CharSequence[] mInputHistory;
+  private final @Nullable ArrayList<Integer> mLights;
+  private final @Nullable int[] mFlags;
+  private final @Nullable NotificationAndroidPressActionModel mFullScreenAction;
+  private final @Nullable AndroidProgress mProgress;
+  private final @Nullable NotificationAndroidStyleModel mStyle;
+  private final long[] mVibrationPattern;
+
+  // The first field which failed to parse. Parsing does not throw, so a malformed field only
+  // fails the paths which display or schedule the notification, see validate()
+  private @Nullable IllegalArgumentException mParseError;
+
+  private interface FieldParser<T> {
+    T parse(Bundle bundle);
+  }
+
+  private NotificationAndroidModel(@Nullable Bundle bundle) {
+    mNotificationAndroidBundle = bundle != null ? bundle : new Bundle();
+    mActions = parseField("actions", NotificationAndroidModel::parseActions, null);
+    mColor = parseField("color", NotificationAndroidModel::parseColor, null);
+    mBaseDefaults =
+        parseField("defaults", NotificationAndroidModel::parseDefaults, Notification.DEFAULT_ALL);
+    mInputHistory = parseField("inputHistory", NotificationAndroidModel::parseInputHistory, null);
+    mLights = parseField("lights", NotificationAndroidModel::parseLights, null);
+    mFlags = parseField("flags", NotificationAndroidModel::parseFlags, null);
+    mFullScreenAction =
+        parseField(
+            "fullScreenAction",
+            androidBundle ->
+                androidBundle.containsKey("fullScreenAction")
+                    ? NotificationAndroidPressActionModel.fromBundle(
+                        androidBundle.getBundle("fullScreenAction"))
+                    : null,
+            null);
+    mProgress = parseField("progress", NotificationAndroidModel::parseProgress, null);
+    mStyle =
+        parseField(
+            "style",
+            androidBundle ->
+                androidBundle.containsKey("style")
+                    ? NotificationAndroidStyleModel.fromBundle(androidBundle.getBundle("style"))
+                    : null,
+            null);
+    mVibrationPattern =
+        parseField(
+            "vibrationPattern", NotificationAndroidModel::parseVibrationPattern, new long[0]);
+  }
+
+  private <T> T parseField(String key, FieldParser<T> parser, T fallback) {
+    try {
+      return parser.parse(mNotificationAndroidBundle);
+    } catch (RuntimeException e) {
+      if (mParseError == null) {
+        mParseError = new IllegalArgumentException("Invalid android." + key, e);
+      }
+      return fallback;
+    }
+  }
 
-  private NotificationAndroidModel(Bundle bundle) {
-    mNotificationAndroidBundle = bundle;
+  /**
+   * Throws the error of the first field which failed to parse, if any
+   *
+   * @throws IllegalArgumentException if a field is malformed
+   */
+  public void validate() {
+    if (mParseError != null) {
+      throw mParseError;
+    }
   }
 
   public static NotificationAndroidModel fromBundle(Bundle bundle) {
     return new NotificationAndroidModel(bundle);
   }
 
-  public @Nullable ArrayList<NotificationAndroidActionModel> getActions() {
-    if (mNotificationAndroidBundle.containsKey("actions")) {
-      ArrayList<Bundle> actionBundles =
-          Objects.requireNonNull(mNotificationAndroidBundle.getParcelableArrayList("actions"));
-      ArrayList<NotificationAndroidActionModel> actions = new ArrayList<>(actionBundles.size());
+  private static @Nullable List<NotificationAndroidActionModel> parseActions(Bundle bundle) {
+    if (!bundle.containsKey("actions")) {
+      return null;
+    }
+
+    ArrayList<Bundle> actionBundles =
+        Objects.requireNonNull(bundle.getParcelableArrayList("actions"));
+    ArrayList<NotificationAndroidActionModel> actions = new ArrayList<>(actionBundles.size());
+
+    for (Bundle actionBundle : actionBundles) {
+      actions.add(NotificationAndroidActionModel.fromBundle(actionBundle));
+    }
+
+    return Collections.unmodifiableList(actions);
+  }
+
+  private static @Nullable Integer parseColor(Bundle bundle) {
+    if (!bundle.containsKey("color")) {
+      return null;
+    }
+
+    return Color.parseColor(bundle.getString("color"));
+  }
+
+  private static int parseDefaults(Bundle bundle) {
+    Integer defaults = null;
+
+    if (bundle.containsKey("defaults")) {
+      ArrayList<Integer> defaultsArray = bundle.getIntegerArrayList("defaults");
 
-      for (Bundle actionBundle : actionBundles) {
-        actions.add(NotificationAndroidActionModel.fromBundle(actionBundle));
+      for (Integer integer : Objects.requireNonNull(defaultsArray)) {
+        if (defaults == null) {
+          defaults = integer;
+        } else {
+          defaults |= integer;
+        }
       }
+    } else {
+      defaults = Notification.DEFAULT_ALL;
+    }
 
-      return actions;
+    if (defaults == null) {
+      defaults = 0;
     }
 
-    return null;
+    if (!bundle.containsKey("vibrationPattern")) {
+      defaults &= ~Notification.DEFAULT_VIBRATE;
+    }
+
+    if (bundle.containsKey("lights")) {
+      defaults &= ~Notification.DEFAULT_LIGHTS;
+    }
+
+    return defaults;
+  }
+
+  private static @Nullable CharSequence[] parseInputHistory(Bundle bundle) {
+    if (!bundle.containsKey("inputHistory")) {
+      return null;
+    }
+
+    ArrayList<String> inputHistoryArray = bundle.getStringArrayList("inputHistory");
+    return Objects.requireNonNull(inputHistoryArray)
+        .toArray(new CharSequence[inputHistoryArray.size()]);
+  }
+
+  private static @Nullable ArrayList<Integer> parseLights(Bundle bundle) {
+    if (!bundle.containsKey("lights")) {
+      return null;
+    }
+
+    try {
+      ArrayList<?> lightList = Objects.requireNonNull(bundle.getParcelableArrayList("lights"));
+      String rawColor = (String) lightList.get(0);
+
+      ArrayList<Integer> lights = new ArrayList<>(3);
+      lights.add(Color.parseColor(rawColor));
+      lights.add((Integer) lightList.get(1));
+      lights.add((Integer) lightList.get(2));
+
+      return lights;
+    } catch (Exception e) {
+      Logger.e(TAG, "getLights -> Failed to parse lights");
+      return null;
+    }
+  }
+
+  private static @Nullable int[] parseFlags(Bundle bundle) {
+    if (!bundle.containsKey("flags")) {
+      return null;
+    }
+
+    ArrayList<?> flagsArrayList = Objects.requireNonNull(bundle.getParcelableArrayList("flags"));
+
+    int[] flagsArray = new int[flagsArrayList.size()];
+
+    for (int i = 0; i < flagsArrayList.size(); i++) {
+      flagsArray[i] = ObjectUtils.getInt(flagsArrayList.get(i));
+    }
+
+    return flagsArray;
+  }
+
+  private static @Nullable AndroidProgress parseProgress(Bundle bundle) {
+    if (!bundle.containsKey("progress")) {
+      return null;
+    }
+
+    Bundle progressBundle = Objects.requireNonNull(bundle.getBundle("progress"));
+
+    return new AndroidProgress(
+        ObjectUtils.getInt(progressBundle.get("max")),
+        ObjectUtils.getInt(progressBundle.get("current")),
+        progressBundle.getBoolean("indeterminate", false));
+  }
+
+  private static long[] parseVibrationPattern(Bundle bundle) {
+    if (!bundle.containsKey("vibrationPattern")) {
+      return new long[0];
+    }
+
+    ArrayList<?> vibrationPattern =
+        Objects.requireNonNull(bundle.getParcelableArrayList("vibrationPattern"));
+
+    long[] vibrateArray = new long[vibrationPattern.size()];
+
+    for (int i = 0; i < vibrationPattern.size(); i++) {
+      Integer value = (Integer) vibrationPattern.get(i);
+      vibrateArray[i] = value.longValue();
+    }
+
+    return vibrateArray;
+  }
+
+  public @Nullable List<NotificationAndroidActionModel> getActions() {
+    return mActions;
   }
 
   /**
@@ -78,6 +276,16 @@ public class NotificationAndroidModel {
     return mNotificationAndroidBundle.getBoolean("lightUpScreen", false);
   }
 
+  /**
+   * Gets whether the notification should be posted without its images first, then updated as each
+   * image loads
+   *
+   * @return Boolean
+   */
+  public Boolean getProgressiveImages() {
+    return mNotificationAndroidBundle.getBoolean("progressiveImages", false);
+  }
+
   /**
    * Gets whether the notification can be auto cancelled
    *
@@ -129,11 +337,7 @@ public class NotificationAndroidModel {
    * @return Integer
    */
   public @Nullable Integer getColor() {
-    if (mNotificationAndroidBundle.containsKey("color")) {
-      return Color.parseColor(mNotificationAndroidBundle.getString("color"));
-    }
-
-    return null;
+    return mColor;
   }
 
   /**
@@ -167,35 +371,12 @@ public class NotificationAndroidModel {
    * @return Integer
    */
   public Integer getDefaults(Boolean hasCustomSound) {
-    String TAG = "NotificationManager";
-    Integer defaults = null;
-
-    if (mNotificationAndroidBundle.containsKey("defaults")) {
-      ArrayList<Integer> defaultsArray = mNotificationAndroidBundle.getIntegerArrayList("defaults");
-
-      for (Integer integer : Objects.requireNonNull(defaultsArray)) {
-        if (defaults == null) {
-          defaults = integer;
-        } else {
-          defaults |= integer;
-        }
-      }
-    } else {
-      defaults = Notification.DEFAULT_ALL;
-    }
+    int defaults = mBaseDefaults;
 
     if (hasCustomSound) {
       defaults &= ~Notification.DEFAULT_SOUND;
     }
 
-    if (!mNotificationAndroidBundle.containsKey("vibrationPattern")) {
-      defaults &= ~Notification.DEFAULT_VIBRATE;
-    }
-
-    if (mNotificationAndroidBundle.containsKey("lights")) {
-      defaults &= ~Notification.DEFAULT_LIGHTS;
-    }
-
     return defaults;
   }
 
@@ -245,14 +426,7 @@ public class NotificationAndroidModel {
    * @return CharSequence[]
    */
   public @Nullable CharSequence[] getInputHistory() {
-    if (mNotificationAndroidBundle.containsKey("inputHistory")) {
-      ArrayList<String> inputHistoryArray =
-          mNotificationAndroidBundle.getStringArrayList("inputHistory");
-      return Objects.requireNonNull(inputHistoryArray)
-          .toArray(new CharSequence[inputHistoryArray.size()]);
-    }
-
-    return null;
+    return mInputHistory;
   }
 
   /**
@@ -280,32 +454,41 @@ public class NotificationAndroidModel {
   }
 
   /**
-   * Gets the light output for the notification
+   * Gets every image URL referenced by the notification (large icon, action icons and style
+   * images) and the slot each is shown in, so they can all be fetched at once, at their display
+   * size, before the notification is built
    *
-   * @return ArrayList<Integer>
+   * @return Map<String, ImageSlot>
    */
-  public @Nullable ArrayList<Integer> getLights() {
-    if (mNotificationAndroidBundle.containsKey("lights")) {
-      try {
-        ArrayList<?> lightList =
-          Objects.requireNonNull(mNotificationAndroidBundle.getParcelableArrayList("lights"));
-        String rawColor = (String) lightList.get(0);
-
-        ArrayList<Integer> lights = new ArrayList<>(3);
-        lights.add(Color.parseColor(rawColor));
-        lights.add((Integer) lightList.get(1));
-        lights.add((Integer) lightList.get(2));
-
-        return lights;
-      } catch (Exception e) {
-        Logger.e(
-          TAG,
-          "getLights -> Failed to parse lights");
-        return null;
+  public Map<String, ImageSlot> getImageSlots() {
+    Map<String, ImageSlot> images = new LinkedHashMap<>();
+
+    if (hasLargeIcon()) {
+      ImageSlot.add(images, getLargeIcon(), ImageSlot.LARGE_ICON);
+    }
+
+    if (mActions != null) {
+      for (NotificationAndroidActionModel action : mActions) {
+        ImageSlot.add(images, action.getIcon(), ImageSlot.ACTION_ICON);
       }
     }
 
-    return null;
+    if (mStyle != null) {
+      for (Map.Entry<String, ImageSlot> entry : mStyle.getImageSlots().entrySet()) {
+        ImageSlot.add(images, entry.getKey(), entry.getValue());
+      }
+    }
+
+    return images;
+  }
+
+  /**
+   * Gets the light output for the notification
+   *
+   * @return ArrayList<Integer>
+   */
+  public @Nullable ArrayList<Integer> getLights() {
+    return mLights;
   }
 
   /**
@@ -354,20 +537,7 @@ public class NotificationAndroidModel {
    * @return int[]
    */
   public int[] getFlags() {
-    if (!mNotificationAndroidBundle.containsKey("flags")) {
-      return null;
-    }
-
-    ArrayList<?> flagsArrayList =
-        Objects.requireNonNull(mNotificationAndroidBundle.getParcelableArrayList("flags"));
-
-    int[] flagsArray = new int[flagsArrayList.size()];
-
-    for (int i = 0; i < flagsArrayList.size(); i++) {
-      flagsArray[i] = ObjectUtils.getInt(flagsArrayList.get(i));
-    }
-
-    return flagsArray;
+    return mFlags;
   }
 
   /**
@@ -385,7 +555,7 @@ public class NotificationAndroidModel {
    * @return Boolean
    */
   public Boolean hasFullScreenAction() {
-    return mNotificationAndroidBundle.containsKey("fullScreenAction");
+    return mFullScreenAction != null;
   }
 
   /**
@@ -403,12 +573,7 @@ public class NotificationAndroidModel {
    * @return NotificationAndroidFullScreenActionModel
    */
   public @Nullable NotificationAndroidPressActionModel getFullScreenAction() {
-    if (!hasFullScreenAction()) {
-      return null;
-    }
-
-    return NotificationAndroidPressActionModel.fromBundle(
-        mNotificationAndroidBundle.getBundle("fullScreenAction"));
+    return mFullScreenAction;
   }
 
   /**
@@ -442,17 +607,7 @@ public class NotificationAndroidModel {
    * @return AndroidProgress
    */
   public @Nullable AndroidProgress getProgress() {
-    if (mNotificationAndroidBundle.containsKey("progress")) {
-      Bundle progressBundle =
-          Objects.requireNonNull(mNotificationAndroidBundle.getBundle("progress"));
-
-      return new AndroidProgress(
-          ObjectUtils.getInt(progressBundle.get("max")),
-          ObjectUtils.getInt(progressBundle.get("current")),
-          progressBundle.getBoolean("indeterminate", false));
-    }
-
-    return null;
+    return mProgress;
   }
 
   /**
@@ -523,7 +678,7 @@ public class NotificationAndroidModel {
    * @return Boolean
    */
   public Boolean hasStyle() {
-    return mNotificationAndroidBundle.containsKey("style");
+    return mStyle != null;
   }
 
   /**
@@ -532,11 +687,7 @@ public class NotificationAndroidModel {
    * @return Task<NotificationCompat.Style>
    */
   public @Nullable NotificationAndroidStyleModel getStyle() {
-    if (!hasStyle()) {
-      return null;
-    }
-
-    return NotificationAndroidStyleModel.fromBundle(mNotificationAndroidBundle.getBundle("style"));
+    return mStyle;
   }
 
   /**
@@ -584,22 +735,7 @@ public class NotificationAndroidModel {
    * @return long[]
    */
   public long[] getVibrationPattern() {
-    if (!mNotificationAndroidBundle.containsKey("vibrationPattern")) {
-      return new long[0];
-    }
-
-    ArrayList<?> vibrationPattern =
-        Objects.requireNonNull(
-            mNotificationAndroidBundle.getParcelableArrayList("vibrationPattern"));
-
-    long[] vibrateArray = new long[vibrationPattern.size()];
-
-    for (int i = 0; i < vibrationPattern.size(); i++) {
-      Integer value = (Integer) vibrationPattern.get(i);
-      vibrateArray[i] = value.longValue();
-    }
-
-    return vibrateArray;
+    return mVibrationPattern;
   }
 
   /**
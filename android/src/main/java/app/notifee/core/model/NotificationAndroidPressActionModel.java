@@ -29,10 +29,19 @@ import java.util.Objects;
 @Keep
 public class NotificationAndroidPressActionModel {
 
-  private Bundle mNotificationAndroidPressActionBundle;
+  private final Bundle mNotificationAndroidPressActionBundle;
+  private final @Nullable String mId;
+  private final @Nullable String mLaunchActivity;
+  private final int mLaunchActivityFlags;
+  private final @Nullable String mMainComponent;
 
   private NotificationAndroidPressActionModel(Bundle pressActionBundle) {
-    mNotificationAndroidPressActionBundle = pressActionBundle;
+    mNotificationAndroidPressActionBundle =
+        pressActionBundle != null ? pressActionBundle : new Bundle();
+    mId = mNotificationAndroidPressActionBundle.getString("id");
+    mLaunchActivity = mNotificationAndroidPressActionBundle.getString("launchActivity");
+    mLaunchActivityFlags = parseLaunchActivityFlags(mNotificationAndroidPressActionBundle);
+    mMainComponent = mNotificationAndroidPressActionBundle.getString("mainComponent");
   }
 
   public static NotificationAndroidPressActionModel fromBundle(Bundle pressActionBundle) {
@@ -44,22 +53,25 @@ public class NotificationAndroidPressActionModel {
   }
 
   public @NonNull String getId() {
-    return Objects.requireNonNull(mNotificationAndroidPressActionBundle.getString("id"));
+    return Objects.requireNonNull(mId);
   }
 
   public @Nullable String getLaunchActivity() {
-    return mNotificationAndroidPressActionBundle.getString("launchActivity");
+    return mLaunchActivity;
   }
 
   public int getLaunchActivityFlags() {
-    if (!mNotificationAndroidPressActionBundle.containsKey("launchActivityFlags")) {
+    return mLaunchActivityFlags;
+  }
+
+  private static int parseLaunchActivityFlags(Bundle pressActionBundle) {
+    if (!pressActionBundle.containsKey("launchActivityFlags")) {
       return -1;
     }
 
     int baseFlags = 0;
     ArrayList<Integer> launchActivityFlags =
-        Objects.requireNonNull(
-            mNotificationAndroidPressActionBundle.getIntegerArrayList("launchActivityFlags"));
+        Objects.requireNonNull(pressActionBundle.getIntegerArrayList("launchActivityFlags"));
 
     for (int i = 0; i < launchActivityFlags.size(); i++) {
       Integer flag = launchActivityFlags.get(i);
@@ -141,6 +153,6 @@ public class NotificationAndroidPressActionModel {
   }
 
   public @Nullable String getMainComponent() {
-    return mNotificationAndroidPressActionBundle.getString("mainComponent");
+    return mMainComponent;
   }
 }
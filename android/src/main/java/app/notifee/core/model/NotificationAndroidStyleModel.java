@@ -24,25 +24,24 @@ import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.Person;
 import androidx.core.graphics.drawable.IconCompat;
-import app.notifee.core.Logger;
+import app.notifee.core.utility.ImageSlot;
 import app.notifee.core.utility.ObjectUtils;
 import app.notifee.core.utility.ResourceUtils;
 import app.notifee.core.utility.TextUtils;
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.tasks.Tasks;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.Executor;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 @Keep
 public class NotificationAndroidStyleModel {
   private static final String TAG = "NotificationAndroidStyle";
-  private Bundle mNotificationAndroidStyleBundle;
+  private final Bundle mNotificationAndroidStyleBundle;
+  private final int mType;
 
   private NotificationAndroidStyleModel(Bundle styleBundle) {
-    mNotificationAndroidStyleBundle = styleBundle;
+    mNotificationAndroidStyleBundle = styleBundle != null ? styleBundle : new Bundle();
+    mType = ObjectUtils.getInt(mNotificationAndroidStyleBundle.get("type"));
   }
 
   public static NotificationAndroidStyleModel fromBundle(Bundle styleBundle) {
@@ -53,177 +52,163 @@ public class NotificationAndroidStyleModel {
    * Converts a person bundle from JS into a Person
    *
    * @param personBundle
+   * @param images pre-fetched images, keyed by URL
    * @return
    */
-  private static Task<Person> getPerson(Executor executor, Bundle personBundle) {
-    return Tasks.call(
-        executor,
-        () -> {
-          Person.Builder personBuilder = new Person.Builder();
+  private static Person getPerson(Bundle personBundle, Map<String, Bitmap> images) {
+    Person.Builder personBuilder = new Person.Builder();
 
-          personBuilder.setName(personBundle.getString("name"));
+    personBuilder.setName(personBundle.getString("name"));
 
-          if (personBundle.containsKey("id")) {
-            personBuilder.setKey(personBundle.getString("id"));
-          }
+    if (personBundle.containsKey("id")) {
+      personBuilder.setKey(personBundle.getString("id"));
+    }
 
-          if (personBundle.containsKey("bot")) {
-            personBuilder.setBot(personBundle.getBoolean("bot"));
-          }
+    if (personBundle.containsKey("bot")) {
+      personBuilder.setBot(personBundle.getBoolean("bot"));
+    }
 
-          if (personBundle.containsKey("important")) {
-            personBuilder.setImportant(personBundle.getBoolean("important"));
-          }
+    if (personBundle.containsKey("important")) {
+      personBuilder.setImportant(personBundle.getBoolean("important"));
+    }
 
-          if (personBundle.containsKey("icon")) {
-            String personIcon = Objects.requireNonNull(personBundle.getString("icon"));
-            Bitmap personIconBitmap = null;
-
-            try {
-              personIconBitmap =
-                  Tasks.await(
-                      ResourceUtils.getImageBitmapFromUrl(personIcon), 10, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-              Logger.e(
-                  TAG,
-                  "Timeout occurred whilst trying to retrieve a person icon: " + personIcon,
-                  e);
-            } catch (Exception e) {
-              Logger.e(
-                  TAG,
-                  "An error occurred whilst trying to retrieve a person icon: " + personIcon,
-                  e);
-            }
-
-            if (personIconBitmap != null) {
-              personBuilder.setIcon(IconCompat.createWithAdaptiveBitmap(personIconBitmap));
-            }
-          }
+    if (personBundle.containsKey("icon")) {
+      String personIcon = Objects.requireNonNull(personBundle.getString("icon"));
+      Bitmap personIconBitmap = images.get(personIcon);
+
+      if (personIconBitmap != null) {
+        personIconBitmap = ResourceUtils.getSizedBitmap(personIconBitmap, ImageSlot.PERSON_ICON);
+        personBuilder.setIcon(IconCompat.createWithAdaptiveBitmap(personIconBitmap));
+      }
+    }
+
+    if (personBundle.containsKey("uri")) {
+      personBuilder.setUri(personBundle.getString("uri"));
+    }
+
+    return personBuilder.build();
+  }
+
+  /**
+   * Gets every image URL referenced by this style and the slot each is shown in, so they can be
+   * fetched ahead of building it
+   *
+   * @return Map<String, ImageSlot>
+   */
+  public Map<String, ImageSlot> getImageSlots() {
+    Map<String, ImageSlot> images = new LinkedHashMap<>();
 
-          if (personBundle.containsKey("uri")) {
-            personBuilder.setUri(personBundle.getString("uri"));
+    switch (mType) {
+      case 0:
+        ImageSlot.add(
+            images, mNotificationAndroidStyleBundle.getString("picture"), ImageSlot.BIG_PICTURE);
+        ImageSlot.add(
+            images, mNotificationAndroidStyleBundle.getString("largeIcon"), ImageSlot.LARGE_ICON);
+        break;
+      case 3:
+        addPersonImage(mNotificationAndroidStyleBundle.getBundle("person"), images);
+        ArrayList<Bundle> messages =
+            mNotificationAndroidStyleBundle.getParcelableArrayList("messages");
+        if (messages != null) {
+          for (Bundle message : messages) {
+            addPersonImage(message.getBundle("person"), images);
           }
+        }
+        break;
+    }
 
-          return personBuilder.build();
-        });
+    return images;
+  }
+
+  private static void addPersonImage(@Nullable Bundle personBundle, Map<String, ImageSlot> images) {
+    if (personBundle != null) {
+      ImageSlot.add(images, personBundle.getString("icon"), ImageSlot.PERSON_ICON);
+    }
   }
 
   public Bundle toBundle() {
     return (Bundle) mNotificationAndroidStyleBundle.clone();
   }
 
+  /**
+   * Builds the notification style, using images which have already been fetched
+   *
+   * @param images pre-fetched images, keyed by URL. Missing images are skipped.
+   * @return NotificationCompat.Style or null if the style type is unknown
+   */
   @Nullable
-  public Task<NotificationCompat.Style> getStyleTask(Executor executor) {
-    int type = ObjectUtils.getInt(mNotificationAndroidStyleBundle.get("type"));
-    Task<NotificationCompat.Style> styleTask = null;
+  public NotificationCompat.Style getStyle(Map<String, Bitmap> images) {
+    NotificationCompat.Style style = null;
 
-    switch (type) {
+    switch (mType) {
       case 0:
-        styleTask = getBigPictureStyleTask(executor);
+        style = getBigPictureStyle(images);
         break;
       case 1:
-        styleTask = Tasks.forResult(getBigTextStyle());
+        style = getBigTextStyle();
         break;
       case 2:
-        styleTask = Tasks.forResult(getInboxStyle());
+        style = getInboxStyle();
         break;
       case 3:
-        styleTask = getMessagingStyleTask(executor);
+        style = getMessagingStyle(images);
         break;
     }
 
-    return styleTask;
+    return style;
   }
 
   /**
    * Gets a BigPictureStyle for a notification
    *
-   * @return
+   * @return NotificationCompat.BigPictureStyle
    */
-  private Task<NotificationCompat.Style> getBigPictureStyleTask(Executor executor) {
-    return Tasks.call(
-        executor,
-        () -> {
-          NotificationCompat.BigPictureStyle bigPictureStyle =
-              new NotificationCompat.BigPictureStyle();
-
-          if (mNotificationAndroidStyleBundle.containsKey("picture")) {
-            String picture =
-                Objects.requireNonNull(mNotificationAndroidStyleBundle.getString("picture"));
-            Bitmap pictureBitmap = null;
-
-            try {
-              pictureBitmap =
-                  Tasks.await(ResourceUtils.getImageBitmapFromUrl(picture), 10, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-              Logger.e(
-                  TAG,
-                  "Timeout occurred whilst trying to retrieve a big picture style image: "
-                      + picture,
-                  e);
-            } catch (Exception e) {
-              Logger.e(
-                  TAG,
-                  "An error occurred whilst trying to retrieve a big picture style image: "
-                      + picture,
-                  e);
-            }
-
-            if (pictureBitmap != null) {
-              bigPictureStyle.bigPicture(pictureBitmap);
-            }
-          }
+  private NotificationCompat.BigPictureStyle getBigPictureStyle(Map<String, Bitmap> images) {
+    NotificationCompat.BigPictureStyle bigPictureStyle = new NotificationCompat.BigPictureStyle();
 
-          String largeIcon = null;
+    if (mNotificationAndroidStyleBundle.containsKey("picture")) {
+      String picture = Objects.requireNonNull(mNotificationAndroidStyleBundle.getString("picture"));
+      Bitmap pictureBitmap = images.get(picture);
 
-          if (mNotificationAndroidStyleBundle.containsKey("largeIcon")) {
-            largeIcon = mNotificationAndroidStyleBundle.getString("largeIcon");
+      if (pictureBitmap != null) {
+        bigPictureStyle.bigPicture(
+            ResourceUtils.getSizedBitmap(pictureBitmap, ImageSlot.BIG_PICTURE));
+      }
+    }
 
-            // largeIcon has been specified to be null for BigPicture
-            if (largeIcon == null) {
-              bigPictureStyle.bigLargeIcon(null);
-            }
-          }
+    String largeIcon = null;
 
-          if (largeIcon != null) {
-            Bitmap largeIconBitmap = null;
-
-            try {
-              largeIconBitmap =
-                  Tasks.await(ResourceUtils.getImageBitmapFromUrl(largeIcon), 10, TimeUnit.SECONDS);
-            } catch (TimeoutException e) {
-              Logger.e(
-                  TAG,
-                  "Timeout occurred whilst trying to retrieve a big picture style large icon: "
-                      + largeIcon,
-                  e);
-            } catch (Exception e) {
-              Logger.e(
-                  TAG,
-                  "An error occurred whilst trying to retrieve a big picture style large icon: "
-                      + largeIcon,
-                  e);
-            }
-
-            if (largeIconBitmap != null) {
-              bigPictureStyle.bigLargeIcon(largeIconBitmap);
-            }
-          }
+    if (mNotificationAndroidStyleBundle.containsKey("largeIcon")) {
+      largeIcon = mNotificationAndroidStyleBundle.getString("largeIcon");
 
-          if (mNotificationAndroidStyleBundle.containsKey("title")) {
-            bigPictureStyle =
-                bigPictureStyle.setBigContentTitle(
-                    TextUtils.fromHtml(mNotificationAndroidStyleBundle.getString("title")));
-          }
+      // largeIcon has been specified to be null for BigPicture
+      if (largeIcon == null) {
+        bigPictureStyle.bigLargeIcon(null);
+      }
+    }
 
-          if (mNotificationAndroidStyleBundle.containsKey("summary")) {
-            bigPictureStyle =
-                bigPictureStyle.setSummaryText(
-                    TextUtils.fromHtml(mNotificationAndroidStyleBundle.getString("summary")));
-          }
+    if (largeIcon != null) {
+      Bitmap largeIconBitmap = images.get(largeIcon);
+
+      if (largeIconBitmap != null) {
+        bigPictureStyle.bigLargeIcon(
+            ResourceUtils.getSizedBitmap(largeIconBitmap, ImageSlot.LARGE_ICON));
+      }
+    }
 
-          return bigPictureStyle;
-        });
+    if (mNotificationAndroidStyleBundle.containsKey("title")) {
+      bigPictureStyle =
+          bigPictureStyle.setBigContentTitle(
+              TextUtils.fromHtml(mNotificationAndroidStyleBundle.getString("title")));
+    }
+
+    if (mNotificationAndroidStyleBundle.containsKey("summary")) {
+      bigPictureStyle =
+          bigPictureStyle.setSummaryText(
+              TextUtils.fromHtml(mNotificationAndroidStyleBundle.getString("summary")));
+    }
+
+    return bigPictureStyle;
   }
 
   /**
@@ -286,55 +271,41 @@ public class NotificationAndroidStyleModel {
   }
 
   /** Gets a MessagingStyle for a notification */
-  private Task<NotificationCompat.Style> getMessagingStyleTask(Executor executor) {
-    return Tasks.call(
-        executor,
-        () -> {
-          Person person =
-              Tasks.await(
-                  getPerson(
-                      executor,
-                      Objects.requireNonNull(mNotificationAndroidStyleBundle.getBundle("person"))),
-                  20,
-                  TimeUnit.SECONDS);
-
-          NotificationCompat.MessagingStyle messagingStyle =
-              new NotificationCompat.MessagingStyle(person);
-
-          if (mNotificationAndroidStyleBundle.containsKey("title")) {
-            messagingStyle =
-                messagingStyle.setConversationTitle(
-                    TextUtils.fromHtml(mNotificationAndroidStyleBundle.getString("title")));
-          }
+  private NotificationCompat.MessagingStyle getMessagingStyle(Map<String, Bitmap> images) {
+    Person person =
+        getPerson(
+            Objects.requireNonNull(mNotificationAndroidStyleBundle.getBundle("person")), images);
 
-          if (mNotificationAndroidStyleBundle.containsKey("group")) {
-            messagingStyle =
-                messagingStyle.setGroupConversation(
-                    mNotificationAndroidStyleBundle.getBoolean("group"));
-          }
+    NotificationCompat.MessagingStyle messagingStyle =
+        new NotificationCompat.MessagingStyle(person);
 
-          ArrayList<Bundle> messages =
-              mNotificationAndroidStyleBundle.getParcelableArrayList("messages");
-
-          for (int i = 0; i < Objects.requireNonNull(messages).size(); i++) {
-            Bundle message = messages.get(i);
-            Person messagePerson = null;
-            long timestamp = ObjectUtils.getLong(message.get("timestamp"));
-
-            if (message.containsKey("person")) {
-              messagePerson =
-                  Tasks.await(
-                      getPerson(executor, Objects.requireNonNull(message.getBundle("person"))),
-                      20,
-                      TimeUnit.SECONDS);
-            }
-
-            messagingStyle =
-                messagingStyle.addMessage(
-                    TextUtils.fromHtml(message.getString("text")), timestamp, messagePerson);
-          }
+    if (mNotificationAndroidStyleBundle.containsKey("title")) {
+      messagingStyle =
+          messagingStyle.setConversationTitle(
+              TextUtils.fromHtml(mNotificationAndroidStyleBundle.getString("title")));
+    }
+
+    if (mNotificationAndroidStyleBundle.containsKey("group")) {
+      messagingStyle =
+          messagingStyle.setGroupConversation(mNotificationAndroidStyleBundle.getBoolean("group"));
+    }
+
+    ArrayList<Bundle> messages = mNotificationAndroidStyleBundle.getParcelableArrayList("messages");
+
+    for (int i = 0; i < Objects.requireNonNull(messages).size(); i++) {
+      Bundle message = messages.get(i);
+      Person messagePerson = null;
+      long timestamp = ObjectUtils.getLong(message.get("timestamp"));
+
+      if (message.containsKey("person")) {
+        messagePerson = getPerson(Objects.requireNonNull(message.getBundle("person")), images);
+      }
+
+      messagingStyle =
+          messagingStyle.addMessage(
+              TextUtils.fromHtml(message.getString("text")), timestamp, messagePerson);
+    }
 
-          return messagingStyle;
-        });
+    return messagingStyle;
   }
 }
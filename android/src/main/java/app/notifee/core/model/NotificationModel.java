@@ -25,10 +25,29 @@ import java.util.Objects;
 
 @KeepForSdk
 public class NotificationModel {
-  private Bundle mNotificationBundle;
+  private final Bundle mNotificationBundle;
+  private final @Nullable String mId;
+  private final @Nullable Integer mHashCode;
+  private final @Nullable String mTitle;
+  private final @Nullable String mSubTitle;
+  private final @Nullable String mBody;
+  private final NotificationAndroidModel mAndroid;
 
   public NotificationModel(Bundle bundle) {
-    mNotificationBundle = bundle;
+    // copied once, so the parsed fields cannot go stale if the caller changes its bundle
+    mNotificationBundle = (Bundle) bundle.clone();
+    Bundle androidBundle = bundle.getBundle("android");
+    if (androidBundle != null) {
+      androidBundle = (Bundle) androidBundle.clone();
+      mNotificationBundle.putBundle("android", androidBundle);
+    }
+
+    mId = mNotificationBundle.getString("id");
+    mHashCode = mId != null ? mId.hashCode() : null;
+    mTitle = mNotificationBundle.getString("title");
+    mSubTitle = mNotificationBundle.getString("subtitle");
+    mBody = mNotificationBundle.getString("body");
+    mAndroid = NotificationAndroidModel.fromBundle(androidBundle);
   }
 
   public static NotificationModel fromBundle(@NonNull Bundle bundle) {
@@ -36,27 +55,37 @@ public class NotificationModel {
   }
 
   public @NonNull Integer getHashCode() {
-    return getId().hashCode();
+    return Objects.requireNonNull(mHashCode);
   }
 
   public @NonNull String getId() {
-    return Objects.requireNonNull(mNotificationBundle.getString("id"));
+    return Objects.requireNonNull(mId);
   }
 
   public @Nullable String getTitle() {
-    return mNotificationBundle.getString("title");
+    return mTitle;
   }
 
   public @Nullable String getSubTitle() {
-    return mNotificationBundle.getString("subtitle");
+    return mSubTitle;
   }
 
   public @Nullable String getBody() {
-    return mNotificationBundle.getString("body");
+    return mBody;
   }
 
   public @NonNull NotificationAndroidModel getAndroid() {
-    return NotificationAndroidModel.fromBundle(mNotificationBundle.getBundle("android"));
+    return mAndroid;
+  }
+
+  /**
+   * Throws if the notification has a malformed field. Models are parsed leniently, so that reading
+   * a stored or delivered notification never fails; displaying or scheduling one validates it.
+   *
+   * @throws IllegalArgumentException if a field is malformed
+   */
+  public void validate() {
+    mAndroid.validate();
   }
 
   public @NonNull Bundle getData() {
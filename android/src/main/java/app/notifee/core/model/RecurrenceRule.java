@@ -0,0 +1,340 @@
+package app.notifee.core.model;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * A calendar recurrence, supporting a subset of RFC 5545 RRULE: FREQ (HOURLY, DAILY or WEEKLY),
+ * INTERVAL, BYDAY, BYHOUR, BYMINUTE, COUNT, UNTIL and EXDATE.
+ *
+ * <p>Occurrences are computed in the rule's time zone, so a daily occurrence keeps its wall clock
+ * time across daylight saving changes. The next occurrence after a given time is found by jumping
+ * straight to the period containing it, so the cost does not depend on how many were missed. Weeks
+ * start on Monday.
+ */
+public final class RecurrenceRule {
+  public static final int HOURLY = 0;
+  public static final int DAILY = 1;
+  public static final int WEEKLY = 2;
+
+  private static final long MINUTE_IN_MS = 60 * 1000;
+  private static final long HOUR_IN_MS = 60 * MINUTE_IN_MS;
+
+  // an hourly rule repeats its pattern of local hours and weekdays at most every week
+  private static final int MAX_HOURLY_PERIODS = 7 * 24 + 1;
+  // a daily rule filtered by weekday repeats its pattern at most every 7 periods
+  private static final int MAX_DAILY_PERIODS = 7 + 1;
+
+  private final long mStart;
+  private final int mFrequency;
+  private final int mInterval;
+  private final boolean[] mByDay;
+  private final int[] mByHour;
+  private final int[] mByMinute;
+  private final int mCount;
+  private final long mUntil;
+  private final long[] mExcludedDates;
+  private final TimeZone mTimeZone;
+
+  // the local time of day of the first occurrence, used when not expanded by BYHOUR and BYMINUTE
+  private final int mStartHour;
+  private final int mStartMinute;
+  private final int mStartMillisOfMinute;
+  private Long mLastOccurrence = null;
+
+  /**
+   * @param start the first occurrence, which anchors the interval and supplies any time of day
+   *     and weekday not given by the rule
+   * @param byDay days of the week, as {@link Calendar#DAY_OF_WEEK} values, or null
+   * @param byHour hours of the day, 0 to 23, or null
+   * @param byMinute minutes of the hour, 0 to 59, or null
+   * @param count the number of occurrences, or 0 for no limit
+   * @param until the time after which there are no more occurrences, or null for no limit
+   * @param excludedDates occurrences to skip, which still count towards `count`, or null
+   * @param timeZone the time zone the rule is evaluated in, or null for the device's
+   */
+  public RecurrenceRule(
+      long start,
+      int frequency,
+      int interval,
+      @Nullable int[] byDay,
+      @Nullable int[] byHour,
+      @Nullable int[] byMinute,
+      int count,
+      @Nullable Long until,
+      @Nullable long[] excludedDates,
+      @Nullable TimeZone timeZone) {
+    if (frequency != HOURLY && frequency != DAILY && frequency != WEEKLY) {
+      throw new IllegalArgumentException("Unsupported recurrence frequency " + frequency);
+    }
+
+    mStart = start;
+    mFrequency = frequency;
+    mInterval = Math.max(1, interval);
+    mCount = Math.max(0, count);
+    mUntil = until != null ? until : Long.MAX_VALUE;
+    mTimeZone = timeZone != null ? timeZone : TimeZone.getDefault();
+    mByHour = sorted(byHour, 0, 23);
+    mByMinute = sorted(byMinute, 0, 59);
+
+    mExcludedDates = excludedDates != null ? excludedDates.clone() : new long[0];
+    Arrays.sort(mExcludedDates);
+
+    Calendar calendar = getCalendar(start);
+    mStartHour = calendar.get(Calendar.HOUR_OF_DAY);
+    mStartMinute = calendar.get(Calendar.MINUTE);
+    mStartMillisOfMinute =
+        calendar.get(Calendar.SECOND) * 1000 + calendar.get(Calendar.MILLISECOND);
+
+    if (byDay != null && byDay.length > 0) {
+      mByDay = new boolean[8];
+      for (int day : byDay) {
+        if (day < Calendar.SUNDAY || day > Calendar.SATURDAY) {
+          throw new IllegalArgumentException("Invalid recurrence day " + day);
+        }
+        mByDay[day] = true;
+      }
+    } else if (frequency == WEEKLY) {
+      mByDay = new boolean[8];
+      mByDay[calendar.get(Calendar.DAY_OF_WEEK)] = true;
+    } else {
+      mByDay = null;
+    }
+  }
+
+  public long getStart() {
+    return mStart;
+  }
+
+  /** The first occurrence after `after`, or null if the recurrence has ended */
+  public @Nullable Long getNextOccurrence(long after) {
+    long until = Math.min(mUntil, mCount > 0 ? getLastOccurrence() : Long.MAX_VALUE);
+
+    Long occurrence = getNextCandidate(after);
+    while (occurrence != null
+        && occurrence <= until
+        && Arrays.binarySearch(mExcludedDates, occurrence) >= 0) {
+      occurrence = getNextCandidate(occurrence);
+    }
+
+    return occurrence != null && occurrence <= until ? occurrence : null;
+  }
+
+  /**
+   * The last occurrence of a rule limited by `count`. Found once, by stepping through the counted
+   * occurrences, as excluded dates count towards the limit too.
+   */
+  public long getLastOccurrence() {
+    if (mCount == 0) {
+      return Long.MAX_VALUE;
+    }
+
+    if (mLastOccurrence == null) {
+      long occurrence = mStart - 1;
+      for (int i = 0; i < mCount; i++) {
+        Long next = getNextCandidate(occurrence);
+        if (next == null) {
+          break;
+        }
+        occurrence = next;
+      }
+      mLastOccurrence = occurrence;
+    }
+
+    return mLastOccurrence;
+  }
+
+  /* The first occurrence after `after`, ignoring count, until and excluded dates */
+  private @Nullable Long getNextCandidate(long after) {
+    after = Math.max(after, mStart - 1);
+
+    switch (mFrequency) {
+      case HOURLY:
+        return getNextHourlyCandidate(after);
+      case DAILY:
+        return getNextDailyCandidate(after);
+      default:
+        return getNextWeeklyCandidate(after);
+    }
+  }
+
+  private @Nullable Long getNextHourlyCandidate(long after) {
+    long step = mInterval * HOUR_IN_MS;
+    long firstHour = mStart - mStartMinute * MINUTE_IN_MS - mStartMillisOfMinute;
+    long hour = firstHour + Math.max(0, Math.floorDiv(after - firstHour, step)) * step;
+
+    for (int i = 0; i < MAX_HOURLY_PERIODS; i++, hour += step) {
+      if (mByHour != null || mByDay != null) {
+        Calendar calendar = getCalendar(hour);
+        if (!matches(mByHour, calendar.get(Calendar.HOUR_OF_DAY))
+            || (mByDay != null && !mByDay[calendar.get(Calendar.DAY_OF_WEEK)])) {
+          continue;
+        }
+      }
+
+      for (int minute : getMinutes()) {
+        long occurrence = hour + minute * MINUTE_IN_MS + mStartMillisOfMinute;
+        if (occurrence > after) {
+          return occurrence;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private @Nullable Long getNextDailyCandidate(long after) {
+    long startDay = getEpochDay(mStart);
+    long periods = Math.max(0, ceilDiv(getEpochDay(after) - startDay, mInterval));
+    long day = startDay + periods * mInterval;
+
+    for (int i = 0; i < MAX_DAILY_PERIODS; i++, day += mInterval) {
+      if (mByDay != null && !mByDay[getDayOfWeek(day)]) {
+        continue;
+      }
+
+      Long occurrence = getNextOccurrenceOnDay(day, after);
+      if (occurrence != null) {
+        return occurrence;
+      }
+    }
+
+    return null;
+  }
+
+  private @Nullable Long getNextWeeklyCandidate(long after) {
+    long startWeek = getWeekStart(getEpochDay(mStart));
+    long weeks = (getWeekStart(getEpochDay(after)) - startWeek) / 7;
+    long periods = Math.max(0, ceilDiv(weeks, mInterval));
+    long week = startWeek + periods * mInterval * 7;
+
+    // the week containing `after` may have no occurrences left, the next period always has one
+    for (int i = 0; i < 2; i++, week += mInterval * 7) {
+      for (long day = week; day < week + 7; day++) {
+        if (!mByDay[getDayOfWeek(day)]) {
+          continue;
+        }
+
+        Long occurrence = getNextOccurrenceOnDay(day, after);
+        if (occurrence != null) {
+          return occurrence;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private @Nullable Long getNextOccurrenceOnDay(long epochDay, long after) {
+    int[] hours = mByHour != null ? mByHour : new int[] {mStartHour};
+
+    for (int hour : hours) {
+      for (int minute : getMinutes()) {
+        long occurrence = getLocalTime(epochDay, hour, minute);
+        if (occurrence > after) {
+          return occurrence;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private int[] getMinutes() {
+    return mByMinute != null ? mByMinute : new int[] {mStartMinute};
+  }
+
+  private long getLocalTime(long epochDay, int hour, int minute) {
+    // the civil date of a day since 1970-01-01, see
+    // http://howardhinnant.github.io/date_algorithms.html
+    long z = epochDay + 719468;
+    long era = Math.floorDiv(z, 146097);
+    long dayOfEra = z - era * 146097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long mp = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+    int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+    int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+    // a time skipped by a daylight saving change resolves to the same time after it
+    Calendar calendar = Calendar.getInstance(mTimeZone);
+    calendar.clear();
+    calendar.set(year, month - 1, day, hour, minute, 0);
+    return calendar.getTimeInMillis() + mStartMillisOfMinute;
+  }
+
+  private long getEpochDay(long timestamp) {
+    Calendar calendar = getCalendar(timestamp);
+    long year = calendar.get(Calendar.YEAR);
+    long month = calendar.get(Calendar.MONTH) + 1;
+    long day = calendar.get(Calendar.DAY_OF_MONTH);
+
+    // days since 1970-01-01 of a civil date, the inverse of getLocalTime
+    year -= month <= 2 ? 1 : 0;
+    long era = Math.floorDiv(year, 400);
+    long yearOfEra = year - era * 400;
+    long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468;
+  }
+
+  private Calendar getCalendar(long timestamp) {
+    Calendar calendar = Calendar.getInstance(mTimeZone);
+    calendar.setTimeInMillis(timestamp);
+    return calendar;
+  }
+
+  /* The Calendar.DAY_OF_WEEK of a day since 1970-01-01, which was a Thursday */
+  private static int getDayOfWeek(long epochDay) {
+    return (int) Math.floorMod(epochDay + 4, 7) + Calendar.SUNDAY;
+  }
+
+  /* The Monday on or before a day since 1970-01-01 */
+  private static long getWeekStart(long epochDay) {
+    return epochDay - Math.floorMod(epochDay + 3, 7);
+  }
+
+  private static long ceilDiv(long dividend, long divisor) {
+    return -Math.floorDiv(-dividend, divisor);
+  }
+
+  private static boolean matches(@Nullable int[] values, int value) {
+    return values == null || Arrays.binarySearch(values, value) >= 0;
+  }
+
+  private static @Nullable int[] sorted(@Nullable int[] values, int min, int max) {
+    if (values == null || values.length == 0) {
+      return null;
+    }
+
+    for (int value : values) {
+      if (value < min || value > max) {
+        throw new IllegalArgumentException("Invalid recurrence value " + value);
+      }
+    }
+
+    int[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted;
+  }
+}
@@ -19,7 +19,14 @@ package app.notifee.core.model;
 
 import android.os.Bundle;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import app.notifee.core.utility.ObjectUtils;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 public class TimestampTriggerModel {
@@ -30,6 +37,8 @@ public class TimestampTriggerModel {
   private AlarmType mAlarmType = AlarmType.SET_EXACT;
   private String mRepeatFrequency = null;
   private Long mTimestamp = null;
+  private RecurrenceRule mRecurrenceRule = null;
+  private boolean mFinished = false;
 
   public static final String HOURLY = "HOURLY";
   public static final String DAILY = "DAILY";
@@ -41,14 +50,33 @@ public class TimestampTriggerModel {
 
   private static final String TAG = "TimeTriggerModel";
 
+  /*
+   * The trigger keys needed to schedule a timestamp or alarm manager interval trigger, which may
+   * be decoded without the rest of the trigger
+   */
+  public static final String[] SCHEDULING_KEYS = {
+    "type",
+    "timestamp",
+    "repeatFrequency",
+    "recurrence",
+    "alarmManager",
+    "allowWhileIdle",
+    "interval",
+    "timeUnit"
+  };
+
+  private static final String[] RECURRENCE_DAYS = {"SU", "MO", "TU", "WE", "TH", "FR", "SA"};
+
   private TimestampTriggerModel(Bundle bundle) {
     mTimeTriggerBundle = bundle;
 
     // set initial values
-    TimeUnit timeUnit = null;
+    if (mTimeTriggerBundle.containsKey("timestamp")) {
+      mTimestamp = ObjectUtils.getLong(mTimeTriggerBundle.get("timestamp"));
+    }
+
     if (mTimeTriggerBundle.containsKey("repeatFrequency")) {
       int repeatFrequency = ObjectUtils.getInt(mTimeTriggerBundle.get("repeatFrequency"));
-      mTimestamp = ObjectUtils.getLong(mTimeTriggerBundle.get("timestamp"));
 
       switch (repeatFrequency) {
         case -1:
@@ -73,55 +101,171 @@ public class TimestampTriggerModel {
       }
     }
 
+    // a calendar recurrence replaces the fixed repeat frequency
+    Bundle recurrenceBundle = mTimeTriggerBundle.getBundle("recurrence");
+    if (recurrenceBundle != null && mTimestamp != null) {
+      mRecurrenceRule = getRecurrenceRule(recurrenceBundle, mTimestamp);
+      mInterval = -1;
+      mTimeUnit = null;
+      mRepeatFrequency = null;
+    }
+
     if (mTimeTriggerBundle.containsKey("alarmManager")) {
       mWithAlarmManager = true;
+      mAlarmType = getAlarmType(mTimeTriggerBundle.getBundle("alarmManager"));
+    } else if (mTimeTriggerBundle.containsKey("allowWhileIdle")) {
+      // for dart
+      mWithAlarmManager = true;
+      mAlarmType = AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE;
+    }
+  }
 
-      Bundle alarmManagerBundle = mTimeTriggerBundle.getBundle("alarmManager");
+  public static TimestampTriggerModel fromBundle(@NonNull Bundle bundle) {
+    return new TimestampTriggerModel(bundle);
+  }
 
-      Object typeObj = alarmManagerBundle.get("type");
+  /*
+   * The rule is anchored on its first occurrence, kept as `start` once the timestamp moves on. A
+   * `count` is resolved to the time of the last occurrence once, as `lastOccurrence`.
+   */
+  private static RecurrenceRule getRecurrenceRule(@NonNull Bundle recurrence, long timestamp) {
+    long start =
+        recurrence.containsKey("start") ? ObjectUtils.getLong(recurrence.get("start")) : timestamp;
+
+    Long until = null;
+    if (recurrence.containsKey("until")) {
+      until = ObjectUtils.getLong(recurrence.get("until"));
+    }
 
-      int type;
-      if (typeObj != null) {
-        type = ObjectUtils.getInt(typeObj);
-      } else {
-        type = 2;
-      }
+    int count = 0;
+    if (recurrence.containsKey("lastOccurrence")) {
+      long lastOccurrence = ObjectUtils.getLong(recurrence.get("lastOccurrence"));
+      until = until != null ? Math.min(until, lastOccurrence) : lastOccurrence;
+    } else if (recurrence.containsKey("count")) {
+      count = ObjectUtils.getInt(recurrence.get("count"));
+    }
 
+    int[] byDay = null;
+    List<Object> days = getList(recurrence, "byDay");
+    if (days != null) {
+      byDay = new int[days.size()];
+      for (int i = 0; i < byDay.length; i++) {
+        int day = Arrays.asList(RECURRENCE_DAYS).indexOf(String.valueOf(days.get(i)));
+        if (day == -1) {
+          throw new IllegalArgumentException("Invalid recurrence day " + days.get(i));
+        }
+        byDay[i] = Calendar.SUNDAY + day;
+      }
+    }
 
-      // this is for the deprecated `alarmManager.allowWhileIdle` option
-      if (alarmManagerBundle.containsKey("allowWhileIdle") &&
-          alarmManagerBundle.getBoolean("allowWhileIdle")) {
-        type = 3;
+    long[] excludedDates = null;
+    List<Object> dates = getList(recurrence, "excludedDates");
+    if (dates != null) {
+      excludedDates = new long[dates.size()];
+      for (int i = 0; i < excludedDates.length; i++) {
+        excludedDates[i] = ObjectUtils.getLong(dates.get(i));
       }
+    }
 
-      switch (type){
-        case 0:
-          mAlarmType = AlarmType.SET;
-          break;
-        case 1:
-          mAlarmType = AlarmType.SET_AND_ALLOW_WHILE_IDLE;
-          break;
-        // default behavior when alarmManager is true:
-        default:
-        case 2:
-          mAlarmType = AlarmType.SET_EXACT;
-          break;
-        case 3:
-          mAlarmType = AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE;
-          break;
-        case 4:
-          mAlarmType = AlarmType.SET_ALARM_CLOCK;
-          break;
+    String timeZone = recurrence.getString("timeZone");
+
+    return new RecurrenceRule(
+        start,
+        recurrence.containsKey("frequency")
+            ? ObjectUtils.getInt(recurrence.get("frequency"))
+            : RecurrenceRule.DAILY,
+        recurrence.containsKey("interval") ? ObjectUtils.getInt(recurrence.get("interval")) : 1,
+        byDay,
+        getIntArray(recurrence, "byHour"),
+        getIntArray(recurrence, "byMinute"),
+        count,
+        until,
+        excludedDates,
+        timeZone != null ? TimeZone.getTimeZone(timeZone) : null);
+  }
+
+  /* Lists arrive as a List from React Native and the payload codec, or as an array */
+  private static @Nullable List<Object> getList(@NonNull Bundle bundle, String key) {
+    Object value = bundle.get(key);
+    if (value == null) {
+      return null;
+    }
+
+    List<Object> list = new ArrayList<>();
+    if (value instanceof List) {
+      list.addAll((List<?>) value);
+    } else if (value.getClass().isArray()) {
+      for (int i = 0; i < Array.getLength(value); i++) {
+        list.add(Array.get(value, i));
       }
-    } else if (mTimeTriggerBundle.containsKey("allowWhileIdle")) {
-      // for dart
-      mWithAlarmManager = true;
-      mAlarmType = AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE;
     }
+
+    return list;
   }
 
-  public static TimestampTriggerModel fromBundle(@NonNull Bundle bundle) {
-    return new TimestampTriggerModel(bundle);
+  private static @Nullable int[] getIntArray(@NonNull Bundle bundle, String key) {
+    List<Object> list = getList(bundle, key);
+    if (list == null) {
+      return null;
+    }
+
+    int[] values = new int[list.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = ObjectUtils.getInt(list.get(i));
+    }
+
+    return values;
+  }
+
+  /** Parses the `alarmManager` options of a trigger, shared by timestamp and interval triggers */
+  public static AlarmType getAlarmType(@Nullable Bundle alarmManagerBundle) {
+    if (alarmManagerBundle == null) {
+      return AlarmType.SET_EXACT;
+    }
+
+    Object typeObj = alarmManagerBundle.get("type");
+
+    int type;
+    if (typeObj != null) {
+      type = ObjectUtils.getInt(typeObj);
+    } else {
+      type = 2;
+    }
+
+    // this is for the deprecated `alarmManager.allowWhileIdle` option
+    if (alarmManagerBundle.containsKey("allowWhileIdle")
+        && alarmManagerBundle.getBoolean("allowWhileIdle")) {
+      type = 3;
+    }
+
+    switch (type) {
+      case 0:
+        return AlarmType.SET;
+      case 1:
+        return AlarmType.SET_AND_ALLOW_WHILE_IDLE;
+      case 3:
+        return AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE;
+      case 4:
+        return AlarmType.SET_ALARM_CLOCK;
+      case 2:
+      // default behavior when alarmManager is true:
+      default:
+        return AlarmType.SET_EXACT;
+    }
+  }
+
+  /**
+   * Returns the first occurrence of `timestamp + k * interval` (k >= 0) that is after `after`.
+   *
+   * <p>Occurrences are always computed from the original timestamp rather than from when the last
+   * one actually fired, so late or early deliveries never accumulate into drift.
+   */
+  public static long getNextOccurrence(long timestamp, long interval, long after) {
+    if (timestamp > after || interval <= 0) {
+      return timestamp;
+    }
+
+    return timestamp + ((after - timestamp) / interval + 1) * interval;
   }
 
   public long getTimestamp() {
@@ -142,12 +286,29 @@ public class TimestampTriggerModel {
   }
 
   public void setNextTimestamp() {
+    // prevent alarm manager notification firing straight away
+    setNextTimestampAfter(System.currentTimeMillis() - 1);
+  }
+
+  /**
+   * Advances a repeating trigger past the occurrence that has just been displayed. Alarms may be
+   * dispatched slightly ahead of their timestamp, so this always moves at least one interval on.
+   */
+  public void setNextOccurrence() {
+    setNextTimestampAfter(Math.max(System.currentTimeMillis(), getTimestamp()));
+  }
+
+  private void setNextTimestampAfter(long after) {
+    if (mRecurrenceRule != null) {
+      setNextRecurrenceAfter(after);
+      return;
+    }
+
     // Skip for non-repeating triggers
     if (mRepeatFrequency == null) {
       return;
     }
 
-    long timestamp = getTimestamp();
     long interval = 0;
 
     switch (mRepeatFrequency) {
@@ -162,12 +323,36 @@ public class TimestampTriggerModel {
         break;
     }
 
-    // prevent alarm manager notification firing straight away
-    while (timestamp < System.currentTimeMillis()) {
-      timestamp += interval;
+    long timestamp = getNextOccurrence(getTimestamp(), interval, after);
+
+    this.mTimestamp = timestamp;
+    // keep the bundle in sync, so the next occurrence is what gets persisted
+    mTimeTriggerBundle.putLong("timestamp", timestamp);
+  }
+
+  private void setNextRecurrenceAfter(long after) {
+    Long timestamp = mRecurrenceRule.getNextOccurrence(after);
+    if (timestamp == null) {
+      mFinished = true;
+      return;
+    }
+
+    if (timestamp.equals(mTimestamp)) {
+      return;
+    }
+
+    // keep the anchor of the rule before the timestamp it was taken from moves on
+    Bundle recurrenceBundle = new Bundle(mTimeTriggerBundle.getBundle("recurrence"));
+    if (!recurrenceBundle.containsKey("start")) {
+      recurrenceBundle.putLong("start", mRecurrenceRule.getStart());
+      if (recurrenceBundle.containsKey("count")) {
+        recurrenceBundle.putLong("lastOccurrence", mRecurrenceRule.getLastOccurrence());
+      }
+      mTimeTriggerBundle.putBundle("recurrence", recurrenceBundle);
     }
 
     this.mTimestamp = timestamp;
+    mTimeTriggerBundle.putLong("timestamp", timestamp);
   }
 
   public enum AlarmType {
@@ -198,6 +383,20 @@ public class TimestampTriggerModel {
     return mRepeatFrequency;
   }
 
+  /** Whether the trigger repeats, either at a fixed frequency or by a calendar recurrence */
+  public boolean isRepeating() {
+    return mRepeatFrequency != null || mRecurrenceRule != null;
+  }
+
+  public boolean hasRecurrence() {
+    return mRecurrenceRule != null;
+  }
+
+  /** Whether a calendar recurrence has no occurrences left, after setting the next timestamp */
+  public boolean isFinished() {
+    return mFinished;
+  }
+
   public Bundle toBundle() {
     return (Bundle) mTimeTriggerBundle.clone();
   }
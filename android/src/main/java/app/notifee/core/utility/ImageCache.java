@@ -0,0 +1,533 @@
+package app.notifee.core.utility;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import app.notifee.core.ContextHolder;
+import app.notifee.core.Logger;
+import app.notifee.core.interfaces.ImageFetcher;
+import com.facebook.common.memory.PooledByteBuffer;
+import com.facebook.common.memory.PooledByteBufferInputStream;
+import com.facebook.common.references.CloseableReference;
+import com.facebook.datasource.DataSource;
+import com.facebook.datasource.DataSources;
+import com.facebook.drawee.backends.pipeline.Fresco;
+import com.facebook.imagepipeline.request.ImageRequest;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A notification specific image cache, independent of whether Fresco or React Native have been
+ * initialized in the current process.
+ *
+ * <p>Remote images missing from the cache are downloaded by the host's {@link ImageFetcher} if one
+ * is set, otherwise through Fresco's image pipeline if the host has initialized Fresco, so its
+ * networking configuration applies, and otherwise by a plain {@link HttpURLConnection}.
+ *
+ * <p>Decoded bitmaps are kept in a memory LRU keyed by URL and target size. Encoded bytes of
+ * remote images are kept on disk, bounded by a byte budget and a TTL, so background wake-ups do
+ * not download the same avatars and icons again. Each disk hit refreshes the file's last modified
+ * time, so the disk cache evicts the least recently used images, and expires those unused for the
+ * TTL.
+ */
+public class ImageCache {
+  private static final String TAG = "ImageCache";
+  private static final String DIRECTORY = "notifee_images";
+
+  private static final long DISK_CACHE_MAX_BYTES = 20 * 1024 * 1024;
+  // trimming goes below the budget, so that it is not needed again on the next write
+  private static final long DISK_CACHE_TRIM_TO_BYTES = DISK_CACHE_MAX_BYTES * 3 / 4;
+  private static final long DISK_CACHE_TTL_MS = TimeUnit.DAYS.toMillis(7);
+  private static final int MEMORY_CACHE_MAX_BYTES = 8 * 1024 * 1024;
+  private static final int MAX_DOWNLOAD_BYTES = 10 * 1024 * 1024;
+  private static final int CONNECT_TIMEOUT_MS = 10000;
+  private static final int READ_TIMEOUT_MS = 10000;
+
+  private static final AtomicLong sMemoryHitCount = new AtomicLong();
+  private static final AtomicLong sDiskHitCount = new AtomicLong();
+  private static final AtomicLong sMissCount = new AtomicLong();
+
+  private static final Object sDiskLock = new Object();
+  // bytes held by the disk cache, measured once and then tracked on each write and delete, or -1
+  // if not measured yet; guarded by sDiskLock
+  private static long sDiskBytes = -1;
+
+  private static volatile @Nullable ImageFetcher sImageFetcher;
+
+  private static final LruCache<String, Bitmap> sMemoryCache =
+      new LruCache<String, Bitmap>(
+          (int) Math.min(MEMORY_CACHE_MAX_BYTES, Runtime.getRuntime().maxMemory() / 16)) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+          return bitmap.getByteCount();
+        }
+      };
+
+  /** Number of lookups served from decoded bitmaps in memory */
+  public static long getMemoryHitCount() {
+    return sMemoryHitCount.get();
+  }
+
+  /** Number of lookups served from encoded bytes on disk */
+  public static long getDiskHitCount() {
+    return sDiskHitCount.get();
+  }
+
+  /** Number of lookups which had to load the image from its source */
+  public static long getMissCount() {
+    return sMissCount.get();
+  }
+
+  /** See {@link app.notifee.core.Notifee#setImageFetcher} */
+  public static void setImageFetcher(@Nullable ImageFetcher imageFetcher) {
+    sImageFetcher = imageFetcher;
+  }
+
+  /** Whether the cache knows how to load images with the uri's scheme */
+  static boolean canLoad(@NonNull Uri imageUri) {
+    String scheme = imageUri.getScheme();
+    if (scheme == null) {
+      return false;
+    }
+
+    switch (scheme) {
+      case "http":
+      case "https":
+      case "res":
+      case "file":
+      case "content":
+      case "android.resource":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  static String getMemoryCacheKey(String imageUrl, int width, int height) {
+    return imageUrl + "#" + width + "x" + height;
+  }
+
+  static @Nullable Bitmap getFromMemory(String imageUrl, int width, int height) {
+    return sMemoryCache.get(getMemoryCacheKey(imageUrl, width, height));
+  }
+
+  static void putInMemory(String imageUrl, int width, int height, @NonNull Bitmap bitmap) {
+    sMemoryCache.put(getMemoryCacheKey(imageUrl, width, height), bitmap);
+  }
+
+  /**
+   * Loads an image through the cache. This blocks on disk and network I/O, so must not be called
+   * on the main thread.
+   *
+   * @param imageUri resolved image uri
+   * @param imageUrl the image URL as given by the user, used as cache key
+   * @param slot the slot the image is sized for, or null to keep the source size
+   * @return Bitmap or null if the image failed to load, or its scheme is not supported (see
+   *     {@link #canLoad(Uri)})
+   */
+  static @Nullable Bitmap getBitmap(
+      @NonNull Uri imageUri, @NonNull String imageUrl, @Nullable ImageSlot slot) {
+    int width = slot != null ? slot.getMaxWidth() : 0;
+    int height = slot != null ? slot.getMaxHeight() : 0;
+    Bitmap bitmap = getFromMemory(imageUrl, width, height);
+    if (bitmap != null) {
+      sMemoryHitCount.incrementAndGet();
+      return bitmap;
+    }
+
+    String scheme = imageUri.getScheme();
+    if (scheme == null) {
+      return null;
+    }
+
+    switch (scheme) {
+      case "http":
+      case "https":
+        bitmap = getRemoteBitmap(imageUrl, width, height);
+        break;
+      case "res":
+        sMissCount.incrementAndGet();
+        bitmap = getResourceBitmap(imageUri);
+        break;
+      case "file":
+      case "content":
+      case "android.resource":
+        sMissCount.incrementAndGet();
+        bitmap = getContentBitmap(imageUri, width, height);
+        break;
+      default:
+        return null;
+    }
+
+    if (bitmap != null) {
+      // the sized variant is cached, so a hit never has to be scaled again
+      if (slot != null) {
+        bitmap = ResourceUtils.getSizedBitmap(bitmap, slot);
+      }
+      putInMemory(imageUrl, width, height, bitmap);
+    }
+
+    return bitmap;
+  }
+
+  private static @Nullable Bitmap getRemoteBitmap(String imageUrl, int width, int height) {
+    byte[] bytes = readFromDisk(imageUrl);
+
+    if (bytes != null) {
+      sDiskHitCount.incrementAndGet();
+    } else {
+      sMissCount.incrementAndGet();
+      bytes = fetch(imageUrl);
+      if (bytes == null) {
+        return null;
+      }
+      writeToDisk(imageUrl, bytes);
+    }
+
+    return decodeBytes(bytes, width, height);
+  }
+
+  private static @Nullable Bitmap getResourceBitmap(Uri imageUri) {
+    Context context = ContextHolder.getApplicationContext();
+
+    try {
+      int resourceId = Integer.parseInt(imageUri.getLastPathSegment());
+      Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), resourceId);
+      if (bitmap != null) {
+        return bitmap;
+      }
+
+      // Vector and other non-bitmap drawables need to be drawn
+      Drawable drawable = ContextCompat.getDrawable(context, resourceId);
+      if (drawable == null) {
+        return null;
+      }
+
+      if (drawable instanceof BitmapDrawable) {
+        return ((BitmapDrawable) drawable).getBitmap();
+      }
+
+      int width = Math.max(drawable.getIntrinsicWidth(), 1);
+      int height = Math.max(drawable.getIntrinsicHeight(), 1);
+      bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      Canvas canvas = new Canvas(bitmap);
+      drawable.setBounds(0, 0, width, height);
+      drawable.draw(canvas);
+      return bitmap;
+    } catch (Exception e) {
+      Logger.e(TAG, "Failed to load an image resource: " + imageUri, e);
+      return null;
+    }
+  }
+
+  private static @Nullable Bitmap getContentBitmap(Uri imageUri, int width, int height) {
+    Context context = ContextHolder.getApplicationContext();
+
+    try (InputStream inputStream = context.getContentResolver().openInputStream(imageUri)) {
+      if (inputStream == null) {
+        return null;
+      }
+      return decodeBytes(readFully(inputStream, MAX_DOWNLOAD_BYTES), width, height);
+    } catch (Exception e) {
+      Logger.e(TAG, "Failed to load an image: " + imageUri, e);
+      return null;
+    }
+  }
+
+  /**
+   * Decodes encoded image bytes, subsampling when the image is at least twice the target size so
+   * the full size image never has to be held in memory.
+   */
+  static @Nullable Bitmap decodeBytes(@Nullable byte[] bytes, int width, int height) {
+    if (bytes == null) {
+      return null;
+    }
+
+    BitmapFactory.Options options = new BitmapFactory.Options();
+
+    if (width > 0 && height > 0) {
+      options.inJustDecodeBounds = true;
+      BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+
+      int sampleSize = 1;
+      while (options.outWidth / (sampleSize * 2) >= width
+          && options.outHeight / (sampleSize * 2) >= height) {
+        sampleSize *= 2;
+      }
+
+      options = new BitmapFactory.Options();
+      options.inSampleSize = sampleSize;
+    }
+
+    return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+  }
+
+  private static @Nullable byte[] fetch(String imageUrl) {
+    ImageFetcher imageFetcher = sImageFetcher;
+    if (imageFetcher == null && !Fresco.hasBeenInitialized()) {
+      return download(imageUrl);
+    }
+
+    try {
+      byte[] bytes =
+          imageFetcher != null ? imageFetcher.fetch(imageUrl) : fetchFromFresco(imageUrl);
+      if (bytes != null && bytes.length > MAX_DOWNLOAD_BYTES) {
+        throw new IOException("Image exceeds " + MAX_DOWNLOAD_BYTES + " bytes");
+      }
+      return bytes;
+    } catch (Throwable e) {
+      // not retried with a plain download, which would bypass the host's networking
+      Logger.e(TAG, "Failed to load an image: " + imageUrl, e);
+      return null;
+    }
+  }
+
+  // the encoded image, which the pipeline downloads with the host's configuration
+  private static @Nullable byte[] fetchFromFresco(String imageUrl) throws Throwable {
+    DataSource<CloseableReference<PooledByteBuffer>> dataSource =
+        Fresco.getImagePipeline().fetchEncodedImage(ImageRequest.fromUri(imageUrl), null);
+
+    try {
+      CloseableReference<PooledByteBuffer> reference = DataSources.waitForFinalResult(dataSource);
+      if (reference == null) {
+        return null;
+      }
+
+      try (InputStream inputStream = new PooledByteBufferInputStream(reference.get())) {
+        return readFully(inputStream, MAX_DOWNLOAD_BYTES);
+      } finally {
+        CloseableReference.closeSafely(reference);
+      }
+    } finally {
+      dataSource.close();
+    }
+  }
+
+  private static @Nullable byte[] download(String imageUrl) {
+    HttpURLConnection connection = null;
+
+    try {
+      connection = (HttpURLConnection) new URL(imageUrl).openConnection();
+      connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+      connection.setReadTimeout(READ_TIMEOUT_MS);
+      connection.setInstanceFollowRedirects(true);
+
+      int responseCode = connection.getResponseCode();
+      if (responseCode < 200 || responseCode >= 300) {
+        Logger.e(TAG, "Failed to load an image: " + imageUrl + " (HTTP " + responseCode + ")");
+        return null;
+      }
+
+      try (InputStream inputStream = connection.getInputStream()) {
+        return readFully(inputStream, MAX_DOWNLOAD_BYTES);
+      }
+    } catch (Exception e) {
+      Logger.e(TAG, "Failed to load an image: " + imageUrl, e);
+      return null;
+    } finally {
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  private static byte[] readFully(InputStream inputStream, int maxBytes) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int read;
+
+    while ((read = inputStream.read(buffer)) != -1) {
+      outputStream.write(buffer, 0, read);
+      if (outputStream.size() > maxBytes) {
+        throw new IOException("Image exceeds " + maxBytes + " bytes");
+      }
+    }
+
+    return outputStream.toByteArray();
+  }
+
+  private static @Nullable byte[] readFromDisk(String imageUrl) {
+    synchronized (sDiskLock) {
+      File directory = getDirectory();
+      if (directory == null) {
+        return null;
+      }
+
+      File file = new File(directory, getFileName(imageUrl));
+      if (!file.exists()) {
+        return null;
+      }
+
+      long now = System.currentTimeMillis();
+      if (now - file.lastModified() > DISK_CACHE_TTL_MS) {
+        deleteFromDisk(file);
+        return null;
+      }
+
+      byte[] bytes;
+      try (FileInputStream inputStream = new FileInputStream(file)) {
+        bytes = readFully(inputStream, MAX_DOWNLOAD_BYTES);
+      } catch (IOException e) {
+        Logger.e(TAG, "Failed to read cached image: " + imageUrl, e);
+        deleteFromDisk(file);
+        return null;
+      }
+
+      // marks the image as recently used for trimming and the TTL
+      file.setLastModified(now);
+      return bytes;
+    }
+  }
+
+  private static void writeToDisk(String imageUrl, byte[] bytes) {
+    synchronized (sDiskLock) {
+      File directory = getDirectory();
+      if (directory == null) {
+        return;
+      }
+
+      long diskBytes = getDiskBytes(directory);
+      File file = new File(directory, getFileName(imageUrl));
+      File tmpFile = new File(directory, file.getName() + ".tmp");
+      long replacedBytes = file.length();
+
+      try (FileOutputStream outputStream = new FileOutputStream(tmpFile)) {
+        outputStream.write(bytes);
+      } catch (IOException e) {
+        Logger.e(TAG, "Failed to cache image: " + imageUrl, e);
+        tmpFile.delete();
+        return;
+      }
+
+      if (!tmpFile.renameTo(file)) {
+        tmpFile.delete();
+        return;
+      }
+
+      sDiskBytes = diskBytes - replacedBytes + bytes.length;
+      if (sDiskBytes > DISK_CACHE_MAX_BYTES) {
+        trimDisk(directory);
+      }
+    }
+  }
+
+  private static void deleteFromDisk(File file) {
+    long length = file.length();
+    if (file.delete() && sDiskBytes >= 0) {
+      sDiskBytes = Math.max(sDiskBytes - length, 0);
+    }
+  }
+
+  /** The bytes held by the disk cache, measured on first use; must hold sDiskLock */
+  private static long getDiskBytes(File directory) {
+    if (sDiskBytes < 0) {
+      long totalBytes = 0;
+      File[] files = directory.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          totalBytes += file.length();
+        }
+      }
+      sDiskBytes = totalBytes;
+    }
+
+    return sDiskBytes;
+  }
+
+  /**
+   * Drops expired entries, then the least recently used ones until well within the budget. Only
+   * runs once the tracked size exceeds the budget, as it lists and sorts the whole directory.
+   */
+  private static void trimDisk(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+    long now = System.currentTimeMillis();
+    long totalBytes = 0;
+    for (File file : files) {
+      totalBytes += file.length();
+    }
+
+    for (File file : files) {
+      if (totalBytes <= DISK_CACHE_TRIM_TO_BYTES
+          && now - file.lastModified() <= DISK_CACHE_TTL_MS) {
+        break;
+      }
+
+      long length = file.length();
+      if (file.delete()) {
+        totalBytes -= length;
+      }
+    }
+
+    sDiskBytes = totalBytes;
+  }
+
+  private static @Nullable File getDirectory() {
+    Context context = ContextHolder.getApplicationContext();
+    if (context == null) {
+      return null;
+    }
+
+    File directory = new File(context.getCacheDir(), DIRECTORY);
+    if (!directory.exists() && !directory.mkdirs()) {
+      Logger.e(TAG, "Failed to create directory " + directory);
+      return null;
+    }
+
+    return directory;
+  }
+
+  private static String getFileName(String imageUrl) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      byte[] hash = digest.digest(imageUrl.getBytes("UTF-8"));
+      StringBuilder builder = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        builder.append(String.format("%02x", b));
+      }
+      return builder.toString();
+    } catch (Exception e) {
+      return Integer.toHexString(imageUrl.hashCode());
+    }
+  }
+}
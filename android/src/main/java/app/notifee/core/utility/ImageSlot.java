@@ -0,0 +1,109 @@
+package app.notifee.core.utility;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.ContextHolder;
+import java.util.Map;
+
+/**
+ * Where an image is shown in a notification. Each slot has a maximum size, in pixels, beyond which
+ * the system would only scale the image down again, and the bitmap config it is stored in.
+ */
+public enum ImageSlot {
+  ACTION_ICON,
+  LARGE_ICON,
+  // person icons are set as adaptive bitmaps, which use a 108dp canvas
+  PERSON_ICON,
+  BIG_PICTURE;
+
+  // matches the framework's notification_big_picture_max_width/height
+  private static final int BIG_PICTURE_MAX_WIDTH_DP = 416;
+  private static final int BIG_PICTURE_MAX_HEIGHT_DP = 208;
+  private static final int ACTION_ICON_SIZE_DP = 48;
+  private static final int ADAPTIVE_ICON_SIZE_DP = 108;
+
+  public int getMaxWidth() {
+    Resources resources = ContextHolder.getApplicationContext().getResources();
+
+    switch (this) {
+      case ACTION_ICON:
+        return dpToPx(resources, ACTION_ICON_SIZE_DP);
+      case LARGE_ICON:
+        return resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_width);
+      case PERSON_ICON:
+        return dpToPx(resources, ADAPTIVE_ICON_SIZE_DP);
+      case BIG_PICTURE:
+      default:
+        return Math.min(
+            resources.getDisplayMetrics().widthPixels,
+            dpToPx(resources, BIG_PICTURE_MAX_WIDTH_DP));
+    }
+  }
+
+  public int getMaxHeight() {
+    Resources resources = ContextHolder.getApplicationContext().getResources();
+
+    switch (this) {
+      case ACTION_ICON:
+        return dpToPx(resources, ACTION_ICON_SIZE_DP);
+      case LARGE_ICON:
+        return resources.getDimensionPixelSize(android.R.dimen.notification_large_icon_height);
+      case PERSON_ICON:
+        return dpToPx(resources, ADAPTIVE_ICON_SIZE_DP);
+      case BIG_PICTURE:
+      default:
+        return dpToPx(resources, BIG_PICTURE_MAX_HEIGHT_DP);
+    }
+  }
+
+  /**
+   * Icons keep their alpha channel as they may be masked or cropped; an opaque big picture is
+   * stored as RGB_565, which halves its size.
+   */
+  public Bitmap.Config getConfig(@NonNull Bitmap source) {
+    if (this == BIG_PICTURE && !source.hasAlpha()) {
+      return Bitmap.Config.RGB_565;
+    }
+
+    return Bitmap.Config.ARGB_8888;
+  }
+
+  /**
+   * Records that an image is shown in a slot. An image shown in more than one slot is fetched once,
+   * sized for the largest of them.
+   */
+  public static void add(
+      @NonNull Map<String, ImageSlot> images, @Nullable String imageUrl, @NonNull ImageSlot slot) {
+    if (imageUrl == null) {
+      return;
+    }
+
+    ImageSlot existing = images.get(imageUrl);
+    if (existing == null || existing.ordinal() < slot.ordinal()) {
+      images.put(imageUrl, slot);
+    }
+  }
+
+  private static int dpToPx(Resources resources, int dp) {
+    return Math.round(dp * resources.getDisplayMetrics().density);
+  }
+}
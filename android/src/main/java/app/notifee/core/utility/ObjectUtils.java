@@ -19,17 +19,21 @@ package app.notifee.core.utility;
 
 import android.os.Bundle;
 import android.os.Parcel;
+import android.os.Parcelable;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import app.notifee.core.Logger;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public class ObjectUtils {
+  private static final String TAG = "ObjectUtils";
 
   public static @Nullable Class getClassForName(String className) {
     try {
@@ -90,7 +94,40 @@ public class ObjectUtils {
     return (long) value;
   }
 
+  /* Encodes a bundle for storage, see PayloadCodec */
   public static byte[] bundleToBytes(@NonNull Bundle bundle) {
+    try {
+      return PayloadCodec.encode(bundleToPayload(bundle));
+    } catch (IllegalArgumentException e) {
+      Logger.w(TAG, "Storing bundle with Parcel, unsupported value: " + e.getMessage());
+      return marshallBundle(bundle);
+    }
+  }
+
+  /* Decodes a stored bundle, written either by the payload codec or with Parcel.marshall */
+  @NonNull
+  public static Bundle bytesToBundle(byte[] bytes) {
+    if (PayloadCodec.isEncoded(bytes)) {
+      return payloadToBundle(PayloadCodec.decode(bytes));
+    }
+
+    return unmarshallBundle(bytes);
+  }
+
+  /*
+   * Decodes only the given top level keys of a stored bundle, skipping everything else. Bundles
+   * stored with Parcel.marshall can only be decoded in full.
+   */
+  @NonNull
+  public static Bundle bytesToBundle(byte[] bytes, String... keys) {
+    if (PayloadCodec.isEncoded(bytes)) {
+      return payloadToBundle(PayloadCodec.decode(bytes, keys));
+    }
+
+    return unmarshallBundle(bytes);
+  }
+
+  private static byte[] marshallBundle(@NonNull Bundle bundle) {
     Parcel parcel = Parcel.obtain();
     parcel.writeBundle(bundle);
     byte[] bytes = parcel.marshall();
@@ -98,8 +135,7 @@ public class ObjectUtils {
     return bytes;
   }
 
-  @NonNull
-  public static Bundle bytesToBundle(byte[] bytes) {
+  private static Bundle unmarshallBundle(byte[] bytes) {
     Parcel parcel = Parcel.obtain();
     parcel.unmarshall(bytes, 0, bytes.length);
     parcel.setDataPosition(0);
@@ -108,6 +144,111 @@ public class ObjectUtils {
     return Objects.requireNonNull(bundle);
   }
 
+  // Unlike bundleToMap, keeps arrays as arrays so a bundle is restored with the same value types
+  private static Map<String, Object> bundleToPayload(@NonNull Bundle bundle) {
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (String key : bundle.keySet()) {
+      map.put(key, toPayloadValue(bundle.get(key)));
+    }
+    return map;
+  }
+
+  private static Object toPayloadValue(@Nullable Object value) {
+    if (value instanceof Bundle) {
+      return bundleToPayload((Bundle) value);
+    }
+
+    if (value instanceof Parcelable[]) {
+      Parcelable[] parcelables = (Parcelable[]) value;
+      Map<?, ?>[] maps = new Map<?, ?>[parcelables.length];
+      for (int i = 0; i < parcelables.length; i++) {
+        if (!(parcelables[i] instanceof Bundle)) {
+          throw new IllegalArgumentException("Unsupported parcelable array");
+        }
+        maps[i] = bundleToPayload((Bundle) parcelables[i]);
+      }
+      return maps;
+    }
+
+    if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      List<Object> payloadList = new ArrayList<>(list.size());
+      for (Object item : list) {
+        payloadList.add(toPayloadValue(item));
+      }
+      return payloadList;
+    }
+
+    return value;
+  }
+
+  private static Bundle payloadToBundle(@NonNull Map<String, Object> map) {
+    Bundle bundle = new Bundle();
+
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      String key = entry.getKey();
+      Object value = entry.getValue();
+
+      if (value == null) {
+        bundle.putString(key, null);
+      } else if (value instanceof Boolean) {
+        bundle.putBoolean(key, (Boolean) value);
+      } else if (value instanceof Integer) {
+        bundle.putInt(key, (Integer) value);
+      } else if (value instanceof Long) {
+        bundle.putLong(key, (Long) value);
+      } else if (value instanceof Double) {
+        bundle.putDouble(key, (Double) value);
+      } else if (value instanceof Float) {
+        bundle.putFloat(key, (Float) value);
+      } else if (value instanceof String) {
+        bundle.putString(key, (String) value);
+      } else if (value instanceof Map) {
+        bundle.putBundle(key, payloadToBundle(castPayloadMap(value)));
+      } else if (value instanceof List) {
+        bundle.putSerializable(key, toBundleList((List<?>) value));
+      } else if (value instanceof int[]) {
+        bundle.putIntArray(key, (int[]) value);
+      } else if (value instanceof long[]) {
+        bundle.putLongArray(key, (long[]) value);
+      } else if (value instanceof double[]) {
+        bundle.putDoubleArray(key, (double[]) value);
+      } else if (value instanceof boolean[]) {
+        bundle.putBooleanArray(key, (boolean[]) value);
+      } else if (value instanceof String[]) {
+        bundle.putStringArray(key, (String[]) value);
+      } else if (value instanceof Map[]) {
+        Map<?, ?>[] maps = (Map<?, ?>[]) value;
+        Bundle[] bundles = new Bundle[maps.length];
+        for (int i = 0; i < maps.length; i++) {
+          bundles[i] = payloadToBundle(castPayloadMap(maps[i]));
+        }
+        bundle.putParcelableArray(key, bundles);
+      }
+    }
+
+    return bundle;
+  }
+
+  private static ArrayList<Object> toBundleList(List<?> list) {
+    ArrayList<Object> bundleList = new ArrayList<>(list.size());
+    for (Object item : list) {
+      if (item instanceof Map) {
+        bundleList.add(payloadToBundle(castPayloadMap(item)));
+      } else if (item instanceof List) {
+        bundleList.add(toBundleList((List<?>) item));
+      } else {
+        bundleList.add(item);
+      }
+    }
+    return bundleList;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> castPayloadMap(Object value) {
+    return (Map<String, Object>) value;
+  }
+
   public static Map<String, Object> bundleToMap(Bundle bundle) throws IllegalArgumentException {
     Map<String, Object> map = new HashMap<>();
     for (String key : bundle.keySet()) {
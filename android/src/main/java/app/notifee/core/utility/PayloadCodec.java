@@ -0,0 +1,550 @@
+package app.notifee.core.utility;
+
+/*
+ * Copyright (c) 2016-present Invertase Limited & Contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this library except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A versioned, self-describing binary encoding for stored notification and trigger payloads.
+ *
+ * <p>Unlike {@code Parcel.marshall()}, the format is defined here and stays stable across platform
+ * versions. Every value is tagged with its type, and maps, lists and arrays are prefixed with their
+ * size in bytes, so a reader can skip over values it does not need: see {@link #decode(byte[],
+ * String...)} and {@link #getValue(byte[], String...)}.
+ *
+ * <p>Layout: a 4 byte magic, a version byte, then the root map. A map is its byte length (fixed 4
+ * bytes), its entry count (varint) and the entries, each a string key followed by a tagged value.
+ *
+ * <p>Supported values are null, {@link Boolean}, {@link Integer}, {@link Long}, {@link Double},
+ * {@link Float}, {@link String}, {@link Map} with string keys, {@link List}, and arrays of int,
+ * long, double, boolean, String and Map.
+ */
+public final class PayloadCodec {
+  public static final int VERSION = 1;
+
+  // Read as a little-endian int, as Parcel writes a Bundle length, the magic is negative (and not
+  // -1, which Parcel uses for null), so it can never be mistaken for a marshalled Bundle.
+  private static final byte[] MAGIC = {0x4E, 0x46, 0x43, (byte) 0xC0};
+  private static final int HEADER_SIZE = MAGIC.length + 1;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_TRUE = 1;
+  private static final byte TAG_FALSE = 2;
+  private static final byte TAG_INT = 3;
+  private static final byte TAG_LONG = 4;
+  private static final byte TAG_DOUBLE = 5;
+  private static final byte TAG_FLOAT = 6;
+  private static final byte TAG_STRING = 7;
+  private static final byte TAG_MAP = 8;
+  private static final byte TAG_LIST = 9;
+  private static final byte TAG_INT_ARRAY = 10;
+  private static final byte TAG_LONG_ARRAY = 11;
+  private static final byte TAG_DOUBLE_ARRAY = 12;
+  private static final byte TAG_BOOLEAN_ARRAY = 13;
+  private static final byte TAG_STRING_ARRAY = 14;
+  private static final byte TAG_MAP_ARRAY = 15;
+
+  private PayloadCodec() {}
+
+  /** Whether the bytes were produced by {@link #encode(Map)}, of any version */
+  public static boolean isEncoded(@Nullable byte[] bytes) {
+    if (bytes == null || bytes.length < HEADER_SIZE) {
+      return false;
+    }
+
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (bytes[i] != MAGIC[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  public static @NonNull byte[] encode(@NonNull Map<String, ?> map) {
+    Writer writer = new Writer();
+    writer.writeBytes(MAGIC);
+    writer.writeByte(VERSION);
+    writer.writeMapBody(map);
+    return writer.toByteArray();
+  }
+
+  public static @NonNull Map<String, Object> decode(@NonNull byte[] bytes) {
+    return openRoot(bytes).readMapBody(null);
+  }
+
+  /** Decodes only the given top level keys; all other values are skipped without being decoded */
+  public static @NonNull Map<String, Object> decode(@NonNull byte[] bytes, String... keys) {
+    return openRoot(bytes).readMapBody(new HashSet<>(Arrays.asList(keys)));
+  }
+
+  /**
+   * Returns the value at a path of keys, descending into nested maps, or null if there is no such
+   * value. Only the value itself is decoded.
+   */
+  public static @Nullable Object getValue(@NonNull byte[] bytes, @NonNull String... path) {
+    Reader reader = openRoot(bytes);
+
+    for (int depth = 0; depth < path.length; depth++) {
+      int end = reader.readContainerEnd();
+      int count = reader.readVarint();
+      boolean found = false;
+
+      for (int i = 0; i < count; i++) {
+        String key = reader.readString();
+        byte tag = reader.readByte();
+
+        if (!key.equals(path[depth])) {
+          reader.skipValue(tag);
+          continue;
+        }
+
+        if (depth == path.length - 1) {
+          return reader.readValue(tag);
+        }
+
+        if (tag != TAG_MAP) {
+          return null;
+        }
+
+        found = true;
+        break;
+      }
+
+      if (!found) {
+        reader.position = end;
+        return null;
+      }
+    }
+
+    return null;
+  }
+
+  private static Reader openRoot(byte[] bytes) {
+    if (!isEncoded(bytes)) {
+      throw new IllegalArgumentException("Not an encoded payload");
+    }
+
+    int version = bytes[MAGIC.length];
+    if (version < 1 || version > VERSION) {
+      throw new IllegalArgumentException("Unsupported payload version " + version);
+    }
+
+    return new Reader(bytes, HEADER_SIZE);
+  }
+
+  private static final class Writer {
+    private byte[] mBuffer = new byte[256];
+    private int mSize = 0;
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      mBuffer[mSize++] = (byte) value;
+    }
+
+    void writeBytes(byte[] value) {
+      ensureCapacity(value.length);
+      System.arraycopy(value, 0, mBuffer, mSize, value.length);
+      mSize += value.length;
+    }
+
+    void writeVarint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        writeByte((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      writeByte((int) value);
+    }
+
+    void writeSignedVarint(long value) {
+      writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    void writeFixedInt(int value) {
+      writeByte(value >>> 24);
+      writeByte(value >>> 16);
+      writeByte(value >>> 8);
+      writeByte(value);
+    }
+
+    void writeFixedLong(long value) {
+      writeFixedInt((int) (value >>> 32));
+      writeFixedInt((int) value);
+    }
+
+    void writeString(String value) {
+      byte[] bytes = value.getBytes(UTF_8);
+      writeVarint(bytes.length);
+      writeBytes(bytes);
+    }
+
+    // container lengths are written once the contents are, into a reserved fixed size slot
+    int reserveLength() {
+      int position = mSize;
+      writeFixedInt(0);
+      return position;
+    }
+
+    void patchLength(int position) {
+      int length = mSize - position - 4;
+      mBuffer[position] = (byte) (length >>> 24);
+      mBuffer[position + 1] = (byte) (length >>> 16);
+      mBuffer[position + 2] = (byte) (length >>> 8);
+      mBuffer[position + 3] = (byte) length;
+    }
+
+    void writeMapBody(Map<?, ?> map) {
+      int lengthPosition = reserveLength();
+      writeVarint(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        if (!(entry.getKey() instanceof String)) {
+          throw new IllegalArgumentException("Map keys must be strings");
+        }
+        writeString((String) entry.getKey());
+        writeValue(entry.getValue());
+      }
+      patchLength(lengthPosition);
+    }
+
+    void writeValue(@Nullable Object value) {
+      if (value == null) {
+        writeByte(TAG_NULL);
+      } else if (value instanceof Boolean) {
+        writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+      } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        writeByte(TAG_INT);
+        writeSignedVarint(((Number) value).intValue());
+      } else if (value instanceof Long) {
+        writeByte(TAG_LONG);
+        writeSignedVarint((Long) value);
+      } else if (value instanceof Double) {
+        writeByte(TAG_DOUBLE);
+        writeFixedLong(Double.doubleToRawLongBits((Double) value));
+      } else if (value instanceof Float) {
+        writeByte(TAG_FLOAT);
+        writeFixedInt(Float.floatToRawIntBits((Float) value));
+      } else if (value instanceof CharSequence) {
+        writeByte(TAG_STRING);
+        writeString(value.toString());
+      } else if (value instanceof Map) {
+        writeByte(TAG_MAP);
+        writeMapBody((Map<?, ?>) value);
+      } else if (value instanceof List) {
+        List<?> list = (List<?>) value;
+        writeByte(TAG_LIST);
+        int lengthPosition = reserveLength();
+        writeVarint(list.size());
+        for (Object item : list) {
+          writeValue(item);
+        }
+        patchLength(lengthPosition);
+      } else if (value instanceof int[]) {
+        int[] array = (int[]) value;
+        writeByte(TAG_INT_ARRAY);
+        int lengthPosition = reserveLength();
+        writeVarint(array.length);
+        for (int item : array) {
+          writeSignedVarint(item);
+        }
+        patchLength(lengthPosition);
+      } else if (value instanceof long[]) {
+        long[] array = (long[]) value;
+        writeByte(TAG_LONG_ARRAY);
+        int lengthPosition = reserveLength();
+        writeVarint(array.length);
+        for (long item : array) {
+          writeSignedVarint(item);
+        }
+        patchLength(lengthPosition);
+      } else if (value instanceof double[]) {
+        double[] array = (double[]) value;
+        writeByte(TAG_DOUBLE_ARRAY);
+        int lengthPosition = reserveLength();
+        writeVarint(array.length);
+        for (double item : array) {
+          writeFixedLong(Double.doubleToRawLongBits(item));
+        }
+        patchLength(lengthPosition);
+      } else if (value instanceof boolean[]) {
+        boolean[] array = (boolean[]) value;
+        writeByte(TAG_BOOLEAN_ARRAY);
+        int lengthPosition = reserveLength();
+        writeVarint(array.length);
+        for (boolean item : array) {
+          writeByte(item ? 1 : 0);
+        }
+        patchLength(lengthPosition);
+      } else if (value instanceof String[]) {
+        String[] array = (String[]) value;
+        writeByte(TAG_STRING_ARRAY);
+        int lengthPosition = reserveLength();
+        writeVarint(array.length);
+        for (String item : array) {
+          writeValue(item);
+        }
+        patchLength(lengthPosition);
+      } else if (value instanceof Map[]) {
+        Map<?, ?>[] array = (Map<?, ?>[]) value;
+        writeByte(TAG_MAP_ARRAY);
+        int lengthPosition = reserveLength();
+        writeVarint(array.length);
+        for (Map<?, ?> item : array) {
+          writeValue(item);
+        }
+        patchLength(lengthPosition);
+      } else {
+        throw new IllegalArgumentException(
+            "Unsupported payload value type " + value.getClass().getName());
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(mBuffer, mSize);
+    }
+
+    private void ensureCapacity(int extra) {
+      if (mSize + extra > mBuffer.length) {
+        mBuffer = Arrays.copyOf(mBuffer, Math.max(mBuffer.length * 2, mSize + extra));
+      }
+    }
+  }
+
+  private static final class Reader {
+    private final byte[] mBytes;
+    int position;
+
+    Reader(byte[] bytes, int position) {
+      mBytes = bytes;
+      this.position = position;
+    }
+
+    byte readByte() {
+      if (position >= mBytes.length) {
+        throw new IllegalArgumentException("Truncated payload");
+      }
+      return mBytes[position++];
+    }
+
+    long readVarLong() {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = readByte();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+    int readVarint() {
+      return (int) readVarLong();
+    }
+
+    long readSignedVarint() {
+      long value = readVarLong();
+      return (value >>> 1) ^ -(value & 1);
+    }
+
+    int readFixedInt() {
+      return ((readByte() & 0xFF) << 24)
+          | ((readByte() & 0xFF) << 16)
+          | ((readByte() & 0xFF) << 8)
+          | (readByte() & 0xFF);
+    }
+
+    long readFixedLong() {
+      return ((long) readFixedInt() << 32) | (readFixedInt() & 0xFFFFFFFFL);
+    }
+
+    String readString() {
+      int length = readVarint();
+      if (length < 0 || position + length > mBytes.length) {
+        throw new IllegalArgumentException("Truncated payload");
+      }
+      String value = new String(mBytes, position, length, UTF_8);
+      position += length;
+      return value;
+    }
+
+    /** Reads a map, list or array length, returning the position just past its contents */
+    int readContainerEnd() {
+      int length = readFixedInt();
+      int end = position + length;
+      if (length < 0 || end > mBytes.length) {
+        throw new IllegalArgumentException("Truncated payload");
+      }
+      return end;
+    }
+
+    Map<String, Object> readMapBody(@Nullable Set<String> keys) {
+      int end = readContainerEnd();
+      int count = readVarint();
+      Map<String, Object> map = new LinkedHashMap<>(count);
+
+      for (int i = 0; i < count; i++) {
+        String key = readString();
+        byte tag = readByte();
+
+        if (keys == null || keys.contains(key)) {
+          map.put(key, readValue(tag));
+        } else {
+          skipValue(tag);
+        }
+      }
+
+      position = end;
+      return map;
+    }
+
+    @Nullable
+    Object readValue(byte tag) {
+      switch (tag) {
+        case TAG_NULL:
+          return null;
+        case TAG_TRUE:
+          return true;
+        case TAG_FALSE:
+          return false;
+        case TAG_INT:
+          return (int) readSignedVarint();
+        case TAG_LONG:
+          return readSignedVarint();
+        case TAG_DOUBLE:
+          return Double.longBitsToDouble(readFixedLong());
+        case TAG_FLOAT:
+          return Float.intBitsToFloat(readFixedInt());
+        case TAG_STRING:
+          return readString();
+        case TAG_MAP:
+          return readMapBody(null);
+        default:
+          return readArrayValue(tag);
+      }
+    }
+
+    private Object readArrayValue(byte tag) {
+      int end = readContainerEnd();
+      int count = readVarint();
+      Object value;
+
+      switch (tag) {
+        case TAG_LIST:
+          List<Object> list = new ArrayList<>(count);
+          for (int i = 0; i < count; i++) {
+            list.add(readValue(readByte()));
+          }
+          value = list;
+          break;
+        case TAG_INT_ARRAY:
+          int[] ints = new int[count];
+          for (int i = 0; i < count; i++) {
+            ints[i] = (int) readSignedVarint();
+          }
+          value = ints;
+          break;
+        case TAG_LONG_ARRAY:
+          long[] longs = new long[count];
+          for (int i = 0; i < count; i++) {
+            longs[i] = readSignedVarint();
+          }
+          value = longs;
+          break;
+        case TAG_DOUBLE_ARRAY:
+          double[] doubles = new double[count];
+          for (int i = 0; i < count; i++) {
+            doubles[i] = Double.longBitsToDouble(readFixedLong());
+          }
+          value = doubles;
+          break;
+        case TAG_BOOLEAN_ARRAY:
+          boolean[] booleans = new boolean[count];
+          for (int i = 0; i < count; i++) {
+            booleans[i] = readByte() != 0;
+          }
+          value = booleans;
+          break;
+        case TAG_STRING_ARRAY:
+          String[] strings = new String[count];
+          for (int i = 0; i < count; i++) {
+            strings[i] = (String) readValue(readByte());
+          }
+          value = strings;
+          break;
+        case TAG_MAP_ARRAY:
+          Map<?, ?>[] maps = new Map<?, ?>[count];
+          for (int i = 0; i < count; i++) {
+            maps[i] = (Map<?, ?>) readValue(readByte());
+          }
+          value = maps;
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown payload value tag " + tag);
+      }
+
+      position = end;
+      return value;
+    }
+
+    void skipValue(byte tag) {
+      switch (tag) {
+        case TAG_NULL:
+        case TAG_TRUE:
+        case TAG_FALSE:
+          break;
+        case TAG_INT:
+        case TAG_LONG:
+          readVarLong();
+          break;
+        case TAG_DOUBLE:
+          position += 8;
+          break;
+        case TAG_FLOAT:
+          position += 4;
+          break;
+        case TAG_STRING:
+          int length = readVarint();
+          position += length;
+          break;
+        case TAG_MAP:
+        case TAG_LIST:
+        case TAG_INT_ARRAY:
+        case TAG_LONG_ARRAY:
+        case TAG_DOUBLE_ARRAY:
+        case TAG_BOOLEAN_ARRAY:
+        case TAG_STRING_ARRAY:
+        case TAG_MAP_ARRAY:
+          position = readContainerEnd();
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown payload value tag " + tag);
+      }
+    }
+  }
+}
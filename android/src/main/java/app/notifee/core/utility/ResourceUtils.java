@@ -32,6 +32,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import app.notifee.core.ContextHolder;
 import app.notifee.core.Logger;
+import app.notifee.core.NotifeeExecutors;
 import com.facebook.common.executors.CallerThreadExecutor;
 import com.facebook.common.references.CloseableReference;
 import com.facebook.datasource.DataSource;
@@ -42,13 +43,20 @@ import com.facebook.imagepipeline.request.ImageRequest;
 import com.facebook.imagepipeline.request.ImageRequestBuilder;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class ResourceUtils {
   private static final String TAG = "ResourceUtils";
   private static final String LOCAL_RESOURCE_SCHEME = "res";
   private static volatile Map<String, Integer> sResourceIdCache;
+  // for bookkeeping too small to be worth a thread hop
+  private static final Executor DIRECT_EXECUTOR = Runnable::run;
 
   public static Map<String, Integer> getResourceIdCache() {
     if (sResourceIdCache == null) {
@@ -127,6 +135,44 @@ public class ResourceUtils {
     return output;
   }
 
+  /**
+   * Scales a bitmap down so it covers, but is no larger than, the maximum size of the slot it is
+   * shown in, and converts it to the slot's bitmap config. Bitmaps already within the slot are
+   * returned as is.
+   *
+   * @param bitmap
+   * @param slot
+   * @return Bitmap
+   */
+  public static Bitmap getSizedBitmap(@NonNull Bitmap bitmap, @NonNull ImageSlot slot) {
+    final int width = bitmap.getWidth();
+    final int height = bitmap.getHeight();
+    float scale =
+        Math.min(
+            1f,
+            Math.max((float) slot.getMaxWidth() / width, (float) slot.getMaxHeight() / height));
+    Bitmap.Config config = slot.getConfig(bitmap);
+
+    Bitmap output = bitmap;
+    if (scale < 1f) {
+      output =
+          Bitmap.createScaledBitmap(
+              bitmap,
+              Math.max(1, Math.round(width * scale)),
+              Math.max(1, Math.round(height * scale)),
+              true);
+    }
+
+    if (output.getConfig() != config) {
+      Bitmap converted = output.copy(config, false);
+      if (converted != null) {
+        output = converted;
+      }
+    }
+
+    return output;
+  }
+
   /**
    * Returns a Bitmap from any given HTTP image URL, or local resource.
    *
@@ -134,21 +180,46 @@ public class ResourceUtils {
    * @return Bitmap or null if the image failed to load
    */
   public static Task<Bitmap> getImageBitmapFromUrl(String imageUrl) {
+    return getImageBitmapFromUrl(imageUrl, null);
+  }
+
+  /**
+   * Returns a Bitmap from any given HTTP image URL, or local resource, sized for the slot it is
+   * shown in.
+   *
+   * <p>Remote, file, content and resource images are loaded through {@link ImageCache}; any other
+   * scheme (e.g. data URIs) falls back to Fresco.
+   *
+   * @param imageUrl
+   * @param slot the slot the image is shown in, or null to keep the source size
+   * @return Bitmap or null if the image failed to load
+   */
+  public static Task<Bitmap> getImageBitmapFromUrl(String imageUrl, @Nullable ImageSlot slot) {
     Uri imageUri;
-    final TaskCompletionSource<Bitmap> bitmapTCS = new TaskCompletionSource<>();
-    Task<Bitmap> bitmapTask = bitmapTCS.getTask();
 
     if (!imageUrl.contains("/")) {
       String imageResourceUrl = getImageResourceUrl(imageUrl);
       if (imageResourceUrl == null) {
-        bitmapTCS.setResult(null);
-        return bitmapTask;
+        return Tasks.forResult(null);
       }
       imageUri = getImageSourceUri(imageResourceUrl);
     } else {
       imageUri = getImageSourceUri(imageUrl);
     }
 
+    if (ImageCache.canLoad(imageUri)) {
+      // a fetch rejected by a full image lane fails, leaving the image out
+      return NotifeeExecutors.call(
+          NotifeeExecutors.Lane.IMAGE, () -> ImageCache.getBitmap(imageUri, imageUrl, slot));
+    }
+
+    return getImageBitmapFromFresco(imageUri, imageUrl);
+  }
+
+  private static Task<Bitmap> getImageBitmapFromFresco(Uri imageUri, String imageUrl) {
+    final TaskCompletionSource<Bitmap> bitmapTCS = new TaskCompletionSource<>();
+    Task<Bitmap> bitmapTask = bitmapTCS.getTask();
+
     ImageRequest imageRequest = ImageRequestBuilder.newBuilderWithSource(imageUri).build();
 
     // TODO(helenaford): handle destroying of fresco after use in background state
@@ -183,6 +254,60 @@ public class ResourceUtils {
     return bitmapTask;
   }
 
+  /**
+   * Fetches every given image URL at once, with a single overall deadline rather than one deadline
+   * per image. The caller's thread is not held while the images load; each fetch blocks an image
+   * lane thread on the network until it loads or times out. Images which fail to load, or have not
+   * loaded by the deadline, are omitted from the resulting map.
+   *
+   * @param images image URLs or local resource names, with the slot each is sized for
+   * @param timeout overall deadline for all images
+   * @param unit unit of the timeout
+   * @return Map of image URL to Bitmap
+   */
+  public static Task<Map<String, Bitmap>> getImageBitmapsFromUrls(
+      Map<String, ImageSlot> images, long timeout, TimeUnit unit) {
+    if (images.isEmpty()) {
+      return Tasks.forResult(new HashMap<>());
+    }
+
+    Map<String, Task<Bitmap>> bitmapTasks = new LinkedHashMap<>();
+    for (Map.Entry<String, ImageSlot> image : images.entrySet()) {
+      if (image.getKey() != null) {
+        bitmapTasks.put(image.getKey(), getImageBitmapFromUrl(image.getKey(), image.getValue()));
+      }
+    }
+
+    // completed by whichever comes first, every image loading or the deadline
+    TaskCompletionSource<Void> completion = new TaskCompletionSource<>();
+    ScheduledFuture<?> deadline =
+        NotifeeExecutors.schedule(() -> completion.trySetResult(null), timeout, unit);
+    Tasks.whenAllComplete(bitmapTasks.values())
+        .addOnCompleteListener(DIRECT_EXECUTOR, task -> completion.trySetResult(null));
+
+    return completion
+        .getTask()
+        .continueWith(
+            DIRECT_EXECUTOR,
+            task -> {
+              deadline.cancel(false);
+              Map<String, Bitmap> bitmaps = new HashMap<>();
+
+              for (Map.Entry<String, Task<Bitmap>> entry : bitmapTasks.entrySet()) {
+                Task<Bitmap> bitmapTask = entry.getValue();
+                if (bitmapTask.isComplete()
+                    && bitmapTask.isSuccessful()
+                    && bitmapTask.getResult() != null) {
+                  bitmaps.put(entry.getKey(), bitmapTask.getResult());
+                } else if (!bitmapTask.isComplete()) {
+                  Logger.w(TAG, "Image was not retrieved before the deadline: " + entry.getKey());
+                }
+              }
+
+              return bitmaps;
+            });
+  }
+
   /**
    * Returns a resource path for a local resource
    *
@@ -0,0 +1,81 @@
+package app.notifee.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class EventBatcherTest {
+
+  private static class RecordingListener implements EventBatcher.BatchListener<Integer> {
+    final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch delivered;
+
+    RecordingListener(int expectedBatches) {
+      delivered = new CountDownLatch(expectedBatches);
+    }
+
+    @Override
+    public void onBatch(List<Integer> events) {
+      batches.add(events);
+      delivered.countDown();
+    }
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    RecordingListener listener = new RecordingListener(0);
+    EventBatcher<Integer> batcher = new EventBatcher<>(listener);
+
+    assertFalse(batcher.isEnabled());
+    assertFalse(batcher.add(1));
+    batcher.flush();
+    assertTrue(listener.batches.isEmpty());
+  }
+
+  @Test
+  public void testSizeThresholdCompletesBatchesInOrder() {
+    RecordingListener listener = new RecordingListener(2);
+    EventBatcher<Integer> batcher = new EventBatcher<>(listener);
+    batcher.configure(TimeUnit.MINUTES.toMillis(1), 3);
+
+    for (int i = 0; i < 6; i++) {
+      assertTrue(batcher.add(i));
+    }
+
+    assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5)), listener.batches);
+  }
+
+  @Test
+  public void testWindowDeliversPartialBatch() throws Exception {
+    RecordingListener listener = new RecordingListener(1);
+    EventBatcher<Integer> batcher = new EventBatcher<>(listener);
+    batcher.configure(50, 100);
+
+    batcher.add(1);
+    batcher.add(2);
+
+    assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+    assertEquals(Collections.singletonList(Arrays.asList(1, 2)), listener.batches);
+  }
+
+  @Test
+  public void testDisablingFlushesWaitingEvents() {
+    RecordingListener listener = new RecordingListener(1);
+    EventBatcher<Integer> batcher = new EventBatcher<>(listener);
+    batcher.configure(TimeUnit.MINUTES.toMillis(1), 100);
+
+    batcher.add(1);
+    batcher.configure(0, 100);
+
+    assertEquals(Collections.singletonList(Collections.singletonList(1)), listener.batches);
+    assertFalse(batcher.add(2));
+  }
+}
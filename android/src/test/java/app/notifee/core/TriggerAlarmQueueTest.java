@@ -0,0 +1,159 @@
+package app.notifee.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import app.notifee.core.model.TimestampTriggerModel.AlarmType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class TriggerAlarmQueueTest {
+  private static final long WINDOW_MS = 1000;
+
+  private static List<String> ids(TriggerAlarmQueue queue) {
+    List<String> ids = new ArrayList<>();
+    for (TriggerAlarmQueue.Entry entry : queue.entries()) {
+      ids.add(entry.id);
+    }
+    return ids;
+  }
+
+  @Test
+  public void testOrdersByTimestampThenId() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("c", 3000, AlarmType.SET);
+    queue.put("b", 1000, AlarmType.SET);
+    queue.put("a", 1000, AlarmType.SET);
+    queue.put("d", 2000, AlarmType.SET);
+
+    assertEquals(Arrays.asList("a", "b", "d", "c"), ids(queue));
+    assertEquals("a", queue.first().id);
+  }
+
+  @Test
+  public void testPutMovesExistingTrigger() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("a", 1000, AlarmType.SET);
+    queue.put("b", 2000, AlarmType.SET);
+    queue.put("a", 3000, AlarmType.SET);
+
+    assertEquals(2, queue.size());
+    assertEquals(Arrays.asList("b", "a"), ids(queue));
+  }
+
+  @Test
+  public void testPollDueRemovesDueTriggersInOrder() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("late", 5000, AlarmType.SET);
+    queue.put("second", 2000, AlarmType.SET);
+    queue.put("first", 1000, AlarmType.SET);
+
+    assertEquals(Arrays.asList("first", "second"), queue.pollDue(2000));
+    assertEquals(Collections.singletonList("late"), ids(queue));
+    assertFalse(queue.ids().contains("first"));
+    assertTrue(queue.pollDue(4999).isEmpty());
+  }
+
+  @Test
+  public void testCancel() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("a", 1000, AlarmType.SET);
+    queue.put("b", 2000, AlarmType.SET);
+
+    assertTrue(queue.remove("a"));
+    assertFalse(queue.remove("a"));
+    assertFalse(queue.remove("unknown"));
+    assertEquals("b", queue.first().id);
+
+    queue.clear();
+    assertTrue(queue.isEmpty());
+    assertNull(queue.first());
+    assertNull(queue.getAlarmType(0, WINDOW_MS));
+  }
+
+  @Test
+  public void testAlarmTypeIgnoresTriggersNotYetDue() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("soon", 1000, AlarmType.SET);
+    queue.put("nextYear", 1000 + 365L * 24 * 60 * 60 * 1000, AlarmType.SET_EXACT);
+
+    assertEquals(AlarmType.SET, queue.getAlarmType(1000, WINDOW_MS));
+
+    queue.remove("soon");
+    assertEquals(AlarmType.SET_EXACT, queue.getAlarmType(queue.first().timestamp, WINDOW_MS));
+  }
+
+  @Test
+  public void testAlarmTypeCombinesTriggersDueTogether() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("exact", 1000, AlarmType.SET_EXACT);
+    queue.put("idle", 1500, AlarmType.SET_AND_ALLOW_WHILE_IDLE);
+
+    assertEquals(AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE, queue.getAlarmType(1000, WINDOW_MS));
+  }
+
+  @Test
+  public void testAlarmTypeOfPreRenderAlarmUsesEarliestTrigger() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("a", 10000, AlarmType.SET_AND_ALLOW_WHILE_IDLE);
+
+    // armed early to pre-render, the alarm still serves the earliest trigger
+    assertEquals(AlarmType.SET_AND_ALLOW_WHILE_IDLE, queue.getAlarmType(5000, WINDOW_MS));
+  }
+
+  @Test
+  public void testExactTriggerAfterInexactOneGetsItsOwnAlarm() {
+    long fiveMinutes = 5 * 60 * 1000;
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("inexact", 1000, AlarmType.SET);
+    queue.put("exact", 1000 + fiveMinutes, AlarmType.SET_EXACT);
+
+    AlarmType alarmType = queue.getAlarmType(1000, WINDOW_MS);
+    assertEquals(AlarmType.SET, alarmType);
+
+    TriggerAlarmQueue.Entry uncovered = queue.firstNotCoveredBy(alarmType, true);
+    assertEquals("exact", uncovered.id);
+    assertEquals(AlarmType.SET_EXACT, queue.getAlarmType(uncovered.timestamp, WINDOW_MS));
+
+    // without exact alarms, there is nothing a second alarm could do better
+    assertNull(queue.firstNotCoveredBy(alarmType, false));
+
+    queue.remove("exact");
+    assertNull(queue.firstNotCoveredBy(alarmType, true));
+  }
+
+  @Test
+  public void testUncoveredTriggerIsTheEarliestNeedingMore() {
+    TriggerAlarmQueue queue = new TriggerAlarmQueue();
+    queue.put("inexact", 1000, AlarmType.SET);
+    queue.put("idle", 2000, AlarmType.SET_AND_ALLOW_WHILE_IDLE);
+    queue.put("exact", 3000, AlarmType.SET_EXACT);
+
+    assertEquals("idle", queue.firstNotCoveredBy(AlarmType.SET, true).id);
+    assertEquals("exact", queue.firstNotCoveredBy(AlarmType.SET_AND_ALLOW_WHILE_IDLE, true).id);
+    assertEquals("idle", queue.firstNotCoveredBy(AlarmType.SET_EXACT, true).id);
+    assertNull(queue.firstNotCoveredBy(AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE, true));
+
+    queue.pollDue(2000);
+    assertEquals("exact", queue.firstNotCoveredBy(AlarmType.SET, true).id);
+    queue.clear();
+    assertNull(queue.firstNotCoveredBy(AlarmType.SET, true));
+  }
+
+  @Test
+  public void testToInexactKeepsIdleAllowance() {
+    assertEquals(AlarmType.SET, TriggerAlarmQueue.toInexact(AlarmType.SET_EXACT));
+    assertEquals(
+        AlarmType.SET_AND_ALLOW_WHILE_IDLE,
+        TriggerAlarmQueue.toInexact(AlarmType.SET_EXACT_AND_ALLOW_WHILE_IDLE));
+    assertEquals(
+        AlarmType.SET_AND_ALLOW_WHILE_IDLE,
+        TriggerAlarmQueue.toInexact(AlarmType.SET_AND_ALLOW_WHILE_IDLE));
+    assertEquals(AlarmType.SET, TriggerAlarmQueue.toInexact(AlarmType.SET));
+  }
+}
@@ -0,0 +1,110 @@
+package app.notifee.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import org.junit.Test;
+
+public class RecurrenceRuleTest {
+  private static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+  private static final long MINUTE = 60 * 1000;
+  private static final long HOUR = 60 * MINUTE;
+  private static final long DAY = 24 * HOUR;
+
+  private static long time(int year, int month, int day, int hour, int minute) {
+    Calendar calendar = Calendar.getInstance(NEW_YORK);
+    calendar.clear();
+    calendar.set(year, month - 1, day, hour, minute);
+    return calendar.getTimeInMillis();
+  }
+
+  private static RecurrenceRule rule(long start, int frequency, int interval) {
+    return new RecurrenceRule(
+        start, frequency, interval, null, null, null, 0, null, null, NEW_YORK);
+  }
+
+  @Test
+  public void testDailyKeepsWallClockTimeAcrossDaylightSaving() {
+    // clocks go forward on 10 March 2024 in New York, so that day is 23 hours long
+    RecurrenceRule daily = rule(time(2024, 3, 9, 9, 0), RecurrenceRule.DAILY, 1);
+
+    assertEquals(
+        Long.valueOf(time(2024, 3, 10, 9, 0)),
+        daily.getNextOccurrence(time(2024, 3, 9, 9, 0)));
+    assertEquals(
+        Long.valueOf(time(2024, 3, 11, 9, 0)),
+        daily.getNextOccurrence(time(2024, 3, 10, 9, 0)));
+  }
+
+  @Test
+  public void testSkipsMissedPeriodsInClosedForm() {
+    long start = time(2024, 1, 1, 8, 30);
+    RecurrenceRule everyThirdDay = rule(start, RecurrenceRule.DAILY, 3);
+
+    // more than a year of missed occurrences
+    assertEquals(
+        Long.valueOf(time(2025, 1, 1, 8, 30)),
+        everyThirdDay.getNextOccurrence(time(2024, 12, 31, 9, 0)));
+
+    RecurrenceRule hourly = rule(start, RecurrenceRule.HOURLY, 2);
+    assertEquals(
+        Long.valueOf(start + 500 * 2 * HOUR), hourly.getNextOccurrence(start + 999 * HOUR));
+  }
+
+  @Test
+  public void testWeeklyByDayByHourByMinute() {
+    // Monday 1 January 2024
+    RecurrenceRule rule =
+        new RecurrenceRule(
+            time(2024, 1, 1, 0, 0),
+            RecurrenceRule.WEEKLY,
+            2,
+            new int[] {Calendar.FRIDAY, Calendar.MONDAY},
+            new int[] {18, 9},
+            new int[] {30},
+            0,
+            null,
+            null,
+            NEW_YORK);
+
+    assertEquals(
+        Long.valueOf(time(2024, 1, 1, 9, 30)), rule.getNextOccurrence(time(2024, 1, 1, 0, 0)));
+    assertEquals(
+        Long.valueOf(time(2024, 1, 1, 18, 30)), rule.getNextOccurrence(time(2024, 1, 1, 9, 30)));
+    assertEquals(
+        Long.valueOf(time(2024, 1, 5, 9, 30)), rule.getNextOccurrence(time(2024, 1, 1, 19, 0)));
+    // the week of 8 January is skipped by the interval
+    assertEquals(
+        Long.valueOf(time(2024, 1, 15, 9, 30)), rule.getNextOccurrence(time(2024, 1, 5, 18, 30)));
+  }
+
+  @Test
+  public void testCountUntilAndExcludedDates() {
+    long start = time(2024, 6, 1, 12, 0);
+    RecurrenceRule counted =
+        new RecurrenceRule(
+            start,
+            RecurrenceRule.DAILY,
+            1,
+            null,
+            null,
+            null,
+            3,
+            null,
+            new long[] {start + DAY},
+            NEW_YORK);
+
+    // the excluded second occurrence still counts towards the three
+    assertEquals(Long.valueOf(start), counted.getNextOccurrence(start - 1));
+    assertEquals(Long.valueOf(start + 2 * DAY), counted.getNextOccurrence(start));
+    assertNull(counted.getNextOccurrence(start + 2 * DAY));
+
+    RecurrenceRule until =
+        new RecurrenceRule(
+            start, RecurrenceRule.HOURLY, 1, null, null, null, 0, start + HOUR, null, NEW_YORK);
+    assertEquals(Long.valueOf(start + HOUR), until.getNextOccurrence(start));
+    assertNull(until.getNextOccurrence(start + HOUR));
+  }
+}
@@ -41,4 +41,22 @@ public class TimestampTriggerModelTest {
     assertEquals(
         "with no 'repeatFrequency', delay should be 0", 0, mTimestampTriggerModel.getDelay());
   }
+
+  @Test
+  public void testNextOccurrence() {
+    long minute = 60 * 1000;
+
+    assertEquals(
+        "a timestamp after the given time is unchanged",
+        1000L,
+        TimestampTriggerModel.getNextOccurrence(1000, minute, 999));
+    assertEquals(
+        "an occurrence at the given time moves on one interval",
+        1000L + minute,
+        TimestampTriggerModel.getNextOccurrence(1000, minute, 1000));
+    assertEquals(
+        "missed occurrences are skipped, keeping to the original schedule",
+        1000L + 4 * minute,
+        TimestampTriggerModel.getNextOccurrence(1000, minute, 1000 + 3 * minute + 1));
+  }
 }
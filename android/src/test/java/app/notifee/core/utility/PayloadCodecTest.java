@@ -0,0 +1,149 @@
+package app.notifee.core.utility;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class PayloadCodecTest {
+
+  private static Map<String, Object> createTrigger() {
+    Map<String, Object> alarmManager = new LinkedHashMap<>();
+    alarmManager.put("type", 3);
+
+    Map<String, Object> trigger = new LinkedHashMap<>();
+    trigger.put("type", 0);
+    trigger.put("timestamp", 1700000000000L);
+    trigger.put("repeatFrequency", -1);
+    trigger.put("alarmManager", alarmManager);
+    return trigger;
+  }
+
+  @Test
+  public void testRoundTripPrimitives() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("null", null);
+    map.put("true", true);
+    map.put("false", false);
+    map.put("int", Integer.MIN_VALUE);
+    map.put("long", Long.MAX_VALUE);
+    map.put("negativeLong", -42L);
+    map.put("double", 3.5d);
+    map.put("float", 1.25f);
+    map.put("string", "Notif\u00e9e \u2713 \ud83d\udd14");
+    map.put("empty", "");
+
+    Map<String, Object> decoded = PayloadCodec.decode(PayloadCodec.encode(map));
+
+    assertEquals(map, decoded);
+    assertTrue("int should stay an Integer", decoded.get("int") instanceof Integer);
+    assertTrue("long should stay a Long", decoded.get("negativeLong") instanceof Long);
+    assertTrue("float should stay a Float", decoded.get("float") instanceof Float);
+  }
+
+  @Test
+  public void testRoundTripNestedMapsAndLists() {
+    Map<String, Object> action = new LinkedHashMap<>();
+    action.put("title", "Reply");
+
+    List<Object> actions = new ArrayList<>();
+    actions.add(action);
+    actions.add(null);
+    actions.add(7d);
+
+    Map<String, Object> android = new LinkedHashMap<>();
+    android.put("channelId", "default");
+    android.put("actions", actions);
+
+    Map<String, Object> notification = new LinkedHashMap<>();
+    notification.put("id", "abc");
+    notification.put("android", android);
+    notification.put("data", new LinkedHashMap<String, Object>());
+
+    assertEquals(notification, PayloadCodec.decode(PayloadCodec.encode(notification)));
+  }
+
+  @Test
+  public void testRoundTripArrays() {
+    Map<String, Object> first = new LinkedHashMap<>();
+    first.put("key", "value");
+
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("ints", new int[] {1, -1, 300});
+    map.put("longs", new long[] {0L, 300L, -5000000000L});
+    map.put("doubles", new double[] {0.1, -2});
+    map.put("booleans", new boolean[] {true, false});
+    map.put("strings", new String[] {"a", null, "c"});
+    map.put("maps", new Map<?, ?>[] {first, new LinkedHashMap<String, Object>()});
+
+    Map<String, Object> decoded = PayloadCodec.decode(PayloadCodec.encode(map));
+
+    assertArrayEquals((int[]) map.get("ints"), (int[]) decoded.get("ints"));
+    assertArrayEquals((long[]) map.get("longs"), (long[]) decoded.get("longs"));
+    assertArrayEquals((double[]) map.get("doubles"), (double[]) decoded.get("doubles"), 0);
+    assertTrue(Arrays.equals((boolean[]) map.get("booleans"), (boolean[]) decoded.get("booleans")));
+    assertArrayEquals((String[]) map.get("strings"), (String[]) decoded.get("strings"));
+    assertArrayEquals((Map<?, ?>[]) map.get("maps"), (Map<?, ?>[]) decoded.get("maps"));
+  }
+
+  @Test
+  public void testDecodeSelectedKeys() {
+    Map<String, Object> trigger = createTrigger();
+    trigger.put("large", new String[] {"skipped", "without", "decoding"});
+
+    Map<String, Object> decoded =
+        PayloadCodec.decode(PayloadCodec.encode(trigger), "timestamp", "repeatFrequency");
+
+    assertEquals(2, decoded.size());
+    assertEquals(1700000000000L, decoded.get("timestamp"));
+    assertEquals(-1, decoded.get("repeatFrequency"));
+  }
+
+  @Test
+  public void testGetValue() {
+    byte[] bytes = PayloadCodec.encode(createTrigger());
+
+    assertEquals(1700000000000L, PayloadCodec.getValue(bytes, "timestamp"));
+    assertEquals(3, PayloadCodec.getValue(bytes, "alarmManager", "type"));
+    assertNull(PayloadCodec.getValue(bytes, "missing"));
+    assertNull(PayloadCodec.getValue(bytes, "timestamp", "type"));
+    assertNull(PayloadCodec.getValue(bytes, "alarmManager", "missing"));
+  }
+
+  @Test
+  public void testIsEncoded() {
+    assertTrue(PayloadCodec.isEncoded(PayloadCodec.encode(createTrigger())));
+    assertFalse(PayloadCodec.isEncoded(null));
+    assertFalse(PayloadCodec.isEncoded(new byte[0]));
+    // a marshalled Bundle starts with its length as a little-endian int
+    assertFalse(PayloadCodec.isEncoded(new byte[] {0x40, 0x00, 0x00, 0x00, 0x42, 0x4E}));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsNewerVersion() {
+    byte[] bytes = PayloadCodec.encode(createTrigger());
+    bytes[4] = (byte) (PayloadCodec.VERSION + 1);
+    PayloadCodec.decode(bytes);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsTruncatedPayload() {
+    byte[] bytes = PayloadCodec.encode(createTrigger());
+    PayloadCodec.decode(Arrays.copyOf(bytes, bytes.length - 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRejectsUnsupportedValues() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("object", new Object());
+    PayloadCodec.encode(map);
+  }
+}
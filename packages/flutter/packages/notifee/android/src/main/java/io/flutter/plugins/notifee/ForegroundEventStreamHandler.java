@@ -19,23 +19,60 @@ package io.flutter.plugins.notifee;
 
 import static app.notifee.core.Notifee.initialize;
 
+import app.notifee.core.EventSubscriber;
+import app.notifee.core.event.BlockStateEvent;
+import app.notifee.core.event.NotificationEvent;
 import io.flutter.plugin.common.EventChannel;
+import io.flutter.plugins.notifee.background.BackgroundExecutor;
 
 public class ForegroundEventStreamHandler implements EventChannel.StreamHandler {
   private NotifeeEventSubscriber notifeeEventListener;
+  private boolean isListening;
 
   public ForegroundEventStreamHandler() {
     this.notifeeEventListener = new NotifeeEventSubscriber();
-    initialize(notifeeEventListener);
+    initialize(null);
+    // events are converted to maps off the main thread, and only sent to Dart on it
+    EventSubscriber.registerAwaitingReady(
+        notifeeEventListener,
+        null,
+        EventSubscriber.ThreadMode.BACKGROUND,
+        NotificationEvent.class,
+        BlockStateEvent.class);
+    updateReady();
+  }
+
+  /** Called once Dart has registered a background handler */
+  public void onBackgroundHandlerRegistered() {
+    updateReady();
+  }
+
+  /** See {@link NotifeeEventSubscriber#configureEventBatching} */
+  public void configureEventBatching(long windowMs, int maxSize) {
+    notifeeEventListener.configureEventBatching(windowMs, maxSize);
   }
 
   @Override
   public void onListen(Object arguments, EventChannel.EventSink events) {
     notifeeEventListener.onForegroundListen(events);
+    isListening = true;
+    updateReady();
   }
 
   @Override
   public void onCancel(Object arguments) {
     notifeeEventListener.onForegroundCancel();
+    isListening = false;
+    updateReady();
+  }
+
+  /**
+   * Notification events are journaled until Dart has subscribed to them, by listening to this
+   * stream, or by registering a background handler, which queues them until its isolate runs.
+   */
+  private void updateReady() {
+    EventSubscriber.setReady(
+        notifeeEventListener,
+        isListening || BackgroundExecutor.isDartBackgroundHandlerRegistered());
   }
 }
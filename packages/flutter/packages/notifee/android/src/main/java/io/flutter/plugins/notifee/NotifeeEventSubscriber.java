@@ -18,8 +18,11 @@ package io.flutter.plugins.notifee;
  */
 
 import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
 import androidx.annotation.NonNull;
 import app.notifee.core.ContextHolder;
+import app.notifee.core.EventBatcher;
 import app.notifee.core.event.BlockStateEvent;
 import app.notifee.core.event.ForegroundServiceEvent;
 import app.notifee.core.event.LogEvent;
@@ -28,12 +31,27 @@ import app.notifee.core.interfaces.EventListener;
 import io.flutter.plugin.common.EventChannel.EventSink;
 import io.flutter.plugins.notifee.background.BackgroundUtils;
 import io.flutter.plugins.notifee.background.FlutterBackgroundService;
+import java.util.List;
+import java.util.Map;
 
 public class NotifeeEventSubscriber implements EventListener {
-  protected EventSink eventSink;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // foreground events sent to Dart, in batches once configured
+  private final EventBatcher<Map<String, Object>> eventBatcher =
+      new EventBatcher<>(this::postToSink);
+  protected volatile EventSink eventSink;
 
   protected NotifeeEventSubscriber() {}
 
+  /**
+   * @param windowMs how long an event may wait for others to be sent with it, 0 to send each event
+   *     on its own
+   * @param maxSize the number of events sent once reached, before the window has passed
+   */
+  public void configureEventBatching(long windowMs, int maxSize) {
+    eventBatcher.configure(windowMs, maxSize);
+  }
+
   public void onForegroundListen(@NonNull EventSink eventSink) {
     this.eventSink = eventSink;
   }
@@ -42,10 +60,28 @@ public class NotifeeEventSubscriber implements EventListener {
     this.eventSink = null;
   }
 
+  private void sendEvent(Map<String, Object> event) {
+    if (!eventBatcher.add(event)) {
+      postToSink(event);
+    }
+  }
+
+  // events arrive on a background thread, but the sink may only be used on the main thread;
+  // a batch is sent as a list of events
+  private void postToSink(Object eventOrBatch) {
+    mainHandler.post(
+        () -> {
+          EventSink sink = eventSink;
+          if (sink != null) {
+            sink.success(eventOrBatch);
+          }
+        });
+  }
+
   @Override
   public void onNotificationEvent(NotificationEvent notificationEvent) {
     if (Utils.isApplicationForeground() && eventSink != null) {
-      eventSink.success(notificationEvent.toMap());
+      sendEvent(notificationEvent.toMap());
       return;
     }
 
@@ -73,7 +109,7 @@ public class NotifeeEventSubscriber implements EventListener {
   @Override
   public void onBlockStateEvent(BlockStateEvent blockStateEvent) {
     if (Utils.isApplicationForeground() && eventSink != null) {
-      eventSink.success(blockStateEvent.toMap());
+      sendEvent(blockStateEvent.toMap());
       return;
     }
 
@@ -25,6 +25,7 @@ import android.os.Bundle;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import app.notifee.core.ContextHolder;
+import app.notifee.core.EventBatcher;
 import app.notifee.core.Notifee;
 import app.notifee.core.utility.ObjectUtils;
 import io.flutter.embedding.engine.FlutterShellArgs;
@@ -38,6 +39,7 @@ import io.flutter.plugin.common.MethodChannel.MethodCallHandler;
 import io.flutter.plugin.common.MethodChannel.Result;
 import io.flutter.plugin.common.PluginRegistry;
 import io.flutter.plugins.notifee.background.FlutterBackgroundService;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -51,6 +53,7 @@ public class NotifeePlugin
   /// when the Flutter Engine is detached from the Activity
   private MethodChannel channel;
   private Activity mainActivity;
+  private ForegroundEventStreamHandler foregroundEventStreamHandler;
 
   @Override
   public void onAttachedToActivity(ActivityPluginBinding binding) {
@@ -91,7 +94,8 @@ public class NotifeePlugin
             flutterPluginBinding.getBinaryMessenger(),
             "plugins.invertase.io/notifee/on_foreground");
 
-    eventChannel.setStreamHandler(new ForegroundEventStreamHandler());
+    foregroundEventStreamHandler = new ForegroundEventStreamHandler();
+    eventChannel.setStreamHandler(foregroundEventStreamHandler);
     ContextHolder.setApplicationContext(flutterPluginBinding.getApplicationContext());
   }
 
@@ -107,6 +111,29 @@ public class NotifeePlugin
             });
   }
 
+  private void displayNotifications(List<Map<String, Object>> arguments, final Result result) {
+    List<Bundle> notifications = new ArrayList<>(arguments.size());
+    for (Map<String, Object> notification : arguments) {
+      notifications.add(mapToBundle(notification));
+    }
+
+    Notifee.getInstance()
+        .displayNotifications(
+            notifications,
+            (e, aList) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              try {
+                result.success(ObjectUtils.listToMap(aList));
+              } catch (Exception exception) {
+                result.error(exception.toString(), null, null);
+              }
+            });
+  }
+
   private void createTriggerNotification(Map<String, Object> arguments, final Result result) {
     Bundle bundle = mapToBundle(arguments);
 
@@ -122,6 +149,54 @@ public class NotifeePlugin
             });
   }
 
+  private void createTriggerNotifications(
+      List<Map<String, Object>> arguments, final Result result) {
+    List<Bundle> triggerNotifications = new ArrayList<>(arguments.size());
+    for (Map<String, Object> triggerNotification : arguments) {
+      triggerNotifications.add(mapToBundle(triggerNotification));
+    }
+
+    Notifee.getInstance()
+        .createTriggerNotifications(
+            triggerNotifications,
+            (e, aList) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              try {
+                result.success(ObjectUtils.listToMap(aList));
+              } catch (Exception exception) {
+                result.error(exception.toString(), null, null);
+              }
+            });
+  }
+
+  private void reconcileTriggerNotifications(
+      List<Map<String, Object>> arguments, final Result result) {
+    List<Bundle> triggerNotifications = new ArrayList<>(arguments.size());
+    for (Map<String, Object> triggerNotification : arguments) {
+      triggerNotifications.add(mapToBundle(triggerNotification));
+    }
+
+    Notifee.getInstance()
+        .reconcileTriggerNotifications(
+            triggerNotifications,
+            (e, aBundle) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              try {
+                result.success(ObjectUtils.bundleToMap(aBundle));
+              } catch (Exception exception) {
+                result.error(exception.toString(), null, null);
+              }
+            });
+  }
+
   private void cancelAllNotifications(Map<String, Object> arguments, final Result result) {
     Notifee.getInstance()
         .cancelAllNotifications(
@@ -148,6 +223,19 @@ public class NotifeePlugin
             });
   }
 
+  private void cancelAllNotificationsMatching(Map<String, Object> arguments, final Result result) {
+    Notifee.getInstance()
+        .cancelAllNotificationsMatching(
+            (int) arguments.get("type"),
+            mapToBundle(arguments),
+            (e, aVoid) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+              }
+              result.success(null);
+            });
+  }
+
   private void getTriggerNotificationIds(final Result result) {
     Notifee.getInstance()
         .getTriggerNotificationIds(
@@ -175,6 +263,82 @@ public class NotifeePlugin
             });
   }
 
+  private void getTriggerNotificationsPage(Map<String, Object> arguments, final Result result) {
+    Notifee.getInstance()
+        .getTriggerNotificationsPage(
+            (String) arguments.get("cursor"),
+            (int) arguments.get("limit"),
+            (e, aBundle) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              try {
+                result.success(ObjectUtils.bundleToMap(aBundle));
+              } catch (Exception exception) {
+                result.error(exception.toString(), null, null);
+              }
+            });
+  }
+
+  private void setTriggerPreRenderLeadTime(Number leadTimeMs, final Result result) {
+    Notifee.getInstance()
+        .setTriggerPreRenderLeadTime(
+            leadTimeMs.longValue(),
+            (e, aVoid) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              result.success(null);
+            });
+  }
+
+  private void setEventBatching(Map<String, Object> arguments, final Result result) {
+    Number windowMs = (Number) arguments.get("window");
+    Number maxSize = (Number) arguments.get("maxSize");
+    foregroundEventStreamHandler.configureEventBatching(
+        windowMs != null ? windowMs.longValue() : 0,
+        maxSize != null ? maxSize.intValue() : EventBatcher.DEFAULT_MAX_SIZE);
+    result.success(null);
+  }
+
+  private void getExecutorMetrics(final Result result) {
+    Notifee.getInstance()
+        .getExecutorMetrics(
+            (e, aBundle) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              try {
+                result.success(ObjectUtils.bundleToMap(aBundle));
+              } catch (Exception exception) {
+                result.error(exception.toString(), null, null);
+              }
+            });
+  }
+
+  private void getTriggerLatencyMetrics(final Result result) {
+    Notifee.getInstance()
+        .getTriggerLatencyMetrics(
+            (e, aBundle) -> {
+              if (e != null) {
+                result.error(e.toString(), null, null);
+                return;
+              }
+
+              try {
+                result.success(ObjectUtils.bundleToMap(aBundle));
+              } catch (Exception exception) {
+                result.error(exception.toString(), null, null);
+              }
+            });
+  }
+
   private void getDisplayedNotifications(final Result result) {
     Notifee.getInstance()
         .getDisplayedNotifications(
@@ -484,16 +648,34 @@ public class NotifeePlugin
       result.success("Android " + android.os.Build.VERSION.RELEASE);
     } else if (call.method.equals("displayNotification")) {
       displayNotification((Map<String, Object>) call.arguments, result);
+    } else if (call.method.equals("displayNotifications")) {
+      displayNotifications((List<Map<String, Object>>) call.arguments, result);
     } else if (call.method.equals("createTriggerNotification")) {
       createTriggerNotification((Map<String, Object>) call.arguments, result);
+    } else if (call.method.equals("createTriggerNotifications")) {
+      createTriggerNotifications((List<Map<String, Object>>) call.arguments, result);
+    } else if (call.method.equals("reconcileTriggerNotifications")) {
+      reconcileTriggerNotifications((List<Map<String, Object>>) call.arguments, result);
     } else if (call.method.equals("cancelAllNotifications")) {
       cancelAllNotifications((Map<String, Object>) call.arguments, result);
     } else if (call.method.equals("cancelAllNotificationsWithIds")) {
       cancelAllNotificationsWithIds((Map<String, Object>) call.arguments, result);
+    } else if (call.method.equals("cancelAllNotificationsMatching")) {
+      cancelAllNotificationsMatching((Map<String, Object>) call.arguments, result);
     } else if (call.method.equals("getTriggerNotificationIds")) {
       getTriggerNotificationIds(result);
     } else if (call.method.equals("getTriggerNotifications")) {
       getTriggerNotifications(result);
+    } else if (call.method.equals("getTriggerNotificationsPage")) {
+      getTriggerNotificationsPage((Map<String, Object>) call.arguments, result);
+    } else if (call.method.equals("setTriggerPreRenderLeadTime")) {
+      setTriggerPreRenderLeadTime((Number) call.arguments, result);
+    } else if (call.method.equals("getTriggerLatencyMetrics")) {
+      getTriggerLatencyMetrics(result);
+    } else if (call.method.equals("setEventBatching")) {
+      setEventBatching((Map<String, Object>) call.arguments, result);
+    } else if (call.method.equals("getExecutorMetrics")) {
+      getExecutorMetrics(result);
     } else if (call.method.equals("getInitialNotification")) {
       getInitialNotification(result);
     } else if (call.method.equals("getDisplayedNotifications")) {
@@ -559,6 +741,7 @@ public class NotifeePlugin
       }
 
       FlutterBackgroundService.initialize(pluginCallbackHandle, userCallbackHandle, shellArgs);
+      foregroundEventStreamHandler.onBackgroundHandlerRegistered();
     } else {
       result.notImplemented();
     }
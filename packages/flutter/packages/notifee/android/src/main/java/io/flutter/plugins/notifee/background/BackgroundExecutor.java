@@ -184,7 +184,7 @@ public class BackgroundExecutor implements MethodCallHandler {
     mainHandler.post(myRunnable);
   }
 
-  boolean isDartBackgroundHandlerRegistered() {
+  public static boolean isDartBackgroundHandlerRegistered() {
     return getPluginCallbackHandle() != 0;
   }
 
@@ -271,7 +271,7 @@ public class BackgroundExecutor implements MethodCallHandler {
   }
 
   /** Get the registered Dart callback handle for the messaging plugin. Returns 0 if not set. */
-  private long getPluginCallbackHandle() {
+  private static long getPluginCallbackHandle() {
     SharedPreferences prefs =
         ContextHolder.getApplicationContext()
             .getSharedPreferences(BackgroundUtils.SHARED_PREFERENCES_KEY, 0);
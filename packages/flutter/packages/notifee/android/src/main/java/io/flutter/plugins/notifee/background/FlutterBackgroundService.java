@@ -85,7 +85,7 @@ public class FlutterBackgroundService extends JobIntentService {
 
   @Override
   protected void onHandleWork(@NonNull final Intent intent) {
-    if (!flutterBackgroundExecutor.isDartBackgroundHandlerRegistered()) {
+    if (!BackgroundExecutor.isDartBackgroundHandlerRegistered()) {
       Log.w(
           TAG,
           "A background message could not be handled in Dart as no onBackgroundMessage handler has"
@@ -101,9 +101,10 @@ class MethodChannelNotifee extends NotifeePlatform {
       }
     });
 
-    // Foreground Event
+    // Foreground Event, a batch of events arrives as a list
     _eventChannel
         .receiveBroadcastStream()
+        .expand((dynamic event) => event is List ? event : <dynamic>[event])
         .map((dynamic event) => Event.fromMap(event))
         .listen((data) {
       _handleOnForegroundListener(data);
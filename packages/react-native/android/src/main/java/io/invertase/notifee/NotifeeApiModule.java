@@ -8,6 +8,8 @@ import android.Manifest;
 import android.os.Build;
 import android.os.Bundle;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import app.notifee.core.EventSubscriber;
 import app.notifee.core.Logger;
 import app.notifee.core.Notifee;
 import com.facebook.react.bridge.Arguments;
@@ -39,6 +41,13 @@ public class NotifeeApiModule extends ReactContextBaseJavaModule implements Perm
   @Override
   public void onCatalystInstanceDestroy() {
     NotifeeReactUtils.clearRunningHeadlessTasks();
+    // the handlers go with JS, so events are journaled until it is reloaded and sets them again
+    EventSubscriber.setReady(NotifeeEventSubscriber.getInstance(), false);
+  }
+
+  @ReactMethod
+  public void setEventListenerReady() {
+    EventSubscriber.setReady(NotifeeEventSubscriber.getInstance(), true);
   }
 
   @ReactMethod
@@ -79,6 +88,16 @@ public class NotifeeApiModule extends ReactContextBaseJavaModule implements Perm
             (e, aVoid) -> NotifeeReactUtils.promiseResolver(promise, e));
   }
 
+  @ReactMethod
+  public void cancelAllNotificationsMatching(
+      ReadableMap filter, int notificationType, Promise promise) {
+    Notifee.getInstance()
+        .cancelAllNotificationsMatching(
+            notificationType,
+            Arguments.toBundle(filter),
+            (e, aVoid) -> NotifeeReactUtils.promiseResolver(promise, e));
+  }
+
   @ReactMethod
   public void getDisplayedNotifications(Promise promise) {
     Notifee.getInstance()
@@ -93,6 +112,39 @@ public class NotifeeApiModule extends ReactContextBaseJavaModule implements Perm
             (e, aBundleList) -> NotifeeReactUtils.promiseResolver(promise, e, aBundleList));
   }
 
+  @ReactMethod
+  public void getTriggerNotificationsPage(@Nullable String cursor, int limit, Promise promise) {
+    Notifee.getInstance()
+        .getTriggerNotificationsPage(
+            cursor, limit, (e, aBundle) -> NotifeeReactUtils.promiseResolver(promise, e, aBundle));
+  }
+
+  @ReactMethod
+  public void setTriggerPreRenderLeadTime(double leadTimeMs, Promise promise) {
+    Notifee.getInstance()
+        .setTriggerPreRenderLeadTime(
+            (long) leadTimeMs, (e, aVoid) -> NotifeeReactUtils.promiseResolver(promise, e));
+  }
+
+  @ReactMethod
+  public void getTriggerLatencyMetrics(Promise promise) {
+    Notifee.getInstance()
+        .getTriggerLatencyMetrics(
+            (e, aBundle) -> NotifeeReactUtils.promiseResolver(promise, e, aBundle));
+  }
+
+  @ReactMethod
+  public void getExecutorMetrics(Promise promise) {
+    Notifee.getInstance()
+        .getExecutorMetrics((e, aBundle) -> NotifeeReactUtils.promiseResolver(promise, e, aBundle));
+  }
+
+  @ReactMethod
+  public void setEventBatching(double windowMs, double maxSize, Promise promise) {
+    NotifeeEventSubscriber.configureEventBatching((long) windowMs, (int) maxSize);
+    promise.resolve(null);
+  }
+
   @ReactMethod
   public void getTriggerNotificationIds(Promise promise) {
     Notifee.getInstance()
@@ -161,6 +213,19 @@ public class NotifeeApiModule extends ReactContextBaseJavaModule implements Perm
             (e, aVoid) -> NotifeeReactUtils.promiseResolver(promise, e));
   }
 
+  @ReactMethod
+  public void displayNotifications(ReadableArray notificationsArray, Promise promise) {
+    ArrayList<Bundle> notifications = new ArrayList<>(notificationsArray.size());
+    for (int i = 0; i < notificationsArray.size(); i++) {
+      notifications.add(Arguments.toBundle(notificationsArray.getMap(i)));
+    }
+
+    Notifee.getInstance()
+        .displayNotifications(
+            notifications,
+            (e, aBundleList) -> NotifeeReactUtils.promiseResolver(promise, e, aBundleList));
+  }
+
   @ReactMethod
   public void openAlarmPermissionSettings(Promise promise) {
     Notifee.getInstance()
@@ -178,6 +243,33 @@ public class NotifeeApiModule extends ReactContextBaseJavaModule implements Perm
             (e, aVoid) -> NotifeeReactUtils.promiseResolver(promise, e));
   }
 
+  @ReactMethod
+  public void createTriggerNotifications(ReadableArray triggerNotificationsArray, Promise promise) {
+    ArrayList<Bundle> triggerNotifications = new ArrayList<>(triggerNotificationsArray.size());
+    for (int i = 0; i < triggerNotificationsArray.size(); i++) {
+      triggerNotifications.add(Arguments.toBundle(triggerNotificationsArray.getMap(i)));
+    }
+
+    Notifee.getInstance()
+        .createTriggerNotifications(
+            triggerNotifications,
+            (e, aBundleList) -> NotifeeReactUtils.promiseResolver(promise, e, aBundleList));
+  }
+
+  @ReactMethod
+  public void reconcileTriggerNotifications(
+      ReadableArray triggerNotificationsArray, Promise promise) {
+    ArrayList<Bundle> triggerNotifications = new ArrayList<>(triggerNotificationsArray.size());
+    for (int i = 0; i < triggerNotificationsArray.size(); i++) {
+      triggerNotifications.add(Arguments.toBundle(triggerNotificationsArray.getMap(i)));
+    }
+
+    Notifee.getInstance()
+        .reconcileTriggerNotifications(
+            triggerNotifications,
+            (e, aBundle) -> NotifeeReactUtils.promiseResolver(promise, e, aBundle));
+  }
+
   @ReactMethod
   public void getChannels(Promise promise) {
     Notifee.getInstance()
@@ -8,6 +8,7 @@ import static io.invertase.notifee.NotifeeReactUtils.isAppInForeground;
 
 import android.os.Bundle;
 import androidx.annotation.Keep;
+import app.notifee.core.EventBatcher;
 import app.notifee.core.event.BlockStateEvent;
 import app.notifee.core.event.ForegroundServiceEvent;
 import app.notifee.core.event.LogEvent;
@@ -15,11 +16,14 @@ import app.notifee.core.event.NotificationEvent;
 import app.notifee.core.interfaces.EventListener;
 import app.notifee.core.model.NotificationModel;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import java.util.List;
 
 @Keep
 public class NotifeeEventSubscriber implements EventListener {
   static final String NOTIFICATION_EVENT_KEY = "app.notifee.notification-event";
+  static final String NOTIFICATION_EVENT_BATCH_KEY = "app.notifee.notification-event-batch";
   static final String FOREGROUND_NOTIFICATION_TASK_KEY =
       "app.notifee.foreground-service-headless-task";
 
@@ -32,6 +36,41 @@ public class NotifeeEventSubscriber implements EventListener {
   private static final String KEY_DETAIL_PRESS_ACTION = "pressAction";
   private static final String KEY_DETAIL_INPUT = "input";
 
+  // registered by NotifeeInitProvider, ready once JS has set an event handler
+  private static final NotifeeEventSubscriber instance = new NotifeeEventSubscriber();
+
+  // foreground events sent to JS, in batches once configured
+  private static final EventBatcher<WritableMap> eventBatcher =
+      new EventBatcher<>(NotifeeEventSubscriber::sendEventBatch);
+
+  static NotifeeEventSubscriber getInstance() {
+    return instance;
+  }
+
+  /**
+   * @param windowMs how long an event may wait for others to be sent with it, 0 to send each event
+   *     on its own
+   * @param maxSize the number of events sent once reached, before the window has passed
+   */
+  static void configureEventBatching(long windowMs, int maxSize) {
+    eventBatcher.configure(windowMs, maxSize);
+  }
+
+  private static void sendEvent(WritableMap eventMap) {
+    if (!eventBatcher.add(eventMap)) {
+      NotifeeReactUtils.sendEvent(NOTIFICATION_EVENT_KEY, eventMap);
+    }
+  }
+
+  private static void sendEventBatch(List<WritableMap> eventMaps) {
+    WritableArray eventArray = Arguments.createArray();
+    for (WritableMap eventMap : eventMaps) {
+      eventArray.pushMap(eventMap);
+    }
+
+    NotifeeReactUtils.sendEvent(NOTIFICATION_EVENT_BATCH_KEY, eventArray);
+  }
+
   @Override
   public void onNotificationEvent(NotificationEvent notificationEvent) {
     WritableMap eventMap = Arguments.createMap();
@@ -58,7 +97,7 @@ public class NotifeeEventSubscriber implements EventListener {
 
     if (isAppInForeground()) {
       eventMap.putBoolean(KEY_HEADLESS, false);
-      NotifeeReactUtils.sendEvent(NOTIFICATION_EVENT_KEY, eventMap);
+      sendEvent(eventMap);
     } else {
       eventMap.putBoolean(KEY_HEADLESS, true);
       NotifeeReactUtils.startHeadlessTask(NOTIFICATION_EVENT_KEY, eventMap, 60000, null);
@@ -97,7 +136,7 @@ public class NotifeeEventSubscriber implements EventListener {
 
     if (isAppInForeground()) {
       eventMap.putBoolean(KEY_HEADLESS, false);
-      NotifeeReactUtils.sendEvent(NOTIFICATION_EVENT_KEY, eventMap);
+      sendEvent(eventMap);
     } else {
       eventMap.putBoolean(KEY_HEADLESS, true);
       NotifeeReactUtils.startHeadlessTask(
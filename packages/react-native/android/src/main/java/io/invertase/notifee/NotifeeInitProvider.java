@@ -7,8 +7,13 @@ package io.invertase.notifee;
 import android.content.Context;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import app.notifee.core.EventSubscriber;
 import app.notifee.core.InitProvider;
 import app.notifee.core.Notifee;
+import app.notifee.core.NotifeeExecutors;
+import app.notifee.core.event.BlockStateEvent;
+import app.notifee.core.event.ForegroundServiceEvent;
+import app.notifee.core.event.NotificationEvent;
 import com.facebook.react.modules.systeminfo.ReactNativeVersion;
 import java.util.Map;
 
@@ -17,7 +22,18 @@ public class NotifeeInitProvider extends InitProvider {
   public boolean onCreate() {
     boolean onCreate = super.onCreate();
 
-    Notifee.initialize(new NotifeeEventSubscriber());
+    // no app code has run yet, so the executor lanes are configured through manifest meta-data
+    Context context = getContext();
+    Notifee.initialize(null, context != null ? NotifeeExecutors.getManifestConfig(context) : null);
+    // events are converted to maps off the UI thread, log events are not sent to JS; notification
+    // events are journaled until JS has set a handler for them, starting JS to do so
+    EventSubscriber.registerAwaitingReady(
+        NotifeeEventSubscriber.getInstance(),
+        NotifeeReactUtils::startReactContext,
+        EventSubscriber.ThreadMode.BACKGROUND,
+        NotificationEvent.class,
+        BlockStateEvent.class,
+        ForegroundServiceEvent.class);
     return onCreate;
   }
 
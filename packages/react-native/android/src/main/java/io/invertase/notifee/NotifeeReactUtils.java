@@ -24,6 +24,7 @@ import com.facebook.react.ReactNativeHost;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.LifecycleState;
@@ -135,6 +136,16 @@ class NotifeeReactUtils {
     }
   }
 
+  /** Starts the React context, so JS can set its event handlers, unless already started */
+  static void startReactContext() {
+    UiThreadUtil.runOnUiThread(
+        () -> {
+          if (getReactContext() == null) {
+            initializeReactContext(() -> {});
+          }
+        });
+  }
+
   static void clearRunningHeadlessTasks() {
     for (int i = 0; i < headlessTasks.size(); i++) {
       GenericCallback callback = headlessTasks.valueAt(i);
@@ -174,14 +185,18 @@ class NotifeeReactUtils {
               });
         };
 
-    if (getReactContext() == null) {
-      initializeReactContext(callback);
-    } else {
-      callback.call();
-    }
+    // events may be delivered off the UI thread, which headless tasks must be started from
+    UiThreadUtil.runOnUiThread(
+        () -> {
+          if (getReactContext() == null) {
+            initializeReactContext(callback);
+          } else {
+            callback.call();
+          }
+        });
   }
 
-  static void sendEvent(String eventName, WritableMap eventMap) {
+  static void sendEvent(String eventName, Object eventData) {
     try {
       ReactContext reactContext = getReactContext();
 
@@ -191,7 +206,7 @@ class NotifeeReactUtils {
 
       reactContext
           .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-          .emit(eventName, eventMap);
+          .emit(eventName, eventData);
 
     } catch (Exception e) {
       Log.e("SEND_EVENT", "", e);
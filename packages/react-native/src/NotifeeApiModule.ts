@@ -34,6 +34,7 @@ import {
   isWeb,
   kReactNativeNotifeeForegroundServiceHeadlessTask,
   kReactNativeNotifeeNotificationBackgroundEvent,
+  kReactNativeNotifeeNotificationBatchEvent,
   kReactNativeNotifeeNotificationEvent,
   NotificationType,
 } from './utils';
@@ -79,6 +80,13 @@ export default class NotifeeApiModule extends NotifeeNativeModule implements Mod
           return backgroundEventHandler(event);
         };
       });
+
+      // Foreground events batched natively, re-emitted one by one in the order they occurred
+      this.emitter.addListener(kReactNativeNotifeeNotificationBatchEvent, (events: Event[]) => {
+        for (let i = 0; i < events.length; i++) {
+          this.emitter.emit(kReactNativeNotifeeNotificationEvent, events[i]);
+        }
+      });
     } else if (isIOS) {
       this.emitter.addListener(
         kReactNativeNotifeeNotificationBackgroundEvent,
@@ -483,6 +491,7 @@ export default class NotifeeApiModule extends NotifeeNativeModule implements Mod
     }
 
     backgroundEventHandler = observer;
+    this.setEventListenerReady();
   };
 
   public onForegroundEvent = (observer: (event: Event) => void): (() => void) => {
@@ -498,6 +507,7 @@ export default class NotifeeApiModule extends NotifeeNativeModule implements Mod
         observer({ type, detail });
       },
     );
+    this.setEventListenerReady();
 
     return (): void => {
       subscriber.remove();
@@ -824,4 +834,11 @@ export default class NotifeeApiModule extends NotifeeNativeModule implements Mod
     }
     return this.native.hideNotificationDrawer();
   };
+
+  // Android keeps notification events natively until a handler is set, then sends them in order
+  private setEventListenerReady = (): void => {
+    if (isAndroid) {
+      this.native.setEventListenerReady();
+    }
+  };
 }
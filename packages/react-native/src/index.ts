@@ -8,6 +8,7 @@ import { version as SDK_VERSION } from './version';
 import {
   isIOS,
   kReactNativeNotifeeNotificationBackgroundEvent,
+  kReactNativeNotifeeNotificationBatchEvent,
   kReactNativeNotifeeNotificationEvent,
 } from './utils';
 
@@ -16,7 +17,7 @@ const apiModule = new NotifeeApiModule({
   nativeModuleName: 'NotifeeApiModule',
   nativeEvents: isIOS
     ? [kReactNativeNotifeeNotificationEvent, kReactNativeNotifeeNotificationBackgroundEvent]
-    : [kReactNativeNotifeeNotificationEvent],
+    : [kReactNativeNotifeeNotificationEvent, kReactNativeNotifeeNotificationBatchEvent],
 });
 
 const statics: ModuleStatics = {
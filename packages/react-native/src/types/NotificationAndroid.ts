@@ -46,6 +46,17 @@ export interface NotificationAndroid {
    */
   lightUpScreen?: boolean;
 
+  /**
+   * When set to `true` the notification is displayed straight away without its images (large icon,
+   * action icons and style images), then updated as each image loads. The updates do not alert the
+   * user again, and the `DELIVERED` event is only sent once.
+   *
+   * Useful when images come from a slow network, so they don't hold back the notification.
+   *
+   * Defaults to `false`.
+   */
+  progressiveImages?: boolean;
+
   /**
    * Setting this flag will make it so the notification is automatically canceled when the user
    * presses it in the panel.
@@ -24,6 +24,15 @@ export interface TimestampTrigger {
    */
   repeatFrequency?: RepeatFrequency;
 
+  /**
+   * Repeats the notification by a calendar rule, instead of `repeatFrequency`.
+   *
+   * The `timestamp` is the first occurrence, if it matches the rule.
+   *
+   * @platform android
+   */
+  recurrence?: TriggerRecurrence;
+
   /**
    * Choose to schedule your trigger notification with Android's AlarmManager API.
    *
@@ -69,6 +78,73 @@ export interface TimestampTriggerAlarmManager {
   type?: AlarmType;
 }
 
+/**
+ * A day of the week, as used by `TriggerRecurrence.byDay`.
+ */
+export type RecurrenceDay = 'MO' | 'TU' | 'WE' | 'TH' | 'FR' | 'SA' | 'SU';
+
+/**
+ * A calendar recurrence which can be used with `TimestampTrigger.recurrence`, following a subset
+ * of the iCalendar RRULE.
+ *
+ * Occurrences are computed in `timeZone`, so they keep their local time across daylight saving
+ * changes.
+ *
+ * @platform android
+ */
+export interface TriggerRecurrence {
+  /**
+   * How often the rule repeats. `RepeatFrequency.HOURLY`, `DAILY` or `WEEKLY`.
+   */
+  frequency: RepeatFrequency;
+
+  /**
+   * Repeats every `interval` hours, days or weeks. Defaults to 1.
+   */
+  interval?: number;
+
+  /**
+   * The days of the week the notification is shown on.
+   *
+   * Defaults to the day of the `timestamp` for weekly rules, and every day otherwise.
+   */
+  byDay?: RecurrenceDay[];
+
+  /**
+   * The hours of the day, 0 to 23, the notification is shown at. Defaults to the hour of the
+   * `timestamp`, except for hourly rules which repeat every hour.
+   */
+  byHour?: number[];
+
+  /**
+   * The minutes of the hour, 0 to 59, the notification is shown at. Defaults to the minute of the
+   * `timestamp`.
+   */
+  byMinute?: number[];
+
+  /**
+   * The number of occurrences, after which the trigger notification is removed.
+   */
+  count?: number;
+
+  /**
+   * The time, in milliseconds since 1970, after which there are no more occurrences.
+   */
+  until?: number;
+
+  /**
+   * Occurrences to skip, in milliseconds since 1970. They still count towards `count`.
+   */
+  excludedDates?: number[];
+
+  /**
+   * The IANA time zone the rule is evaluated in, for example `Europe/London`.
+   *
+   * Defaults to the time zone of the device.
+   */
+  timeZone?: string;
+}
+
 /**
  * An interface representing the different frequencies which can be used with `TimestampTrigger.repeatFrequency`.
  *
@@ -97,7 +173,7 @@ export interface IntervalTrigger {
    *
    * For example, if set to 30, the notification will be displayed every 30 minutes.
    *
-   * Must be set to a minimum of 15 minutes.
+   * Must be set to a minimum of 15 minutes, or 1 minute when using `alarmManager`.
    */
   interval: number;
 
@@ -109,6 +185,19 @@ export interface IntervalTrigger {
    * Defaults to `TimeUnit.SECONDS`
    */
   timeUnit?: TimeUnit | TimeUnit.SECONDS;
+
+  /**
+   * Choose to schedule your trigger notification with Android's AlarmManager API.
+   *
+   * By default, interval trigger notifications are created with Android's WorkManager API, which
+   * runs them no more than every 15 minutes. With AlarmManager the interval may be as short as a
+   * minute, and each notification is shown a whole number of intervals after the first, so late
+   * alarms do not push back the ones after them. `AlarmType.SET` and
+   * `AlarmType.SET_AND_ALLOW_WHILE_IDLE` let the system deliver the notification inexactly.
+   *
+   * @platform android
+   */
+  alarmManager?: boolean | TimestampTriggerAlarmManager | undefined;
 }
 
 /**
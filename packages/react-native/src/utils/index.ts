@@ -37,6 +37,8 @@ export const kReactNativeNotifeeForegroundServiceHeadlessTask =
 
 export const kReactNativeNotifeeNotificationEvent = 'app.notifee.notification-event';
 
+export const kReactNativeNotifeeNotificationBatchEvent = 'app.notifee.notification-event-batch';
+
 export const kReactNativeNotifeeNotificationBackgroundEvent =
   'app.notifee.notification-event-background';
 
@@ -127,6 +127,17 @@ export default function validateAndroidNotification(
     out.lightUpScreen = android.lightUpScreen;
   }
 
+  /**
+   * progressiveImages
+   */
+  if (objectHasProperty(android, 'progressiveImages')) {
+    if (!isBoolean(android.progressiveImages)) {
+      throw new Error("'notification.android.progressiveImages' expected a boolean value.");
+    }
+
+    out.progressiveImages = android.progressiveImages;
+  }
+
   /**
    * autoCancel
    */
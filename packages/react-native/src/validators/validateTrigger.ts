@@ -9,6 +9,8 @@ import {
   isValidEnum,
   isUndefined,
   isBoolean,
+  isArray,
+  isString,
 } from '../utils';
 import {
   Trigger,
@@ -19,16 +21,20 @@ import {
   TriggerType,
   TimestampTriggerAlarmManager,
   AlarmType,
+  TriggerRecurrence,
 } from '../types/Trigger';
 
+const RECURRENCE_DAYS = ['MO', 'TU', 'WE', 'TH', 'FR', 'SA', 'SU'];
+
 const MINIMUM_INTERVAL = 15;
+const MINIMUM_ALARM_MANAGER_INTERVAL = 1;
 
-function isMinimumInterval(interval: number, timeUnit: any): boolean {
+function isMinimumInterval(interval: number, timeUnit: any, minimum = MINIMUM_INTERVAL): boolean {
   switch (timeUnit) {
     case TimeUnit.SECONDS:
-      return interval / 60 >= MINIMUM_INTERVAL;
+      return interval / 60 >= minimum;
     case TimeUnit.MINUTES:
-      return interval >= MINIMUM_INTERVAL;
+      return interval >= minimum;
     case TimeUnit.HOURS:
       return interval >= 1;
     case TimeUnit.DAYS:
@@ -76,6 +82,14 @@ function validateTimestampTrigger(trigger: TimestampTrigger): TimestampTrigger {
     out.repeatFrequency = trigger.repeatFrequency;
   }
 
+  if (objectHasProperty(trigger, 'recurrence') && !isUndefined(trigger.recurrence)) {
+    try {
+      out.recurrence = validateRecurrence(trigger.recurrence);
+    } catch (e: any) {
+      throw new Error(`'trigger.recurrence' ${e.message}.`);
+    }
+  }
+
   if (objectHasProperty(trigger, 'alarmManager') && !isUndefined(trigger.alarmManager)) {
     if (isBoolean(trigger.alarmManager)) {
       if (trigger.alarmManager) {
@@ -93,6 +107,91 @@ function validateTimestampTrigger(trigger: TimestampTrigger): TimestampTrigger {
   return out;
 }
 
+function isArrayOfIntegers(value: any, min: number, max: number): boolean {
+  return (
+    isArray(value) &&
+    value.every(item => isNumber(item) && Number.isInteger(item) && item >= min && item <= max)
+  );
+}
+
+function validateRecurrence(recurrence: TriggerRecurrence): TriggerRecurrence {
+  if (!isObject(recurrence)) {
+    throw new Error('expected an object value');
+  }
+
+  if (
+    !isValidEnum(recurrence.frequency, RepeatFrequency) ||
+    recurrence.frequency === RepeatFrequency.NONE
+  ) {
+    throw new Error("'frequency' expected a RepeatFrequency value other than NONE");
+  }
+
+  const out: TriggerRecurrence = {
+    frequency: recurrence.frequency,
+  };
+
+  if (!isUndefined(recurrence.interval)) {
+    if (!isNumber(recurrence.interval) || recurrence.interval < 1) {
+      throw new Error("'interval' expected a number greater than 0");
+    }
+    out.interval = recurrence.interval;
+  }
+
+  if (!isUndefined(recurrence.byDay)) {
+    if (
+      !isArray(recurrence.byDay) ||
+      !recurrence.byDay.every(day => RECURRENCE_DAYS.includes(day))
+    ) {
+      throw new Error("'byDay' expected an array of days, such as 'MO'");
+    }
+    out.byDay = recurrence.byDay;
+  }
+
+  if (!isUndefined(recurrence.byHour)) {
+    if (!isArrayOfIntegers(recurrence.byHour, 0, 23)) {
+      throw new Error("'byHour' expected an array of hours from 0 to 23");
+    }
+    out.byHour = recurrence.byHour;
+  }
+
+  if (!isUndefined(recurrence.byMinute)) {
+    if (!isArrayOfIntegers(recurrence.byMinute, 0, 59)) {
+      throw new Error("'byMinute' expected an array of minutes from 0 to 59");
+    }
+    out.byMinute = recurrence.byMinute;
+  }
+
+  if (!isUndefined(recurrence.count)) {
+    if (!isNumber(recurrence.count) || recurrence.count < 1) {
+      throw new Error("'count' expected a number greater than 0");
+    }
+    out.count = recurrence.count;
+  }
+
+  if (!isUndefined(recurrence.until)) {
+    if (!isNumber(recurrence.until)) {
+      throw new Error("'until' expected a number value");
+    }
+    out.until = recurrence.until;
+  }
+
+  if (!isUndefined(recurrence.excludedDates)) {
+    if (!isArray(recurrence.excludedDates) || !recurrence.excludedDates.every(isNumber)) {
+      throw new Error("'excludedDates' expected an array of number values");
+    }
+    out.excludedDates = recurrence.excludedDates;
+  }
+
+  if (!isUndefined(recurrence.timeZone)) {
+    if (!isString(recurrence.timeZone)) {
+      throw new Error("'timeZone' expected a string value");
+    }
+    out.timeZone = recurrence.timeZone;
+  }
+
+  return out;
+}
+
 function validateTimestampAlarmManager(
   alarmManager?: TimestampTriggerAlarmManager,
 ): TimestampTriggerAlarmManager {
@@ -134,7 +233,27 @@ function validateIntervalTrigger(trigger: IntervalTrigger): IntervalTrigger {
     out.timeUnit = trigger.timeUnit;
   }
 
-  if (!isMinimumInterval(trigger.interval, out.timeUnit)) {
+  if (objectHasProperty(trigger, 'alarmManager') && !isUndefined(trigger.alarmManager)) {
+    if (isBoolean(trigger.alarmManager)) {
+      if (trigger.alarmManager) {
+        out.alarmManager = validateTimestampAlarmManager();
+      }
+    } else {
+      try {
+        out.alarmManager = validateTimestampAlarmManager(trigger.alarmManager);
+      } catch (e: any) {
+        throw new Error(`'trigger.alarmManager' ${e.message}.`);
+      }
+    }
+  }
+
+  if (out.alarmManager) {
+    if (!isMinimumInterval(trigger.interval, out.timeUnit, MINIMUM_ALARM_MANAGER_INTERVAL)) {
+      throw new Error(
+        "'trigger.interval' expected to be at least 1 minute when using 'trigger.alarmManager'.",
+      );
+    }
+  } else if (!isMinimumInterval(trigger.interval, out.timeUnit)) {
     throw new Error("'trigger.interval' expected to be at least 15 minutes.");
   }
 
@@ -166,6 +166,17 @@ describe('Validate Android Notification', () => {
       );
     });
 
+    test('throws an error when progressiveImages is invalid', () => {
+      const channelGroup: NotificationAndroid = {
+        channelId: 'channelId',
+        progressiveImages: [] as any,
+      };
+
+      expect(() => validateAndroidNotification(channelGroup)).toThrowError(
+        "'notification.android.progressiveImages' expected a boolean value.",
+      );
+    });
+
     test('throws an error when autoCancel is invalid', () => {
       const channelGroup: NotificationAndroid = {
         channelId: 'channelId',
@@ -6,6 +6,7 @@ import {
   IntervalTrigger,
   TimeUnit,
   AlarmType,
+  RepeatFrequency,
 } from '@notifee/react-native/src/types/Trigger';
 
 describe('Validate Trigger', () => {
@@ -129,6 +130,47 @@ describe('Validate Trigger', () => {
         expect($.timestamp).toEqual(date.getTime());
       });
 
+      describe('recurrence', () => {
+        test('returns a valid recurrence', () => {
+          const trigger: TimestampTrigger = {
+            type: TriggerType.TIMESTAMP,
+            timestamp: Date.now() + 1000,
+            recurrence: {
+              frequency: RepeatFrequency.WEEKLY,
+              byDay: ['MO', 'FR'],
+              byHour: [9],
+              count: 10,
+              timeZone: 'Europe/London',
+            },
+          };
+
+          const $ = validateTrigger(trigger) as TimestampTrigger;
+
+          expect($.recurrence).toEqual(trigger.recurrence);
+        });
+
+        test('throws error if recurrence is invalid', () => {
+          const trigger: TimestampTrigger = {
+            type: TriggerType.TIMESTAMP,
+            timestamp: Date.now() + 1000,
+            recurrence: {
+              frequency: RepeatFrequency.DAILY,
+              byHour: [24],
+            },
+          };
+
+          expect(() => validateTrigger(trigger)).toThrowError(
+            "'trigger.recurrence' 'byHour' expected an array of hours from 0 to 23.",
+          );
+
+          trigger.recurrence = { frequency: RepeatFrequency.NONE };
+
+          expect(() => validateTrigger(trigger)).toThrowError(
+            "'trigger.recurrence' 'frequency' expected a RepeatFrequency value other than NONE.",
+          );
+        });
+      });
+
       describe('alarmManager', () => {
         test('ignores property when false', () => {
           const date = new Date(Date.now());
@@ -303,6 +345,31 @@ describe('Validate Trigger', () => {
         );
       });
 
+      test('allows intervals down to 1 minute with alarmManager', () => {
+        const trigger: IntervalTrigger = {
+          type: TriggerType.INTERVAL,
+          timeUnit: TimeUnit.MINUTES,
+          interval: 1,
+          alarmManager: true,
+        };
+
+        const $ = validateTrigger(trigger) as IntervalTrigger;
+
+        expect($.interval).toEqual(1);
+        expect($.alarmManager).toEqual({ type: AlarmType.SET_EXACT });
+
+        expect(() =>
+          validateTrigger({
+            type: TriggerType.INTERVAL,
+            timeUnit: TimeUnit.SECONDS,
+            interval: 30,
+            alarmManager: { type: AlarmType.SET },
+          }),
+        ).toThrowError(
+          "'trigger.interval' expected to be at least 1 minute when using 'trigger.alarmManager'.",
+        );
+      });
+
       test('returns a valid interval trigger object', () => {
         const date = new Date(Date.now());
         date.setSeconds(date.getSeconds() + 10);